@@ -96,6 +96,45 @@ public abstract class Light {
 	
 	abstract protected void setMesh();
 
+	/**
+	 * Prepares the light for the next frame, doing everything update() does except for
+	 * casting the rays and updating the mesh.
+	 * 
+	 * Lights that cannot have their rays cast separately simply update themselves here.
+	 * 
+	 * @param skipUnchanged - whether lights whose position, rays and geometry
+	 *            did not change since their rays were last cast can be skipped
+	 * @return true if castRays and setMesh need to be called to finish the update
+	 */
+	boolean prepareUpdate(boolean skipUnchanged) {
+		update();
+		return false;
+	}
+
+	/**
+	 * Casts the rays of the light against the supplied index, or against
+	 * the world of the ray handler if the index is null.
+	 * 
+	 * When casting against an index, this can be called from any thread.
+	 * 
+	 * @param index
+	 */
+	void castRays(StaticEdgeIndex index) {
+	}
+
+	/**
+	 * Returns true if the supplied edge of the static geometry should stop the rays
+	 * of this light. This must match the ray cast callback of the light and
+	 * must be safe to call from any thread.
+	 * 
+	 * @param index
+	 * @param edge
+	 * @return
+	 */
+	protected boolean isBlockedBy(StaticEdgeIndex index, int edge) {
+		return filterA == null || index.passesFilter(edge, filterA);
+	}
+
 	public abstract void render();
 
 	public abstract void setDirection(float directionDegree);
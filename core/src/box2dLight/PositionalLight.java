@@ -22,6 +22,13 @@ public abstract class PositionalLight extends Light {
 	protected final float endX[];
 	protected final float endY[];
 
+	// the inputs the rays were last cast with, unchanged lights are not cast again
+	private final Vector2 castStart = new Vector2();
+	private final float castEndX[];
+	private final float castEndY[];
+	private int castGeometryVersion = -1;
+	private float castColorF;
+
 	/** attach positional light to automatically follow body. Position is fixed to given offset. */
 	@Override
 	public void attachToBody (Body body, float offsetX, float offSetY) {
@@ -74,7 +81,16 @@ public abstract class PositionalLight extends Light {
 
 	@Override
 	public void update () {
+		if (prepareUpdate(false)) {
+			castRays(null);
+			setMesh();
+		}
+	}
+
+	@Override
+	boolean prepareUpdate (boolean skipUnchanged) {
 		boolean isUnchangedStatic = staticLight && !dirty;
+		boolean wasDirty = dirty;
 		dirty = false;
 		if (body != null && !isUnchangedStatic) {
 			final Vector2 vec = body.getPosition();
@@ -90,13 +106,25 @@ public abstract class PositionalLight extends Light {
 
 		if (rayHandler.culling && !isUnchangedStatic) {
 			culled = ((!rayHandler.intersect(start.x, start.y, distance + softShadowLenght)));
-			if (culled) return;
+			if (culled) return false;
 		}
 
 		if (isUnchangedStatic) {
-			return;
+			return false;
+		}
+
+		if (skipUnchanged && !wasDirty && isCastUnchanged()) {
+			if (castColorF != colorF) {
+				castColorF = colorF;
+				setMesh();
+			}
+			return false;
 		}
+		return true;
+	}
 
+	@Override
+	void castRays (StaticEdgeIndex index) {
 		for (int i = 0; i < rayNum; i++) {
 			m_index = i;
 			f[i] = 1f;
@@ -104,11 +132,53 @@ public abstract class PositionalLight extends Light {
 			mx[i] = tmpEnd.x;
 			tmpEnd.y = endY[i] + start.y;
 			my[i] = tmpEnd.y;
-			if (rayHandler.world != null && !xray) {
+			if (xray) {
+				continue;
+			}
+			if (index != null) {
+				castRay(index, i);
+			} else if (rayHandler.world != null) {
 				rayHandler.world.rayCast(getRayCastCallback(), start, tmpEnd);
 			}
 		}
-		setMesh();
+		recordCastInputs();
+	}
+
+	/** stops the ray at the closest edge of the index that blocks this light */
+	private void castRay (StaticEdgeIndex index, int ray) {
+		final float rayEndX = mx[ray];
+		final float rayEndY = my[ray];
+		StaticEdgeIndex.Hits hits = index.rayCast(start.x, start.y, rayEndX, rayEndY);
+		for (int i = 0; i < hits.size(); i++) {
+			if (isBlockedBy(index, hits.getEdge(i))) {
+				final float fraction = hits.getFraction(i);
+				mx[ray] = (1 - fraction) * start.x + fraction * rayEndX;
+				my[ray] = (1 - fraction) * start.y + fraction * rayEndY;
+				f[ray] = fraction;
+				return;
+			}
+		}
+	}
+
+	/** remembers what the rays were cast with, so that the next update can tell whether anything changed */
+	void recordCastInputs () {
+		castStart.set(start);
+		System.arraycopy(endX, 0, castEndX, 0, rayNum);
+		System.arraycopy(endY, 0, castEndY, 0, rayNum);
+		castGeometryVersion = rayHandler.getGeometryVersion();
+		castColorF = colorF;
+	}
+
+	private boolean isCastUnchanged () {
+		if (castGeometryVersion != rayHandler.getGeometryVersion() || !castStart.equals(start)) {
+			return false;
+		}
+		for (int i = 0; i < rayNum; i++) {
+			if (castEndX[i] != endX[i] || castEndY[i] != endY[i]) {
+				return false;
+			}
+		}
+		return true;
 	}
 
 	protected void setMesh () {
@@ -164,6 +234,8 @@ public abstract class PositionalLight extends Light {
 		cos = new float[rays];
 		endX = new float[rays];
 		endY = new float[rays];
+		castEndX = new float[rays];
+		castEndY = new float[rays];
 
 		lightMesh = new Mesh(VertexDataType.VertexArray, false, vertexNum, 0, new VertexAttribute(Usage.Position, 2,
 			"vertex_positions"), new VertexAttribute(Usage.ColorPacked, 4, "quad_colors"),
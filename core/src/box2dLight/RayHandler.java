@@ -5,6 +5,7 @@ package box2dLight;
  *
  */
 
+import mg.fishchicken.core.util.ParallelUtil;
 import shaders.LightShader;
 
 import com.badlogic.gdx.Gdx;
@@ -57,6 +58,17 @@ public class RayHandler implements Disposable {
 	/** how many lights passed culling and rendered to scene */
 	public int lightRenderedLastFrame = 0;
 
+	private boolean staticGeometry = false;
+	private StaticEdgeIndex staticEdgeIndex; // lazy init
+	private int geometryVersion = 0;
+	private final Array<Light> lightsToCast = new Array<Light>(false, 16);
+	private final ParallelUtil.ItemTask<Light> castTask = new ParallelUtil.ItemTask<Light>() {
+		@Override
+		public void run(Light light) {
+			light.castRays(staticEdgeIndex);
+		}
+	};
+
 	/**
 	 * Construct handler that manages everything related to updating and
 	 * rendering the lights MINIMUM parameters needed are world where collision
@@ -218,11 +230,76 @@ public class RayHandler implements Disposable {
 	 * steps than rendering steps.
 	 */
 	public final void update() {
+		StaticEdgeIndex index = getStaticEdgeIndex();
 		final int size = lightList.size;
 		for (int j = 0; j < size; j++) {
-			lightList.get(j).update();
+			Light light = lightList.get(j);
+			if (light.prepareUpdate(index != null)) {
+				lightsToCast.add(light);
+			}
+		}
+
+		// the index is immutable, so rays can be cast against it from any thread,
+		// only the meshes have to be updated on this one
+		if (index != null && lightsToCast.size > 1) {
+			ParallelUtil.forEach(lightsToCast, castTask);
+		} else {
+			for (int j = 0; j < lightsToCast.size; j++) {
+				lightsToCast.get(j).castRays(index);
+			}
+		}
+		for (int j = 0; j < lightsToCast.size; j++) {
+			lightsToCast.get(j).setMesh();
 		}
+		lightsToCast.clear();
+	}
 
+	/**
+	 * Enables or disables casting the rays against a snapshot of the world
+	 * instead of the world itself.
+	 * 
+	 * The snapshot is immutable, which allows the rays of all lights to be cast in parallel
+	 * and lights that did not change since the last update to be skipped entirely.
+	 * It does not follow changes of the world though, so it can only be used if
+	 * the world is static and geometryChanged() is called whenever that is not true.
+	 * 
+	 * Default = false
+	 * 
+	 * @param staticGeometry
+	 */
+	public final void setStaticGeometry(boolean staticGeometry) {
+		this.staticGeometry = staticGeometry;
+		geometryChanged();
+	}
+
+	/**
+	 * Notifies the handler that bodies in its world were added, removed or changed.
+	 * The snapshot of the world will be rebuilt and all lights will cast their rays again
+	 * on the next update.
+	 */
+	public final void geometryChanged() {
+		staticEdgeIndex = null;
+		++geometryVersion;
+	}
+
+	/**
+	 * Returns the number of times the geometry of the world changed. Lights compare this
+	 * to the value they last cast their rays with to find out if they need to cast them again.
+	 * 
+	 * @return
+	 */
+	final int getGeometryVersion() {
+		return geometryVersion;
+	}
+
+	private StaticEdgeIndex getStaticEdgeIndex() {
+		if (!staticGeometry || world == null) {
+			return null;
+		}
+		if (staticEdgeIndex == null) {
+			staticEdgeIndex = new StaticEdgeIndex(world);
+		}
+		return staticEdgeIndex;
 	}
 
 	/**
@@ -420,6 +497,7 @@ public class RayHandler implements Disposable {
 	 */
 	public final void setWorld(World world) {
 		this.world = world;
+		geometryChanged();
 	}
 
 	static boolean gammaCorrection = false;
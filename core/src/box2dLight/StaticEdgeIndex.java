@@ -0,0 +1,358 @@
+package box2dLight;
+
+import java.util.Arrays;
+
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.Body;
+import com.badlogic.gdx.physics.box2d.EdgeShape;
+import com.badlogic.gdx.physics.box2d.Filter;
+import com.badlogic.gdx.physics.box2d.Fixture;
+import com.badlogic.gdx.physics.box2d.Shape;
+import com.badlogic.gdx.physics.box2d.World;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.FloatArray;
+import com.badlogic.gdx.utils.ShortArray;
+
+/**
+ * Immutable snapshot of the edge fixtures of all active bodies in a Box2D world,
+ * which rays can be cast against from any thread.
+ *
+ * The edges are sorted into a uniform grid of cells, one world unit in size, so that
+ * each ray is only tested against the edges in the cells it passes through. The intersection
+ * test is the same one Box2D uses for edge shapes, so the results match those of
+ * {@link World#rayCast(com.badlogic.gdx.physics.box2d.RayCastCallback, Vector2, Vector2)}.
+ *
+ * The snapshot does not follow changes of the world, it has to be rebuilt
+ * whenever bodies are added, removed, moved, activated or deactivated.
+ *
+ */
+public class StaticEdgeIndex {
+
+	// how far from a cell an edge or a ray can be and still be considered to touch it
+	private static final float CELL_MARGIN = 0.001f;
+
+	// four floats (start x, start y, end x, end y) per edge
+	private final float[] edges;
+	private final Object[] userData;
+	// category bits, mask bits and group index per edge
+	private final short[] filters;
+	private final int originX, originY, columns, rows;
+	// the edges of cell i are cellEdges[cellStarts[i]] to cellEdges[cellStarts[i + 1] - 1]
+	private final int[] cellStarts;
+	private final int[] cellEdges;
+	private final ThreadLocal<Hits> hits;
+
+	/**
+	 * Creates a new index of the edge fixtures of all active bodies
+	 * in the supplied world.
+	 *
+	 * This must be called from the thread that owns the world.
+	 *
+	 * @param world
+	 */
+	public StaticEdgeIndex(World world) {
+		FloatArray edgeList = new FloatArray();
+		Array<Object> userDataList = new Array<Object>();
+		ShortArray filterList = new ShortArray();
+		Array<Body> bodies = new Array<Body>();
+		world.getBodies(bodies);
+		Vector2 vertex = new Vector2();
+		for (Body body : bodies) {
+			if (!body.isActive()) {
+				continue;
+			}
+			for (Fixture fixture : body.getFixtureList()) {
+				if (fixture.getType() != Shape.Type.Edge) {
+					continue;
+				}
+				EdgeShape shape = (EdgeShape) fixture.getShape();
+				shape.getVertex1(vertex);
+				Vector2 worldVertex = body.getWorldPoint(vertex);
+				edgeList.add(worldVertex.x, worldVertex.y);
+				shape.getVertex2(vertex);
+				worldVertex = body.getWorldPoint(vertex);
+				edgeList.add(worldVertex.x, worldVertex.y);
+				userDataList.add(fixture.getUserData());
+				Filter filter = fixture.getFilterData();
+				filterList.add(filter.categoryBits);
+				filterList.add(filter.maskBits);
+				filterList.add(filter.groupIndex);
+			}
+		}
+		edges = edgeList.toArray();
+		userData = userDataList.toArray();
+		filters = filterList.toArray();
+
+		float minX = 0, minY = 0, maxX = 0, maxY = 0;
+		for (int i = 0; i < edges.length; i += 2) {
+			if (i == 0 || edges[i] < minX) {
+				minX = edges[i];
+			}
+			if (i == 0 || edges[i] > maxX) {
+				maxX = edges[i];
+			}
+			if (i == 0 || edges[i + 1] < minY) {
+				minY = edges[i + 1];
+			}
+			if (i == 0 || edges[i + 1] > maxY) {
+				maxY = edges[i + 1];
+			}
+		}
+		originX = (int) Math.floor(minX) - 1;
+		originY = (int) Math.floor(minY) - 1;
+		columns = (int) Math.floor(maxX) - originX + 2;
+		rows = (int) Math.floor(maxY) - originY + 2;
+
+		// count the edges in each cell first, then store them
+		cellStarts = new int[columns * rows + 1];
+		CellVisitor counter = new CellVisitor() {
+			@Override
+			public void visit(int cell, int edge) {
+				++cellStarts[cell + 1];
+			}
+		};
+		int edgeCount = getEdgeCount();
+		for (int i = 0; i < edgeCount; ++i) {
+			visitCells(edges[i * 4], edges[i * 4 + 1], edges[i * 4 + 2], edges[i * 4 + 3], counter, i);
+		}
+		for (int i = 1; i < cellStarts.length; ++i) {
+			cellStarts[i] += cellStarts[i - 1];
+		}
+		cellEdges = new int[cellStarts[cellStarts.length - 1]];
+		final int[] cellFill = new int[columns * rows];
+		CellVisitor filler = new CellVisitor() {
+			@Override
+			public void visit(int cell, int edge) {
+				cellEdges[cellStarts[cell] + cellFill[cell]++] = edge;
+			}
+		};
+		for (int i = 0; i < edgeCount; ++i) {
+			visitCells(edges[i * 4], edges[i * 4 + 1], edges[i * 4 + 2], edges[i * 4 + 3], filler, i);
+		}
+
+		hits = new ThreadLocal<Hits>() {
+			@Override
+			protected Hits initialValue() {
+				return new Hits(getEdgeCount());
+			}
+		};
+	}
+
+	public int getEdgeCount() {
+		return userData.length;
+	}
+
+	/**
+	 * Returns the user data of the fixture the supplied edge belongs to.
+	 *
+	 * @param edge
+	 * @return
+	 */
+	public Object getUserData(int edge) {
+		return userData[edge];
+	}
+
+	/**
+	 * Returns true if the fixture the supplied edge belongs to
+	 * should collide with the supplied filter, using the same rules
+	 * as the default Box2D contact filter.
+	 *
+	 * @param edge
+	 * @param filter
+	 * @return
+	 */
+	public boolean passesFilter(int edge, Filter filter) {
+		short categoryBits = filters[edge * 3];
+		short maskBits = filters[edge * 3 + 1];
+		short groupIndex = filters[edge * 3 + 2];
+		if (filter.groupIndex == groupIndex && groupIndex != 0) {
+			return groupIndex > 0;
+		}
+		return (filter.maskBits & categoryBits) != 0 && (filter.categoryBits & maskBits) != 0;
+	}
+
+	/**
+	 * Casts a ray from the first to the second point and returns all edges
+	 * it crosses, sorted by the fraction of the ray at which it crosses them.
+	 *
+	 * The returned hits belong to the calling thread and are only valid
+	 * until it casts the next ray.
+	 *
+	 * @param x1
+	 * @param y1
+	 * @param x2
+	 * @param y2
+	 * @return
+	 */
+	public Hits rayCast(float x1, float y1, float x2, float y2) {
+		Hits rayHits = hits.get();
+		rayHits.reset(x1, y1, x2, y2);
+		visitCells(x1, y1, x2, y2, rayHits, -1);
+		rayHits.sort();
+		return rayHits;
+	}
+
+	/**
+	 * Calls the visitor for every cell the supplied segment touches, including cells
+	 * it only touches on their border.
+	 *
+	 * Goes over the columns the segment spans and for each of them visits the cells
+	 * between the lowest and highest point of the segment within that column.
+	 */
+	private void visitCells(float x1, float y1, float x2, float y2, CellVisitor visitor, int edge) {
+		if (x1 > x2) {
+			float temp = x1;
+			x1 = x2;
+			x2 = temp;
+			temp = y1;
+			y1 = y2;
+			y2 = temp;
+		}
+		float slope = x2 - x1 > 0 ? (y2 - y1) / (x2 - x1) : 0;
+		int firstColumn = Math.max((int) Math.floor(x1 - CELL_MARGIN) - originX, 0);
+		int lastColumn = Math.min((int) Math.floor(x2 + CELL_MARGIN) - originX, columns - 1);
+		for (int column = firstColumn; column <= lastColumn; ++column) {
+			float columnStart = Math.max(column + originX - CELL_MARGIN, x1);
+			float columnEnd = Math.min(column + originX + 1 + CELL_MARGIN, x2);
+			float yStart = x2 - x1 > 0 ? y1 + (columnStart - x1) * slope : y1;
+			float yEnd = x2 - x1 > 0 ? y1 + (columnEnd - x1) * slope : y2;
+			if (yStart > yEnd) {
+				float temp = yStart;
+				yStart = yEnd;
+				yEnd = temp;
+			}
+			int firstRow = Math.max((int) Math.floor(yStart - CELL_MARGIN) - originY, 0);
+			int lastRow = Math.min((int) Math.floor(yEnd + CELL_MARGIN) - originY, rows - 1);
+			for (int row = firstRow; row <= lastRow; ++row) {
+				visitor.visit(row * columns + column, edge);
+			}
+		}
+	}
+
+	private static interface CellVisitor {
+		public void visit(int cell, int edge);
+	}
+
+	/**
+	 * The edges a single ray crosses, each one only once.
+	 * Every thread gets its own instance.
+	 */
+	public class Hits implements CellVisitor {
+		private final int[] visitedInRay;
+		private int ray;
+		private float p1x, p1y, p2x, p2y;
+		private int size;
+		private int[] hitEdges = new int[16];
+		private float[] fractions = new float[16];
+
+		private Hits(int edgeCount) {
+			visitedInRay = new int[edgeCount];
+		}
+
+		public int size() {
+			return size;
+		}
+
+		public int getEdge(int index) {
+			return hitEdges[index];
+		}
+
+		public float getFraction(int index) {
+			return fractions[index];
+		}
+
+		private void reset(float p1x, float p1y, float p2x, float p2y) {
+			this.p1x = p1x;
+			this.p1y = p1y;
+			this.p2x = p2x;
+			this.p2y = p2y;
+			size = 0;
+			if (++ray == 0) {
+				// wrapped around, forget all previous rays
+				Arrays.fill(visitedInRay, 0);
+				ray = 1;
+			}
+		}
+
+		@Override
+		public void visit(int cell, int unused) {
+			for (int i = cellStarts[cell], end = cellStarts[cell + 1]; i < end; ++i) {
+				int edge = cellEdges[i];
+				if (visitedInRay[edge] == ray) {
+					continue;
+				}
+				visitedInRay[edge] = ray;
+				float fraction = intersect(edge);
+				if (fraction >= 0) {
+					add(edge, fraction);
+				}
+			}
+		}
+
+		/**
+		 * The edge shape ray cast of Box2D.
+		 *
+		 * @return the fraction of the ray at which it crosses the edge, or -1 if it does not
+		 */
+		private float intersect(int edge) {
+			float v1x = edges[edge * 4];
+			float v1y = edges[edge * 4 + 1];
+			float v2x = edges[edge * 4 + 2];
+			float v2y = edges[edge * 4 + 3];
+			float ex = v2x - v1x;
+			float ey = v2y - v1y;
+			float length = (float) Math.sqrt(ex * ex + ey * ey);
+			if (length < 1.1920929E-7f) {
+				return -1;
+			}
+			float normalX = ey / length;
+			float normalY = -ex / length;
+			float dx = p2x - p1x;
+			float dy = p2y - p1y;
+			float numerator = normalX * (v1x - p1x) + normalY * (v1y - p1y);
+			float denominator = normalX * dx + normalY * dy;
+			if (denominator == 0) {
+				return -1;
+			}
+			float t = numerator / denominator;
+			if (t < 0 || t > 1) {
+				return -1;
+			}
+			float qx = p1x + t * dx;
+			float qy = p1y + t * dy;
+			float rr = ex * ex + ey * ey;
+			float s = ((qx - v1x) * ex + (qy - v1y) * ey) / rr;
+			if (s < 0 || s > 1) {
+				return -1;
+			}
+			return t;
+		}
+
+		private void add(int edge, float fraction) {
+			if (size == hitEdges.length) {
+				hitEdges = Arrays.copyOf(hitEdges, size * 2);
+				fractions = Arrays.copyOf(fractions, size * 2);
+			}
+			hitEdges[size] = edge;
+			fractions[size] = fraction;
+			++size;
+		}
+
+		/**
+		 * Stable insertion sort by fraction, rays only ever cross a few edges.
+		 */
+		private void sort() {
+			for (int i = 1; i < size; ++i) {
+				int edge = hitEdges[i];
+				float fraction = fractions[i];
+				int j = i - 1;
+				for (; j >= 0 && fractions[j] > fraction; --j) {
+					hitEdges[j + 1] = hitEdges[j];
+					fractions[j + 1] = fractions[j];
+				}
+				hitEdges[j + 1] = edge;
+				fractions[j + 1] = fraction;
+			}
+		}
+	}
+}
@@ -100,7 +100,7 @@ public class ViewConeLight extends ConeLight implements OrientedThing {
 	}
 
 	@Override
-	public void update() {
+	boolean prepareUpdate(boolean skipUnchanged) {
 		if (viewConeTween != null) {
 			viewConeTween.update(Gdx.graphics.getDeltaTime());
 			if (viewConeTween.isFinished()) {
@@ -108,11 +108,21 @@ public class ViewConeLight extends ConeLight implements OrientedThing {
 				viewConeTween = null;
 			}
 		}
-		if (rayHandler.culling) {
-			culled = ((!rayHandler.intersect(start.x, start.y, distance
-					+ softShadowLenght)));
-			if (culled)
-				return;
+		return super.prepareUpdate(skipUnchanged);
+	}
+
+	@Override
+	protected boolean isBlockedBy(StaticEdgeIndex index, int edge) {
+		FixtureUserData userData = (FixtureUserData) index.getUserData(edge);
+		return userData.type == UserDataType.LOS_BLOCKER_TILE
+				|| userData.type == UserDataType.LOS_BLOCKER_POLYGON_GROUND;
+	}
+
+	@Override
+	void castRays(StaticEdgeIndex index) {
+		if (index != null) {
+			super.castRays(index);
+			return;
 		}
 
 		if (tmpEnd == null) {
@@ -143,7 +153,7 @@ public class ViewConeLight extends ConeLight implements OrientedThing {
 				}
 			}
 		}
-		setMesh();
+		recordCastInputs();
 	}
 
 	@Override
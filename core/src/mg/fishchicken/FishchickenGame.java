@@ -2,6 +2,7 @@ package mg.fishchicken;
 
 import mg.fishchicken.core.GameState;
 import mg.fishchicken.core.assets.Assets;
+import mg.fishchicken.core.assets.ModuleDataCache;
 import mg.fishchicken.core.configuration.Configuration;
 import mg.fishchicken.gamelogic.locations.CombatGameMap.CombatMapInitializationData;
 import mg.fishchicken.gamelogic.locations.GameMap;
@@ -42,6 +43,8 @@ public class FishchickenGame extends Game {
 	public void dispose () {
 		gameState = null;
 		Configuration.writeOptions(Gdx.files);
+		// keep what was parsed during the game, like dialogues
+		ModuleDataCache.save();
 		disposeScreens();
 		super.dispose();
 		UIManager.dispose();
@@ -137,6 +140,7 @@ public class FishchickenGame extends Game {
 	
 	public void reloadGame() {
 		gameState = null;
+		ModuleDataCache.save();
 		disposeScreens();
 		Assets.getAssetManager().clear();
 		setScreen(new ModuleLoadingScreen(this));
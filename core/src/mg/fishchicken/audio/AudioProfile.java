@@ -6,6 +6,7 @@ import java.util.Locale;
 import mg.fishchicken.core.assets.AssetContainer;
 import mg.fishchicken.core.assets.AssetMap;
 import mg.fishchicken.core.assets.Assets;
+import mg.fishchicken.core.assets.ModuleDataCache;
 import mg.fishchicken.core.configuration.Configuration;
 import mg.fishchicken.core.i18n.Strings;
 import mg.fishchicken.core.saveload.XMLLoadable;
@@ -15,7 +16,6 @@ import mg.fishchicken.gamelogic.characters.GameCharacter;
 import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.ObjectMap;
-import com.badlogic.gdx.utils.XmlReader;
 import com.badlogic.gdx.utils.XmlReader.Element;
 
 /**
@@ -142,8 +142,7 @@ public class AudioProfile implements XMLLoadable, AssetContainer, AudioContainer
 
 	@Override
 	public void loadFromXMLNoInit(FileHandle file) throws IOException {
-		XmlReader xmlReader = new XmlReader();
-		Element root = xmlReader.parse(file);
+		Element root = ModuleDataCache.parse(file);
 		XMLUtil.handleImports(this, file, root);
 		XMLUtil.readPrimitiveMembers(this, root);
 		XMLUtil.readTracks(this, root.getChildByName(XML_AUDIO));
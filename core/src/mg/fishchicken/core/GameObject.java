@@ -138,6 +138,9 @@ public abstract class GameObject implements ActionsContainer, VariableContainer,
 	 */
 	public void setId(String id) {
 		s_id = id;
+		if (map != null) {
+			GameState.getGameObjectIndex().update(this);
+		}
 	}
 	
 	/**
@@ -213,7 +216,14 @@ public abstract class GameObject implements ActionsContainer, VariableContainer,
 		handlePositionChanges();
 	}
 	
-	private void handlePositionChanges() {
+	/**
+	 * Fires the position and tile change events if the position
+	 * of this GO changed since they were last fired.
+	 * 
+	 * This is done automatically before and after each update, but actions
+	 * that move the GO several tiles in one update should call it after each tile.
+	 */
+	public void handlePositionChanges() {
 		if (getMap() == null) {
 			return;
 		}
@@ -719,6 +729,19 @@ public abstract class GameObject implements ActionsContainer, VariableContainer,
 		return s_global;
 	}
 
+	/**
+	 * Returns true if this game object must be updated every frame,
+	 * even when it is far away from the screen.
+	 * 
+	 * All other game objects away from the screen are updated less often, but
+	 * always by all the time that passed since their last update.
+	 * 
+	 * @return
+	 */
+	public boolean requiresFullSimulation() {
+		return false;
+	}
+
 	public void setGlobal(boolean isGlobal) {
 		this.s_global = isGlobal;
 		if (isGlobal) {
@@ -865,6 +888,10 @@ public abstract class GameObject implements ActionsContainer, VariableContainer,
 	
 	public void loadFromXML(Element root) throws IOException {
 		XMLUtil.readPrimitiveMembers(this, root.getChildByName(XMLUtil.XML_PROPERTIES));
+		if (map != null) {
+			// the ids might have been changed
+			GameState.getGameObjectIndex().update(this);
+		}
 		variables.loadFromXML(root);
 		position.loadFromXML(root);
 		
@@ -0,0 +1,251 @@
+package mg.fishchicken.core;
+
+import java.util.Locale;
+
+import mg.fishchicken.gamelogic.locations.GameMap;
+
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IdentityMap;
+import com.badlogic.gdx.utils.ObjectIntMap;
+import com.badlogic.gdx.utils.ObjectMap;
+
+/**
+ * World wide index of all game objects that belong to a map,
+ * regardless of which map that is.
+ *
+ * Objects are indexed by their lower cased id and internal id, so that they can
+ * be found by either in constant time, instead of walking the game objects of every
+ * known map. GameMap keeps the index up to date as objects are added to it
+ * and removed from it.
+ *
+ * Type filtered lookups do not call isAssignableFrom for every candidate. Each class
+ * used as a filter is assigned a bit, and for each class of indexed objects
+ * a mask of the filter classes it is assignable to is built lazily and cached.
+ *
+ */
+public class GameObjectIndex {
+
+	// all filter classes beyond this number are checked directly
+	private static final int MAX_FILTER_CLASSES = 64;
+
+	private final ObjectMap<String, Array<Entry>> byId;
+	private final ObjectMap<String, Entry> byInternalId;
+	private final IdentityMap<GameObject, Entry> entries;
+	private final ObjectIntMap<Class<?>> filterClassBits;
+	// for each class of indexed objects: [bits already evaluated, bits that match]
+	private final IdentityMap<Class<?>, long[]> classMasks;
+
+	public GameObjectIndex() {
+		byId = new ObjectMap<String, Array<Entry>>();
+		byInternalId = new ObjectMap<String, Entry>();
+		entries = new IdentityMap<GameObject, Entry>();
+		filterClassBits = new ObjectIntMap<Class<?>>();
+		classMasks = new IdentityMap<Class<?>, long[]>();
+	}
+
+	/**
+	 * Adds the supplied game object, which belongs to the supplied map,
+	 * to the index. If it already is indexed, it is reindexed instead.
+	 *
+	 * @param go
+	 * @param map
+	 */
+	public void add(GameObject go, GameMap map) {
+		remove(go);
+		Entry entry = new Entry(go, map, canonicalize(go.getId()), canonicalize(go.getInternalId()));
+		entries.put(go, entry);
+		if (entry.id != null) {
+			Array<Entry> withId = byId.get(entry.id);
+			if (withId == null) {
+				withId = new Array<Entry>(false, 1, Entry.class);
+				byId.put(entry.id, withId);
+			}
+			withId.add(entry);
+		}
+		if (entry.internalId != null) {
+			byInternalId.put(entry.internalId, entry);
+		}
+	}
+
+	/**
+	 * Updates the index after the id or the internal id
+	 * of the supplied game object changed. Does nothing
+	 * if the game object is not indexed.
+	 *
+	 * @param go
+	 */
+	public void update(GameObject go) {
+		Entry entry = entries.get(go);
+		if (entry != null) {
+			add(go, entry.map);
+		}
+	}
+
+	/**
+	 * Removes the supplied game object from the index.
+	 *
+	 * @param go
+	 */
+	public void remove(GameObject go) {
+		Entry entry = entries.remove(go);
+		if (entry == null) {
+			return;
+		}
+		if (entry.id != null) {
+			Array<Entry> withId = byId.get(entry.id);
+			if (withId != null) {
+				withId.removeValue(entry, true);
+				if (withId.size == 0) {
+					byId.remove(entry.id);
+				}
+			}
+		}
+		if (entry.internalId != null && byInternalId.get(entry.internalId) == entry) {
+			byInternalId.remove(entry.internalId);
+		}
+	}
+
+	/**
+	 * Removes all game objects from the index.
+	 */
+	public void clear() {
+		byId.clear();
+		byInternalId.clear();
+		entries.clear();
+	}
+
+	/**
+	 * Returns the map the supplied game object was indexed with,
+	 * or null if it is not indexed.
+	 *
+	 * @param go
+	 * @return
+	 */
+	public GameMap getMap(GameObject go) {
+		Entry entry = entries.get(go);
+		return entry != null ? entry.map : null;
+	}
+
+	/**
+	 * Finds a game object with the supplied id or internal id.
+	 *
+	 * If there are more game objects with the supplied id, the ones
+	 * on the preferred map take precedence.
+	 *
+	 * When looking up by internal id and no game object has it, game objects
+	 * that have it as their id are considered as well.
+	 *
+	 * @param id
+	 * @param useInternal - whether the supplied id is an internal id
+	 * @param preferredMap - can be null
+	 * @param classes - if supplied, only game objects of one of these classes,
+	 *            or inheriting from one of them, are returned
+	 * @return null if nothing was found
+	 */
+	public GameObject find(String id, boolean useInternal, GameMap preferredMap, Class<?>... classes) {
+		id = canonicalize(id);
+		if (id == null) {
+			return null;
+		}
+		long filterMask = getFilterMask(classes);
+		if (useInternal) {
+			Entry entry = byInternalId.get(id);
+			if (entry != null && matches(entry.go, filterMask, classes)) {
+				return entry.go;
+			}
+		}
+		Array<Entry> withId = byId.get(id);
+		if (withId == null) {
+			return null;
+		}
+		GameObject found = null;
+		for (int i = 0; i < withId.size; ++i) {
+			Entry entry = withId.get(i);
+			if (!matches(entry.go, filterMask, classes)) {
+				continue;
+			}
+			if (preferredMap == null || entry.map == preferredMap) {
+				return entry.go;
+			}
+			if (found == null) {
+				found = entry.go;
+			}
+		}
+		return found;
+	}
+
+	public int size() {
+		return entries.size;
+	}
+
+	private long getFilterMask(Class<?>... classes) {
+		long mask = 0;
+		for (int i = 0; i < classes.length; ++i) {
+			int bit = getFilterBit(classes[i]);
+			if (bit >= 0) {
+				mask |= 1L << bit;
+			}
+		}
+		return mask;
+	}
+
+	private int getFilterBit(Class<?> filterClass) {
+		int bit = filterClassBits.get(filterClass, -1);
+		if (bit < 0 && filterClassBits.size < MAX_FILTER_CLASSES) {
+			bit = filterClassBits.size;
+			filterClassBits.put(filterClass, bit);
+		}
+		return bit;
+	}
+
+	private boolean matches(GameObject go, long filterMask, Class<?>... classes) {
+		if (classes.length < 1) {
+			return true;
+		}
+		Class<?> goClass = go.getClass();
+		long[] mask = classMasks.get(goClass);
+		if (mask == null) {
+			mask = new long[2];
+			classMasks.put(goClass, mask);
+		}
+		long unevaluated = filterMask & ~mask[0];
+		if (unevaluated != 0) {
+			for (int i = 0; i < classes.length; ++i) {
+				int bit = filterClassBits.get(classes[i], -1);
+				if (bit >= 0 && (unevaluated & (1L << bit)) != 0) {
+					mask[0] |= 1L << bit;
+					if (classes[i].isAssignableFrom(goClass)) {
+						mask[1] |= 1L << bit;
+					}
+				}
+			}
+		}
+		if ((mask[1] & filterMask) != 0) {
+			return true;
+		}
+		// filter classes that did not get a bit
+		for (int i = 0; i < classes.length; ++i) {
+			if (!filterClassBits.containsKey(classes[i]) && classes[i].isAssignableFrom(goClass)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static String canonicalize(String id) {
+		return id != null ? id.toLowerCase(Locale.ENGLISH) : null;
+	}
+
+	private static class Entry {
+		private final GameObject go;
+		private final GameMap map;
+		private final String id, internalId;
+
+		private Entry(GameObject go, GameMap map, String id, String internalId) {
+			this.go = go;
+			this.map = map;
+			this.id = id;
+			this.internalId = internalId;
+		}
+	}
+}
@@ -8,6 +8,7 @@ import java.util.Random;
 import mg.fishchicken.FishchickenGame;
 import mg.fishchicken.audio.AudioTrack;
 import mg.fishchicken.core.FastForwardCallback.InterruptReason;
+import mg.fishchicken.core.SimulationLevelOfDetail.Tier;
 import mg.fishchicken.core.conditions.Condition;
 import mg.fishchicken.core.configuration.Configuration;
 import mg.fishchicken.core.i18n.Strings;
@@ -18,6 +19,7 @@ import mg.fishchicken.core.saveload.GameLoader;
 import mg.fishchicken.core.saveload.GameSaver;
 import mg.fishchicken.core.util.MathUtil;
 import mg.fishchicken.gamelogic.actions.Action;
+import mg.fishchicken.gamelogic.characters.AIScheduler;
 import mg.fishchicken.gamelogic.characters.AbstractGameCharacter;
 import mg.fishchicken.gamelogic.characters.GameCharacter;
 import mg.fishchicken.gamelogic.characters.GameCharacter.Skill;
@@ -76,6 +78,8 @@ public class GameState implements VariableContainer {
 	private ObjectMap<String, Array<GameLocation>> locationsById = new ObjectMap<String, Array<GameLocation>>();
 	private ObjectMap<String, ObjectSet<GameMap>> undisposedMapsByGroup = new ObjectMap<String, ObjectSet<GameMap>>();
 	private ObjectMap<String, GameMap> mapsById = new ObjectMap<String, GameMap>();
+	private GameObjectIndex gameObjectIndex = new GameObjectIndex();
+	private SimulationLevelOfDetail globalSimulation = new SimulationLevelOfDetail(new GlobalTierSelector());
 	private GameMap currentMap;
 	private GameCalendarDate currentDate;
 	private GameCalendar calendar;
@@ -83,6 +87,7 @@ public class GameState implements VariableContainer {
 	
 	private SurvivalManager survivalManager;
 	private CombatManager combatManager;
+	private AIScheduler aiScheduler;
 	private WeatherManager weatherManager;
 	private CrimeManager crimeManager;
 
@@ -98,7 +103,6 @@ public class GameState implements VariableContainer {
 	
 	private Random s_randomGenerator; 
 	private int s_idCounter = 0; 
-	private float globalDelta = 0;
 	private float fastForwardBy = 0f;
 	private float fastForwarded = 0f;
 	private boolean fastForwarding = false; 
@@ -137,6 +141,7 @@ public class GameState implements VariableContainer {
 		
 		playerController = new PlayerCharacterController(this, theGroup);
 		combatManager = new CombatManager(this);
+		aiScheduler = new AIScheduler();
 		weatherManager = new WeatherManager(this);
 		crimeManager = new CrimeManager(this);
 		survivalManager = new SurvivalManager(Gdx.files.internal(Configuration.getFileSurvivalConfiguration()));
@@ -334,8 +339,11 @@ public class GameState implements VariableContainer {
 	}
 	
 	public void clearGameObjects() {
+		aiScheduler.clear();
+		gameObjectIndex.clear();
 		gameObjectsById.clear();
 		gameObjectsByInternalId.clear();
+		globalSimulation.clear();
 		gameObjectsByType.clear();
 		unassignedLocalGameObjectsById.clear();
 		unassignedLocalGameObjectsByInternalId.clear();
@@ -353,6 +361,7 @@ public class GameState implements VariableContainer {
 	public boolean addGameObject(GameObject go) {
 		if (!gameObjectsByInternalId.containsKey(go.getInternalId())) {
 			gameObjectsByInternalId.put(go.getInternalId(), go);
+			globalSimulation.add(go, Tier.OFF_MAP);
 			
 			Array<GameObject> gosById = gameObjectsById.get(go.getId());
 			if (gosById == null) {
@@ -423,6 +432,7 @@ public class GameState implements VariableContainer {
 	 */
 	public void removeGameObject(GameObject go) {
 		gameObjectsByInternalId.remove(go.getInternalId());
+		globalSimulation.remove(go);
 		if (gameObjectsByType.containsKey(go.getType())) {
 			gameObjectsByType.get(go.getType()).removeValue(go, false);
 		}
@@ -502,22 +512,9 @@ public class GameState implements VariableContainer {
 			}
 		}
 		
-		// search objects on the current map
-		if (returnValue == null && currentMap != null) {
-			returnValue = currentMap.getGameObject(id, useInternal, classes);
-		}
-		
-		// search objects on other known maps
+		// search objects on all maps, preferring the current one
 		if (returnValue == null) {
-			for (GameLocation loc : locationsByInternalId.values()) {
-				if (loc instanceof GameMap) {
-					returnValue = ((GameMap)loc).getGameObject(id, useInternal, classes);
-					if (returnValue != null) {
-						break;
-					}
-				}
-				
-			}
+			returnValue = gameObjectIndex.find(id, useInternal, currentMap, classes);
 		}
 		
 		return returnValue;
@@ -737,18 +734,12 @@ public class GameState implements VariableContainer {
 			updateGameTime(gameDeltaTime);
 		}
 		
-		globalDelta += gameDeltaTime / ((float)Configuration.getWorldGameTimeMultiplier() / Configuration.getLocalGameTimeMultiplier());
-		 
-		if (globalDelta > Configuration.getGlobalGameObjectsUpdateInterval()) {
-			for (GameObject go : gameObjectsByInternalId.values()) {
-				if (go.isGlobal() && !currentMap.equals(go.getMap())) {
-					go.update(globalDelta);
-				}
-			}
-			globalDelta = 0;
-		}
+		// global GOs on other maps are updated a few at a time, each by all the time since its last update
+		globalSimulation.update(gameDeltaTime / ((float)Configuration.getWorldGameTimeMultiplier() / Configuration.getLocalGameTimeMultiplier()));
 		
 		
+		aiScheduler.update(currentMap);
+		
 		if (currentMap != null) {
 			combatManager.update(gameDeltaTime);
 			weatherManager.update(gameDeltaTime);
@@ -932,6 +923,45 @@ public class GameState implements VariableContainer {
 		return gameState.theGroup;
 	}
 	
+	/**
+	 * Returns the scheduler that decides when brains 
+	 * get to run their AI scripts outside of combat.
+	 * 
+	 * @return
+	 */
+	public static AIScheduler getAIScheduler() {
+		return gameState.aiScheduler;
+	}
+	
+	/**
+	 * Returns the index of all game objects that belong
+	 * to any map.
+	 * 
+	 * @return
+	 */
+	public static GameObjectIndex getGameObjectIndex() {
+		return gameState.gameObjectIndex;
+	}
+	
+	/**
+	 * Decides how often global game objects get updated. Those on the current map
+	 * are updated by the map itself.
+	 */
+	private class GlobalTierSelector implements SimulationLevelOfDetail.TierSelector {
+		@Override
+		public Tier getTier(GameObject go) {
+			if (!go.isGlobal() || (currentMap != null && currentMap.equals(go.getMap()))) {
+				return null;
+			}
+			return Tier.OFF_MAP;
+		}
+
+		@Override
+		public float getUpdateInterval(Tier tier) {
+			return Configuration.getGlobalGameObjectsUpdateInterval();
+		}
+	}
+	
 	/**
 	 * Returns true if the player can currently end combat.
 	 * 
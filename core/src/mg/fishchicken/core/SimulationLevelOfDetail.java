@@ -0,0 +1,270 @@
+package mg.fishchicken.core;
+
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IdentityMap;
+
+/**
+ * Updates game objects at different frequencies depending on how
+ * close they are to what the player can see.
+ *
+ * Every object is kept in the bucket of its current tier. Objects in the NEAR
+ * tier are updated every frame. Objects in the other tiers are updated round robin,
+ * a few each frame, so that each of them gets updated once per the update interval
+ * of its tier. Every update advances the object by all the time that passed
+ * since its previous update, so actions, brains and effects catch up in a single step.
+ * Actions like moving use up all the time they get, even if it covers several steps.
+ *
+ * The tier of an object is decided by a TierSelector whenever the object
+ * is about to be updated and whenever {@link #retier(Tier)} is called.
+ *
+ */
+public class SimulationLevelOfDetail {
+
+	public static enum Tier {
+		/** on or close to the screen, updated every frame */
+		NEAR,
+		/** on the current map, but away from the screen */
+		FAR,
+		/** not on the current map */
+		OFF_MAP
+	}
+
+	public static interface TierSelector {
+		/**
+		 * Returns the tier the supplied game object currently belongs to.
+		 *
+		 * @param go
+		 * @return the tier, or null if the game object is updated by something else
+		 *         right now and should be skipped
+		 */
+		public Tier getTier(GameObject go);
+
+		/**
+		 * Returns the number of seconds in which every object
+		 * in the supplied tier should be updated once.
+		 *
+		 * @param tier
+		 * @return zero or less if objects in the tier should be updated every frame
+		 */
+		public float getUpdateInterval(Tier tier);
+	}
+
+	private static final Tier[] TIERS = Tier.values();
+
+	private final TierSelector selector;
+	private final Bucket[] buckets;
+	private final IdentityMap<GameObject, Entry> entries;
+	private final Array<Entry> toUpdate;
+	// kept in double precision, so that deltas stay precise in long sessions
+	private double time;
+
+	public SimulationLevelOfDetail(TierSelector selector) {
+		this.selector = selector;
+		buckets = new Bucket[TIERS.length];
+		for (int i = 0; i < TIERS.length; ++i) {
+			buckets[i] = new Bucket(TIERS[i]);
+		}
+		entries = new IdentityMap<GameObject, Entry>();
+		toUpdate = new Array<Entry>(false, 16, Entry.class);
+	}
+
+	/**
+	 * Adds the supplied game object into the supplied tier.
+	 * Does nothing if it was already added.
+	 *
+	 * Its first update will advance it by the time that passes from now on.
+	 *
+	 * @param go
+	 * @param tier
+	 */
+	public void add(GameObject go, Tier tier) {
+		if (entries.containsKey(go)) {
+			return;
+		}
+		Entry entry = new Entry(go, time);
+		entries.put(go, entry);
+		buckets[tier.ordinal()].add(entry);
+	}
+
+	/**
+	 * Removes the supplied game object, it will no longer be updated.
+	 *
+	 * @param go
+	 */
+	public void remove(GameObject go) {
+		Entry entry = entries.remove(go);
+		if (entry != null) {
+			entry.bucket.remove(entry);
+		}
+	}
+
+	public void clear() {
+		for (Entry entry : entries.values()) {
+			entry.bucket = null;
+		}
+		entries.clear();
+		for (Bucket bucket : buckets) {
+			bucket.entries.clear();
+			bucket.cursor = 0;
+			bucket.budget = 0;
+		}
+	}
+
+	/**
+	 * Returns the tier the supplied game object is currently in,
+	 * or null if it was not added.
+	 *
+	 * @param go
+	 * @return
+	 */
+	public Tier getTier(GameObject go) {
+		Entry entry = entries.get(go);
+		return entry != null ? entry.bucket.tier : null;
+	}
+
+	/**
+	 * Returns the number of game objects currently in the supplied tier.
+	 *
+	 * @param tier
+	 * @return
+	 */
+	public int size(Tier tier) {
+		return buckets[tier.ordinal()].entries.size;
+	}
+
+	/**
+	 * Asks the selector for the tier of every game object in the supplied tier
+	 * and moves those that belong elsewhere, without updating any of them.
+	 *
+	 * This should be called whenever something the selector depends on changed,
+	 * like the position of the camera. Objects moved to a faster tier
+	 * will catch up on their next update.
+	 *
+	 * @param tier
+	 */
+	public void retier(Tier tier) {
+		Bucket bucket = buckets[tier.ordinal()];
+		Array<Entry> toCheck = toUpdate.size == 0 ? toUpdate : new Array<Entry>(false, bucket.entries.size,
+				Entry.class);
+		toCheck.addAll(bucket.entries);
+		for (int i = 0; i < toCheck.size; ++i) {
+			Entry entry = toCheck.get(i);
+			Tier newTier = selector.getTier(entry.go);
+			if (newTier != null && newTier != tier) {
+				move(entry, newTier);
+			}
+		}
+		toCheck.clear();
+	}
+
+	/**
+	 * Advances the time by the supplied number of seconds and
+	 * updates all game objects that are due.
+	 *
+	 * @param deltaTime
+	 */
+	public void update(float deltaTime) {
+		time += deltaTime;
+		for (Bucket bucket : buckets) {
+			update(bucket, deltaTime);
+		}
+	}
+
+	private void update(Bucket bucket, float deltaTime) {
+		int size = bucket.entries.size;
+		if (size == 0) {
+			bucket.budget = 0;
+			return;
+		}
+		int count = size;
+		float interval = selector.getUpdateInterval(bucket.tier);
+		if (interval > 0) {
+			bucket.budget = Math.min(bucket.budget + size * deltaTime / interval, size);
+			count = (int) bucket.budget;
+			bucket.budget -= count;
+		}
+		if (count == 0) {
+			return;
+		}
+
+		// objects can add or remove other objects while being updated,
+		// so the ones to update are picked up front
+		Array<Entry> due = toUpdate.size == 0 ? toUpdate : new Array<Entry>(false, count, Entry.class);
+		for (int i = 0; i < count; ++i) {
+			if (bucket.cursor >= size) {
+				bucket.cursor = 0;
+			}
+			due.add(bucket.entries.get(bucket.cursor++));
+		}
+
+		for (int i = 0; i < due.size; ++i) {
+			Entry entry = due.get(i);
+			if (entry.bucket != bucket) {
+				// removed or moved since
+				continue;
+			}
+			Tier tier = selector.getTier(entry.go);
+			if (tier == null) {
+				entry.lastUpdate = time;
+				continue;
+			}
+			if (tier != bucket.tier) {
+				move(entry, tier);
+				if (tier.ordinal() > bucket.tier.ordinal()) {
+					// the slower tier will update it when it is due there
+					continue;
+				}
+			}
+			float delta = (float) (time - entry.lastUpdate);
+			entry.lastUpdate = time;
+			entry.go.update(delta);
+		}
+		due.clear();
+	}
+
+	private void move(Entry entry, Tier tier) {
+		entry.bucket.remove(entry);
+		buckets[tier.ordinal()].add(entry);
+	}
+
+	private static class Bucket {
+		private final Tier tier;
+		private final Array<Entry> entries;
+		// the next entry to update
+		private int cursor;
+		// the number of entries that should have been updated, but were not yet
+		private float budget;
+
+		private Bucket(Tier tier) {
+			this.tier = tier;
+			entries = new Array<Entry>(false, 16, Entry.class);
+		}
+
+		private void add(Entry entry) {
+			entry.bucket = this;
+			entry.index = entries.size;
+			entries.add(entry);
+		}
+
+		private void remove(Entry entry) {
+			int last = entries.size - 1;
+			Entry moved = entries.get(last);
+			entries.set(entry.index, moved);
+			moved.index = entry.index;
+			entries.removeIndex(last);
+			entry.bucket = null;
+		}
+	}
+
+	private static class Entry {
+		private final GameObject go;
+		private Bucket bucket;
+		private int index;
+		private double lastUpdate;
+
+		private Entry(GameObject go, double lastUpdate) {
+			this.go = go;
+			this.lastUpdate = lastUpdate;
+		}
+	}
+}
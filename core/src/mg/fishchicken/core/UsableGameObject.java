@@ -407,7 +407,11 @@ public class UsableGameObject extends AnimatedGameObject implements Lockable, Tr
 	}
 	
 	public void setBlockingPath(boolean blockingPath) {
+		boolean changed = s_blockingPath != blockingPath;
 		s_blockingPath = blockingPath;
+		if (changed && getMap() != null) {
+			getMap().tileBlockerChanged(this);
+		}
 		if (blockingPath) {
 			// any characters will be pushed back when a usable becomes impassable
 			ObjectSet<GameObject> chars = getMap().getAllGameObjectsAt(
@@ -2,6 +2,7 @@ package mg.fishchicken.core.actions;
 
 import groovy.lang.Binding;
 import mg.fishchicken.core.conditions.Condition;
+import mg.fishchicken.core.util.CompiledScript;
 import mg.fishchicken.core.util.XMLUtil;
 
 import com.badlogic.gdx.utils.XmlReader.Element;
@@ -22,15 +23,14 @@ public class Script extends Action {
 	
 	public static final String GROOVY_PARAMETERS = "parameters";
 	
-	private groovy.lang.Script script;
+	private CompiledScript script;
 	
 	@Override
 	protected void run(Object object, Binding parameters) {
 		Binding context = new Binding();
 		context.setVariable(Condition.PARAM_TARGET_OBJECT, object);
 		context.setVariable(GROOVY_PARAMETERS, parameters);
-		script.setBinding(context);
-		script.run();		
+		script.run(context);
 	}
 
 	@Override
@@ -1,9 +1,13 @@
 package mg.fishchicken.core.assets;
 
+import mg.fishchicken.core.assets.loaders.SimpleAsynchronousLoader;
+
 import com.badlogic.gdx.assets.AssetLoaderParameters;
+import com.badlogic.gdx.assets.loaders.AssetLoader;
 import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.TextureAtlas;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.utils.Array;
 
 /**
  * A special manager that can work with texture atlasses 
@@ -18,6 +22,9 @@ import com.badlogic.gdx.graphics.g2d.TextureRegion;
  *  will return a TextureRegion named regionName
  *  from myAtlas.atlas.
  * 
+ * If preloading is enabled, assets with thread safe loaders start loading
+ * on worker threads as soon as they are queued, see {@link SimpleAsynchronousLoader#preload(com.badlogic.gdx.assets.AssetManager, String)}.
+ * 
  * @author ANNUN
  *
  */
@@ -26,6 +33,9 @@ public class AtlassedAssetManager extends com.badlogic.gdx.assets.AssetManager {
 	public static final String TEXTURE_REGION_SEPARATOR = ".atlas#";
 	private static final int TEXTURE_REGION_SEPARATOR_LENGTH = TEXTURE_REGION_SEPARATOR.length();
 	
+	private boolean preloading;
+	private Array<String> recordedFileNames;
+	
 	@Override
 	public synchronized <T> void load(String fileName, Class<T> type,
 			AssetLoaderParameters<T> parameter) {
@@ -33,8 +43,45 @@ public class AtlassedAssetManager extends com.badlogic.gdx.assets.AssetManager {
 			fileName = fileName.substring(0, fileName.lastIndexOf(TEXTURE_REGION_SEPARATOR)+TEXTURE_REGION_SEPARATOR_LENGTH-1);
 			super.load(fileName, TextureAtlas.class, null);
 		} else {
+			boolean preload = preloading && parameter == null && !isLoaded(fileName);
 			super.load(fileName, type, parameter);
+			if (preload) {
+				AssetLoader<?, ?> loader = getLoader(type, fileName);
+				if (loader instanceof SimpleAsynchronousLoader) {
+					((SimpleAsynchronousLoader<?, ?>) loader).preload(this, fileName);
+				}
+			}
 		}
+		if (recordedFileNames != null) {
+			recordedFileNames.add(fileName);
+		}
+	}
+	
+	/**
+	 * Sets whether assets with thread safe loaders should start loading on worker threads
+	 * as soon as they are queued.
+	 * 
+	 * This should only be enabled while all assets the queued assets need
+	 * while being loaded are already loaded.
+	 * 
+	 * @param preloading
+	 */
+	public synchronized void setPreloading(boolean preloading) {
+		this.preloading = preloading;
+	}
+	
+	/**
+	 * Adds the names of all files queued for loading from now on to the supplied array,
+	 * until {@link #stopRecording()} is called.
+	 * 
+	 * @param fileNames
+	 */
+	public synchronized void startRecording(Array<String> fileNames) {
+		recordedFileNames = fileNames;
+	}
+	
+	public synchronized void stopRecording() {
+		recordedFileNames = null;
 	}
 	
 	@Override
@@ -0,0 +1,434 @@
+package mg.fishchicken.core.assets;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import mg.fishchicken.core.logging.Log;
+import mg.fishchicken.core.logging.Log.LogType;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.badlogic.gdx.utils.StreamUtils;
+import com.badlogic.gdx.utils.XmlReader;
+import com.badlogic.gdx.utils.XmlReader.Element;
+
+/**
+ * Binary cache of the XML files that define the master data of a module,
+ * like items, races, perks, spells, dialogues or AI scripts.
+ *
+ * Each file is stored as its already parsed element tree, keyed by its path
+ * within the module, together with its length, last modification time and the SHA-1
+ * hash of its contents. If the length and modification time of a file read through
+ * {@link #parse(FileHandle)} are still the same, the tree is rebuilt from the cache
+ * without even reading the file. Otherwise the file is read and hashed, and only if
+ * the hash no longer matches is it run through the XML parser and its cache entry replaced.
+ *
+ * The cache is loaded into memory with {@link #load(FileHandle, FileHandle)} and written
+ * back with {@link #save()}, which only does anything if some entry changed.
+ * Files outside of the module folder are never cached.
+ *
+ * This is thread safe, files can be parsed from more threads at once.
+ *
+ */
+public class ModuleDataCache {
+
+	private static final int MAGIC = 0x46434D44;
+	// bump whenever the format changes
+	private static final int VERSION = 2;
+
+	private static final Map<String, CachedFile> files = new ConcurrentHashMap<String, CachedFile>();
+	private static final AtomicInteger hits = new AtomicInteger();
+	private static final AtomicInteger misses = new AtomicInteger();
+	private static final AtomicLong hitNanos = new AtomicLong();
+	private static final AtomicLong missNanos = new AtomicLong();
+	private static volatile FileHandle moduleFolder;
+	private static volatile FileHandle cacheFile;
+	private static volatile boolean changed;
+
+	private ModuleDataCache() {
+	}
+
+	/**
+	 * Loads the cache of the module in the supplied folder from the supplied file.
+	 *
+	 * If the file does not exist or cannot be read, the cache starts empty
+	 * and will be rebuilt as files get parsed.
+	 *
+	 * @param moduleFolder
+	 * @param cacheFile
+	 */
+	public static synchronized void load(FileHandle moduleFolder, FileHandle cacheFile) {
+		ModuleDataCache.moduleFolder = moduleFolder;
+		ModuleDataCache.cacheFile = cacheFile;
+		files.clear();
+		hits.set(0);
+		misses.set(0);
+		hitNanos.set(0);
+		missNanos.set(0);
+		changed = false;
+		if (!cacheFile.exists()) {
+			return;
+		}
+		DataInputStream input = null;
+		try {
+			input = new DataInputStream(new ByteArrayInputStream(cacheFile.readBytes()));
+			if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+				changed = true;
+				return;
+			}
+			int count = input.readInt();
+			for (int i = 0; i < count; ++i) {
+				String key = readString(input);
+				long length = input.readLong();
+				long lastModified = input.readLong();
+				byte[] hash = readBytes(input);
+				byte[] data = readBytes(input);
+				files.put(key, new CachedFile(length, lastModified, hash, data));
+			}
+		} catch (IOException e) {
+			Log.log("Could not read module cache {0}, it will be rebuilt: {1}", LogType.ERROR, cacheFile.path(),
+					e.getMessage());
+			files.clear();
+			changed = true;
+		} catch (GdxRuntimeException e) {
+			Log.log("Could not read module cache {0}, it will be rebuilt: {1}", LogType.ERROR, cacheFile.path(),
+					e.getMessage());
+			files.clear();
+			changed = true;
+		} finally {
+			StreamUtils.closeQuietly(input);
+		}
+	}
+
+	/**
+	 * Writes the cache back into the file it was loaded from, if anything changed since.
+	 *
+	 * Entries of files that no longer exist are dropped. The cache is only a cache,
+	 * so failures are logged, but otherwise ignored.
+	 *
+	 * @return true if the cache was written
+	 */
+	public static synchronized boolean save() {
+		if (cacheFile == null) {
+			return false;
+		}
+		Log.log("Module cache: {0} files read from the cache in {1} ms, {2} parsed in {3} ms.", LogType.DEBUG,
+				hits.get(), hitNanos.get() / 1000000, misses.get(), missNanos.get() / 1000000);
+		if (!changed) {
+			return false;
+		}
+		changed = false;
+		DataOutputStream output = null;
+		try {
+			Array<String> keys = new Array<String>();
+			for (String key : files.keySet()) {
+				if (moduleFolder.child(key).exists()) {
+					keys.add(key);
+				}
+			}
+			keys.sort();
+			output = new DataOutputStream(new BufferedOutputStream(cacheFile.write(false)));
+			output.writeInt(MAGIC);
+			output.writeInt(VERSION);
+			output.writeInt(keys.size);
+			for (String key : keys) {
+				CachedFile cached = files.get(key);
+				writeString(output, key);
+				output.writeLong(cached.length);
+				output.writeLong(cached.lastModified);
+				writeBytes(output, cached.hash);
+				writeBytes(output, cached.data);
+			}
+			return true;
+		} catch (IOException e) {
+			Log.log("Could not write module cache {0}: {1}", LogType.ERROR, cacheFile.path(), e.getMessage());
+		} catch (GdxRuntimeException e) {
+			Log.log("Could not write module cache {0}: {1}", LogType.ERROR, cacheFile.path(), e.getMessage());
+		} finally {
+			StreamUtils.closeQuietly(output);
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the number of files currently in the cache.
+	 *
+	 * @return
+	 */
+	public static int size() {
+		return files.size();
+	}
+
+	/**
+	 * Parses the supplied XML file, using the cache if the file
+	 * belongs to the loaded module and did not change since it was cached.
+	 *
+	 * The returned element tree is always a new one, so it can be
+	 * modified by the caller.
+	 *
+	 * @param file
+	 * @return
+	 * @throws IOException
+	 */
+	public static Element parse(FileHandle file) throws IOException {
+		String key = getKey(file);
+		if (key == null) {
+			return new XmlReader().parse(file);
+		}
+		long start = System.nanoTime();
+		long length = file.length();
+		long lastModified = file.lastModified();
+		CachedFile cached = files.get(key);
+		// zero means the modification time is not known, like for files inside jars
+		if (cached != null && lastModified != 0 && cached.length == length && cached.lastModified == lastModified) {
+			return hit(cached, start);
+		}
+		byte[] source = file.readBytes();
+		byte[] hash = hash(source);
+		if (cached != null && Arrays.equals(cached.hash, hash)) {
+			// touched, but not changed
+			if (cached.length != length || cached.lastModified != lastModified) {
+				files.put(key, new CachedFile(length, lastModified, hash, cached.data));
+				changed = true;
+			}
+			return hit(cached, start);
+		}
+		Element root = new XmlReader().parse(new String(source, "UTF-8"));
+		files.put(key, new CachedFile(length, lastModified, hash, root));
+		changed = true;
+		misses.incrementAndGet();
+		missNanos.addAndGet(System.nanoTime() - start);
+		return root;
+	}
+
+	private static Element hit(CachedFile cached, long start) throws IOException {
+		Element root = cached.read();
+		hits.incrementAndGet();
+		hitNanos.addAndGet(System.nanoTime() - start);
+		return root;
+	}
+
+	/**
+	 * Checks that the cached element tree of the supplied file
+	 * is the same as the one the XML parser creates from it.
+	 *
+	 * @param file
+	 * @return null if they are the same, a description of the first difference otherwise
+	 * @throws IOException
+	 */
+	public static String verify(FileHandle file) throws IOException {
+		String key = getKey(file);
+		if (key == null) {
+			return "not part of the module";
+		}
+		CachedFile cached = files.get(key);
+		if (cached == null) {
+			return "not cached";
+		}
+		byte[] source = file.readBytes();
+		if (!Arrays.equals(cached.hash, hash(source))) {
+			return "cached for different contents";
+		}
+		return compare(cached.read(), new XmlReader().parse(new String(source, "UTF-8")), "");
+	}
+
+	/**
+	 * Returns the key the supplied file is cached under, which is its
+	 * normalized path relative to the module folder.
+	 *
+	 * @param file
+	 * @return null if the file is not in the module folder
+	 */
+	private static String getKey(FileHandle file) {
+		if (moduleFolder == null) {
+			return null;
+		}
+		String path = normalize(file.path());
+		String prefix = normalize(moduleFolder.path());
+		if (prefix.length() > 0 && !prefix.endsWith("/")) {
+			prefix += "/";
+		}
+		return path.startsWith(prefix) ? path.substring(prefix.length()) : null;
+	}
+
+	/**
+	 * Resolves all "." and ".." in the supplied path, so that
+	 * imports referring to the same file through different
+	 * folders share the same entry.
+	 */
+	private static String normalize(String path) {
+		String[] segments = path.replace('\\', '/').split("/");
+		Array<String> resolved = new Array<String>(segments.length);
+		for (String segment : segments) {
+			if (segment.length() == 0 || ".".equals(segment)) {
+				continue;
+			}
+			if ("..".equals(segment) && resolved.size > 0 && !"..".equals(resolved.peek())) {
+				resolved.pop();
+			} else {
+				resolved.add(segment);
+			}
+		}
+		StringBuilder normalized = new StringBuilder(path.startsWith("/") ? "/" : "");
+		for (int i = 0; i < resolved.size; ++i) {
+			if (i > 0) {
+				normalized.append('/');
+			}
+			normalized.append(resolved.get(i));
+		}
+		return normalized.toString();
+	}
+
+	private static String compare(Element cached, Element parsed, String path) {
+		path += "/" + parsed.getName();
+		if (!equal(cached.getName(), parsed.getName())) {
+			return path + ": name " + cached.getName();
+		}
+		if (!equal(cached.getText(), parsed.getText())) {
+			return path + ": text";
+		}
+		ObjectMap<String, String> cachedAttributes = cached.getAttributes();
+		ObjectMap<String, String> parsedAttributes = parsed.getAttributes();
+		int cachedSize = cachedAttributes != null ? cachedAttributes.size : 0;
+		int parsedSize = parsedAttributes != null ? parsedAttributes.size : 0;
+		if (cachedSize != parsedSize) {
+			return path + ": " + cachedSize + " attributes instead of " + parsedSize;
+		}
+		if (parsedAttributes != null) {
+			for (ObjectMap.Entry<String, String> attribute : parsedAttributes.entries()) {
+				if (!equal(cachedAttributes.get(attribute.key), attribute.value)) {
+					return path + ": attribute " + attribute.key;
+				}
+			}
+		}
+		if (cached.getChildCount() != parsed.getChildCount()) {
+			return path + ": " + cached.getChildCount() + " children instead of " + parsed.getChildCount();
+		}
+		for (int i = 0; i < parsed.getChildCount(); ++i) {
+			String difference = compare(cached.getChild(i), parsed.getChild(i), path);
+			if (difference != null) {
+				return difference;
+			}
+		}
+		return null;
+	}
+
+	private static boolean equal(String first, String second) {
+		return first == null ? second == null : first.equals(second);
+	}
+
+	private static byte[] hash(byte[] source) {
+		try {
+			return MessageDigest.getInstance("SHA-1").digest(source);
+		} catch (NoSuchAlgorithmException e) {
+			throw new GdxRuntimeException(e);
+		}
+	}
+
+	private static void writeElement(DataOutputStream output, Element element) throws IOException {
+		writeString(output, element.getName());
+		writeString(output, element.getText());
+		ObjectMap<String, String> attributes = element.getAttributes();
+		output.writeInt(attributes != null ? attributes.size : 0);
+		if (attributes != null) {
+			for (ObjectMap.Entry<String, String> attribute : attributes.entries()) {
+				writeString(output, attribute.key);
+				writeString(output, attribute.value);
+			}
+		}
+		int childCount = element.getChildCount();
+		output.writeInt(childCount);
+		for (int i = 0; i < childCount; ++i) {
+			writeElement(output, element.getChild(i));
+		}
+	}
+
+	private static Element readElement(DataInputStream input, Element parent) throws IOException {
+		Element element = new Element(readString(input), parent);
+		element.setText(readString(input));
+		int attributeCount = input.readInt();
+		for (int i = 0; i < attributeCount; ++i) {
+			element.setAttribute(readString(input), readString(input));
+		}
+		int childCount = input.readInt();
+		for (int i = 0; i < childCount; ++i) {
+			element.addChild(readElement(input, element));
+		}
+		return element;
+	}
+
+	// writeUTF is limited to 64 kB, which scripts could exceed
+	private static void writeString(DataOutputStream output, String value) throws IOException {
+		writeBytes(output, value != null ? value.getBytes("UTF-8") : null);
+	}
+
+	private static String readString(DataInputStream input) throws IOException {
+		byte[] bytes = readBytes(input);
+		return bytes != null ? new String(bytes, "UTF-8") : null;
+	}
+
+	private static void writeBytes(DataOutputStream output, byte[] bytes) throws IOException {
+		if (bytes == null) {
+			output.writeInt(-1);
+			return;
+		}
+		output.writeInt(bytes.length);
+		output.write(bytes);
+	}
+
+	private static byte[] readBytes(DataInputStream input) throws IOException {
+		int length = input.readInt();
+		if (length < 0) {
+			return null;
+		}
+		byte[] bytes = new byte[length];
+		input.readFully(bytes);
+		return bytes;
+	}
+
+	/**
+	 * A single cached file, kept serialized, so that every read
+	 * gets its own element tree.
+	 */
+	private static class CachedFile {
+		private final long length;
+		private final long lastModified;
+		private final byte[] hash;
+		private final byte[] data;
+
+		private CachedFile(long length, long lastModified, byte[] hash, byte[] data) {
+			this.length = length;
+			this.lastModified = lastModified;
+			this.hash = hash;
+			this.data = data;
+		}
+
+		private CachedFile(long length, long lastModified, byte[] hash, Element root) throws IOException {
+			this.length = length;
+			this.lastModified = lastModified;
+			this.hash = hash;
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			DataOutputStream output = new DataOutputStream(bytes);
+			writeElement(output, root);
+			output.flush();
+			this.data = bytes.toByteArray();
+		}
+
+		private Element read() throws IOException {
+			return readElement(new DataInputStream(new ByteArrayInputStream(data)), null);
+		}
+	}
+}
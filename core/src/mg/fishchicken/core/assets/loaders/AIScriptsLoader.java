@@ -32,6 +32,11 @@ public class AIScriptsLoader extends SimpleAsynchronousLoader<AIScript, AIScript
 		}
 	}
 
+	@Override
+	public boolean isThreadSafe() {
+		return true;
+	}
+
 	@SuppressWarnings("rawtypes")
 	@Override
 	public Array<AssetDescriptor> getDependencies (String fileName, FileHandle file, ScriptParameter parameter) {
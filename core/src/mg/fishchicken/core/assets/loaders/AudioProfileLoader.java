@@ -32,6 +32,11 @@ public class AudioProfileLoader extends SimpleAsynchronousLoader<AudioProfile, A
 		}
 	}
 
+	@Override
+	public boolean isThreadSafe() {
+		return true;
+	}
+
 	@SuppressWarnings("rawtypes")
 	@Override
 	public Array<AssetDescriptor> getDependencies (String fileName, FileHandle file, AudioProfileParameter parameter) {
@@ -32,6 +32,11 @@ public class CharacterModelLoader extends SimpleAsynchronousLoader<CharacterMode
 		}
 	}
 
+	@Override
+	public boolean isThreadSafe() {
+		return true;
+	}
+
 	@SuppressWarnings("rawtypes")
 	@Override
 	public Array<AssetDescriptor> getDependencies (String fileName, FileHandle file, ModelParameter parameter) {
@@ -32,6 +32,11 @@ public class ChatterLoader extends SimpleAsynchronousLoader<Chatter, ChatterLoad
 		}
 	}
 
+	@Override
+	public boolean isThreadSafe() {
+		return true;
+	}
+
 	@SuppressWarnings("rawtypes")
 	@Override
 	public Array<AssetDescriptor> getDependencies (String fileName, FileHandle file, ChatterParameter parameter) {
@@ -32,6 +32,11 @@ public class EffectsLoader extends SimpleAsynchronousLoader<Effect, EffectsLoade
 		}
 	}
 
+	@Override
+	public boolean isThreadSafe() {
+		return true;
+	}
+
 	@SuppressWarnings("rawtypes")
 	@Override
 	public Array<AssetDescriptor> getDependencies (String fileName, FileHandle file, EffectParameter parameter) {
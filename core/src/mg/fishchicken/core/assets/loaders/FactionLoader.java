@@ -32,6 +32,11 @@ public class FactionLoader extends SimpleAsynchronousLoader<Faction, FactionLoad
 		}
 	}
 
+	@Override
+	public boolean isThreadSafe() {
+		return true;
+	}
+
 	@SuppressWarnings("rawtypes")
 	@Override
 	public Array<AssetDescriptor> getDependencies (String fileName, FileHandle file, FactionParameter parameter) {
@@ -1,5 +1,6 @@
 package mg.fishchicken.core.assets.loaders;
 
+import mg.fishchicken.core.assets.ModuleDataCache;
 import mg.fishchicken.core.util.StringUtil;
 import mg.fishchicken.core.util.XMLUtil;
 import mg.fishchicken.gamelogic.inventory.Inventory;
@@ -14,7 +15,6 @@ import com.badlogic.gdx.assets.loaders.resolvers.InternalFileHandleResolver;
 import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.GdxRuntimeException;
-import com.badlogic.gdx.utils.XmlReader;
 import com.badlogic.gdx.utils.XmlReader.Element;
 
 public class InventoryItemLoader extends SimpleAsynchronousLoader<InventoryItem, InventoryItemLoader.InventoryItemParameter> {
@@ -31,8 +31,7 @@ public class InventoryItemLoader extends SimpleAsynchronousLoader<InventoryItem,
 	@Override
 	public InventoryItem load (AssetManager assetManager, String fileName, FileHandle itemFile, InventoryItemParameter parameter) {
 		try {
-			XmlReader xmlReader = new XmlReader();
-			Element root = xmlReader.parse(itemFile);
+			Element root = ModuleDataCache.parse(itemFile);
 			InventoryItem newItem = null;
 			
 			Element properties = root.getChildByName(XMLUtil.XML_PROPERTIES);
@@ -32,6 +32,11 @@ public class ItemModelLoader extends SimpleAsynchronousLoader<ItemModel, ItemMod
 		}
 	}
 
+	@Override
+	public boolean isThreadSafe() {
+		return true;
+	}
+
 	@SuppressWarnings("rawtypes")
 	@Override
 	public Array<AssetDescriptor> getDependencies (String fileName, FileHandle file, ModelParameter parameter) {
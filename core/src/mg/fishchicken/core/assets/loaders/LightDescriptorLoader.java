@@ -32,6 +32,11 @@ public class LightDescriptorLoader extends SimpleAsynchronousLoader<LightDescrip
 		}
 	}
 
+	@Override
+	public boolean isThreadSafe() {
+		return true;
+	}
+
 	@SuppressWarnings("rawtypes")
 	@Override
 	public Array<AssetDescriptor> getDependencies (String fileName, FileHandle file, LightDescriptorParameter parameter) {
@@ -32,6 +32,11 @@ public class PerkLoader extends SimpleAsynchronousLoader<Perk, PerkLoader.PerkPa
 		}
 	}
 
+	@Override
+	public boolean isThreadSafe() {
+		return true;
+	}
+
 	@SuppressWarnings("rawtypes")
 	@Override
 	public Array<AssetDescriptor> getDependencies (String fileName, FileHandle file, PerkParameter parameter) {
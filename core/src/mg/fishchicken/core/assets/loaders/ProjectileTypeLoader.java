@@ -2,6 +2,7 @@ package mg.fishchicken.core.assets.loaders;
 
 import java.io.IOException;
 
+import mg.fishchicken.core.assets.ModuleDataCache;
 import mg.fishchicken.core.configuration.Configuration;
 import mg.fishchicken.core.projectiles.ProjectileType;
 import mg.fishchicken.core.util.XMLUtil;
@@ -16,7 +17,6 @@ import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.GdxRuntimeException;
-import com.badlogic.gdx.utils.XmlReader;
 import com.badlogic.gdx.utils.XmlReader.Element;
 
 public class ProjectileTypeLoader extends SimpleAsynchronousLoader<ProjectileType, ProjectileTypeLoader.ProjectileTypeParameter> {
@@ -38,13 +38,17 @@ public class ProjectileTypeLoader extends SimpleAsynchronousLoader<ProjectileTyp
 		}
 	}
 
+	@Override
+	public boolean isThreadSafe() {
+		return true;
+	}
+
 	@SuppressWarnings("rawtypes")
 	@Override
 	public Array<AssetDescriptor> getDependencies (String fileName, FileHandle file, ProjectileTypeParameter parameter) {
-		XmlReader xmlReader = new XmlReader();
 		try {
 			Array<AssetDescriptor>  returnValue = new Array<AssetDescriptor>();
-			Element root = xmlReader.parse(file);
+			Element root = ModuleDataCache.parse(file);
 			LoaderUtil.handleImports(this, parameter, returnValue, file, root);
 			String animationFile = root.get(ProjectileType.XML_ANIMATION_FILE, null);
 			if (animationFile != null) {
@@ -32,6 +32,11 @@ public class QuestLoader extends SimpleAsynchronousLoader<Quest, QuestLoader.Que
 		}
 	}
 
+	@Override
+	public boolean isThreadSafe() {
+		return true;
+	}
+
 	@SuppressWarnings("rawtypes")
 	@Override
 	public Array<AssetDescriptor> getDependencies (String fileName, FileHandle file, QuestParameter parameter) {
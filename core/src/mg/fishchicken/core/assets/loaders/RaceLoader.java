@@ -32,6 +32,11 @@ public class RaceLoader extends SimpleAsynchronousLoader<Race, RaceLoader.RacePa
 		}
 	}
 
+	@Override
+	public boolean isThreadSafe() {
+		return true;
+	}
+
 	@SuppressWarnings("rawtypes")
 	@Override
 	public Array<AssetDescriptor> getDependencies (String fileName, FileHandle file, RaceParameter parameter) {
@@ -32,6 +32,11 @@ public class RoleLoader extends SimpleAsynchronousLoader<Role, RoleLoader.RolePa
 		}
 	}
 
+	@Override
+	public boolean isThreadSafe() {
+		return true;
+	}
+
 	@SuppressWarnings("rawtypes")
 	@Override
 	public Array<AssetDescriptor> getDependencies (String fileName, FileHandle file, RoleParameter parameter) {
@@ -1,5 +1,11 @@
 package mg.fishchicken.core.assets.loaders;
 
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+
+import mg.fishchicken.core.util.ParallelUtil;
+
 import com.badlogic.gdx.assets.AssetLoaderParameters;
 import com.badlogic.gdx.assets.AssetManager;
 import com.badlogic.gdx.assets.loaders.AsynchronousAssetLoader;
@@ -10,15 +16,54 @@ public abstract class SimpleAsynchronousLoader<TYPE, PARAMETER extends AssetLoad
 		extends AsynchronousAssetLoader<TYPE, PARAMETER> {
 
 	private TYPE loadedObject;
+	private final ConcurrentHashMap<String, Future<TYPE>> preloads = new ConcurrentHashMap<String, Future<TYPE>>();
 	
 	public SimpleAsynchronousLoader(FileHandleResolver resolver) {
 		super(resolver);
 	}
 	
+	/**
+	 * Returns true if {@link #load(AssetManager, String, FileHandle, AssetLoaderParameters)}
+	 * can run for more files at once on different threads. This is only the case if it does not
+	 * change any shared state and only needs assets that are already loaded.
+	 * 
+	 * @return
+	 */
+	public boolean isThreadSafe() {
+		return false;
+	}
+	
+	/**
+	 * Starts loading the supplied file on one of the worker threads of {@link ParallelUtil},
+	 * without any parameters. Once the asset manager gets to the file, it will just wait for
+	 * the result instead of loading the file itself.
+	 * 
+	 * Does nothing if this loader is not thread safe or the file is already being preloaded.
+	 * 
+	 * @param manager
+	 * @param fileName
+	 */
+	public void preload(final AssetManager manager, final String fileName) {
+		if (!isThreadSafe() || preloads.containsKey(fileName)) {
+			return;
+		}
+		preloads.put(fileName, ParallelUtil.submit(new Callable<TYPE>() {
+			@Override
+			public TYPE call() throws Exception {
+				return load(manager, fileName, resolve(fileName), null);
+			}
+		}));
+	}
+	
 	@Override
 	public void loadAsync(AssetManager manager, String fileName,
 			FileHandle file, PARAMETER parameter) {
-		loadedObject = load(manager, fileName, file, parameter);
+		Future<TYPE> preload = preloads.remove(fileName);
+		if (preload != null && parameter == null) {
+			loadedObject = ParallelUtil.get(preload);
+		} else {
+			loadedObject = load(manager, fileName, file, parameter);
+		}
 	}
 	
 	@Override
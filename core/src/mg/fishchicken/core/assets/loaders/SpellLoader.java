@@ -32,6 +32,11 @@ public class SpellLoader extends SimpleAsynchronousLoader<Spell, SpellLoader.Spe
 		}
 	}
 
+	@Override
+	public boolean isThreadSafe() {
+		return true;
+	}
+
 	@SuppressWarnings("rawtypes")
 	@Override
 	public Array<AssetDescriptor> getDependencies (String fileName, FileHandle file, SpellParameter parameter) {
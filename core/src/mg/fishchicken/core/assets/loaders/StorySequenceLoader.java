@@ -32,6 +32,11 @@ public class StorySequenceLoader extends SimpleAsynchronousLoader<StorySequence,
 		}
 	}
 
+	@Override
+	public boolean isThreadSafe() {
+		return true;
+	}
+
 	@SuppressWarnings("rawtypes")
 	@Override
 	public Array<AssetDescriptor> getDependencies (String fileName, FileHandle file, StorySequenceParameter parameter) {
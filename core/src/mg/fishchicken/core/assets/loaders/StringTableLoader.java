@@ -27,7 +27,7 @@ public class StringTableLoader extends SimpleAsynchronousLoader<StringTable, Str
 	@Override
 	public StringTable load (AssetManager assetManager, String fileName, FileHandle file, StringResourceParameter parameter) {
 		FileHandle csvFile = resolve(fileName);
-		StringTable returnValue = new StringTable();
+		StringTable returnValue = new StringTable(fileName);
 		
 		for (JsonValue child : new JsonReader().parse(csvFile)) {
 			addValue(child, returnValue, "");
@@ -2,6 +2,7 @@ package mg.fishchicken.core.assets.loaders;
 
 import java.io.IOException;
 
+import mg.fishchicken.core.assets.ModuleDataCache;
 import mg.fishchicken.core.configuration.Configuration;
 import mg.fishchicken.core.util.XMLUtil;
 import mg.fishchicken.gamelogic.traps.TrapType;
@@ -15,7 +16,6 @@ import com.badlogic.gdx.audio.Sound;
 import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.GdxRuntimeException;
-import com.badlogic.gdx.utils.XmlReader;
 import com.badlogic.gdx.utils.XmlReader.Element;
 
 public class TrapLoader extends SimpleAsynchronousLoader<TrapType, TrapLoader.TrapParameter> {
@@ -37,13 +37,17 @@ public class TrapLoader extends SimpleAsynchronousLoader<TrapType, TrapLoader.Tr
 		}
 	}
 
+	@Override
+	public boolean isThreadSafe() {
+		return true;
+	}
+
 	@SuppressWarnings("rawtypes")
 	@Override
 	public Array<AssetDescriptor> getDependencies (String fileName, FileHandle file, TrapParameter parameter) {
-		XmlReader xmlReader = new XmlReader();
 		try {
 			Array<AssetDescriptor>  returnValue = new Array<AssetDescriptor>();
-			Element root = xmlReader.parse(file);
+			Element root = ModuleDataCache.parse(file);
 			LoaderUtil.handleImports(this, parameter, returnValue, file, root);
 			Element soundsElement = root.getChildByName(XMLUtil.XML_SOUNDS);
 			if (soundsElement != null) {
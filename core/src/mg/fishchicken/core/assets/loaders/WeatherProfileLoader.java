@@ -2,6 +2,7 @@ package mg.fishchicken.core.assets.loaders;
 
 import java.io.IOException;
 
+import mg.fishchicken.core.assets.ModuleDataCache;
 import mg.fishchicken.core.configuration.Configuration;
 import mg.fishchicken.core.util.XMLUtil;
 import mg.fishchicken.gamelogic.weather.WeatherProfile;
@@ -16,7 +17,6 @@ import com.badlogic.gdx.audio.Sound;
 import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.GdxRuntimeException;
-import com.badlogic.gdx.utils.XmlReader;
 import com.badlogic.gdx.utils.XmlReader.Element;
 
 public class WeatherProfileLoader extends SimpleAsynchronousLoader<WeatherProfile, WeatherProfileLoader.WeatherProfileParameter> {
@@ -38,13 +38,17 @@ public class WeatherProfileLoader extends SimpleAsynchronousLoader<WeatherProfil
 		}
 	}
 
+	@Override
+	public boolean isThreadSafe() {
+		return true;
+	}
+
 	@SuppressWarnings({ "rawtypes", "unchecked" })
 	@Override
 	public Array<AssetDescriptor> getDependencies (String fileName, FileHandle file, WeatherProfileParameter parameter) {
 		Array<AssetDescriptor> returnValue = new Array<AssetDescriptor>();
 		try {
-			XmlReader xmlReader = new XmlReader();
-			Element root = xmlReader.parse(file);
+			Element root = ModuleDataCache.parse(file);
 			LoaderUtil.handleImports(this, parameter, returnValue, file, root);
 			Array<Element> trackElements = root.getChildrenByNameRecursively(WeatherProfile.XML_TRACK);
 			for (Element trackElement : trackElements) {
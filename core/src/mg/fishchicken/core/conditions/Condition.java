@@ -157,7 +157,9 @@ public abstract class Condition {
 			}
 		}
 		boolean returnValue = evaluate(object, parameters);
-		Log.log("Evaluated {0} with parameters {1} on object {2}, condition returned {3}", Log.LogType.CONDITION, this.getClass().getName(), Arrays.toString(conditionParameters), object, returnValue);
+		if (Log.isEnabled(Log.LogType.CONDITION)) {
+			Log.log("Evaluated {0} with parameters {1} on object {2}, condition returned {3}", Log.LogType.CONDITION, this.getClass().getName(), Arrays.toString(conditionParameters), object, returnValue);
+		}
 		return returnValue;
 	}
 	
@@ -2,6 +2,7 @@ package mg.fishchicken.core.conditions;
 
 import groovy.lang.Binding;
 import mg.fishchicken.core.i18n.Strings;
+import mg.fishchicken.core.util.CompiledScript;
 import mg.fishchicken.core.util.GroovyUtil;
 import mg.fishchicken.core.util.XMLUtil;
 
@@ -22,20 +23,19 @@ public class Script extends Condition {
 	public static final String GROOVY_OBJECT = "object";
 	public static final String GROOVY_PARAMETERS = "parameters";
 	private String description;
-	private groovy.lang.Script script;
+	private CompiledScript script;
 	
 	@Override
 	protected boolean evaluate(Object object, Binding parameters) {
 		Binding context = new Binding();
 		context.setVariable(GROOVY_OBJECT, object);
 		context.setVariable(GROOVY_PARAMETERS, conditionParameters);
-		script.setBinding(context);
-		return GroovyUtil.evaluateCondition(script);
+		return GroovyUtil.evaluateCondition(script, context);
 	}
 
 	@Override
 	public void validateAndLoadFromXML(Element conditionElement) {
-		script = XMLUtil.readScript("scriptCondition_"+(idGenerator++), conditionElement);
+		script = XMLUtil.readConditionScript("scriptCondition_"+(idGenerator++), conditionElement, null);
 		description = conditionElement.getAttribute(XMLUtil.XML_DESCRIPTION, null);
 	}
 
@@ -28,6 +28,9 @@ import mg.fishchicken.audio.AudioTrack;
 import mg.fishchicken.audio.Music;
 import mg.fishchicken.core.assets.AssetMap;
 import mg.fishchicken.core.i18n.Strings;
+import mg.fishchicken.core.logging.ConsoleLogger;
+import mg.fishchicken.core.logging.Log;
+import mg.fishchicken.core.logging.Log.LogType;
 import mg.fishchicken.core.saveload.XMLField;
 import mg.fishchicken.core.saveload.XMLLoadable;
 import mg.fishchicken.core.util.StringUtil;
@@ -45,6 +48,8 @@ public final class Configuration implements XMLLoadable {
 	public static final String FOLDER_MODULES = "modules/";
 	public static final String FOLDER_USER_DATA = "userdata/";
 	public static final String FOLDER_SAVEGAMES = "savegames/";
+	public static final String FOLDER_MAP_CACHE = "mapcache/";
+	public static final String FILE_MODULE_CACHE = "modulecache.bin";
 	public static final String FILE_LAST_MODULE = "module.hmm";
 
 	public static final String XML_CHARACTER = "character";
@@ -172,8 +177,14 @@ public final class Configuration implements XMLLoadable {
 	private int combatDurationGameSeconds = 120;
 	@XMLField(fieldPath = "time.globalGameObjectsUpdateInterval")
 	private float globalGameObjectsUpdateInterval = 0.5f;
+	@XMLField(fieldPath = "time.farGameObjectsUpdateInterval")
+	private float farGameObjectsUpdateInterval = 0.25f;
+	@XMLField(fieldPath = "time.nearGameObjectsMargin")
+	private float nearGameObjectsMargin = 4f;
 	@XMLField(fieldPath = "time.fastForwardStep")
 	private float fastForwardStep = 0.2f;
+	@XMLField(fieldPath = "time.aiFrameBudget")
+	private float aiFrameBudget = 2f;
 
 	@XMLField(fieldPath = "weather.minimumUpdateInterval")
 	private int weatherUpdateMin = 3600; // 1 hr
@@ -236,6 +247,8 @@ public final class Configuration implements XMLLoadable {
 	@XMLField(fieldPath = "graphics.mapScale")
 	private float mapScale = 1f; // how much everything is magnified on the game
 									// map - CURRENTLY DOES NOT WORK PROPERLY
+	@XMLField(fieldPath = "graphics.maxLiveParticles")
+	private int maxLiveParticles = 8000;
 
 	@XMLField(fieldPath = "character.maxCharactersInGroup")
 	private int maxCharactersInGroup = 6;
@@ -243,6 +256,8 @@ public final class Configuration implements XMLLoadable {
 	private int sightRadiusLocal = 20;
 	@XMLField(fieldPath = "character.worldmapSightRadius")
 	private int sightRadiusWorld = 5;
+	@XMLField(fieldPath = "character.gridLineOfSight")
+	private boolean gridLineOfSight = false;
 	@XMLField(fieldPath = "character.costs.openInventory")
 	private int apCostInventoryOpen = 3;
 	@XMLField(fieldPath = "character.costs.attack")
@@ -298,6 +313,11 @@ public final class Configuration implements XMLLoadable {
 	@XMLField(fieldPath = "combat.disengagementMovementPenalty")
 	private int disengagementMovementPenalty = 2;
 
+	@XMLField(fieldPath = "pathfinding.hierarchical")
+	private boolean hierarchicalPathfinding = false;
+	@XMLField(fieldPath = "pathfinding.clusterSize")
+	private int pathfindingClusterSize = 16;
+
 	@XMLField(fieldPath = "worldmap.speedModifier")
 	private float woldMapSpeedModifier = 0.5f;
 	@XMLField(fieldPath = "worldmap.randomEncountersCooldown")
@@ -386,6 +406,7 @@ public final class Configuration implements XMLLoadable {
 		try {
 			FileHandle userOptions = files.local(file);
 			options = userOptions.exists() ? new GameOptions(userOptions) : new GameOptions();
+			applyLogOptions();
 		} catch (final IOException e) {
 			throw new GdxRuntimeException("Cannot read configuration file " + file + ", aborting.", e);
 		}
@@ -518,6 +539,23 @@ public final class Configuration implements XMLLoadable {
 		return configuration.invisibleCharacterAlpha;
 	}
 
+	/**
+	 * Gets the maximum number of particles the particle effects attached
+	 * to game objects on a map can have alive at once. Effects that would
+	 * go over it wait with starting until enough particles die.
+	 * 
+	 * The limit is soft. It is checked against the particles alive at the
+	 * start of each update, so effects started in different frames can
+	 * go over it for a while as their particles ramp up.
+	 * 
+	 * Zero or less means there is no limit.
+	 * 
+	 * @return
+	 */
+	public static int getMaxLiveParticles() {
+		return configuration.maxLiveParticles;
+	}
+
 	/**
 	 * Returns the ratio by which all interior weather sounds are quieter.
 	 * 
@@ -881,6 +919,28 @@ public final class Configuration implements XMLLoadable {
 		return configuration.globalGameObjectsUpdateInterval;
 	}
 
+	/**
+	 * Returns the interval in seconds in which every game object
+	 * on the current map that is away from the screen should be updated.
+	 * 
+	 * Zero or less means all game objects on the current map are updated every frame.
+	 *
+	 * @return
+	 */
+	public static float getFarGameObjectsUpdateInterval() {
+		return configuration.farGameObjectsUpdateInterval;
+	}
+
+	/**
+	 * Returns how far outside of the screen a game object can be
+	 * and still be updated every frame.
+	 *
+	 * @return
+	 */
+	public static float getNearGameObjectsMargin() {
+		return configuration.nearGameObjectsMargin;
+	}
+
 	/**
 	 * Returns the number of real world seconds the game world will by updated
 	 * by each frame when fast forwarding time (like during sleep). The value
@@ -893,6 +953,19 @@ public final class Configuration implements XMLLoadable {
 		return configuration.fastForwardStep;
 	}
 
+	/**
+	 * Returns the number of real world milliseconds that AI scripts
+	 * of characters outside of combat can take up each frame.
+	 * 
+	 * At least one character always gets to think each frame, 
+	 * even if it takes longer.
+	 *
+	 * @return
+	 */
+	public static float getAIFrameBudget() {
+		return configuration.aiFrameBudget;
+	}
+
 	public static Color getSelectionHighlightColor() {
 		return configuration.selectionHighlightColor;
 	}
@@ -1546,6 +1619,97 @@ public final class Configuration implements XMLLoadable {
 		configuration.options.s_tooltipDelay = value;
 	}
 
+	/**
+	 * Returns true if messages of the supplied log type are logged.
+	 * 
+	 * @param type
+	 * @return
+	 */
+	public static boolean isLogTypeEnabled(LogType type) {
+		return type.isEnabled();
+	}
+
+	/**
+	 * Enables or disables logging of the supplied log type. This takes
+	 * effect immediately and is stored in the user options.
+	 * 
+	 * @param type
+	 * @param value
+	 */
+	public static void setLogTypeEnabled(LogType type, boolean value) {
+		type.setEnabled(value);
+		boolean allDefault = true;
+		StringBuilder enabledTypes = new StringBuilder();
+		for (LogType logType : LogType.values()) {
+			if (logType.isEnabled() != logType.isEnabledByDefault()) {
+				allDefault = false;
+			}
+			if (logType.isEnabled()) {
+				if (enabledTypes.length() > 0) {
+					enabledTypes.append(',');
+				}
+				enabledTypes.append(logType.name());
+			}
+		}
+		configuration.options.s_logTypes = allDefault ? null : enabledTypes.toString();
+	}
+
+	/**
+	 * Returns true if console log messages are written out by a separate
+	 * thread instead of the one that logged them.
+	 * 
+	 * @return
+	 */
+	public static boolean isAsyncConsoleLog() {
+		return configuration.options.s_asyncConsoleLog;
+	}
+
+	/**
+	 * Sets whether console log messages are written out by a separate
+	 * thread instead of the one that logged them.
+	 * 
+	 * @param value
+	 */
+	public static void setAsyncConsoleLog(boolean value) {
+		configuration.options.s_asyncConsoleLog = value;
+		ConsoleLogger.get().setAsync(value);
+	}
+
+	/**
+	 * Applies the log options of the user options. Unknown log types,
+	 * for example ones that were renamed since the options were saved, are skipped.
+	 */
+	void applyLogOptions() {
+		ConsoleLogger.get().setAsync(options.s_asyncConsoleLog);
+		if (options.s_logTypes == null) {
+			return;
+		}
+		for (LogType type : LogType.values()) {
+			type.setEnabled(false);
+		}
+		Array<String> unknownTypes = null;
+		for (String typeName : options.s_logTypes.split(",")) {
+			typeName = typeName.trim();
+			if (typeName.length() == 0) {
+				continue;
+			}
+			try {
+				LogType.valueOf(typeName.toUpperCase(Locale.ENGLISH)).setEnabled(true);
+			} catch (IllegalArgumentException e) {
+				if (unknownTypes == null) {
+					unknownTypes = new Array<String>();
+				}
+				unknownTypes.add(typeName);
+			}
+		}
+		// only logged now, since the error type itself might have been enabled after them
+		if (unknownTypes != null) {
+			for (String typeName : unknownTypes) {
+				Log.log("Ignoring unknown log type {0} in the user options.", LogType.ERROR, typeName);
+			}
+		}
+	}
+
 	/**
 	 * Will determine whether Lighting related debug should be drawn or not.
 	 * This is not persisted anywhere.
@@ -1595,6 +1759,35 @@ public final class Configuration implements XMLLoadable {
 		return FOLDER_USER_DATA + configuration.moduleName + "/" + FOLDER_SAVEGAMES;
 	}
 
+	/**
+	 * Gets the folder where geometry baked from the maps of the current module
+	 * is cached.
+	 * 
+	 * @return
+	 */
+	public static String getFolderMapCache() {
+		return FOLDER_USER_DATA + configuration.moduleName + "/" + FOLDER_MAP_CACHE;
+	}
+
+	/**
+	 * Gets the folder of the current module.
+	 * 
+	 * @return
+	 */
+	public static String getFolderModule() {
+		return configuration.moduleFolder;
+	}
+
+	/**
+	 * Gets the file the parsed master data of the current module
+	 * is cached in.
+	 * 
+	 * @return
+	 */
+	public static String getFileModuleCache() {
+		return FOLDER_USER_DATA + configuration.moduleName + "/" + FILE_MODULE_CACHE;
+	}
+
 	/**
 	 * Returns the number of turns that must pass without any enemy appearing in
 	 * combat before the combat ends automatically.
@@ -1641,6 +1834,37 @@ public final class Configuration implements XMLLoadable {
 		return configuration.disengagementMovementPenalty;
 	}
 
+	/**
+	 * Whether long paths should be first searched for on an abstract
+	 * graph of map clusters and only then refined tile by tile.
+	 * 
+	 * @return
+	 */
+	public static boolean isHierarchicalPathfindingEnabled() {
+		return configuration.hierarchicalPathfinding;
+	}
+
+	/**
+	 * Whether lines of sight should be cast in plain Java against a grid
+	 * of the LOS blocker edges of the map instead of through Box2D. This allows
+	 * the lines of sight of many characters to be recalculated in parallel.
+	 * 
+	 * @return
+	 */
+	public static boolean isGridLineOfSightEnabled() {
+		return configuration.gridLineOfSight;
+	}
+
+	/**
+	 * The size (in tiles) of the side of a single cluster
+	 * used by hierarchical path finding.
+	 * 
+	 * @return
+	 */
+	public static int getPathfindingClusterSize() {
+		return configuration.pathfindingClusterSize;
+	}
+
 	public static float getMapScale() {
 		return configuration.mapScale;
 	}
@@ -2015,6 +2239,9 @@ public final class Configuration implements XMLLoadable {
 		private boolean s_characterBarks = true;
 		private float s_combatMoveSpeed = 1f;
 		private boolean s_moveMouse = true;
+		// comma separated list of enabled log types, null means the defaults
+		private String s_logTypes = null;
+		private boolean s_asyncConsoleLog = false;
 
 		private GameOptions() {
 		}
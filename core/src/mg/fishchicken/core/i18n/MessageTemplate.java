@@ -0,0 +1,294 @@
+package mg.fishchicken.core.i18n;
+
+import java.text.DateFormat;
+import java.text.FieldPosition;
+import java.text.MessageFormat;
+import java.text.NumberFormat;
+import java.util.Date;
+import java.util.Locale;
+
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.StringBuilder;
+
+/**
+ * A message pattern in the MessageFormat syntax, parsed once into literal
+ * text and indexed parameter slots, so that formatting it only needs to
+ * append the pieces one after another.
+ *
+ * Formatting gives the same results as MessageFormat, including its quoting
+ * rules and the locale specific formatting of numbers and dates. It also replaces
+ * "\n" strings in the pattern with new lines. Patterns with arguments that
+ * specify their own format, like {0,number,#.##}, are formatted by MessageFormat.
+ *
+ * Templates never change once compiled, so they can be shared between threads.
+ *
+ */
+public class MessageTemplate {
+
+	private static final ThreadLocal<Formatter> formatters = new ThreadLocal<Formatter>() {
+		@Override
+		protected Formatter initialValue() {
+			return new Formatter();
+		}
+	};
+
+	private final String pattern;
+	// literals[i] precedes slots[i], the last literal follows the last slot
+	private final String[] literals;
+	private final int[] slots;
+	private final int parameterCount;
+	private final MessageFormat complexFormat;
+
+	private MessageTemplate(String pattern, String[] literals, int[] slots, int parameterCount,
+			MessageFormat complexFormat) {
+		this.pattern = pattern;
+		this.literals = literals;
+		this.slots = slots;
+		this.parameterCount = parameterCount;
+		this.complexFormat = complexFormat;
+	}
+
+	/**
+	 * Parses the supplied pattern into a new template.
+	 *
+	 * @param pattern
+	 * @return
+	 * @throws IllegalArgumentException if the pattern is not valid
+	 */
+	public static MessageTemplate compile(String pattern) {
+		Array<String> literals = new Array<String>(String.class);
+		IntArray slots = new IntArray();
+		StringBuilder literal = new StringBuilder();
+		boolean complex = false;
+		boolean inQuote = false;
+		int parameterCount = 0;
+		int length = pattern.length();
+		for (int i = 0; i < length; ++i) {
+			char ch = pattern.charAt(i);
+			if (ch == '\'') {
+				if (i + 1 < length && pattern.charAt(i + 1) == '\'') {
+					literal.append('\'');
+					++i;
+				} else {
+					inQuote = !inQuote;
+				}
+			} else if (ch == '{' && !inQuote) {
+				int end = findArgumentEnd(pattern, i);
+				String argument = pattern.substring(i + 1, end);
+				int index = parseIndex(argument);
+				if (index < 0) {
+					// has its own format, MessageFormat validates it below
+					complex = true;
+					index = parseIndex(argument.substring(0, Math.max(argument.indexOf(','), 0)));
+					if (index < 0) {
+						throw new IllegalArgumentException("Invalid argument {" + argument + "} in pattern: "
+								+ pattern);
+					}
+				}
+				parameterCount = Math.max(parameterCount, index + 1);
+				literals.add(replaceNewLines(literal.toString()));
+				literal.setLength(0);
+				slots.add(index);
+				i = end;
+			} else {
+				literal.append(ch);
+			}
+		}
+		literals.add(replaceNewLines(literal.toString()));
+		return new MessageTemplate(pattern, literals.toArray(), slots.toArray(), parameterCount,
+				complex ? new MessageFormat(pattern) : null);
+	}
+
+	/**
+	 * Creates a template that just returns the supplied text,
+	 * without interpreting any quotes or arguments in it.
+	 *
+	 * @param text
+	 * @return
+	 */
+	public static MessageTemplate literal(String text) {
+		return new MessageTemplate(text, new String[] { replaceNewLines(text) }, new int[0], 0, null);
+	}
+
+	private static int findArgumentEnd(String pattern, int start) {
+		int depth = 0;
+		boolean inQuote = false;
+		for (int i = start; i < pattern.length(); ++i) {
+			char ch = pattern.charAt(i);
+			if (ch == '\'') {
+				inQuote = !inQuote;
+			} else if (!inQuote && ch == '{') {
+				++depth;
+			} else if (!inQuote && ch == '}' && --depth == 0) {
+				return i;
+			}
+		}
+		throw new IllegalArgumentException("Unmatched braces in pattern: " + pattern);
+	}
+
+	private static int parseIndex(String argument) {
+		if (argument.length() == 0 || argument.length() > 9) {
+			return -1;
+		}
+		int index = 0;
+		for (int i = 0; i < argument.length(); ++i) {
+			char ch = argument.charAt(i);
+			if (ch < '0' || ch > '9') {
+				return -1;
+			}
+			index = index * 10 + (ch - '0');
+		}
+		return index;
+	}
+
+	private static String replaceNewLines(String text) {
+		return text.indexOf("\\n") < 0 ? text : text.replace("\\n", "\n");
+	}
+
+	/**
+	 * Returns the number of parameters this template uses,
+	 * which is the highest slot index plus one.
+	 *
+	 * @return
+	 */
+	public int getParameterCount() {
+		return parameterCount;
+	}
+
+	/**
+	 * Returns the index of the first parameter lower than {@link #getParameterCount()}
+	 * this template does not use, which usually means the pattern is missing an argument.
+	 *
+	 * @return -1 if all parameters are used
+	 */
+	public int getFirstUnusedParameter() {
+		for (int index = 0; index < parameterCount; ++index) {
+			boolean used = false;
+			for (int slot : slots) {
+				if (slot == index) {
+					used = true;
+					break;
+				}
+			}
+			if (!used) {
+				return index;
+			}
+		}
+		return -1;
+	}
+
+	public String getPattern() {
+		return pattern;
+	}
+
+	/**
+	 * Formats this template using the supplied parameters and appends the result
+	 * to the supplied builder.
+	 *
+	 * Slots without a matching parameter are appended as they are, like "{2}".
+	 * Numbers within (-1000, 1000) and strings are appended without any allocation.
+	 *
+	 * @param builder
+	 * @param parameters
+	 */
+	public void appendTo(StringBuilder builder, Object... parameters) {
+		if (complexFormat != null) {
+			String formatted;
+			// MessageFormat is not thread safe
+			synchronized (complexFormat) {
+				formatted = complexFormat.format(parameters);
+			}
+			builder.append(replaceNewLines(formatted));
+			return;
+		}
+		int count = parameters != null ? parameters.length : 0;
+		Formatter formatter = null;
+		for (int i = 0; i < slots.length; ++i) {
+			builder.append(literals[i]);
+			int index = slots[i];
+			if (index >= count) {
+				builder.append('{').append(index).append('}');
+				continue;
+			}
+			Object parameter = parameters[index];
+			if (parameter instanceof String) {
+				builder.append((String) parameter);
+			} else if (isSmallInteger(parameter)) {
+				builder.append(((Number) parameter).intValue());
+			} else {
+				if (formatter == null) {
+					formatter = formatters.get();
+				}
+				formatter.append(builder, parameter);
+			}
+		}
+		builder.append(literals[literals.length - 1]);
+	}
+
+	/**
+	 * Formats this template using the supplied parameters.
+	 *
+	 * @param parameters
+	 * @return
+	 */
+	public String format(Object... parameters) {
+		if (slots.length == 0 && complexFormat == null) {
+			return literals[0];
+		}
+		StringBuilder builder = new StringBuilder(pattern.length() + 16);
+		appendTo(builder, parameters);
+		return builder.toString();
+	}
+
+	@Override
+	public String toString() {
+		return pattern;
+	}
+
+	// these never get grouping separators or decimals, so they need no NumberFormat,
+	// negative ones do, since not every locale uses an ASCII minus sign
+	private static boolean isSmallInteger(Object parameter) {
+		if (parameter instanceof Integer || parameter instanceof Short || parameter instanceof Byte) {
+			int value = ((Number) parameter).intValue();
+			return value >= 0 && value < 1000;
+		}
+		if (parameter instanceof Long) {
+			long value = (Long) parameter;
+			return value >= 0 && value < 1000;
+		}
+		return false;
+	}
+
+	/**
+	 * The formats MessageFormat uses for arguments without their own format,
+	 * one set per thread, since they are not thread safe.
+	 */
+	private static class Formatter {
+		private final Locale locale = Locale.getDefault(Locale.Category.FORMAT);
+		private final StringBuffer buffer = new StringBuffer();
+		private final FieldPosition position = new FieldPosition(0);
+		private NumberFormat numberFormat;
+		private DateFormat dateFormat;
+
+		private void append(StringBuilder builder, Object parameter) {
+			if (parameter instanceof Number) {
+				if (numberFormat == null) {
+					numberFormat = NumberFormat.getInstance(locale);
+				}
+				buffer.setLength(0);
+				numberFormat.format(parameter, buffer, position);
+				builder.append(buffer);
+			} else if (parameter instanceof Date) {
+				if (dateFormat == null) {
+					dateFormat = DateFormat.getDateTimeInstance(DateFormat.SHORT, DateFormat.SHORT, locale);
+				}
+				buffer.setLength(0);
+				dateFormat.format(parameter, buffer, position);
+				builder.append(buffer);
+			} else {
+				builder.append(String.valueOf(parameter));
+			}
+		}
+	}
+}
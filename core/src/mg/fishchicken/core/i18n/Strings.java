@@ -1,20 +1,27 @@
 package mg.fishchicken.core.i18n;
 
 import java.io.IOException;
-import java.text.MessageFormat;
 import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
 
 import mg.fishchicken.core.assets.Assets;
 import mg.fishchicken.core.configuration.Configuration;
+import mg.fishchicken.core.logging.Log;
+import mg.fishchicken.core.logging.Log.LogType;
 
 import com.badlogic.gdx.utils.GdxRuntimeException;
 import com.badlogic.gdx.utils.ObjectMap;
+import com.badlogic.gdx.utils.StringBuilder;
 
 /**
  * A Util class for i8n.
  * 
  * Contains most of the localization logic.
  * 
+ * All strings in string tables are compiled into {@link MessageTemplate}s
+ * when the tables are loaded, and the tables themselves are only looked up
+ * once, so getting a string only needs to format its template.
+ * 
  * @author ANNUN
  *
  */
@@ -24,6 +31,15 @@ public class Strings {
 	public static final String RESOURCE_STRING_KEY_SEPARATOR = "#";
 	private static final String RESOURCE_STRING_SEPARATOR = "."+RESOURCE_FILE_EXTENSION+RESOURCE_STRING_KEY_SEPARATOR;
 	private static final int RESOURCE_STRING_SEPARATOR_LENGTH = RESOURCE_STRING_SEPARATOR.length();
+	// formatString is also used with strings built on the fly, so its caches must not grow forever
+	private static final int MAX_CACHED_STRINGS = 1024;
+
+	private static final ConcurrentHashMap<String, StringTable> tables = new ConcurrentHashMap<String, StringTable>();
+	private static final ConcurrentHashMap<String, String[]> resourceStrings = new ConcurrentHashMap<String, String[]>();
+	// keys are mostly camel case constants, so lower casing them every time would create a new String every time
+	private static final ConcurrentHashMap<String, String> lowerCaseKeys = new ConcurrentHashMap<String, String>();
+	private static final ConcurrentHashMap<String, MessageTemplate> formats = new ConcurrentHashMap<String, MessageTemplate>();
+	private static final ConcurrentHashMap<String, Boolean> reportedProblems = new ConcurrentHashMap<String, Boolean>();
 
 	/**
 	 * Gathers all Strings and registers them in the AssetManager
@@ -32,6 +48,8 @@ public class Strings {
 	 * @throws IOException
 	 */
 	public static void gatherStringResources() throws IOException {
+		tables.clear();
+		reportedProblems.clear();
 		Assets.gatherAssets(Configuration.getFolderStringResources(), RESOURCE_FILE_EXTENSION, StringTable.class, null);
 	}
 	
@@ -44,10 +62,9 @@ public class Strings {
 		if (string == null) {
 			return "";
 		}
-		if (string.contains(RESOURCE_STRING_SEPARATOR)) {
-			String resourceFilePath = string.substring(0, string.lastIndexOf(RESOURCE_STRING_SEPARATOR))+"."+RESOURCE_FILE_EXTENSION;
-			String resourceKey = string.substring(string.lastIndexOf(RESOURCE_STRING_SEPARATOR)+RESOURCE_STRING_SEPARATOR_LENGTH, string.length());
-			return getString(resourceFilePath, resourceKey, parameters);
+		String[] resourceString = splitResourceString(string);
+		if (resourceString != null) {
+			return getString(resourceString[0], resourceString[1], parameters);
 		}
 		return formatString(string, parameters);
 	}
@@ -59,25 +76,60 @@ public class Strings {
 		if (resourceKey == null) {
 			return "";
 		}
-		resourceKey = resourceKey.toLowerCase(Locale.ENGLISH);
-		StringTable resources = null;
-		try {
-			resources = Assets.get(Configuration.getFolderStringResources()+stringTable);
-		} catch (GdxRuntimeException e) {
-			
+		resourceKey = toLowerCaseKey(resourceKey);
+		MessageTemplate template = getTemplate(stringTable, resourceKey, parameters);
+		if (template == null) {
+			return stringTable+RESOURCE_STRING_KEY_SEPARATOR+resourceKey;
 		}
-		if (resources == null) {
-			try {
-				resources = Assets.get(stringTable);
-			} catch (GdxRuntimeException e) {
-			}
+		return template.format(parameters);
+	}
+
+	/**
+	 * Same as {@link #getString(String, Object...)}, but appends the result
+	 * to the supplied builder instead of creating a new String.
+	 *
+	 * @param builder
+	 * @param string
+	 * @param parameters
+	 */
+	public static void appendString(StringBuilder builder, String string, Object... parameters) {
+		if (string == null) {
+			return;
 		}
-		if (resources == null || !resources.resources.containsKey(resourceKey)) {
-			return stringTable+RESOURCE_STRING_KEY_SEPARATOR+resourceKey;
+		String[] resourceString = splitResourceString(string);
+		if (resourceString != null) {
+			appendString(builder, resourceString[0], resourceString[1], parameters);
+		} else {
+			appendFormattedString(builder, string, parameters);
 		}
-		return resources.resources.get(resourceKey).format(parameters).replaceAll("\\\\n", "\n");
 	}
-	
+
+	/**
+	 * Same as {@link #getString(String, String, Object...)}, but appends the result
+	 * to the supplied builder instead of creating a new String.
+	 *
+	 * @param builder
+	 * @param stringTable
+	 * @param resourceKey
+	 * @param parameters
+	 */
+	public static void appendString(StringBuilder builder, String stringTable, String resourceKey, Object... parameters) {
+		if (stringTable == null) {
+			appendString(builder, resourceKey, parameters);
+			return;
+		}
+		if (resourceKey == null) {
+			return;
+		}
+		resourceKey = toLowerCaseKey(resourceKey);
+		MessageTemplate template = getTemplate(stringTable, resourceKey, parameters);
+		if (template == null) {
+			builder.append(stringTable).append(RESOURCE_STRING_KEY_SEPARATOR).append(resourceKey);
+			return;
+		}
+		template.appendTo(builder, parameters);
+	}
+
 	/**
 	 * Formats the supplied string using the parameters using
 	 * MessageFormat logic.
@@ -94,22 +146,168 @@ public class Strings {
 	 * @return
 	 */
 	public static String formatString(String resource, Object... parameters) {
-		String returnValue = parameters.length > 0 ? new MessageFormat(resource).format(parameters) : resource;
-		return returnValue.replaceAll("\\\\n", "\n");
+		if (parameters.length == 0) {
+			return resource.indexOf("\\n") < 0 ? resource : resource.replace("\\n", "\n");
+		}
+		return getFormat(resource).format(parameters);
 	}
 	
+	/**
+	 * Same as {@link #formatString(String, Object...)}, but appends the result
+	 * to the supplied builder instead of creating a new String.
+	 *
+	 * @param builder
+	 * @param resource
+	 * @param parameters
+	 */
+	public static void appendFormattedString(StringBuilder builder, String resource, Object... parameters) {
+		if (parameters.length == 0) {
+			builder.append(formatString(resource));
+			return;
+		}
+		getFormat(resource).appendTo(builder, parameters);
+	}
+
+	/**
+	 * Splits strings like "table.json#key" into the table and the key.
+	 *
+	 * @return null if the string does not refer to a string table
+	 */
+	private static String[] splitResourceString(String string) {
+		String[] resourceString = resourceStrings.get(string);
+		if (resourceString != null) {
+			return resourceString;
+		}
+		int separatorIndex = string.lastIndexOf(RESOURCE_STRING_SEPARATOR);
+		if (separatorIndex < 0) {
+			return null;
+		}
+		resourceString = new String[] {
+				string.substring(0, separatorIndex)+"."+RESOURCE_FILE_EXTENSION,
+				string.substring(separatorIndex+RESOURCE_STRING_SEPARATOR_LENGTH, string.length()) };
+		cache(resourceStrings, string, resourceString);
+		return resourceString;
+	}
+
+	private static String toLowerCaseKey(String resourceKey) {
+		String key = lowerCaseKeys.get(resourceKey);
+		if (key == null) {
+			key = resourceKey.toLowerCase(Locale.ENGLISH);
+			cache(lowerCaseKeys, resourceKey, key);
+		}
+		return key;
+	}
+
+	private static MessageTemplate getFormat(String resource) {
+		MessageTemplate format = formats.get(resource);
+		if (format == null) {
+			format = MessageTemplate.compile(resource);
+			cache(formats, resource, format);
+		}
+		return format;
+	}
+
+	private static <T> void cache(ConcurrentHashMap<String, T> cache, String key, T value) {
+		if (cache.size() >= MAX_CACHED_STRINGS) {
+			cache.clear();
+		}
+		cache.put(key, value);
+	}
+
+	private static StringTable getTable(String stringTable) {
+		StringTable table = tables.get(stringTable);
+		if (table != null) {
+			return table;
+		}
+		try {
+			table = Assets.get(Configuration.getFolderStringResources()+stringTable);
+		} catch (GdxRuntimeException e) {
+
+		}
+		if (table == null) {
+			try {
+				table = Assets.get(stringTable);
+			} catch (GdxRuntimeException e) {
+			}
+		}
+		if (table != null) {
+			tables.put(stringTable, table);
+		}
+		return table;
+	}
+
+	/**
+	 * Returns the template of the supplied key, reporting missing
+	 * strings and missing parameters the first time they happen.
+	 *
+	 * @return null if there is no such string
+	 */
+	private static MessageTemplate getTemplate(String stringTable, String resourceKey, Object[] parameters) {
+		StringTable table = getTable(stringTable);
+		MessageTemplate template = table != null ? table.resources.get(resourceKey) : null;
+		if (template == null) {
+			if (reportOnce(stringTable, resourceKey)) {
+				if (table == null) {
+					Log.log("String table {0} does not exist, cannot get string {1}.", LogType.ERROR, stringTable, resourceKey);
+				} else {
+					Log.log("String {1} does not exist in string table {0}.", LogType.ERROR, stringTable, resourceKey);
+				}
+			}
+			return null;
+		}
+		int parameterCount = parameters != null ? parameters.length : 0;
+		if (parameterCount < template.getParameterCount() && reportOnce(stringTable, resourceKey)) {
+			Log.log("String {1} in string table {0} needs {2} parameters, but got only {3}.", LogType.ERROR,
+					stringTable, resourceKey, template.getParameterCount(), parameterCount);
+		}
+		return template;
+	}
+
+	private static boolean reportOnce(String stringTable, String resourceKey) {
+		return reportedProblems.putIfAbsent(stringTable+RESOURCE_STRING_KEY_SEPARATOR+resourceKey, Boolean.TRUE) == null;
+	}
+
 	public static class StringTable {
-		ObjectMap<String, MessageFormat> resources;
-		
-		public StringTable() {
-			this.resources = new ObjectMap<String, MessageFormat>();
+		private final String name;
+		ObjectMap<String, MessageTemplate> resources;
+
+		public StringTable(String name) {
+			this.name = name;
+			this.resources = new ObjectMap<String, MessageTemplate>();
 		}
-		
+
+		/**
+		 * Compiles the supplied string and adds it under the supplied key.
+		 *
+		 * Strings that cannot be compiled are reported and added as they are.
+		 * Strings that skip some parameter, like "{0} and {2}", are reported,
+		 * since they are most likely missing one.
+		 *
+		 * @param resourceKey
+		 * @param resourceString
+		 */
 		public void add(String resourceKey, String resourceString) {
-			// using regex here to escape all single quotes with another single quote, 
-			// since these would otherwise break the MessageFormat - see 
-			// http://stackoverflow.com/questions/17544794/escaping-single-quotes-for-java-messageformat
-			resources.put(resourceKey, new MessageFormat(resourceString.replaceAll("(?<!')'(?!')", "''")));
+			MessageTemplate template;
+			try {
+				// using regex here to escape all single quotes with another single quote, 
+				// since these would otherwise break the MessageFormat - see 
+				// http://stackoverflow.com/questions/17544794/escaping-single-quotes-for-java-messageformat
+				template = MessageTemplate.compile(resourceString.replaceAll("(?<!')'(?!')", "''"));
+			} catch (IllegalArgumentException e) {
+				Log.log("String {0} in string table {1} is not a valid message: {2}", LogType.ERROR,
+						resourceKey, name, e.getMessage());
+				template = MessageTemplate.literal(resourceString);
+			}
+			int unusedParameter = template.getFirstUnusedParameter();
+			if (unusedParameter >= 0) {
+				Log.log("String {0} in string table {1} does not use parameter {2}, but uses higher ones.",
+						LogType.ERROR, resourceKey, name, unusedParameter);
+			}
+			resources.put(resourceKey, template);
+		}
+
+		public String getName() {
+			return name;
 		}
 	}
 }
@@ -1,5 +1,15 @@
 package mg.fishchicken.core.logging;
 
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Logs messages to the standard output.
+ * 
+ * If async is enabled, the messages are only queued by the logging thread
+ * and written out by a separate daemon thread, so that the game loop
+ * never waits for the console.
+ *
+ */
 public class ConsoleLogger implements Logger {
 
 	private static ConsoleLogger logger;
@@ -11,12 +21,50 @@ public class ConsoleLogger implements Logger {
 		return logger;
 	}
 	
+	private volatile boolean async;
+	private LinkedBlockingQueue<String> queue; // lazy init
+	
 	private ConsoleLogger() {
 	}
 	
+	/**
+	 * Sets whether messages should be written out by
+	 * a separate thread.
+	 * 
+	 * @param async
+	 */
+	public synchronized void setAsync(boolean async) {
+		if (async && queue == null) {
+			queue = new LinkedBlockingQueue<String>();
+			Thread writer = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					while (true) {
+						try {
+							System.out.println(queue.take());
+						} catch (InterruptedException e) {
+							return;
+						}
+					}
+				}
+			}, "ConsoleLogger");
+			writer.setDaemon(true);
+			writer.start();
+		}
+		this.async = async;
+	}
+	
+	public boolean isAsync() {
+		return async;
+	}
+	
 	@Override
 	public void logMessage(String message) {
-		System.out.println(message);
+		if (async) {
+			queue.offer(message);
+		} else {
+			System.out.println(message);
+		}
 	}
 
 }
@@ -127,7 +127,7 @@ public class Log {
 				return ConsoleLogger.get();
 			}
 		}, 
-		CONDITION
+		CONDITION(false)
 		{
 			@Override
 			public String getStringTable() {
@@ -135,11 +135,10 @@ public class Log {
 			}
 			@Override
 			public Logger getLogger() {
-				return null;
-				//return ConsoleLogger.get();
+				return ConsoleLogger.get();
 			}
 		}, 
-		STATE_MACHINE
+		STATE_MACHINE(false)
 		{
 			@Override
 			public String getStringTable() {
@@ -147,8 +146,7 @@ public class Log {
 			}
 			@Override
 			public Logger getLogger() {
-				//return ConsoleLogger.get();
-				return null;
+				return ConsoleLogger.get();
 			}
 		},
 		JOURNAL
@@ -173,12 +171,108 @@ public class Log {
 				return GameLogLogger.get(Color.WHITE);
 			}
 		};
+		
+		private final boolean enabledByDefault;
+		private volatile boolean enabled;
+		
+		private LogType() {
+			this(true);
+		}
+		
+		private LogType(boolean enabledByDefault) {
+			this.enabledByDefault = enabledByDefault;
+			this.enabled = enabledByDefault;
+		}
+		
+		public boolean isEnabledByDefault() {
+			return enabledByDefault;
+		}
+		
+		/**
+		 * Returns true if messages of this type should be logged.
+		 * 
+		 * Use {@link mg.fishchicken.core.configuration.Configuration#setLogTypeEnabled(LogType, boolean)}
+		 * to change this, so that the change is also stored in the user options.
+		 * 
+		 * @return
+		 */
+		public boolean isEnabled() {
+			return enabled;
+		}
+		
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+		
 		public abstract String getStringTable();
 		public abstract Logger getLogger();
 	};
+	
+	/**
+	 * A message that is only built once it is certain it will be logged.
+	 * 
+	 * Use for messages whose parameters are expensive to compute.
+	 */
+	public static interface LogMessage {
+		public String getMessage();
+	}
+	
+	/**
+	 * Returns true if messages of the supplied type are currently logged.
+	 * 
+	 * Callers that need to do any work to build the parameters
+	 * of a message should check this first.
+	 * 
+	 * @param type
+	 * @return
+	 */
+	public static boolean isEnabled(LogType type) {
+		return type.isEnabled();
+	}
+	
+	public static void log(LogMessage message, LogType type) {
+		if (type.isEnabled()) {
+			log(message.getMessage(), type.getLogger());
+		}
+	}
+	
+	// the fixed arity overloads make sure no parameter array
+	// is created by the caller if the type is disabled
+	
+	public static void log(String message, LogType type) {
+		if (type.isEnabled()) {
+			log(Strings.formatString(message), type.getLogger());
+		}
+	}
+	
+	public static void log(String message, LogType type, Object parameter) {
+		if (type.isEnabled()) {
+			log(Strings.formatString(message, parameter), type.getLogger());
+		}
+	}
+	
+	public static void log(String message, LogType type, Object parameter1, Object parameter2) {
+		if (type.isEnabled()) {
+			log(Strings.formatString(message, parameter1, parameter2), type.getLogger());
+		}
+	}
+	
+	public static void log(String message, LogType type, Object parameter1, Object parameter2, Object parameter3) {
+		if (type.isEnabled()) {
+			log(Strings.formatString(message, parameter1, parameter2, parameter3), type.getLogger());
+		}
+	}
+	
+	public static void log(String message, LogType type, Object parameter1, Object parameter2, Object parameter3, Object parameter4) {
+		if (type.isEnabled()) {
+			log(Strings.formatString(message, parameter1, parameter2, parameter3, parameter4), type.getLogger());
+		}
+	}
 
 	public static void log(String message, LogType type, Object... parameters) {
-		log(Strings.formatString(message, parameters), type.getLogger());
+		if (type.isEnabled()) {
+			log(Strings.formatString(message, parameters), type.getLogger());
+		}
 	}
 	
 	private static void log(String message, Logger logger) {
@@ -192,6 +286,8 @@ public class Log {
 	}
 	
 	public static void logLocalized(String stringTable, String message, LogType type, Object... parameters) {
-		log(Strings.getString(stringTable, message, parameters), type.getLogger());
+		if (type.isEnabled()) {
+			log(Strings.getString(stringTable, message, parameters), type.getLogger());
+		}
 	}
 }
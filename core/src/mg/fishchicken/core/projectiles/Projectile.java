@@ -233,6 +233,12 @@ public class Projectile extends AnimatedGameObject implements TweenCallback, Ass
 		}
 	}
 
+	@Override
+	public boolean requiresFullSimulation() {
+		// projectiles need to hit their targets at the right time
+		return true;
+	}
+
 	@Override
 	public void update(float deltaTime) {
 		super.update(deltaTime);
@@ -6,6 +6,7 @@ import java.util.Locale;
 import mg.fishchicken.audio.Sound;
 import mg.fishchicken.core.ThingWithId;
 import mg.fishchicken.core.assets.Assets;
+import mg.fishchicken.core.assets.ModuleDataCache;
 import mg.fishchicken.core.configuration.Configuration;
 import mg.fishchicken.core.saveload.XMLLoadable;
 import mg.fishchicken.core.util.XMLUtil;
@@ -17,7 +18,6 @@ import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.GdxRuntimeException;
 import com.badlogic.gdx.utils.ObjectMap;
-import com.badlogic.gdx.utils.XmlReader;
 import com.badlogic.gdx.utils.XmlReader.Element;
 
 public class ProjectileType implements XMLLoadable, ThingWithId {
@@ -89,8 +89,7 @@ public class ProjectileType implements XMLLoadable, ThingWithId {
 	
 	@Override
 	public void loadFromXMLNoInit(FileHandle file) throws IOException {
-		XmlReader xmlReader = new XmlReader();
-		Element root = xmlReader.parse(file);
+		Element root = ModuleDataCache.parse(file);
 		XMLUtil.handleImports(this, file, root);
 		loadFromXML(root);
 	}
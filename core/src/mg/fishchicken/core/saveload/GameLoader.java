@@ -1,5 +1,6 @@
 package mg.fishchicken.core.saveload;
 
+import java.io.DataInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectInputStream;
@@ -13,6 +14,7 @@ import mg.fishchicken.core.GameState;
 import mg.fishchicken.core.configuration.Configuration;
 import mg.fishchicken.core.logging.Log;
 import mg.fishchicken.core.logging.Log.LogType;
+import mg.fishchicken.core.util.StreamingXmlReader;
 import mg.fishchicken.core.util.XMLUtil;
 import mg.fishchicken.gamelogic.factions.Faction;
 import mg.fishchicken.gamelogic.locations.GameLocation;
@@ -31,7 +33,6 @@ import com.badlogic.gdx.utils.GdxRuntimeException;
 import com.badlogic.gdx.utils.ObjectMap;
 import com.badlogic.gdx.utils.ObjectMap.Entry;
 import com.badlogic.gdx.utils.StreamUtils;
-import com.badlogic.gdx.utils.XmlReader;
 import com.badlogic.gdx.utils.XmlReader.Element;
 
 public class GameLoader {
@@ -64,6 +65,11 @@ public class GameLoader {
 	 * Loads the game from the supplied slot. Returns true if the game was loaded successfully,
 	 * false otherwise.
 	 * 
+	 * The savegame is streamed section by section, so only one section (or one game object)
+	 * is held in memory as an XML tree at a time. Everything except game objects, the party
+	 * and crime is read first. Those need the current map to be loaded and are read in a second
+	 * pass over the savegame once that happens.
+	 * 
 	 * @param slot
 	 * @return
 	 */
@@ -80,29 +86,20 @@ public class GameLoader {
 			while (zipEntry != null) {
 				if ("random".equals(zipEntry.getName())) {
 					gameState.readRandomGenerator(new ObjectInputStream(zis));
-				} else if ("savegame".equals(zipEntry.getName())) {
-					final Element root = XMLUtil.parseNonCLosing(new XmlReader(), zis);
-					if (root == null || !GameSaver.XML_SAVE_GAME.equals(root.getName())) {
+				} else if (GameSaver.ENTRY_FOG_OF_WAR.equals(zipEntry.getName())) {
+					// this always comes after the savegame entry, so all maps already exist
+					readAllFogOfWar(new DataInputStream(zis));
+				} else if (GameSaver.ENTRY_SAVE_GAME.equals(zipEntry.getName())) {
+					if (!readSaveGameFromXML(new StreamingXmlReader(zis))) {
 						break;
 					}
-					unloadGame();
-					readFactionsFromXML(root);
-					readQuestsFromXML(root);
-					readAllLocationsFromXML(root);
-					readGlobalFromXLM(root);
-					readWeatherFromXML(root);
-					
-					UIManager.loadFromXML(root);
 					
 					game.switchToMapAfterLoading(gameState.getCurrentMap().getId(), new LoadedCallback() {
 
 						@Override
 						public void finishedLoading(AssetManager assetManager, String fileName, @SuppressWarnings("rawtypes") Class type) {
 							try {
-								readAllGameObjectsFromXML(root);
-								GameState.getPlayerCharacterGroup().loadFromXML(root.getChildByName(GameSaver.XML_PLAYER_CHARACTER_GROUP));
-								setMapOnGameObjects();
-								gameState.getCrimeManager().loadFromXML(root.getChildByName(GameSaver.XML_CRIME));
+								readGameObjectsFromSaveGame(slot);
 								if (callback != null) {
 									callback.onOk(gameState.getCurrentMap());
 								}
@@ -177,25 +174,123 @@ public class GameLoader {
 		}
 	}
 	
-	private void readAllGameObjectsFromXML(Element root) {
-		Array<Element> gosElements = root.getChildrenByName(GameSaver.XML_GAME_OBJECTS);
-		for (Element gosElement : gosElements) {
-			String mapId = gosElement.getAttribute(GameSaver.XML_MAP, null);
-			GameMap map = mapId == null ? null : mapsById.get(mapId);
-			Array<GameObject> gosForMap = new Array<GameObject>();
-			if (map != null) {
-				gosToMaps.put(map, gosForMap);
+	/**
+	 * First pass over the savegame. Reads everything except game objects,
+	 * the party and crime.
+	 * 
+	 * Factions and quests are applied as soon as they are read, locations
+	 * are created one by one as they are streamed. The small global, weather
+	 * and UI sections are kept until the end, since they need the locations
+	 * to exist.
+	 * 
+	 * @param reader
+	 * @return false if this is not a savegame
+	 * @throws IOException
+	 */
+	private boolean readSaveGameFromXML(StreamingXmlReader reader) throws IOException {
+		if (!reader.nextElement() || !GameSaver.XML_SAVE_GAME.equals(reader.getName())) {
+			return false;
+		}
+		reader.enterElement();
+		unloadGame();
+		
+		Element root = new Element(GameSaver.XML_SAVE_GAME, null);
+		while (reader.nextElement()) {
+			String name = reader.getName();
+			if (GameSaver.XML_FACTIONS.equals(name)) {
+				readFactionsFromXML(reader.readElement());
+			} else if (GameSaver.XML_QUESTS.equals(name)) {
+				readQuestsFromXML(reader.readElement());
+			} else if (GameSaver.XML_LOCATIONS.equals(name)) {
+				readLocationsFromXML(reader);
+			} else if (GameSaver.XML_GLOBAL.equals(name) || GameSaver.XML_WEATHER.equals(name)
+					|| UIManager.XML_UI.equals(name)) {
+				root.addChild(reader.readElement());
+			}
+			// anything else is read in the second pass, or is unknown, and is skipped
+		}
+		
+		readGlobalFromXLM(root);
+		readWeatherFromXML(root);
+		UIManager.loadFromXML(root);
+		return true;
+	}
+	
+	/**
+	 * Second pass over the savegame. Reopens the save file
+	 * and reads game objects, the party and crime.
+	 * 
+	 * @param slot
+	 * @throws IOException
+	 */
+	private void readGameObjectsFromSaveGame(String slot) throws IOException {
+		ZipInputStream zis = new ZipInputStream(getSaveGameFile(slot).read());
+		try {
+			ZipEntry zipEntry = zis.getNextEntry();
+			while (zipEntry != null && !GameSaver.ENTRY_SAVE_GAME.equals(zipEntry.getName())) {
+				zipEntry = zis.getNextEntry();
 			}
-			for (int i = 0; i < gosElement.getChildCount(); ++i) {
-				Element goElement = gosElement.getChild(i);
-				GameObject go = (GameObject) createFromXML(gameState, goElement);
-				gosForMap.add(go);
+			if (zipEntry == null) {
+				throw new GdxRuntimeException("Savegame entry not found in slot "+slot);
 			}
+			
+			StreamingXmlReader reader = new StreamingXmlReader(zis);
+			reader.nextElement();
+			reader.enterElement();
+			Element playerCharacterGroupElement = null;
+			Element crimeElement = null;
+			while (reader.nextElement()) {
+				String name = reader.getName();
+				if (GameSaver.XML_GAME_OBJECTS.equals(name)) {
+					readGameObjectsFromXML(reader);
+				} else if (GameSaver.XML_PLAYER_CHARACTER_GROUP.equals(name)) {
+					playerCharacterGroupElement = reader.readElement();
+				} else if (GameSaver.XML_CRIME.equals(name)) {
+					crimeElement = reader.readElement();
+				}
+			}
+			
+			GameState.getPlayerCharacterGroup().loadFromXML(playerCharacterGroupElement);
+			setMapOnGameObjects();
+			gameState.getCrimeManager().loadFromXML(crimeElement);
+		} finally {
+			StreamUtils.closeQuietly(zis);
 		}
 	}
 	
-	private static void readQuestsFromXML(Element root) throws IOException {
-		Element questsElement = root.getChildByName(GameSaver.XML_QUESTS);
+	private void readGameObjectsFromXML(StreamingXmlReader reader) {
+		String mapId = reader.getAttribute(GameSaver.XML_MAP, null);
+		GameMap map = mapId == null ? null : mapsById.get(mapId);
+		Array<GameObject> gosForMap = new Array<GameObject>();
+		if (map != null) {
+			gosToMaps.put(map, gosForMap);
+		}
+		reader.enterElement();
+		while (reader.nextElement()) {
+			GameObject go = (GameObject) createFromXML(gameState, reader.readElement());
+			gosForMap.add(go);
+		}
+	}
+	
+	private void readAllFogOfWar(DataInputStream input) throws IOException {
+		int version = input.readInt();
+		if (version != GameSaver.FOG_OF_WAR_VERSION) {
+			throw new GdxRuntimeException("Unsupported fog of war version "+version);
+		}
+		while (input.readBoolean()) {
+			String mapId = input.readUTF();
+			GameMap map = mapsById.get(mapId);
+			if (map == null) {
+				// the map was most likely removed from the module since the game was saved
+				Log.log("Fog of war found for unknown map {0}, ignoring it.", LogType.ERROR, mapId);
+				GameMap.skipFogOfWar(input);
+			} else {
+				map.readFogOfWar(input);
+			}
+		}
+	}
+	
+	private static void readQuestsFromXML(Element questsElement) throws IOException {
 		for (int i = 0; i < questsElement.getChildCount(); ++i) {
 			Element questElement = questsElement.getChild(i);
 			Quest quest = Quest.getQuest(questElement.getName());
@@ -210,8 +305,7 @@ public class GameLoader {
 		}
 	}
 
-	private static void readFactionsFromXML(Element root) throws IOException {
-		Element factionsElement = root.getChildByName(GameSaver.XML_FACTIONS);
+	private static void readFactionsFromXML(Element factionsElement) throws IOException {
 		for (int i = 0; i < factionsElement.getChildCount(); ++i) {
 			Element factionElement = factionsElement.getChild(i);
 			Faction faction = Faction.getFaction(factionElement.getName());
@@ -219,32 +313,32 @@ public class GameLoader {
 		}
 	}
 
-	private void readAllLocationsFromXML(Element root) throws IOException {
-		Array<Element> locationsElements = root.getChildrenByName(GameSaver.XML_LOCATIONS);
-		for (Element locationsElement : locationsElements) {
-			String mapId = locationsElement.getAttribute(GameSaver.XML_MAP, null);
-			if (mapId == null) {
-				continue;
-			}
-			GameMap map = null;
-			for (int i = 0; i < locationsElement.getChildCount(); ++i) {
-				Element locElement = locationsElement.getChild(i);
-				GameLocation loc = (GameLocation) createFromXML(gameState, locElement);
-				// the first location is the map itself, the others are those that belong to it
-				// its okay if this dies on a class cast, since if this is not true, then everything is terrible
-				if (i == 0) {
-					map = (GameMap) loc;
-				} else {
-					loc.setMap(map);
-					// load any "master data" from the xml file
-					loc.loadFromXML(Gdx.files.internal(Configuration
-							.getFolderLocations() + loc.getType() + ".xml"));
-					// and then reload it from the savegame to override any changes
-					// TODO this currently means the savegame element is read twice, this should be optimized
-					loc.loadFromXML(locElement);
-				}
-				gameState.addLocation(loc);
+	private void readLocationsFromXML(StreamingXmlReader reader) throws IOException {
+		String mapId = reader.getAttribute(GameSaver.XML_MAP, null);
+		if (mapId == null) {
+			return;
+		}
+		reader.enterElement();
+		GameMap map = null;
+		int i = 0;
+		while (reader.nextElement()) {
+			Element locElement = reader.readElement();
+			GameLocation loc = (GameLocation) createFromXML(gameState, locElement);
+			// the first location is the map itself, the others are those that belong to it
+			// its okay if this dies on a class cast, since if this is not true, then everything is terrible
+			if (i == 0) {
+				map = (GameMap) loc;
+			} else {
+				loc.setMap(map);
+				// load any "master data" from the xml file
+				loc.loadFromXML(Gdx.files.internal(Configuration
+						.getFolderLocations() + loc.getType() + ".xml"));
+				// and then reload it from the savegame to override any changes
+				// TODO this currently means the savegame element is read twice, this should be optimized
+				loc.loadFromXML(locElement);
 			}
+			gameState.addLocation(loc);
+			++i;
 		}
 	}
 	
@@ -1,5 +1,6 @@
 package mg.fishchicken.core.saveload;
 
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.ObjectOutputStream;
 import java.io.OutputStream;
@@ -48,6 +49,9 @@ public class GameSaver {
 	public static final String XML_ATTRIBUTE_CURRENT_MAP = "currrentMap";
 	public static final String XML_ATTRIBUTE_CAMERA_POSITION_X = "cameraPositionX";
 	public static final String XML_ATTRIBUTE_CAMERA_POSITION_Y = "cameraPositionY";
+	public static final String ENTRY_SAVE_GAME = "savegame";
+	public static final String ENTRY_FOG_OF_WAR = "fogOfWar";
+	public static final int FOG_OF_WAR_VERSION = 1;
 	
 	private WeatherManager weatherManager;
 	private Random random;
@@ -87,7 +91,7 @@ public class GameSaver {
 			saveGameDetails.writeToXML(xml);
 			xml.flush();
 			
-			ZipEntry entry = new ZipEntry("savegame");
+			ZipEntry entry = new ZipEntry(ENTRY_SAVE_GAME);
 			zipOutputStream.putNextEntry(entry);
 			Writer writer = new OutputStreamWriter(zipOutputStream, Charset.forName("UTF-8"));
 			writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
@@ -112,6 +116,10 @@ public class GameSaver {
 			xml.pop();
 			xml.flush();
 			
+			zipOutputStream.putNextEntry(new ZipEntry(ENTRY_FOG_OF_WAR));
+			writeAllFogOfWar(new DataOutputStream(zipOutputStream), locations);
+			zipOutputStream.closeEntry();
+			
 			zipOutputStream.putNextEntry(new ZipEntry("random"));
 			oos = new ObjectOutputStream(zipOutputStream);
 			oos.writeObject(random);
@@ -180,6 +188,24 @@ public class GameSaver {
 	}
 	
 	
+	/**
+	 * Writes the fog of war of all maps as a version number
+	 * followed by (true, map id, fog of war) for each map,
+	 * terminated by false.
+	 */
+	private static void writeAllFogOfWar(DataOutputStream output, ObjectMap<String, GameLocation> locations) throws IOException {
+		output.writeInt(FOG_OF_WAR_VERSION);
+		for (GameLocation loc : locations.values()) {
+			if (loc instanceof GameMap) {
+				output.writeBoolean(true);
+				output.writeUTF(loc.getId());
+				((GameMap) loc).writeFogOfWar(output);
+			}
+		}
+		output.writeBoolean(false);
+		output.flush();
+	}
+	
 	private static void writeFactionsToXML(XmlWriter writer) throws IOException {
 		writer.element(XML_FACTIONS);
 		Faction.writeAllModifiedFactions(writer);
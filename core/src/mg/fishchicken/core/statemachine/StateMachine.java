@@ -6,6 +6,7 @@ import java.io.IOException;
 import java.util.Locale;
 
 import mg.fishchicken.core.ThingWithId;
+import mg.fishchicken.core.assets.ModuleDataCache;
 import mg.fishchicken.core.i18n.Strings;
 import mg.fishchicken.core.logging.Log;
 import mg.fishchicken.core.logging.Log.LogType;
@@ -16,7 +17,6 @@ import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.GdxRuntimeException;
 import com.badlogic.gdx.utils.ObjectMap;
-import com.badlogic.gdx.utils.XmlReader;
 import com.badlogic.gdx.utils.XmlReader.Element;
 import com.badlogic.gdx.utils.XmlWriter;
 
@@ -158,7 +158,7 @@ public abstract class StateMachine<S extends State<T>, T extends Transition> imp
 	}
 	
 	public void loadFromXML(FileHandle machineFile) throws IOException {
-		loadFromXML(new XmlReader().parse(machineFile));
+		loadFromXML(ModuleDataCache.parse(machineFile));
 	}
 	
 	@Override
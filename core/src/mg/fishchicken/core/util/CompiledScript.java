@@ -0,0 +1,119 @@
+package mg.fishchicken.core.util;
+
+import groovy.lang.Binding;
+import groovy.lang.Script;
+
+import org.codehaus.groovy.runtime.InvokerHelper;
+
+/**
+ * A compiled Groovy script that can be safely run from any thread.
+ *
+ * Instead of sharing one Script instance whose binding gets replaced
+ * by every caller, each thread gets its own instance of the compiled
+ * script class, which is reused for all runs on that thread.
+ *
+ * If the script is run again while it is already running on the same thread
+ * (for example because an effect triggers itself), the nested run gets
+ * a fresh instance, so it cannot overwrite the binding of the outer one.
+ *
+ */
+public class CompiledScript {
+
+	private static final Binding EMPTY_BINDING = new Binding();
+
+	private final String id;
+	private final Class<? extends Script> scriptClass;
+	private final boolean staticallyCompiled;
+	private volatile boolean condition;
+	// the instance of the current thread that is not running right now, if any
+	private final ThreadLocal<Script> idleInstance;
+
+	public CompiledScript(String id, Class<? extends Script> scriptClass, boolean staticallyCompiled) {
+		this.id = id;
+		this.scriptClass = scriptClass;
+		this.staticallyCompiled = staticallyCompiled;
+		idleInstance = new ThreadLocal<Script>();
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	public Class<? extends Script> getScriptClass() {
+		return scriptClass;
+	}
+
+	/**
+	 * Returns true if this script was compiled with static type checking
+	 * and static method dispatch.
+	 *
+	 * This is only known for scripts compiled from text, scripts loaded
+	 * from precompiled class files always return false.
+	 *
+	 * @return
+	 */
+	public boolean isStaticallyCompiled() {
+		return staticallyCompiled;
+	}
+
+	/**
+	 * Returns true if this script is used as a condition. Conditions only
+	 * read the game state, so they are safe to run during the Groovy warm up.
+	 *
+	 * @return
+	 */
+	public boolean isCondition() {
+		return condition;
+	}
+
+	public void markAsCondition() {
+		condition = true;
+	}
+
+	/**
+	 * Runs the script with the supplied binding and
+	 * returns its result.
+	 *
+	 * @param binding - can be null, in which case the script will get an empty one
+	 * @return
+	 */
+	public Object run(Binding binding) {
+		Script script = idleInstance.get();
+		if (script == null) {
+			script = newInstance();
+		} else {
+			idleInstance.set(null);
+		}
+		script.setBinding(binding != null ? binding : new Binding());
+		try {
+			return script.run();
+		} finally {
+			// do not keep the context of the last run alive
+			script.setBinding(EMPTY_BINDING);
+			idleInstance.set(script);
+		}
+	}
+
+	/**
+	 * Makes sure the current thread has its own instance of the script ready,
+	 * so that the first run on this thread does not need to create one.
+	 *
+	 * Creating the instance also builds the meta class of the script class.
+	 */
+	public void prepareInstance() {
+		if (idleInstance.get() == null) {
+			Script script = newInstance();
+			script.setBinding(EMPTY_BINDING);
+			idleInstance.set(script);
+		}
+	}
+
+	private Script newInstance() {
+		return InvokerHelper.createScript(scriptClass, new Binding());
+	}
+
+	@Override
+	public String toString() {
+		return id;
+	}
+}
@@ -4,7 +4,9 @@ import groovy.lang.Binding;
 import groovy.lang.GroovyClassLoader;
 import groovy.lang.GroovyCodeSource;
 import groovy.lang.GroovyShell;
+import groovy.lang.GroovySystem;
 import groovy.lang.Script;
+import groovy.transform.CompileStatic;
 
 import java.io.File;
 import java.net.MalformedURLException;
@@ -20,6 +22,7 @@ import mg.fishchicken.core.conditions.Condition;
 import mg.fishchicken.core.configuration.Configuration;
 import mg.fishchicken.core.i18n.Strings;
 import mg.fishchicken.core.logging.Log;
+import mg.fishchicken.core.logging.Log.LogType;
 import mg.fishchicken.gamelogic.actions.Action;
 import mg.fishchicken.gamelogic.characters.AIScript;
 import mg.fishchicken.gamelogic.characters.AIScriptPackage;
@@ -38,8 +41,9 @@ import mg.fishchicken.gamelogic.modifiers.Modifier;
 import mg.fishchicken.gamestate.Position;
 import mg.fishchicken.ui.UIManager;
 
+import org.codehaus.groovy.control.CompilationFailedException;
 import org.codehaus.groovy.control.CompilerConfiguration;
-import org.codehaus.groovy.runtime.InvokerHelper;
+import org.codehaus.groovy.control.customizers.ASTTransformationCustomizer;
 
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.files.FileHandle;
@@ -54,10 +58,49 @@ import com.badlogic.gdx.utils.StringBuilder;
 
 public class GroovyUtil {
 	
+	/**
+	 * Classes imported into every script.
+	 */
+	private static final Class<?>[] IMPORTED_CLASSES = {
+		Strings.class, GameObject.class, GameCharacter.class,
+		AbstractGameCharacter.class,
+		AIScriptPackage.class,
+		Gender.class,
+		Array.class, ObjectMap.class, ObjectSet.class, 
+		GameState.class, Log.class,
+		Modifier.class, AIScript.class,
+		ModifiableStat.class,
+		Script.class,
+		Vector2.class, Vector3.class,
+		Effect.class, PersistentEffect.class,
+		Perk.class,
+		Spell.class,
+		MathUtils.class,
+		PlayerCharacterGroup.class,
+		Binding.class,
+		Condition.class, 
+		UIManager.class
+	};
+	
+	/**
+	 * Packages (represented by one of their classes) whose
+	 * every class is imported into every script.
+	 */
+	private static final Class<?>[] IMPORTED_PACKAGES = {
+		MathUtil.class, 
+		Action.class, 
+		Weapon.class,
+		Position.class,
+		Inventory.class
+	};
+	
 	private static URLClassLoader classLoader;
 	
 	// VERY primitive cache to make sure we do not compile same scripts multiple times
-	private static ObjectMap<String, Script> cache = new ObjectMap<String, Script>();
+	private static ObjectMap<String, CompiledScript> cache = new ObjectMap<String, CompiledScript>();
+	
+	private static int compiledCount, staticallyCompiledCount, loadedCount;
+	private static long totalCompileTime, totalLoadTime;
 	
 	/**
 	 * Loads a precompiled script with the supplied ID. The script class file must 
@@ -68,18 +111,24 @@ public class GroovyUtil {
 	 * @param id
 	 * @return
 	 */
-	public static Script loadScript(final String id) {
+	public static CompiledScript loadScript(final String id) {
 		String fileName = id+".class";
-		Script cached = cache.get(fileName);
+		CompiledScript cached = getCached(fileName);
 		if (cached != null) {
 			return cached;
 		}
 		try {
 			URLClassLoader cl = getURLClassLoader();
 			if (cl != null) {
-		    	Script script = InvokerHelper.createScript(cl.loadClass(fileName), new Binding());
-		    	cache.put(fileName, script);
-		    	return script;
+				long start = System.nanoTime();
+				Class<? extends Script> scriptClass = cl.loadClass(id).asSubclass(Script.class);
+				CompiledScript script = new CompiledScript(id, scriptClass, false);
+				synchronized (cache) {
+					++loadedCount;
+					totalLoadTime += System.nanoTime() - start;
+				}
+				putCached(fileName, script);
+				return script;
 			}
 		} catch (ClassNotFoundException | RuntimeException | MalformedURLException e) {
 			// do nothing and just build the class from the text
@@ -87,49 +136,27 @@ public class GroovyUtil {
 		return null; 
 	}
 	
-	public static Script createScript(final String id, String scriptText) {
-		return createScript(id, scriptText, null);
+	public static CompiledScript createScript(final String id, String scriptText) {
+		return createScript(id, scriptText, null, false);
 	}
 	
-	public static Script createScript(final String id, String scriptText, String targetDirectory) {
-		if (scriptText == null || scriptText.isEmpty()) {
-			return null;
-		}
-		
-		return createScript(id, scriptText, targetDirectory, 
-				Strings.class.getName(),GameObject.class.getName(), GameCharacter.class.getName(),
-				AbstractGameCharacter.class.getName(),
-				AIScriptPackage.class.getName(),
-				Gender.class.getName(),
-				Array.class.getName(), ObjectMap.class.getName(), ObjectSet.class.getName(), 
-				GameState.class.getName(), Log.class.getName(),
-				Modifier.class.getName(), AIScript.class.getName(),
-				ModifiableStat.class.getName(),
-				Script.class.getName(),
-				Vector2.class.getName(), Vector3.class.getName(),
-				MathUtil.class.getPackage().getName()+".*", 
-				Action.class.getPackage().getName()+".*", 
-				Weapon.class.getPackage().getName()+".*",
-				Position.class.getPackage().getName()+".*",
-				Effect.class.getName(), PersistentEffect.class.getName(),
-				Perk.class.getName(),
-				Spell.class.getName(),
-				MathUtils.class.getName(),
-				Inventory.class.getPackage().getName()+".*",
-				ObjectMap.class.getName(), 
-				PlayerCharacterGroup.class.getName(),
-				Binding.class.getName(),
-				Condition.class.getName(), 
-				UIManager.class.getName());
-	}
-	
-	private static Script createScript(final String scriptId, String scriptText, String targetDirectory, String... imports) {
+	/**
+	 * Compiles the supplied script text into a script class.
+	 * 
+	 * @param id - the name of the script class
+	 * @param scriptText
+	 * @param targetDirectory - if not null, the class file will also be written into this directory
+	 * @param tryCompileStatic - if true, the script will first be compiled with {@link CompileStatic}. If that fails
+	 * (which it does for any script that uses dynamic features, like binding variables), it will be compiled dynamically instead.
+	 * @return
+	 */
+	public static CompiledScript createScript(final String id, String scriptText, String targetDirectory, boolean tryCompileStatic) {
 		if (scriptText == null || scriptText.isEmpty()) {
 			return null;
 		}
 		
 		if (targetDirectory == null) {
-			Script cached = cache.get(scriptText);
+			CompiledScript cached = getCached(scriptText);
 			if (cached != null) {
 				return cached;
 			}
@@ -137,11 +164,16 @@ public class GroovyUtil {
 		
 		StringBuilder scriptStringBuffer = StringUtil.getFSB();
 		
-		for (String oneimport : imports) {
+		for (Class<?> importedClass : IMPORTED_CLASSES) {
 			scriptStringBuffer.append("import ");
-			scriptStringBuffer.append(oneimport);
+			scriptStringBuffer.append(importedClass.getName());
 			scriptStringBuffer.append(";\n");
 		}
+		for (Class<?> importedPackage : IMPORTED_PACKAGES) {
+			scriptStringBuffer.append("import ");
+			scriptStringBuffer.append(importedPackage.getPackage().getName());
+			scriptStringBuffer.append(".*;\n");
+		}
 		
 		scriptStringBuffer.append("\n");
 		scriptStringBuffer.append(scriptText); 
@@ -149,19 +181,44 @@ public class GroovyUtil {
 		final String finalScriptText = scriptStringBuffer.toString();
 		StringUtil.freeFSB(scriptStringBuffer);
 		
+		long start = System.nanoTime();
+		CompiledScript script = null;
+		boolean compiledStatically = false;
+		if (tryCompileStatic) {
+			try {
+				script = new CompiledScript(id, compile(id, finalScriptText, targetDirectory, true), true);
+				compiledStatically = true;
+			} catch (CompilationFailedException e) {
+				// the script needs dynamic features, compile it dynamically below
+			}
+		}
+		if (script == null) {
+			script = new CompiledScript(id, compile(id, finalScriptText, targetDirectory, false), false);
+		}
+		// scripts can be compiled on worker threads while modules load
+		synchronized (cache) {
+			if (compiledStatically) {
+				++staticallyCompiledCount;
+			}
+			++compiledCount;
+			totalCompileTime += System.nanoTime() - start;
+		}
+		putCached(scriptText, script);
+		return script;
+	}
+	
+	private static Class<? extends Script> compile(final String scriptId, final String scriptText, String targetDirectory, boolean compileStatic) {
 		GroovyCodeSource gcs = AccessController.doPrivileged(new PrivilegedAction<GroovyCodeSource>() {
             public GroovyCodeSource run() {
-                return new GroovyCodeSource(finalScriptText, scriptId+".groovy", GroovyShell.DEFAULT_CODE_BASE);
+                return new GroovyCodeSource(scriptText, scriptId+".groovy", GroovyShell.DEFAULT_CODE_BASE);
             }
         });
 		
 		GroovyClassLoader loader = null;
 		try {
-			loader = getLoader(targetDirectory);
+			loader = getLoader(targetDirectory, compileStatic);
 			Class<?> scriptClass = loader.parseClass(gcs, false);
-			Script script = InvokerHelper.createScript(scriptClass, new Binding());
-			cache.put(scriptText, script);
-			return script;
+			return scriptClass.asSubclass(Script.class);
 		} finally {
 			if (loader != null) {
 				StreamUtils.closeQuietly(loader);
@@ -169,7 +226,19 @@ public class GroovyUtil {
 		}
 	}
 	
-	private static URLClassLoader getURLClassLoader() throws MalformedURLException {
+	private static CompiledScript getCached(String key) {
+		synchronized (cache) {
+			return cache.get(key);
+		}
+	}
+	
+	private static void putCached(String key, CompiledScript script) {
+		synchronized (cache) {
+			cache.put(key, script);
+		}
+	}
+	
+	private static synchronized URLClassLoader getURLClassLoader() throws MalformedURLException {
 		if (classLoader != null) {
 			return classLoader;
 		}
@@ -180,16 +249,19 @@ public class GroovyUtil {
 		if (scriptsFolder.exists()) {
 			File dirFile = scriptsFolder.file();
 			URL url = dirFile.toURI().toURL();
-		    classLoader = new URLClassLoader(new URL[]{url});
+		    classLoader = new URLClassLoader(new URL[]{url}, GroovyUtil.class.getClassLoader());
 		}
 	    return classLoader;
 	}
 	
-	private static GroovyClassLoader getLoader(String targetDirectory) {
+	private static GroovyClassLoader getLoader(String targetDirectory, boolean compileStatic) {
 		final CompilerConfiguration myConfiguration = new CompilerConfiguration();
 		if (targetDirectory != null) {
 			myConfiguration.setTargetDirectory(targetDirectory);
 		}
+		if (compileStatic) {
+			myConfiguration.addCompilationCustomizers(new ASTTransformationCustomizer(CompileStatic.class));
+		}
 		
 		return AccessController.doPrivileged(new PrivilegedAction<GroovyClassLoader>() {
             public GroovyClassLoader run() {
@@ -198,11 +270,90 @@ public class GroovyUtil {
         });
 	}
 	
-	public static boolean evaluateCondition(Script condition) {
+	/**
+	 * Prepares the Groovy runtime on the calling thread so that the first
+	 * scripts executed in game do not cause a stutter.
+	 * 
+	 * This builds the meta classes of all classes imported into scripts and
+	 * creates this thread's instances of all scripts compiled or loaded so far,
+	 * which also builds their meta classes. Call sites belong to the script
+	 * class that contains them, so condition scripts, which do not change any
+	 * game state, are also run once against a binding in which every variable is null.
+	 * That links their call sites up to the first one that needs a real value.
+	 * 
+	 * Should be called after all modules scripts are loaded, from the thread
+	 * that will run them.
+	 */
+	public static void warmUp() {
+		long start = System.nanoTime();
+		for (Class<?> importedClass : IMPORTED_CLASSES) {
+			GroovySystem.getMetaClassRegistry().getMetaClass(importedClass);
+		}
+		ObjectSet<CompiledScript> scripts = new ObjectSet<CompiledScript>();
+		synchronized (cache) {
+			for (CompiledScript script : cache.values()) {
+				scripts.add(script);
+			}
+		}
+		int conditionCount = 0;
+		for (CompiledScript script : scripts) {
+			script.prepareInstance();
+			if (script.isCondition()) {
+				++conditionCount;
+				try {
+					evaluateCondition(script, new DryRunBinding());
+				} catch (RuntimeException e) {
+					// expected, most conditions need a real object to evaluate
+				}
+			}
+		}
+		Log.log("Groovy warm up took {0} ms, prepared {1} scripts and ran {2} conditions.", LogType.DEBUG,
+				(System.nanoTime() - start) / 1000000, scripts.size, conditionCount);
+	}
+	
+	public static int getCompiledCount() {
+		return compiledCount;
+	}
+	
+	public static int getStaticallyCompiledCount() {
+		return staticallyCompiledCount;
+	}
+	
+	/**
+	 * Returns the total time in nanoseconds spent compiling scripts from text.
+	 * 
+	 * @return
+	 */
+	public static long getTotalCompileTime() {
+		return totalCompileTime;
+	}
+	
+	public static int getLoadedCount() {
+		return loadedCount;
+	}
+	
+	/**
+	 * Returns the total time in nanoseconds spent loading precompiled scripts.
+	 * 
+	 * @return
+	 */
+	public static long getTotalLoadTime() {
+		return totalLoadTime;
+	}
+	
+	/**
+	 * Runs the supplied condition script with the supplied binding and
+	 * converts its result to a boolean.
+	 * 
+	 * @param condition - can be null, in which case the condition is true
+	 * @param binding
+	 * @return
+	 */
+	public static boolean evaluateCondition(CompiledScript condition, Binding binding) {
 		if (condition == null) {
 			return true;
 		}
-		Object evaluatedValue = condition.run();
+		Object evaluatedValue = condition.run(binding);
 		if (evaluatedValue instanceof Boolean) {
 			return (Boolean)evaluatedValue;
 		} else if (evaluatedValue instanceof String) {
@@ -210,4 +361,15 @@ public class GroovyUtil {
 		}
 		return false;
 	}
+	
+	/**
+	 * The binding condition scripts are run with during the warm up.
+	 * Variables that were not set are null instead of failing the script.
+	 */
+	private static class DryRunBinding extends Binding {
+		@Override
+		public Object getVariable(String name) {
+			return hasVariable(name) ? super.getVariable(name) : null;
+		}
+	}
 }
@@ -0,0 +1,171 @@
+package mg.fishchicken.core.util;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+/**
+ * Spreads work over a shared pool of daemon worker threads.
+ *
+ * The calling thread always takes part in the work, so nothing is lost
+ * on machines with a single core. Work started from one of the worker threads
+ * is done on that thread alone, so that nested calls can never wait for each other.
+ *
+ */
+public class ParallelUtil {
+
+	private static ExecutorService executor; // lazy init
+	private static int workerCount = -1;
+
+	private ParallelUtil() {
+	}
+
+	/**
+	 * Something to do with each item of an array.
+	 */
+	public static interface ItemTask<T> {
+		public void run(T item);
+	}
+
+	/**
+	 * Returns the number of worker threads that help the calling thread.
+	 * 
+	 * @return
+	 */
+	public static synchronized int getWorkerCount() {
+		if (workerCount < 0) {
+			workerCount = Math.max(Runtime.getRuntime().availableProcessors() - 1, 0);
+		}
+		return workerCount;
+	}
+
+	/**
+	 * Runs the supplied task for every item of the supplied array and returns
+	 * once all of them are done. The task must be safe to run from multiple threads at once.
+	 * 
+	 * If the task fails for any item, the failure is rethrown on the calling thread once
+	 * all other items are done.
+	 * 
+	 * @param items
+	 * @param task
+	 */
+	public static <T> void forEach(final Array<T> items, final ItemTask<? super T> task) {
+		int threads = Math.min(items.size, getWorkerCount() + 1);
+		if (threads < 2 || Thread.currentThread() instanceof WorkerThread) {
+			for (int i = 0; i < items.size; ++i) {
+				task.run(items.get(i));
+			}
+			return;
+		}
+
+		final AtomicInteger next = new AtomicInteger();
+		Runnable worker = new Runnable() {
+			@Override
+			public void run() {
+				int i;
+				while ((i = next.getAndIncrement()) < items.size) {
+					task.run(items.get(i));
+				}
+			}
+		};
+		Future<?>[] futures = new Future<?>[threads - 1];
+		ExecutorService executor = getExecutor();
+		for (int i = 0; i < futures.length; ++i) {
+			futures[i] = executor.submit(worker);
+		}
+		RuntimeException failure = null;
+		try {
+			worker.run();
+		} catch (RuntimeException e) {
+			failure = e;
+			// make the workers stop picking up new items
+			next.set(items.size);
+		}
+		for (int i = 0; i < futures.length; ++i) {
+			try {
+				futures[i].get();
+			} catch (ExecutionException e) {
+				if (failure == null) {
+					failure = new GdxRuntimeException(e.getCause());
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				if (failure == null) {
+					failure = new GdxRuntimeException(e);
+				}
+			}
+		}
+		if (failure != null) {
+			throw failure;
+		}
+	}
+
+	/**
+	 * Runs the supplied task on one of the worker threads and returns
+	 * right away. If there are no worker threads, or this is called from one,
+	 * the task is run on the calling thread before this returns.
+	 * 
+	 * @param task
+	 * @return the future holding the result of the task
+	 */
+	public static <T> Future<T> submit(Callable<T> task) {
+		if (getWorkerCount() < 1 || Thread.currentThread() instanceof WorkerThread) {
+			FutureTask<T> future = new FutureTask<T>(task);
+			future.run();
+			return future;
+		}
+		return getExecutor().submit(task);
+	}
+
+	/**
+	 * Waits for the supplied future to finish and returns its result.
+	 * 
+	 * If the task failed, the failure is rethrown on the calling thread.
+	 * 
+	 * @param future
+	 * @return
+	 */
+	public static <T> T get(Future<T> future) {
+		try {
+			return future.get();
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new GdxRuntimeException(e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new GdxRuntimeException(e);
+		}
+	}
+
+	private static synchronized ExecutorService getExecutor() {
+		if (executor == null) {
+			executor = Executors.newFixedThreadPool(getWorkerCount(), new ThreadFactory() {
+				private int counter;
+
+				@Override
+				public synchronized Thread newThread(Runnable runnable) {
+					Thread thread = new WorkerThread(runnable, "Worker " + ++counter);
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+		return executor;
+	}
+
+	private static class WorkerThread extends Thread {
+		private WorkerThread(Runnable runnable, String name) {
+			super(runnable, name);
+		}
+	}
+}
@@ -3,27 +3,55 @@ package mg.fishchicken.core.util;
 import mg.fishchicken.gamestate.Tile;
 
 import com.badlogic.gdx.utils.IntArray;
-import com.badlogic.gdx.utils.IntMap;
+import com.badlogic.gdx.utils.IntIntMap;
 
+/**
+ * An ordered list of tiles, which are pairs of x, y integer coordinates. 
+ * The same tile can be in the array more than once.
+ * 
+ * Membership tests are O(1) - next to the list itself, the array keeps
+ * the number of occurrences of each tile in a primitive map keyed by the
+ * packed tile coordinates.
+ * 
+ * Removing tiles is O(n), since the remaining tiles keep their order.
+ * Callers depend on that order, for example Line removes the tile of the user
+ * from the start of the line and the rest of the line must stay sorted
+ * by the distance from the user. Removals are rare, usually at most one per
+ * computed area, so they are not worth an index map and swapping.
+ *
+ */
 public class PositionArray {
 
 	private IntArray array;
-	private IntMap<Integer> hashSet;
+	private IntIntMap counts;
 	
 	public PositionArray() {
 		array = new IntArray();
-		hashSet = new IntMap<Integer>();
+		counts = new IntIntMap();
 	}
 	
 	public PositionArray(PositionArray arrayToCopy) {
 		array = new IntArray(arrayToCopy.array);
-		hashSet = new IntMap<Integer>(arrayToCopy.hashSet);
+		counts = new IntIntMap(arrayToCopy.counts);
 	}
 	
 	
 	public PositionArray(int initialSize) {
 		array = new IntArray(initialSize*2);
-		hashSet = new IntMap<Integer>(initialSize);
+		counts = new IntIntMap(initialSize);
+	}
+	
+	/**
+	 * Packs the supplied tile coordinates into a single int that can be used
+	 * as a key in primitive collections. Unique for all coordinates
+	 * in the range of -32768 to 32767.
+	 * 
+	 * @param x
+	 * @param y
+	 * @return
+	 */
+	public static int pack(int x, int y) {
+		return (x << 16) | (y & 0xFFFF);
 	}
  	
 	public int size() {
@@ -39,7 +67,7 @@ public class PositionArray {
 	}
 
 	public boolean contains(int x, int y) {
-		return indexOf(x, y) != -1;
+		return counts.get(pack(x, y), 0) > 0;
 	}
 
 	public int[] toArray() {
@@ -57,32 +85,36 @@ public class PositionArray {
 	public void add(int x, int y) {
 		array.add(x);
 		array.add(y);
-		int hash = x*y;
-		Integer existing = hashSet.get(hash);
-		if (existing == null) {
-			existing = 1;
-		} else {
-			++existing;
-		}
-		hashSet.put(hash, existing);
+		counts.getAndIncrement(pack(x, y), 0, 1);
 	}
 
 	public void add(Tile pos) {
 		add(pos.getX(), pos.getY());
 	}
 	
+	/**
+	 * Removes the tile at the supplied index. The tiles after it
+	 * are shifted down, so this is O(n).
+	 * 
+	 * @param i
+	 */
 	public void removeIndex(int i) {
-		int x = array.removeIndex(i*2);
-		int y = array.removeIndex(i*2);
-		int hash = x*y;
-		Integer existing = hashSet.get(hash);
-		if (existing == 1) {
-			hashSet.remove(hash);
-		} else {
-			hashSet.put(hash, existing-1);
+		int x = array.get(i*2);
+		int y = array.get(i*2+1);
+		array.removeRange(i*2, i*2+1);
+		int key = pack(x, y);
+		if (counts.getAndIncrement(key, 0, -1) == 1) {
+			counts.remove(key, 0);
 		}
 	}
 	
+	/**
+	 * Removes the first occurrence of the supplied tile, if it is in the array.
+	 * This is O(n), unless the tile is not there.
+	 * 
+	 * @param x
+	 * @param y
+	 */
 	public void removeValue(int x, int y) {
 		int index = indexOf(x, y);
 		if (index > -1) {
@@ -90,12 +122,22 @@ public class PositionArray {
 		}
 	}
 	
+	/**
+	 * Returns the index of the first occurrence of the supplied tile,
+	 * or -1 if it is not in the array. Tiles that are not in the array are
+	 * found out in O(1), the others need a scan.
+	 * 
+	 * @param x
+	 * @param y
+	 * @return
+	 */
 	public int indexOf(int x, int y) {
-		if (!hashSet.containsKey(x*y)) {
+		if (!contains(x, y)) {
 			return -1;
 		}
+		int[] items = array.items;
 		for (int i = 0; i < array.size; i += 2) {
-			if (x == array.get(i) && y == array.get(i+1)) {
+			if (x == items[i] && y == items[i+1]) {
 				return i/2;
 			}
 		}
@@ -120,6 +162,6 @@ public class PositionArray {
 	
 	public void clear() {
 		array.clear();
-		hashSet.clear();
+		counts.clear();
 	}	
 }
@@ -0,0 +1,294 @@
+package mg.fishchicken.core.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+
+import com.badlogic.gdx.utils.SerializationException;
+import com.badlogic.gdx.utils.XmlReader;
+import com.badlogic.gdx.utils.XmlReader.Element;
+
+/**
+ * Reads an XML document from a stream one element at a time,
+ * without ever holding the whole document in memory.
+ *
+ * The reader walks the children of the current element. Each child can
+ * either be entered (its own children will be walked next), skipped,
+ * or read into a regular {@link Element} that contains its whole subtree.
+ *
+ * The underlying stream is never closed by this reader.
+ *
+ * Typical usage:
+ * <pre>
+ * reader.nextElement(); // the root
+ * reader.enterElement();
+ * while (reader.nextElement()) {
+ *     Element child = reader.readElement();
+ * }
+ * </pre>
+ */
+public class StreamingXmlReader {
+
+	private static final int EOF = 0;
+	private static final int START = 1;
+	private static final int END = 2;
+
+	private final Reader reader;
+	private final XmlReader parser;
+	private final char[] buffer = new char[8192];
+	private int position, limit;
+
+	private final StringBuilder tag = new StringBuilder();
+	private String name;
+	private boolean selfClosing;
+	private boolean pending;
+	private boolean enteredEmpty;
+	private Element startTag;
+
+	public StreamingXmlReader(InputStream inStream) {
+		try {
+			reader = new InputStreamReader(inStream, "UTF-8");
+		} catch (IOException ex) {
+			throw new SerializationException(ex);
+		}
+		parser = new XmlReader();
+	}
+
+	/**
+	 * Moves to the next child of the current element.
+	 *
+	 * If the previous child was neither read nor entered,
+	 * it is skipped.
+	 *
+	 * @return false if there are no more children, in which case the current
+	 *         element is closed and its parent becomes the current element again
+	 */
+	public boolean nextElement() {
+		if (enteredEmpty) {
+			enteredEmpty = false;
+			return false;
+		}
+		if (pending) {
+			skipElement();
+		}
+		if (nextTag(null) != START) {
+			// either the end of the current element, or of the whole document
+			return false;
+		}
+		pending = true;
+		startTag = null;
+		return true;
+	}
+
+	/**
+	 * Returns the name of the child the reader is on.
+	 *
+	 * @return
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Returns the value of the attribute of the child the reader is on,
+	 * or the default value if it does not have it.
+	 */
+	public String getAttribute(String attributeName, String defaultValue) {
+		if (startTag == null) {
+			startTag = parser.parse(selfClosing ? tag.toString() : tag + "</" + name + ">");
+		}
+		return startTag.getAttribute(attributeName, defaultValue);
+	}
+
+	/**
+	 * Makes the child the reader is on the current element,
+	 * so that nextElement will walk its children.
+	 */
+	public void enterElement() {
+		checkPending();
+		pending = false;
+		enteredEmpty = selfClosing;
+	}
+
+	/**
+	 * Reads the whole child the reader is on, including
+	 * all its descendants.
+	 *
+	 * @return
+	 */
+	public Element readElement() {
+		checkPending();
+		pending = false;
+		StringBuilder subtree = new StringBuilder(tag);
+		if (!selfClosing) {
+			consumeElement(subtree);
+		}
+		return parser.parse(subtree.toString());
+	}
+
+	/**
+	 * Skips the child the reader is on, including
+	 * all its descendants.
+	 */
+	public void skipElement() {
+		checkPending();
+		pending = false;
+		if (!selfClosing) {
+			consumeElement(null);
+		}
+	}
+
+	private void checkPending() {
+		if (!pending) {
+			throw new IllegalStateException("Not positioned on an element.");
+		}
+	}
+
+	private void consumeElement(StringBuilder capture) {
+		int level = 1;
+		while (level > 0) {
+			int type = nextTag(capture);
+			if (type == START) {
+				if (!selfClosing) {
+					++level;
+				}
+			} else if (type == END) {
+				--level;
+			} else {
+				throw new SerializationException("Unexpected end of document, missing end of element.");
+			}
+		}
+	}
+
+	/**
+	 * Reads until the next start or end tag, appending everything
+	 * that was read to the capture, if supplied. Text, comments,
+	 * processing instructions and CDATA are passed over.
+	 *
+	 * For start tags, this sets name, selfClosing and tag.
+	 *
+	 * @param capture
+	 * @return
+	 */
+	private int nextTag(StringBuilder capture) {
+		try {
+			while (true) {
+				int c = read();
+				if (c == -1) {
+					return EOF;
+				}
+				if (c != '<') {
+					if (capture != null) {
+						capture.append((char) c);
+					}
+					continue;
+				}
+				tag.setLength(0);
+				tag.append('<');
+				c = read();
+				int type;
+				if (c == '?') {
+					tag.append('?');
+					readUntil("?>");
+					type = -1;
+				} else if (c == '!') {
+					tag.append('!');
+					readSpecial();
+					type = -1;
+				} else if (c == '/') {
+					tag.append('/');
+					readUntil(">");
+					type = END;
+				} else {
+					if (c == -1) {
+						throw new SerializationException("Unexpected end of document inside a tag.");
+					}
+					tag.append((char) c);
+					readStartTag();
+					type = START;
+				}
+				if (capture != null) {
+					capture.append(tag);
+				}
+				if (type != -1) {
+					return type;
+				}
+			}
+		} catch (IOException ex) {
+			throw new SerializationException(ex);
+		}
+	}
+
+	private void readStartTag() throws IOException {
+		int nameEnd = -1;
+		char quote = 0;
+		while (true) {
+			int c = read();
+			if (c == -1) {
+				throw new SerializationException("Unexpected end of document inside a tag.");
+			}
+			tag.append((char) c);
+			if (quote != 0) {
+				if (c == quote) {
+					quote = 0;
+				}
+				continue;
+			}
+			if (nameEnd < 0 && (Character.isWhitespace(c) || c == '/' || c == '>')) {
+				nameEnd = tag.length() - 1;
+			}
+			if (c == '"' || c == '\'') {
+				quote = (char) c;
+			} else if (c == '>') {
+				break;
+			}
+		}
+		name = tag.substring(1, nameEnd);
+		selfClosing = tag.charAt(tag.length() - 2) == '/';
+	}
+
+	private void readSpecial() throws IOException {
+		int c = read();
+		if (c == '-') {
+			tag.append('-');
+			readUntil("-->");
+		} else if (c == '[') {
+			tag.append('[');
+			readUntil("]]>");
+		} else {
+			if (c != -1) {
+				tag.append((char) c);
+			}
+			readUntil(">");
+		}
+	}
+
+	private void readUntil(String terminator) throws IOException {
+		int terminatorLength = terminator.length();
+		while (true) {
+			int c = read();
+			if (c == -1) {
+				throw new SerializationException("Unexpected end of document, expected "+terminator);
+			}
+			tag.append((char) c);
+			int length = tag.length();
+			if (c == terminator.charAt(terminatorLength - 1) && length >= terminatorLength
+					&& tag.substring(length - terminatorLength).equals(terminator)) {
+				return;
+			}
+		}
+	}
+
+	private int read() throws IOException {
+		if (position == limit) {
+			limit = reader.read(buffer, 0, buffer.length);
+			position = 0;
+			if (limit <= 0) {
+				limit = 0;
+				return -1;
+			}
+		}
+		return buffer[position++];
+	}
+}
@@ -65,13 +65,18 @@ public class StringUtil {
 		return stringToClear.replace("\n", " ").replace("\t", "");
 	}
 
+	// synchronized, since scripts can be compiled on worker threads while modules load
 	public static StringBuilder getFSB() {
-		return stringBufferPool.obtain();
+		synchronized (stringBufferPool) {
+			return stringBufferPool.obtain();
+		}
 	}
 
 	public static void freeFSB(StringBuilder fsb) {
 		fsb.setLength(0);
-		stringBufferPool.free(fsb);
+		synchronized (stringBufferPool) {
+			stringBufferPool.free(fsb);
+		}
 	}
 	
 	/**
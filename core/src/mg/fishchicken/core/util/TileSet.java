@@ -1,7 +1,5 @@
 package mg.fishchicken.core.util;
 
-import com.badlogic.gdx.utils.IntSet;
-
 /**
  * Represents an ordered set of tiles, which are a pair of x, y integer coordinates. 
  * Each tile can only be in the set once. 
@@ -10,13 +8,24 @@ import com.badlogic.gdx.utils.IntSet;
 public class TileSet {
 
 	PositionArray array;
-	IntSet set;	
-	int mapWidth;
 	
-	public TileSet(int mapWidth) {
-		this.mapWidth = mapWidth;
-		set = new IntSet();
-		array = new PositionArray();
+	public TileSet() {
+		this(new PositionArray());
+	}
+	
+	private TileSet(PositionArray array) {
+		this.array = array;
+	}
+	
+	/**
+	 * Creates an empty set with room for the supplied number
+	 * of tiles. The set grows as needed.
+	 * 
+	 * @param initialSize
+	 * @return
+	 */
+	public static TileSet withInitialSize(int initialSize) {
+		return new TileSet(new PositionArray(initialSize));
 	}
 	
 	/**
@@ -26,11 +35,11 @@ public class TileSet {
 	 * @return
 	 */
 	public boolean add(int x, int y) {
-		if (set.add(getTileId(x, y))) {
-			array.add(x, y);
-			return true;
+		if (array.contains(x, y)) {
+			return false;
 		}
-		return false;
+		array.add(x, y);
+		return true;
 	}
 	
 	public void addAll(PositionArray array) {
@@ -40,11 +49,10 @@ public class TileSet {
 	}
 	
 	public boolean contains(int x, int y) {
-		return set.contains(getTileId(x, y));
+		return array.contains(x, y);
 	}
 	
 	public void clear() {
-		set.clear();
 		array.clear();
 	}
 	
@@ -59,8 +67,4 @@ public class TileSet {
 		return array;
 	}
 	
-	private int getTileId(int x, int y) {
-		return x+y*mapWidth;
-	}
-	
 }
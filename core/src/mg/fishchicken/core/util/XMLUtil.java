@@ -20,7 +20,6 @@ import com.badlogic.gdx.utils.XmlWriter;
 import com.badlogic.gdx.utils.reflect.ClassReflection;
 import com.badlogic.gdx.utils.reflect.ReflectionException;
 
-import groovy.lang.Script;
 import mg.fishchicken.audio.AudioContainer;
 import mg.fishchicken.audio.AudioProfile;
 import mg.fishchicken.audio.AudioTrack;
@@ -118,18 +117,18 @@ public class XMLUtil {
 		}
 	}
 
-	public static Script readScript(String scriptId, Element scriptElement) {
+	public static CompiledScript readScript(String scriptId, Element scriptElement) {
 		return readScript(scriptId, scriptElement, null);
 	}
 	
-	public static Script readScript(String scriptId, Element scriptElement, Script defaultScript) {
+	public static CompiledScript readScript(String scriptId, Element scriptElement, CompiledScript defaultScript) {
 		if (scriptElement == null) {
 			return defaultScript;
 		}
 		
 		String id = scriptElement.getAttribute(XML_ATTRIBUTE_ID, null);
 		if (id != null) {
-			Script script = GroovyUtil.loadScript(id);
+			CompiledScript script = GroovyUtil.loadScript(id);
 			if (script != null) {
 				return script;
 			}
@@ -137,6 +136,20 @@ public class XMLUtil {
 		return GroovyUtil.createScript(scriptId, scriptElement.getText());
 	}
 	
+	/**
+	 * Reads a script that is used as a condition. Such scripts must not change
+	 * any game state, which allows {@link GroovyUtil#warmUp()} to run them.
+	 * 
+	 * @see #readScript(String, Element, CompiledScript)
+	 */
+	public static CompiledScript readConditionScript(String scriptId, Element scriptElement, CompiledScript defaultScript) {
+		CompiledScript script = readScript(scriptId, scriptElement, defaultScript);
+		if (script != null && script != defaultScript) {
+			script.markAsCondition();
+		}
+		return script;
+	}
+	
 	
 	
 	
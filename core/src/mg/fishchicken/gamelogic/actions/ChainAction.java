@@ -87,20 +87,23 @@ public class ChainAction extends BasicAction {
 			XMLUtil.readActions(actions, actionElement);
 			actionElement = null;
 		}
-		if (currentAction == null) {
-			if (actions.size() < 1) {
-				isFinished = true;
-				return;
+		// actions finished in a previous update are replaced by the next one right away,
+		// so that the chain does not spend whole updates doing nothing
+		while (true) {
+			if (currentAction == null) {
+				if (actions.size() < 1) {
+					isFinished = true;
+					return;
+				}
+				currentAction = actions.removeFirst();
 			}
-			currentAction = actions.removeFirst();
-		}
-		
-		if (currentAction != null) {
+			
 			if (currentAction.isFinished()) {
 				currentAction = null;
 			}
 			else {
 				currentAction.update(deltaTime);
+				return;
 			}
 		}
 	}
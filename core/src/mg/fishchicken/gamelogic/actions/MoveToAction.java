@@ -147,7 +147,12 @@ public class MoveToAction extends BasicAction {
 
 	@Override
 	public void update(float deltaTime) {
-		if (character != null && !isFinished) {
+		// characters away from the player are updated less often and get all the time
+		// since their previous update at once, so we keep walking until it is used up
+		do {
+			if (character == null || isFinished) {
+				return;
+			}
 			calculatePathIfRequired();
 			Step nextStep = path.getStep(pathIndex);
 			if (character.position().equals(nextStep.getX(), nextStep.getY())) {
@@ -175,8 +180,13 @@ public class MoveToAction extends BasicAction {
 					return;
 				}
 			}
-			moveCharacterToStep(character, nextStep, deltaTime);
-		}
+			deltaTime = moveCharacterToStep(character, nextStep, deltaTime);
+			if (deltaTime > 0) {
+				// the step was reached with time to spare, let the map
+				// know about it before we go on with the next one
+				character.handlePositionChanges();
+			}
+		} while (deltaTime > 0);
 	}
 	
 	/**
@@ -229,9 +239,11 @@ public class MoveToAction extends BasicAction {
 	 * @param character
 	 * @param step
 	 * @param deltaTime
+	 * @return the part of the delta time that was left after the step was reached, 
+	 * zero if it was not reached
 	 */
-	private void moveCharacterToStep(AbstractGameCharacter character, Step step, float deltaTime) {
-		
+	private float moveCharacterToStep(AbstractGameCharacter character, Step step, float deltaTime) {
+		
 		float xDif =step.getX() - characterPosition.getX();
 		float yDif =step.getY() - characterPosition.getY();
 		int xSign = (int) (xDif / Math.abs(xDif));
@@ -247,6 +259,8 @@ public class MoveToAction extends BasicAction {
 				speed *= Configuration.getCombatSpeedMultiplier();
 			}
 		}
+		// the time it takes to get to the step
+		float stepTime = Math.max(Math.abs(xDif), Math.abs(yDif)) / speed;
 		xDif = xDif == 0 ? 0 : xSign * speed * deltaTime;
 		yDif = yDif == 0 ? 0 : ySign * speed * deltaTime;
 		
@@ -256,6 +270,7 @@ public class MoveToAction extends BasicAction {
 				&& ((xDif < 0 && yDif < 0) || (xDif > 0 && yDif > 0))) {
 			xDif = xDif / 2;
 			yDif = yDif / 2;
+			stepTime = stepTime * 2;
 		}
 		float newX = characterPosition.getX()+xDif;
 		if (xDif < 0 && newX  <step.getX()) {
@@ -271,9 +286,18 @@ public class MoveToAction extends BasicAction {
 			newY =step.getY();
 		}
 		
+		float timeLeft = 0;
+		if (speed > 0 && deltaTime > stepTime) {
+			// there was enough time to get there, make sure rounding does not leave us short
+			newX = step.getX();
+			newY = step.getY();
+			timeLeft = deltaTime - stepTime;
+		}
+		
 		character.setOrientation(Orientation.calculateOrientationToTarget(character.getMap().isIsometric(),xSign, ySign));
 		character.setState(GameCharacter.State.WALK);
 		characterPosition.set(newX, newY);
+		return timeLeft;
 	}
 	
 	/**
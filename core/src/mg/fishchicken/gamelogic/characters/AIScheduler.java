@@ -0,0 +1,143 @@
+package mg.fishchicken.gamelogic.characters;
+
+import java.util.Comparator;
+
+import mg.fishchicken.core.GameObject;
+import mg.fishchicken.core.GameState;
+import mg.fishchicken.core.configuration.Configuration;
+import mg.fishchicken.core.util.MathUtil;
+import mg.fishchicken.gamelogic.locations.GameMap;
+
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * Spreads the execution of peace time AI scripts over multiple frames.
+ *
+ * Brains that need to decide on their next action do not run their scripts right
+ * away, but are queued here instead. Once per frame, the queue is sorted so that
+ * brains of characters on screen and close to the party go first and then processed
+ * until the AI time budget for the frame ({@link Configuration#getAIFrameBudget()})
+ * is used up. At least one brain is always processed per frame.
+ *
+ * Brains that had to wait get a better priority every frame they wait, so
+ * even characters far away from the party get to think eventually.
+ *
+ */
+public class AIScheduler {
+
+	// priority penalty, in tiles, for characters that are not on screen
+	private static final float OFF_SCREEN_PENALTY = 30;
+	// priority, in tiles, of characters on other maps than the current one
+	private static final float OTHER_MAP_PRIORITY = 1000;
+
+	private final Array<Brain> queue;
+	private final Comparator<Brain> priorityComparator;
+	private int thoughtLastFrame;
+
+	public AIScheduler() {
+		queue = new Array<Brain>(true, 32, Brain.class);
+		priorityComparator = new Comparator<Brain>() {
+			@Override
+			public int compare(Brain o1, Brain o2) {
+				return Float.compare(o1.schedulingPriority, o2.schedulingPriority);
+			}
+		};
+	}
+
+	/**
+	 * Queues the supplied brain to think during one of the next updates,
+	 * unless it is already queued.
+	 *
+	 * @param brain
+	 */
+	public void schedule(Brain brain) {
+		if (brain.scheduled) {
+			return;
+		}
+		brain.scheduled = true;
+		brain.waitedFrames = 0;
+		queue.add(brain);
+	}
+
+	/**
+	 * Lets queued brains think until the budget for this frame runs out.
+	 *
+	 * @param currentMap
+	 */
+	public void update(GameMap currentMap) {
+		thoughtLastFrame = 0;
+		if (queue.size == 0) {
+			return;
+		}
+
+		updatePriorities(currentMap);
+		queue.sort(priorityComparator);
+
+		long budget = (long) (Configuration.getAIFrameBudget() * 1000000);
+		long start = System.nanoTime();
+		int count = queue.size;
+		int processed = 0;
+		while (processed < count && (processed == 0 || System.nanoTime() - start < budget)) {
+			Brain brain = queue.get(processed++);
+			brain.scheduled = false;
+			brain.think();
+		}
+		queue.removeRange(0, processed - 1);
+		thoughtLastFrame = processed;
+
+		for (int i = 0; i < queue.size; ++i) {
+			++queue.get(i).waitedFrames;
+		}
+	}
+
+	private void updatePriorities(GameMap currentMap) {
+		GameCharacter leader = GameState.getPlayerCharacterGroup().getGroupLeader();
+		boolean canCheckScreen = currentMap != null && currentMap.getCamera() != null;
+		for (int i = 0; i < queue.size; ++i) {
+			Brain brain = queue.get(i);
+			GameObject go = brain.getGameObject();
+			float priority;
+			if (currentMap == null || go.getMap() != currentMap) {
+				priority = OTHER_MAP_PRIORITY;
+			} else {
+				float x = go.position().getX();
+				float y = go.position().getY();
+				priority = leader == null || leader.getMap() != currentMap ? 0 : MathUtil.distance(x, y,
+						leader.position().getX(), leader.position().getY());
+				if (!canCheckScreen || !currentMap.isOnScreen((int) x, (int) y)) {
+					priority += OFF_SCREEN_PENALTY;
+				}
+			}
+			brain.schedulingPriority = priority / (1 + brain.waitedFrames);
+		}
+	}
+
+	/**
+	 * Removes all brains from the queue.
+	 */
+	public void clear() {
+		for (int i = 0; i < queue.size; ++i) {
+			queue.get(i).scheduled = false;
+		}
+		queue.clear();
+		thoughtLastFrame = 0;
+	}
+
+	/**
+	 * Returns the number of brains currently waiting to think.
+	 *
+	 * @return
+	 */
+	public int getQueueSize() {
+		return queue.size;
+	}
+
+	/**
+	 * Returns the number of brains that got to think during the last update.
+	 *
+	 * @return
+	 */
+	public int getThoughtLastFrame() {
+		return thoughtLastFrame;
+	}
+}
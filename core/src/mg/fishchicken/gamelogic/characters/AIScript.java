@@ -1,7 +1,6 @@
 package mg.fishchicken.gamelogic.characters;
 
 import groovy.lang.Binding;
-import groovy.lang.Script;
 
 import java.io.IOException;
 import java.util.Locale;
@@ -9,14 +8,15 @@ import java.util.Locale;
 import mg.fishchicken.core.GameState;
 import mg.fishchicken.core.ThingWithId;
 import mg.fishchicken.core.assets.Assets;
+import mg.fishchicken.core.assets.ModuleDataCache;
 import mg.fishchicken.core.configuration.Configuration;
 import mg.fishchicken.core.saveload.XMLLoadable;
+import mg.fishchicken.core.util.CompiledScript;
 import mg.fishchicken.core.util.XMLUtil;
 import mg.fishchicken.gamelogic.actions.Action;
 
 import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.utils.ObjectMap;
-import com.badlogic.gdx.utils.XmlReader;
 import com.badlogic.gdx.utils.XmlReader.Element;
 
 public class AIScript implements XMLLoadable, ThingWithId {
@@ -40,8 +40,10 @@ public class AIScript implements XMLLoadable, ThingWithId {
 	}
 	
 	private String id;
-	private Script combatScript;
-	private Script peaceScript;
+	private CompiledScript combatScript;
+	private CompiledScript peaceScript;
+	private int runCount;
+	private long totalRunTime, maxRunTime;
 	
 	public AIScript(FileHandle file) throws IOException {
 		this.id = file.nameWithoutExtension();
@@ -49,15 +51,68 @@ public class AIScript implements XMLLoadable, ThingWithId {
 	}
 	
 	public Action run(Binding binding) {
-		Script script = getScript();
+		CompiledScript script = getScript();
 		if (script != null) {
-			script.setBinding(binding);
-			return (Action) script.run();
+			long start = System.nanoTime();
+			Action action = (Action) script.run(binding);
+			long runTime = System.nanoTime() - start;
+			++runCount;
+			totalRunTime += runTime;
+			if (runTime > maxRunTime) {
+				maxRunTime = runTime;
+			}
+			return action;
 		}
 		return null;
 	}
 	
-	private Script getScript() {
+	/**
+	 * Returns how many times this script ran since the 
+	 * timings were last reset.
+	 * 
+	 * @return
+	 */
+	public int getRunCount() {
+		return runCount;
+	}
+	
+	/**
+	 * Returns the total time in nanoseconds this script took to run
+	 * since the timings were last reset.
+	 * 
+	 * @return
+	 */
+	public long getTotalRunTime() {
+		return totalRunTime;
+	}
+	
+	/**
+	 * Returns the average time in nanoseconds a single run of this script took
+	 * since the timings were last reset.
+	 * 
+	 * @return
+	 */
+	public long getAverageRunTime() {
+		return runCount == 0 ? 0 : totalRunTime / runCount;
+	}
+	
+	/**
+	 * Returns the longest time in nanoseconds a single run of this script took
+	 * since the timings were last reset.
+	 * 
+	 * @return
+	 */
+	public long getMaxRunTime() {
+		return maxRunTime;
+	}
+	
+	public void resetTimings() {
+		runCount = 0;
+		totalRunTime = 0;
+		maxRunTime = 0;
+	}
+	
+	private CompiledScript getScript() {
 		if (GameState.isCombatInProgress()) {
 			return combatScript;
 		}
@@ -82,7 +137,7 @@ public class AIScript implements XMLLoadable, ThingWithId {
 
 	@Override
 	public void loadFromXMLNoInit(FileHandle file) throws IOException {
-		Element root = new XmlReader().parse(file);
+		Element root = ModuleDataCache.parse(file);
 		XMLUtil.handleImports(this, file, root);
 		combatScript = XMLUtil.readScript(id, root.getChildByName(XML_COMBAT), combatScript);
 		peaceScript = XMLUtil.readScript(id, root.getChildByName(XML_PEACE), peaceScript);
@@ -1,7 +1,6 @@
 package mg.fishchicken.gamelogic.characters;
 
 import java.io.IOException;
-import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Set;
@@ -52,6 +51,7 @@ import mg.fishchicken.gamelogic.factions.FactionContainer;
 import mg.fishchicken.gamelogic.locations.CombatGameMap.CombatMapInitializationData;
 import mg.fishchicken.gamelogic.locations.GameLocation;
 import mg.fishchicken.gamelogic.locations.GameMap;
+import mg.fishchicken.gamelogic.locations.VisibilityBuffer;
 import mg.fishchicken.gamelogic.locations.transitions.Transition;
 import mg.fishchicken.gamelogic.time.GameCalendarDate;
 import mg.fishchicken.gamestate.Position;
@@ -72,6 +72,13 @@ public abstract class AbstractGameCharacter extends AnimatedGameObject implement
 
 	public static final String STRING_TABLE = "character."+Strings.RESOURCE_FILE_EXTENSION;
 	
+	// shared filter combinations, so that frequent perception queries do not create varargs arrays
+	protected static final CharacterFilter[] NO_FILTERS = new CharacterFilter[0];
+	private static final CharacterFilter[] VISIBLE_FILTERS = { CharacterFilter.VISIBLE };
+	private static final CharacterFilter[] ALLY_FILTERS = { CharacterFilter.ALLIED, CharacterFilter.VISIBLE };
+	private static final CharacterFilter[] ENEMY_FILTERS = { CharacterFilter.HOSTILE, CharacterFilter.VISIBLE };
+	private static final CharacterFilter[] AWAKE_ENEMY_FILTERS = { CharacterFilter.HOSTILE, CharacterFilter.VISIBLE, CharacterFilter.AWAKE };
+	
 	public static final class State {
 		public static final String IDLE = "idle"; 
 		public static final String WALK = "walk"; 
@@ -89,7 +96,6 @@ public abstract class AbstractGameCharacter extends AnimatedGameObject implement
 		}
 	}
  
-	private static final int VISIBLE_TILES_LOOKUP_RESET = 9999;
 	private static final Orientation DEFAULT_ORIENTATION = Orientation.RIGHT;
 	
 	// state properties
@@ -114,10 +120,11 @@ public abstract class AbstractGameCharacter extends AnimatedGameObject implement
 	private Brain brain;
 	private LineOfSight lineOfSight;
 	private ViewConeLight viewCone;
-	private int[] visibleTilesLookup;
-	private int visibleTilesLookupCounter;
+	private VisibilityBuffer partyVisibility; // the buffer of the map we currently contribute our LOS to, if any
+	private int partyVisibilitySlot;
 	private PositionArray visibleArea;
 	private PositionArray viewConeArea;
+	private Perception perception;
 	private CharacterCircle characterCircle, destinationIndicator;
 	private Array<LightDescriptor> lightDescriptors;
 	private ObjectMap<LightDescriptor, Light> lights;
@@ -149,7 +156,7 @@ public abstract class AbstractGameCharacter extends AnimatedGameObject implement
 		s_newState = null;
 		s_noCircle = false;
 		s_sightDisabled = false;
-		visibleTilesLookupCounter = 1;
+		partyVisibilitySlot = -1;
 		lights = new ObjectMap<LightDescriptor, Light>();
 		lightDescriptors = new Array<LightDescriptor>();
 		characterCircle = new CharacterCircle(this);
@@ -157,6 +164,7 @@ public abstract class AbstractGameCharacter extends AnimatedGameObject implement
 		destinationIndicator.addAction(FadeAction.class, 0.5f, true, 0f, 0.5f);
 		visibleArea = new PositionArray();
 		viewConeArea = new PositionArray();
+		perception = new Perception(this);
 		setPlayingAnimation(true);
 		tempSet = new ObjectSet<AbstractGameCharacter>();
 		tempPosition = new Position();
@@ -522,7 +530,7 @@ public abstract class AbstractGameCharacter extends AnimatedGameObject implement
 	 * @return
 	 */
 	public boolean getAllCharactersInSightRadius(ObjectSet<AbstractGameCharacter> returnValue, CharacterFilter... filters) {
-		return getAllCharactersInArea(returnValue, getVisibleArea(), filters);
+		return perception.getCharactersInSight(returnValue, filters);
 	}
 	
 	/**
@@ -532,47 +540,7 @@ public abstract class AbstractGameCharacter extends AnimatedGameObject implement
 	 * @return
 	 */
 	public boolean getAllCharactersInViewCone(ObjectSet<AbstractGameCharacter> returnValue, CharacterFilter... filters) {
-		return getAllCharactersInArea(returnValue, getViewConeArea(), filters);
-	}
-	
-	/**
-	 * Returns an array of all characters in the supplied area that fulfill the supplied filters requirements.
-	 * 
-	 * @param returnValue - the set into which to store the result. Can be null. In that case, only true / false will be returned
-	 * indicating whether any characters were found
-	 * @param filters - an array of filters that the characters must fulfill. Can be empty.
-	 * @return true if any characters were found, false otherwise
-	 */
-	private boolean getAllCharactersInArea(ObjectSet<AbstractGameCharacter> returnValue, PositionArray area, CharacterFilter... filters) {
-		if (area == null) {
-			return false;
-		}
-		if (returnValue == null) {
-			tempSet.clear();
-		}
-		
-		ObjectSet<AbstractGameCharacter> setToUse = returnValue != null ? returnValue : tempSet; 
-		
-		if (!getMap().getAllObjectsInArea(setToUse, area, AbstractGameCharacter.class)) {
-			return false;
-		}
-		
-		setToUse.remove(this);
-		
-		if (filters.length > 0) {
-			Iterator<AbstractGameCharacter> iterator = setToUse.iterator();
-			while (iterator.hasNext()) {
-				AbstractGameCharacter go = iterator.next();
-				for (CharacterFilter filter : filters) {
-					if (filter.shouldFilter(this, go)) {
-						iterator.remove();
-						break;
-					}
-				}
-			}
-		}
-		
-		return setToUse.size > 0;
+		return perception.getCharactersInViewCone(returnValue, filters);
 	}
 	
 	/**
@@ -582,7 +550,7 @@ public abstract class AbstractGameCharacter extends AnimatedGameObject implement
 	 * @see AbstractGameCharacter#getAllCharactersInSightRadius(CharacterFilter)
 	 */
 	public boolean getAllCharactersInSight(ObjectSet<AbstractGameCharacter> returnValue) {
-		return getAllCharactersInSightRadius(returnValue, CharacterFilter.VISIBLE);
+		return getAllCharactersInSightRadius(returnValue, VISIBLE_FILTERS);
 	}
 	
 	/**
@@ -592,7 +560,7 @@ public abstract class AbstractGameCharacter extends AnimatedGameObject implement
 	 * @see AbstractGameCharacter#getAllCharactersInSightRadius(CharacterFilter)
 	 */
 	public boolean getAllAlliesInSight(ObjectSet<AbstractGameCharacter> returnValue) {
-		return getAllCharactersInSightRadius(returnValue, CharacterFilter.ALLIED, CharacterFilter.VISIBLE);
+		return getAllCharactersInSightRadius(returnValue, ALLY_FILTERS);
 	}
 	
 	public boolean hasEnemiesInSight() {
@@ -601,7 +569,7 @@ public abstract class AbstractGameCharacter extends AnimatedGameObject implement
 	
 	public boolean hasEnemiesInSight(boolean ignoreSleeping) {
 		return ignoreSleeping ? 
-				getAllCharactersInSightRadius(null, CharacterFilter.HOSTILE, CharacterFilter.VISIBLE, CharacterFilter.AWAKE) :
+				getAllCharactersInSightRadius(null, AWAKE_ENEMY_FILTERS) :
 				getAllEnemiesInSight(null);
 	}
 	
@@ -614,7 +582,7 @@ public abstract class AbstractGameCharacter extends AnimatedGameObject implement
 	 * @see AbstractGameCharacter#getAllCharactersInSightRadius(CharacterFilter)
 	 */
 	public boolean getAllEnemiesInSight(ObjectSet<AbstractGameCharacter> returnValue) {
-		return getAllCharactersInSightRadius(returnValue, CharacterFilter.HOSTILE, CharacterFilter.VISIBLE);
+		return getAllCharactersInSightRadius(returnValue, ENEMY_FILTERS);
 	}
 	
 	/**
@@ -641,9 +609,9 @@ public abstract class AbstractGameCharacter extends AnimatedGameObject implement
 			return;
 		}
 		Tile enemyPosition = enemy != null ? enemy.position().tile() : lastKnownEnemyPosition;
-		ObjectSet<AbstractGameCharacter> allies = new ObjectSet<AbstractGameCharacter>();
-		getAllAlliesInSight(allies);
-		for (AbstractGameCharacter ally : allies) {
+		tempSet.clear();
+		getAllAlliesInSight(tempSet);
+		for (AbstractGameCharacter ally : tempSet) {
 			if (!ally.isAwareOfEnemyPosition()) {
 				ally.setLastKnownEnemyPosition(enemyPosition.getX(), enemyPosition.getY());
 			}
@@ -695,8 +663,7 @@ public abstract class AbstractGameCharacter extends AnimatedGameObject implement
 		if (s_sightDisabled) {
 			return null;
 		}
-		LineOfSight los = new CircularLineOfSight(map
-				.getFogOfWarRayHandler(), 100,
+		LineOfSight los = new CircularLineOfSight(100,
 				map.isWorldMap() ? Configuration.getSightRadiusWorld()
 						: Configuration.getSightRadiusLocal(), position.getX(),
 						position.getY(), map);
@@ -755,15 +722,37 @@ public abstract class AbstractGameCharacter extends AnimatedGameObject implement
 	}
 	
 	private void updateSightPosition(GameMap map, LineOfSight sight) {
+		updateSightPosition(map, sight, true);
+	}
+	
+	private void updateSightPosition(GameMap map, LineOfSight sight, boolean recalculate) {
 		if (sight == null) {
 			return;
 		}
 		Vector2 tempVector = MathUtil.getVector2().set(position.tile().getX() + 0.5f, position.tile().getY() + 0.5f);
 		map.projectFromTiles(tempVector);
-		sight.setPosition(tempVector.x, tempVector.y);
+		sight.setPosition(tempVector.x, tempVector.y, recalculate);
 		MathUtil.freeVector2(tempVector);
 	}
 	
+	/**
+	 * Moves the LOS of this character to the character's current
+	 * position, but does not recalculate it. 
+	 * 
+	 * This allows the LOS of multiple characters to be recalculated at once
+	 * using {@link LineOfSight#updateAll(GameMap, Array)}, after which
+	 * {@link #updateVisibleArea(boolean)} should be called without recalculating the LOS.
+	 * 
+	 * @return the LOS of this character, or null if it has none
+	 */
+	public LineOfSight moveLineOfSight() {
+		if (lineOfSight == null || getMap() == null) {
+			return null;
+		}
+		updateSightPosition(getMap(), lineOfSight, false);
+		return lineOfSight;
+	}
+	
 	private void updateLightPosition(GameMap map, Light light) {
 		// only do this if we belong to a non disposed map
 		// otherwise the lights will be disposed as well
@@ -1035,7 +1024,7 @@ public abstract class AbstractGameCharacter extends AnimatedGameObject implement
 			return;
 		}
 		tempSet.clear();
-		getAllCharactersInViewCone(tempSet);
+		getAllCharactersInViewCone(tempSet, NO_FILTERS);
 		Iterator<AbstractGameCharacter> iterator = tempSet.iterator();
 		Faction myFaction = getFaction();
 		while(iterator.hasNext()) {
@@ -1087,7 +1076,10 @@ public abstract class AbstractGameCharacter extends AnimatedGameObject implement
 		}
 		
 		createLights(map);
-		visibleTilesLookup = null;
+		removeFromPartyVisibility();
+		visibleArea.clear();
+		viewConeArea.clear();
+		perception.invalidate();
 
 		if (map != null) {
 			switchedMap = true;
@@ -1175,14 +1167,18 @@ public abstract class AbstractGameCharacter extends AnimatedGameObject implement
 	}
 	
 	protected void clearVisibleArea() {
-		if (visibleTilesLookupCounter > VISIBLE_TILES_LOOKUP_RESET) {
-			visibleTilesLookupCounter = 1;
-			Arrays.fill(getVisibleTileLookup(), 0);
-		} else {
-			++visibleTilesLookupCounter;
-		}
+		removeFromPartyVisibility();
 		visibleArea.clear();
 		viewConeArea.clear();
+		perception.invalidate();
+		GameMap map = getMap();
+		if (map != null && contributesToPartyVisibility()) {
+			partyVisibility = map.getPartyVisibility();
+			partyVisibilitySlot = partyVisibility.addObserver();
+			if (partyVisibilitySlot < 0) {
+				partyVisibility = null;
+			}
+		}
 	}
 	
 	protected void addToVisibleArea(int x, int y) {
@@ -1190,18 +1186,41 @@ public abstract class AbstractGameCharacter extends AnimatedGameObject implement
 			return;
 		}
 		visibleArea.add(x, y);
-		getVisibleTileLookup()[x+y*getMap().getMapWidth()] = visibleTilesLookupCounter;
+		perception.invalidate();
+		if (partyVisibility != null) {
+			partyVisibility.setVisible(partyVisibilitySlot, x, y);
+		}
 	}
 	
-	private int[] getVisibleTileLookup() {
-		int mapWidth = getMap().getMapWidth();
-		int mapHeight = getMap().getMapHeight();
-		
-		if (visibleTilesLookup == null) {
-			visibleTilesLookupCounter = 1;
-			visibleTilesLookup = new int[mapWidth*mapHeight];
+	/**
+	 * Removes the tiles this character currently sees
+	 * from the party visibility buffer of its map, if
+	 * it contributes to it.
+	 * 
+	 * This should be called whenever the character stops
+	 * being a PC.
+	 */
+	public void removeFromPartyVisibility() {
+		if (partyVisibility == null) {
+			return;
+		}
+		// the map might have replaced its buffer in the meantime, in which case there is nothing to clean up
+		if (getMap() != null && getMap().getPartyVisibility() == partyVisibility) {
+			partyVisibility.removeObserver(partyVisibilitySlot, visibleArea);
 		}
-		return visibleTilesLookup;
+		partyVisibility = null;
+		partyVisibilitySlot = -1;
+	}
+	
+	/**
+	 * Whether this character's LOS should be part of the
+	 * party visibility buffer of its map, that is, whether
+	 * the tiles it sees are visible to the player.
+	 * 
+	 * @return
+	 */
+	protected boolean contributesToPartyVisibility() {
+		return false;
 	}
 	
 	/**
@@ -1240,7 +1259,6 @@ public abstract class AbstractGameCharacter extends AnimatedGameObject implement
 		
 		int sightRadius = getMap().isWorldMap() ? Configuration.getSightRadiusWorld() : Configuration.getSightRadiusLocal();
 		
-		int[] visibleTilesLookup = getVisibleTileLookup();
 		Orientation coneOrientation = getOrientation();
 		if (getMap().isIsometric()) {
 			coneOrientation = coneOrientation.getAntiClockwise();
@@ -1254,7 +1272,9 @@ public abstract class AbstractGameCharacter extends AnimatedGameObject implement
 				continue;
 			}
 			visibleArea.add(x, y);
-			visibleTilesLookup[x+y*mapWidth] = visibleTilesLookupCounter;
+			if (partyVisibility != null) {
+				partyVisibility.setVisible(partyVisibilitySlot, x, y);
+			}
 			if (isPlayerControlled) {
 				map.markTileAsSeen(x, y);
 			}
@@ -1324,10 +1344,12 @@ public abstract class AbstractGameCharacter extends AnimatedGameObject implement
 	 * @return
 	 */
 	public boolean canSeeTile(int tileNumber) {
-		if (tileNumber < 0 || visibleTilesLookup == null || tileNumber >= visibleTilesLookup.length) {
+		GameMap map = getMap();
+		if (tileNumber < 0 || map == null || tileNumber >= map.getMapWidth() * map.getMapHeight()) {
 			return false;
 		}
-		return visibleTilesLookup[tileNumber] == visibleTilesLookupCounter;
+		int mapWidth = map.getMapWidth();
+		return visibleArea.contains(tileNumber % mapWidth, tileNumber / mapWidth);
 	}
 	
 	/**
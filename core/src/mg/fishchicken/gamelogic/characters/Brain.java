@@ -34,20 +34,37 @@ public class Brain implements XMLSaveable {
 	private AIScriptPackage aiScriptBackUp;
 	
 	private Action currentTurnAction;
+	private Action nextTurnAction; // the action the AI script decided on when asked whether there is one
 	private Action currentAIAction;
 	
 	private GameObject go;
 	
+	// state used by the AIScheduler
+	boolean scheduled;
+	int waitedFrames;
+	float schedulingPriority;
+	
 	public Brain(GameObject go) {
 		this.go = go;
 	}
 	
 	/**
-	 * Updates the brain, determining the next action that should 
-	 * be undertaken.
+	 * Updates the brain. If it needs to determine the next action that 
+	 * should be undertaken, it is queued in the AIScheduler, which
+	 * will let it think once there is time for it.
 	 */
 	public void update(float deltaTime) {
-		if (!s_disabled && aiScript != null && currentAIAction == null && !GameState.isCombatInProgress()) {
+		if (canThink()) {
+			GameState.getAIScheduler().schedule(this);
+		}
+	}
+	
+	/**
+	 * Runs the AI script to determine the next action that should be 
+	 * undertaken, if there is still need for that.
+	 */
+	void think() {
+		if (canThink()) {
 			currentAIAction  = aiScript.run(go);
 			if (currentAIAction != null) {
 				go.addAction(currentAIAction, false);
@@ -55,6 +72,21 @@ public class Brain implements XMLSaveable {
 		}
 	}
 	
+	/**
+	 * Returns true if the brain should determine the next action
+	 * outside of combat.
+	 * 
+	 * @return
+	 */
+	protected boolean canThink() {
+		return !s_disabled && aiScript != null && currentAIAction == null && !GameState.isCombatInProgress()
+				&& go.isActive();
+	}
+	
+	public GameObject getGameObject() {
+		return go;
+	}
+	
 	/**
 	 * Updates the currently active turn action and determines
 	 * the next one if this one finished.
@@ -103,15 +135,35 @@ public class Brain implements XMLSaveable {
 		return (currentTurnAction != null && !currentTurnAction.isBlockingInCombat()) || go.hasAnyBlockingAction();
 	}
 	
+	/**
+	 * Returns true if the AI script has another action to perform this turn.
+	 * 
+	 * The action is remembered, so that the script does not need
+	 * to run again when the action is actually set.
+	 * 
+	 * @return
+	 */
 	private boolean hasNextTurnAction() {
+		if (nextTurnAction != null) {
+			return true;
+		}
 		if (aiScript == null) {
 			return false;
 		}
 		Action action = aiScript.run(go);
-		return action != null && !action.isFinished() && go.canPerformAction(action.getClass());
+		if (action != null && !action.isFinished() && go.canPerformAction(action.getClass())) {
+			nextTurnAction = action;
+			return true;
+		}
+		return false;
 	}
 	
 	private void setNextTurnAction() {
+		if (nextTurnAction != null) {
+			currentTurnAction = nextTurnAction;
+			nextTurnAction = null;
+			return;
+		}
 		if (aiScript == null) {
 			currentTurnAction = null;
 			return;
@@ -137,6 +189,7 @@ public class Brain implements XMLSaveable {
 			currentTurnAction.onRemove(go);
 			currentTurnAction = null;
 		}
+		nextTurnAction = null;
 	}
 	
 	protected void removeAction(Action a) {
@@ -164,6 +217,7 @@ public class Brain implements XMLSaveable {
 	public void setAIScript(AIScriptPackage newAIScript) {
 		aiScript = newAIScript;
 		aiScriptBackUp = newAIScript;
+		nextTurnAction = null;
 	}
 	
 	/**
@@ -176,6 +230,7 @@ public class Brain implements XMLSaveable {
 	 */
 	public void override(AIScriptPackage newAIScript) {
 		aiScript = newAIScript;
+		nextTurnAction = null;
 	}
 	
 	/**
@@ -185,6 +240,7 @@ public class Brain implements XMLSaveable {
 	 */
 	public void restore() {
 		aiScript = aiScriptBackUp;
+		nextTurnAction = null;
 	}
 	
 	
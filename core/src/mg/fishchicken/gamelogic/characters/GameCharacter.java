@@ -179,6 +179,7 @@ public class GameCharacter extends AbstractGameCharacter implements XMLLoadable,
 	private IntMap<Animation> itemAnimations;
 	private Array<BasicCallback> drawActions;
 	private GameCharacterBrain brain;
+	private ObjectSet<AbstractGameCharacter> stealthObservers; // lazy init
 	
 	/**
 	 * Empty constructor for game loading.
@@ -387,8 +388,13 @@ public class GameCharacter extends AbstractGameCharacter implements XMLLoadable,
 	protected void handleStealth() {
 		super.handleStealth();
 		if (isSneaking() && !isInvisible()) {
-			ObjectSet<AbstractGameCharacter> characters = new ObjectSet<AbstractGameCharacter>();
-			getMap().getAllObjectsInArea(characters, getVisibleArea(), AbstractGameCharacter.class);
+			if (stealthObservers == null) {
+				stealthObservers = new ObjectSet<AbstractGameCharacter>();
+			}
+			// a separate set, since setIsSneaking uses tempSet
+			ObjectSet<AbstractGameCharacter> characters = stealthObservers;
+			characters.clear();
+			getAllCharactersInSightRadius(characters, NO_FILTERS);
 			Iterator<AbstractGameCharacter> iterator = characters.iterator();
 			while (iterator.hasNext()) {
 				AbstractGameCharacter character  = iterator.next();
@@ -674,6 +680,13 @@ public class GameCharacter extends AbstractGameCharacter implements XMLLoadable,
 		super.updateVisibleArea(recalculateLOS);
 	}
 	
+	@Override
+	protected boolean contributesToPartyVisibility() {
+		// the world map is only ever seen through the group game object
+		return getMap() != null && !getMap().isWorldMap()
+				&& GameState.getPlayerCharacterGroup().getPlayerCharacters().contains(this, true);
+	}
+	
 	/**
 	 * Checks whether we are dead or not  and performs the necessary actions if not.
 	 * 
@@ -1003,6 +1016,11 @@ public class GameCharacter extends AbstractGameCharacter implements XMLLoadable,
 		return GameState.getPlayerCharacterGroup().containsCharacter(this);
 	}
 	
+	@Override
+	public boolean requiresFullSimulation() {
+		return isMemberOfPlayerGroup();
+	}
+	
 	/**
 	 * Deals the supplied damage to this character. If the character dies, the
 	 * supplied GO will be registered as the killer.
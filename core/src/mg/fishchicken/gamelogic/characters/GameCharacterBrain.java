@@ -43,9 +43,7 @@ public class GameCharacterBrain extends Brain {
 	
 	@Override
 	public void update(float deltaTime) {
-		if (!character.isAsleep() && !character.belongsToPlayerFaction() && combatEndAction == null) {
-			super.update(deltaTime);
-		}
+		super.update(deltaTime);
 		
 		if (combatEndAction != null) {
 			combatEndAction.update(deltaTime);
@@ -58,6 +56,12 @@ public class GameCharacterBrain extends Brain {
 		}
 	}
 	
+	@Override
+	protected boolean canThink() {
+		return !character.isAsleep() && !character.belongsToPlayerFaction() && combatEndAction == null
+				&& super.canThink();
+	}
+	
 	@Override
 	public void updateCombatAction(float deltaTime) {
 		if (!character.isAsleep()) {
@@ -0,0 +1,142 @@
+package mg.fishchicken.gamelogic.characters;
+
+import mg.fishchicken.core.util.PositionArray;
+import mg.fishchicken.gamelogic.locations.GameMap;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.ObjectSet;
+
+/**
+ * Answers which characters a character can currently perceive.
+ *
+ * Instead of scanning every tile of the observer's line of sight
+ * for characters standing on it, this goes over the (usually few)
+ * characters on the observer's map and checks each one's tile against
+ * the observer's visible area and view cone, both of which are constant time lookups.
+ *
+ * The characters found are cached until the end of the frame, or until the observer's
+ * visible area changes, or until any character on the map moves to a different tile,
+ * whichever happens first. Filters are applied on top of the cached result on
+ * every query, since they depend on state that can change at any time.
+ *
+ * None of the queries allocate anything.
+ *
+ */
+public class Perception {
+
+	private final AbstractGameCharacter observer;
+	private final Array<AbstractGameCharacter> inSight, inViewCone;
+	private GameMap map;
+	private long frameId;
+	private int mapVersion;
+	private boolean dirty;
+
+	public Perception(AbstractGameCharacter observer) {
+		this.observer = observer;
+		inSight = new Array<AbstractGameCharacter>(false, 8);
+		inViewCone = new Array<AbstractGameCharacter>(false, 8);
+		dirty = true;
+	}
+
+	/**
+	 * Discards the cached result. Should be called whenever
+	 * the visible area of the observer changes.
+	 */
+	public void invalidate() {
+		dirty = true;
+	}
+
+	/**
+	 * Gathers all characters in the sight radius of the observer
+	 * that are not filtered out by any of the supplied filters.
+	 *
+	 * @param returnValue - the set into which to store the result. Can be null. In that case, only true / false will be returned
+	 * indicating whether any characters were found
+	 * @param filters
+	 * @return true if any characters were found, false otherwise
+	 */
+	public boolean getCharactersInSight(ObjectSet<AbstractGameCharacter> returnValue, CharacterFilter... filters) {
+		update();
+		return filter(inSight, returnValue, filters);
+	}
+
+	/**
+	 * Gathers all characters in the view cone of the observer
+	 * that are not filtered out by any of the supplied filters.
+	 *
+	 * @param returnValue - the set into which to store the result. Can be null. In that case, only true / false will be returned
+	 * indicating whether any characters were found
+	 * @param filters
+	 * @return true if any characters were found, false otherwise
+	 */
+	public boolean getCharactersInViewCone(ObjectSet<AbstractGameCharacter> returnValue, CharacterFilter... filters) {
+		update();
+		return filter(inViewCone, returnValue, filters);
+	}
+
+	private boolean filter(Array<AbstractGameCharacter> characters, ObjectSet<AbstractGameCharacter> returnValue, CharacterFilter... filters) {
+		boolean found = false;
+		for (int i = 0; i < characters.size; ++i) {
+			AbstractGameCharacter character = characters.get(i);
+			if (isFilteredOut(character, filters)) {
+				continue;
+			}
+			if (returnValue == null) {
+				return true;
+			}
+			returnValue.add(character);
+			found = true;
+		}
+		return found;
+	}
+
+	private boolean isFilteredOut(AbstractGameCharacter character, CharacterFilter... filters) {
+		for (int i = 0; i < filters.length; ++i) {
+			if (filters[i].shouldFilter(observer, character)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void update() {
+		GameMap currentMap = observer.getMap();
+		long currentFrameId = Gdx.graphics.getFrameId();
+		if (!dirty && currentMap == map && currentFrameId == frameId
+				&& (map == null || map.getCharacterTilesVersion() == mapVersion)) {
+			return;
+		}
+		dirty = false;
+		map = currentMap;
+		frameId = currentFrameId;
+		inSight.clear();
+		inViewCone.clear();
+		if (map == null) {
+			return;
+		}
+		mapVersion = map.getCharacterTilesVersion();
+
+		PositionArray visibleArea = observer.getVisibleArea();
+		if (visibleArea.isEmpty()) {
+			return;
+		}
+		PositionArray viewConeArea = observer.getViewConeArea();
+		Array<AbstractGameCharacter> characters = map.getCharacters();
+		for (int i = 0; i < characters.size; ++i) {
+			AbstractGameCharacter character = characters.get(i);
+			if (character == observer || !character.isActive()) {
+				continue;
+			}
+			// the tile that contains the center of the character's tile sized footprint
+			int x = (int) Math.ceil(character.position().getX() - 0.5f);
+			int y = (int) Math.ceil(character.position().getY() - 0.5f);
+			if (visibleArea.contains(x, y)) {
+				inSight.add(character);
+				if (viewConeArea.contains(x, y)) {
+					inViewCone.add(character);
+				}
+			}
+		}
+	}
+}
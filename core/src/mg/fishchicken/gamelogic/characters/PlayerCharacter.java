@@ -50,8 +50,7 @@ public class PlayerCharacter extends GameCharacter implements XMLLoadable {
 	
 	@Override
 	protected LineOfSight createLineOfSight(GameMap map) {
-		LineOfSight los = new CircularLineOfSight(map
-				.getFogOfWarRayHandler(), 360,
+		LineOfSight los = new CircularLineOfSight(360,
 				map.isWorldMap() ? Configuration.getSightRadiusWorld()
 						: Configuration.getSightRadiusLocal(), position.getX(),
 						position.getY(), map);
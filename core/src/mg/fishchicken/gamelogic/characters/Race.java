@@ -5,6 +5,7 @@ import java.util.Locale;
 
 import mg.fishchicken.core.ThingWithId;
 import mg.fishchicken.core.assets.Assets;
+import mg.fishchicken.core.assets.ModuleDataCache;
 import mg.fishchicken.core.configuration.Configuration;
 import mg.fishchicken.core.i18n.Strings;
 import mg.fishchicken.core.saveload.XMLLoadable;
@@ -18,7 +19,6 @@ import mg.fishchicken.gamestate.characters.Skills;
 import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.ObjectMap;
-import com.badlogic.gdx.utils.XmlReader;
 import com.badlogic.gdx.utils.XmlReader.Element;
 
 /**
@@ -344,8 +344,7 @@ public class Race implements XMLLoadable, InventoryContainer, ThingWithId {
 
 	@Override
 	public void loadFromXMLNoInit(FileHandle file) throws IOException {
-		XmlReader xmlReader = new XmlReader();
-		Element root = xmlReader.parse(file);
+		Element root = ModuleDataCache.parse(file);
 		XMLUtil.handleImports(this, file, root);
 		XMLUtil.readPrimitiveMembers(this, root);
 		startingInventory.loadFromXML(root);
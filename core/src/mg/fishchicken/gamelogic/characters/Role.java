@@ -5,6 +5,7 @@ import java.util.Locale;
 
 import mg.fishchicken.core.ThingWithId;
 import mg.fishchicken.core.assets.Assets;
+import mg.fishchicken.core.assets.ModuleDataCache;
 import mg.fishchicken.core.configuration.Configuration;
 import mg.fishchicken.core.i18n.Strings;
 import mg.fishchicken.core.saveload.XMLLoadable;
@@ -13,7 +14,6 @@ import mg.fishchicken.core.util.XMLUtil;
 import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.ObjectMap;
-import com.badlogic.gdx.utils.XmlReader;
 import com.badlogic.gdx.utils.XmlReader.Element;
 
 /**
@@ -151,8 +151,7 @@ public class Role implements XMLLoadable, ThingWithId {
 
 	@Override
 	public void loadFromXMLNoInit(FileHandle file) throws IOException {
-		XmlReader xmlReader = new XmlReader();
-		Element root = xmlReader.parse(file);
+		Element root = ModuleDataCache.parse(file);
 		XMLUtil.handleImports(this, file, root);
 		XMLUtil.readPrimitiveMembers(this, root);
 		
@@ -214,6 +214,7 @@ public class PlayerCharacterGroup extends CharacterGroup implements FoodAndWater
 			memberToRemove.allowAllActions(INTERNAL_FORBIDDER_ID);
 		}
 		if (playerCharacters.removeValue(memberToRemove, false)) {
+			memberToRemove.removeFromPartyVisibility();
 			Log.logLocalized("characterLeft", LogType.CHARACTER, memberToRemove.getName());
 			// refresh the PC panel in case we are on a loaded map
 			if (gameState.getCurrentMap() != null && gameState.getCurrentMap().isMapLoaded()) {
@@ -79,6 +79,11 @@ public class PlayerCharacterGroupGameObject extends AbstractGameCharacter implem
 		}
 	}
 	
+	@Override
+	public boolean requiresFullSimulation() {
+		return true;
+	}
+	
 	@Override
 	public void update(float deltaTime) {
 		super.update(deltaTime);
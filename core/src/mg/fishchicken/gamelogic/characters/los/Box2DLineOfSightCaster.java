@@ -0,0 +1,88 @@
+package mg.fishchicken.gamelogic.characters.los;
+
+import box2dLight.CollisionFractionComparator;
+import box2dLight.FixtureUserData;
+import box2dLight.FixtureUserData.UserDataType;
+import box2dLight.RaycastCallbackHandler;
+import box2dLight.RaycastCallbackHandler.CollisionInfo;
+
+import com.badlogic.gdx.math.Polygon;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.World;
+import com.badlogic.gdx.utils.ObjectSet;
+
+/**
+ * Casts the rays of a line of sight through the Box2D world 
+ * that contains the LOS blockers of a map.
+ * 
+ * This is not thread safe, since neither the world nor the callbacks are.
+ *
+ */
+public class Box2DLineOfSightCaster implements LineOfSightCaster {
+
+	private final World world;
+	private final RaycastCallbackHandler raycastCallbackHandler;
+	private final Vector2 start = new Vector2();
+	private final Vector2 end = new Vector2();
+	
+	public Box2DLineOfSightCaster(World world) {
+		this.world = world;
+		raycastCallbackHandler = new RaycastCallbackHandler();
+	}
+	
+	@Override
+	public void cast(float startX, float startY, float[] endX, float[] endY, int rayNum, float[] mx,
+			float[] my, ObjectSet<Polygon> visibleShapePolygons) {
+		start.set(startX, startY);
+		for (int i = 0; i < rayNum; i++) {
+			end.set(endX[i] + startX, endY[i] + startY);
+			mx[i] = end.x;
+			my[i] = end.y;
+			raycastCallbackHandler.reset();
+			world.rayCast(raycastCallbackHandler, start, end);
+			raycastCallbackHandler.collisions.sort(CollisionFractionComparator.singleton());
+			boolean shouldBreak = false;
+			boolean enteredGroundPolygon = false;
+			boolean enteredTilePolygon = false;
+			for (CollisionInfo ci : raycastCallbackHandler.collisions) {
+				FixtureUserData userData = (FixtureUserData) ci.fixture.getUserData();
+				switch (userData.type) {
+					case LOS_BLOCKER_TILE: 
+						shouldBreak = enteredTilePolygon;
+						enteredTilePolygon = true;
+						break;
+					case LOS_BLOCKER_POLYGON_GROUND:
+						shouldBreak = enteredGroundPolygon;
+						enteredGroundPolygon = true;
+						break;
+					case LOS_BLOCKER_LINE:
+						shouldBreak = true;
+						break;
+					default:
+				}
+				
+				if (shouldBreak) {
+					// we will move the collision point a little back to avoid any floating point
+					// shenanigans and to make sure we hit the right tile later when we cast to int
+					// 0.001 seems to work okay, its kind of magic, but it works, so what the heck
+					float dist = start.dst(ci.point);
+					float r = 0.001f / dist;
+					
+					mx[i] = r * start.x + (1 - r) * ci.point.x;
+					my[i] = r * start.y + (1 - r) * ci.point.y;
+					break;
+				}
+				
+				if (userData.type == UserDataType.LOS_BLOCKER_POLYGON) {
+					visibleShapePolygons.add(userData.polygon);
+				}
+			}
+		}
+		raycastCallbackHandler.reset();
+	}
+
+	@Override
+	public boolean isThreadSafe() {
+		return false;
+	}
+}
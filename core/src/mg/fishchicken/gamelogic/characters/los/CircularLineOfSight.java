@@ -2,7 +2,6 @@ package mg.fishchicken.gamelogic.characters.los;
 
 import mg.fishchicken.core.util.MathUtil;
 import mg.fishchicken.gamelogic.locations.GameMap;
-import box2dLight.RayHandler;
 
 import com.badlogic.gdx.math.MathUtils;
 
@@ -11,16 +10,15 @@ public class CircularLineOfSight extends LineOfSight {
 	private float distanceX, distanceY;
 
 	/**
-	 * @param rayHandler
 	 * @param rays
 	 * @param color
 	 * @param radius
 	 * @param x
 	 * @param y
 	 */
-	public CircularLineOfSight(RayHandler rayHandler, int rays, int radius,
+	public CircularLineOfSight(int rays, int radius,
 			float x, float y, GameMap map) {
-		super(rayHandler, rays,
+		super(rays,
 				(map.isIsometric() ? (int) (radius * MathUtil.SQRT_TWO)
 						: radius), x, y, map);
 		if (map.isIsometric()) {
@@ -0,0 +1,106 @@
+package mg.fishchicken.gamelogic.characters.los;
+
+import box2dLight.FixtureUserData;
+import box2dLight.FixtureUserData.UserDataType;
+import box2dLight.StaticEdgeIndex;
+
+import com.badlogic.gdx.math.Polygon;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.World;
+import com.badlogic.gdx.utils.ObjectSet;
+
+/**
+ * Casts the rays of a line of sight in plain Java, against a {@link StaticEdgeIndex}
+ * of the edges of all LOS blockers in the Box2D world of a map.
+ *
+ * The intersection test of the index is the same one Box2D uses for edge shapes,
+ * so the results match those of {@link Box2DLineOfSightCaster}.
+ *
+ * The index never changes once built, so this is thread safe. It does not follow
+ * changes of the world though, it has to be rebuilt whenever the LOS geometry of the map changes.
+ *
+ */
+public class GridLineOfSightCaster implements LineOfSightCaster {
+
+	private final StaticEdgeIndex index;
+
+	/**
+	 * Creates a new caster from the edge fixtures of all active bodies
+	 * in the supplied world.
+	 *
+	 * This must be called from the thread that owns the world.
+	 *
+	 * @param world
+	 */
+	public GridLineOfSightCaster(World world) {
+		index = new StaticEdgeIndex(world);
+	}
+
+	/**
+	 * Returns the number of edges this caster casts against.
+	 *
+	 * @return
+	 */
+	public int getEdgeCount() {
+		return index.getEdgeCount();
+	}
+
+	@Override
+	public void cast(float startX, float startY, float[] endX, float[] endY, int rayNum, float[] mx,
+			float[] my, ObjectSet<Polygon> visibleShapePolygons) {
+		for (int i = 0; i < rayNum; i++) {
+			float rayEndX = endX[i] + startX;
+			float rayEndY = endY[i] + startY;
+			mx[i] = rayEndX;
+			my[i] = rayEndY;
+			StaticEdgeIndex.Hits hits = index.rayCast(startX, startY, rayEndX, rayEndY);
+
+			boolean shouldBreak = false;
+			boolean enteredGroundPolygon = false;
+			boolean enteredTilePolygon = false;
+			for (int j = 0; j < hits.size(); ++j) {
+				Object data = index.getUserData(hits.getEdge(j));
+				if (!(data instanceof FixtureUserData)) {
+					continue;
+				}
+				FixtureUserData userData = (FixtureUserData) data;
+				switch (userData.type) {
+					case LOS_BLOCKER_TILE:
+						shouldBreak = enteredTilePolygon;
+						enteredTilePolygon = true;
+						break;
+					case LOS_BLOCKER_POLYGON_GROUND:
+						shouldBreak = enteredGroundPolygon;
+						enteredGroundPolygon = true;
+						break;
+					case LOS_BLOCKER_LINE:
+						shouldBreak = true;
+						break;
+					default:
+				}
+
+				if (shouldBreak) {
+					// the same pull back as in Box2DLineOfSightCaster
+					float fraction = hits.getFraction(j);
+					float pointX = (1 - fraction) * startX + fraction * rayEndX;
+					float pointY = (1 - fraction) * startY + fraction * rayEndY;
+					float dist = Vector2.dst(startX, startY, pointX, pointY);
+					float r = 0.001f / dist;
+
+					mx[i] = r * startX + (1 - r) * pointX;
+					my[i] = r * startY + (1 - r) * pointY;
+					break;
+				}
+
+				if (userData.type == UserDataType.LOS_BLOCKER_POLYGON) {
+					visibleShapePolygons.add(userData.polygon);
+				}
+			}
+		}
+	}
+
+	@Override
+	public boolean isThreadSafe() {
+		return true;
+	}
+}
@@ -1,31 +1,37 @@
 package mg.fishchicken.gamelogic.characters.los;
 
+import java.util.Arrays;
+
 import mg.fishchicken.core.util.MathUtil;
+import mg.fishchicken.core.util.ParallelUtil;
+import mg.fishchicken.core.util.ParallelUtil.ItemTask;
 import mg.fishchicken.core.util.PositionArray;
 import mg.fishchicken.core.util.TileSet;
 import mg.fishchicken.gamelogic.locations.GameMap;
-import box2dLight.CollisionFractionComparator;
-import box2dLight.FixtureUserData;
-import box2dLight.FixtureUserData.UserDataType;
-import box2dLight.RayHandler;
-import box2dLight.RaycastCallbackHandler;
-import box2dLight.RaycastCallbackHandler.CollisionInfo;
 
 import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.glutils.ShapeRenderer;
 import com.badlogic.gdx.graphics.glutils.ShapeRenderer.ShapeType;
 import com.badlogic.gdx.math.Polygon;
 import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.math.Vector3;
+import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.ObjectSet;
 
 public abstract class LineOfSight {
 
 	final static int MIN_RAYS = 3;
 	
+	private static final ItemTask<LineOfSight> UPDATE_TASK = new ItemTask<LineOfSight>() {
+		@Override
+		public void run(LineOfSight item) {
+			item.update();
+		}
+	};
+	
 	protected float[] mx;
 	protected float[] my;
 	
-	protected RayHandler rayHandler;
 	protected int rayNum;
 	protected int distance;
 	
@@ -36,7 +42,6 @@ public abstract class LineOfSight {
 	final Vector2 start = new Vector2();
 	final float endX[];
 	final float endY[];
-	protected RaycastCallbackHandler raycastCallbackHandler = null;
 	
 	private TileSet tileVertices;
 	private PositionArray visibleTiles;
@@ -44,11 +49,12 @@ public abstract class LineOfSight {
 	
 	private final Vector2 tempVector = new Vector2();
 	private final Vector2 projectedStart = new Vector2();
+	private final Vector3 projectionVector = new Vector3();
+	private int[] nodeX;
 	
 	private GameMap map;
 	
-	LineOfSight(RayHandler rayHandler, int rays,
-			int distance, float x, float y, GameMap map) {
+	LineOfSight(int rays, int distance, float x, float y, GameMap map) {
 		start.x = x;
 		start.y = y;
 		sin = new float[rays];
@@ -58,10 +64,9 @@ public abstract class LineOfSight {
 		
 		visibleShapePolygons = new ObjectSet<Polygon>();
 		
-		this.rayHandler = rayHandler;
 		setRayNum(rays);
 		this.distance = distance < 1 ? 1 : distance;
-		tileVertices = new TileSet((distance+1)*2);
+		tileVertices = TileSet.withInitialSize(rayNum);
 		this.map = map;
 	}
 	
@@ -98,9 +103,25 @@ public abstract class LineOfSight {
 	}
 	
 	public void setPosition(float x, float y) {
+		setPosition(x, y, true);
+	}
+	
+	/**
+	 * Moves this LOS to the supplied position.
+	 * 
+	 * If recalculate is false, the LOS keeps its old result until
+	 * it is recalculated, for example by {@link #updateAll(GameMap, Array)}.
+	 * 
+	 * @param x
+	 * @param y
+	 * @param recalculate
+	 */
+	public void setPosition(float x, float y, boolean recalculate) {
 		start.x = x;
 		start.y = y;
-		update();
+		if (recalculate) {
+			update();
+		}
 	}
 
 	public void setPosition(Vector2 position) {
@@ -109,69 +130,92 @@ public abstract class LineOfSight {
 		update();
 	}
 	
+	/**
+	 * Recalculates all the supplied LOS. If the map casts its LOS
+	 * in a thread safe way, they are recalculated in parallel.
+	 * 
+	 * All LOS must belong to the supplied map.
+	 * 
+	 * @param map
+	 * @param sights
+	 */
+	public static void updateAll(GameMap map, Array<LineOfSight> sights) {
+		LineOfSightCaster caster = map.getLineOfSightCaster();
+		if (caster != null && caster.isThreadSafe()) {
+			// make sure the cache exists before it is used from multiple threads
+			map.getLineOfSightCache();
+			ParallelUtil.forEach(sights, UPDATE_TASK);
+		} else {
+			for (int i = 0; i < sights.size; ++i) {
+				sights.get(i).update();
+			}
+		}
+	}
+	
+	/**
+	 * Recalculates this LOS.
+	 * 
+	 * This is safe to call for different LOS of the same map from different
+	 * threads at once, as long as the LOS caster of the map is thread safe.
+	 */
 	protected void update() {
 		visibleShapePolygons.clear();
 		tileVertices.clear();
-		map.projectToTiles(projectedStart.set(start));
+		map.projectToTiles(projectedStart.set(start), projectionVector);
 		projectedStart.set((int)projectedStart.x, (int)projectedStart.y);
-		for (int i = 0; i < rayNum; i++) {
-			tempVector.x = endX[i] + start.x;
-			mx[i] = tempVector.x;
-			tempVector.y = endY[i] + start.y;
-			my[i] = tempVector.y;
-			// for disposed maps we do no raycasting, since the box2d world is no longer valid
-			if (rayHandler.world != null && !map.isDisposed()) {
-				getRayCastCallback().reset();
-				rayHandler.world.rayCast(getRayCastCallback(),start, tempVector);
-				getRayCastCallback().collisions.sort(CollisionFractionComparator.singleton());
-				boolean shouldBreak = false;
-				boolean enteredGroundPolygon = false;
-				boolean enteredTilePolygon = false;
-				for (CollisionInfo ci : getRayCastCallback().collisions) {
-					FixtureUserData userData = (FixtureUserData) ci.fixture.getUserData();
-					switch (userData.type) {
-						case LOS_BLOCKER_TILE: 
-							shouldBreak = enteredTilePolygon;
-							enteredTilePolygon = true;
-							break;
-						case LOS_BLOCKER_POLYGON_GROUND:
-							shouldBreak = enteredGroundPolygon;
-							enteredGroundPolygon = true;
-							break;
-						case LOS_BLOCKER_LINE:
-							shouldBreak = true;
-							break;
-						default:
-					}
-					
-					if (shouldBreak) {
-						// we will move the collision point a little back to avoid any floating point
-						// shenanigans and to make sure we hit the right tile later when we cast to int
-						// 0.001 seems to work okay, its kind of magic, but it works, so what the heck
-						float dist = start.dst(ci.point);
-						float r = 0.001f / dist;
-						
-						mx[i] = r * start.x + (1 - r) * ci.point.x;
-						my[i] = r * start.y + (1 - r) * ci.point.y;
-						break;
-					}
-					
-					if (userData.type == UserDataType.LOS_BLOCKER_POLYGON) {
-						visibleShapePolygons.add(userData.polygon);
-					}
+		int startTileX = (int)projectedStart.x;
+		int startTileY = (int)projectedStart.y;
+		
+		// for disposed maps we do no raycasting, since the LOS geometry is no longer valid
+		LineOfSightCaster caster = map.getLineOfSightCaster();
+		boolean canRaycast = caster != null;
+		// the geometry of maps that are still loading is incomplete, so their results are not cached
+		boolean useCache = canRaycast && map.isMapLoaded();
+		LineOfSightCache cache = map.getLineOfSightCache();
+		if (useCache) {
+			LineOfSightCache.Entry cached = cache.get(startTileX, startTileY, start.x, start.y, rayNum, distance);
+			if (cached != null) {
+				System.arraycopy(cached.mx, 0, mx, 0, rayNum);
+				System.arraycopy(cached.my, 0, my, 0, rayNum);
+				tileVertices.addAll(cached.vertices);
+				for (int i = 0; i < cached.visibleShapePolygons.size; ++i) {
+					visibleShapePolygons.add(cached.visibleShapePolygons.get(i));
 				}
+				visibleTiles = cached.visibleTiles;
+				return;
 			}
-			map.projectToTiles(tempVector.set(mx[i], my[i]));
+		}
+		
+		if (canRaycast) {
+			caster.cast(start.x, start.y, endX, endY, rayNum, mx, my, visibleShapePolygons);
+		} else {
+			for (int i = 0; i < rayNum; i++) {
+				mx[i] = endX[i] + start.x;
+				my[i] = endY[i] + start.y;
+			}
+		}
+		for (int i = 0; i < rayNum; i++) {
+			map.projectToTiles(tempVector.set(mx[i], my[i]), projectionVector);
 			tileVertices.add((int)tempVector.x, (int)tempVector.y);
 		}
-		visibleTiles = fillPolygon(tileVertices.getTiles(), (int)projectedStart.x, (int)projectedStart.y);
+		visibleTiles = fillPolygon(tileVertices.getTiles(), startTileX, startTileY);
+		
+		if (useCache) {
+			cache.put(startTileX, startTileY, new LineOfSightCache.Entry(start.x, start.y, rayNum, distance,
+					Arrays.copyOf(mx, rayNum), Arrays.copyOf(my, rayNum),
+					new PositionArray(tileVertices.getTiles()), visibleTiles,
+					visibleShapePolygons.iterator().toArray()));
+		}
 	}
 	
 	private PositionArray fillPolygon(PositionArray vertices, int centerX, int centerY) {
 		PositionArray returnValue = new PositionArray(vertices);
 		int numberOfVertices = vertices.size();
-		int nodes, nodeY, i, j, swap;
-		int[] nodeX = new int[numberOfVertices];
+		int nodes, nodeY, i, j, value;
+		if (nodeX == null || nodeX.length < numberOfVertices) {
+			nodeX = new int[numberOfVertices];
+		}
+		int[] nodeX = this.nodeX;
 
 		int xMin = centerX - distance;
 		int xMax = centerX + distance;
@@ -198,18 +242,13 @@ public abstract class LineOfSight {
 				j = i;
 			}
 
-			// Sort the nodes, via a simple Bubble sort.
-			i = 0;
-			while (i < nodes - 1) {
-				if (nodeX[i] > nodeX[i + 1]) {
-					swap = nodeX[i];
-					nodeX[i] = nodeX[i + 1];
-					nodeX[i + 1] = swap;
-					if (i > 0)
-						i--;
-				} else {
-					i++;
+			// Sort the nodes, via an insertion sort, there are only ever a few of them.
+			for (i = 1; i < nodes; i++) {
+				value = nodeX[i];
+				for (j = i - 1; j >= 0 && nodeX[j] > value; j--) {
+					nodeX[j + 1] = nodeX[j];
 				}
+				nodeX[j + 1] = value;
 			}
 
 			// Fill the tiles between node pairs.
@@ -230,10 +269,47 @@ public abstract class LineOfSight {
 		return returnValue;
 	}
 	
+	/**
+	 * Returns the tiles visible in this LOS.
+	 * 
+	 * The returned array can be shared with other LOS 
+	 * and must not be modified.
+	 * 
+	 * @return
+	 */
 	public PositionArray getVisibleTiles() {
 		return visibleTiles;
 	}
 	
+	/**
+	 * Returns true if a change of the LOS geometry
+	 * on the supplied tile could change this LOS.
+	 * 
+	 * @param x
+	 * @param y
+	 * @return
+	 */
+	public boolean isAffectedBy(int x, int y) {
+		return visibleTiles != null && isAffectedBy(visibleTiles, x, y);
+	}
+	
+	/**
+	 * Returns true if the supplied tile is one of the visible tiles
+	 * or borders one of them. Rays stopped by a blocker end right in front
+	 * of it, so the neighbours are needed to catch blockers that have
+	 * just stopped blocking.
+	 */
+	static boolean isAffectedBy(PositionArray visibleTiles, int x, int y) {
+		for (int i = x - 1; i <= x + 1; ++i) {
+			for (int j = y - 1; j <= y + 1; ++j) {
+				if (visibleTiles.contains(i, j)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+	
 	/**
 	 * Renders debug information for this LOS using the supplied renderer.
 	 * 
@@ -307,11 +383,4 @@ public abstract class LineOfSight {
 		return false;
 		
 	}
-	
-	protected RaycastCallbackHandler getRayCastCallback() {
-		if (raycastCallbackHandler == null) {
-			raycastCallbackHandler = new RaycastCallbackHandler();
-		}
-		return raycastCallbackHandler;
-	}
 }
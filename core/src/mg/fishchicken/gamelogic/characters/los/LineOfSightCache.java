@@ -0,0 +1,160 @@
+package mg.fishchicken.gamelogic.characters.los;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import mg.fishchicken.core.util.PositionArray;
+
+import com.badlogic.gdx.math.Polygon;
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * Per map cache of raycasted line of sight results.
+ *
+ * Results are keyed by the tile the LOS is cast from and by the number of
+ * rays it uses, so characters that return to a tile they (or anybody else
+ * with the same kind of sight) have already seen from can skip the raycasting
+ * completely.
+ *
+ * Whenever the LOS geometry of the map changes on a tile (for example
+ * when a door opens), only the entries that could be affected by that tile
+ * are evicted. The least recently used entries are evicted once the cache
+ * is full.
+ *
+ * The cache is thread safe, so lines of sight of the same map can be
+ * calculated in parallel.
+ *
+ */
+public class LineOfSightCache {
+
+	public static final int DEFAULT_CAPACITY = 512;
+
+	private final LinkedHashMap<Long, Entry> entries;
+	private int hits, misses;
+
+	public LineOfSightCache() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	public LineOfSightCache(final int capacity) {
+		entries = new LinkedHashMap<Long, Entry>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Long, LineOfSightCache.Entry> eldest) {
+				return size() > capacity;
+			}
+		};
+	}
+
+	/**
+	 * Returns the cached result for a LOS with the supplied parameters,
+	 * or null if there is none.
+	 *
+	 * @param tileX
+	 * @param tileY
+	 * @param startX - the exact world x coordinate the LOS is cast from
+	 * @param startY - the exact world y coordinate the LOS is cast from
+	 * @param rayNum
+	 * @param distance
+	 * @return
+	 */
+	synchronized Entry get(int tileX, int tileY, float startX, float startY, int rayNum, int distance) {
+		Entry entry = entries.get(key(tileX, tileY, rayNum));
+		if (entry == null || entry.startX != startX || entry.startY != startY
+				|| entry.distance != distance) {
+			++misses;
+			return null;
+		}
+		++hits;
+		return entry;
+	}
+
+	synchronized void put(int tileX, int tileY, Entry entry) {
+		entries.put(key(tileX, tileY, entry.rayNum), entry);
+	}
+
+	/**
+	 * Evicts all entries that could have been affected by a change
+	 * of the LOS geometry on the supplied tile.
+	 *
+	 * @param x
+	 * @param y
+	 */
+	public synchronized void invalidate(int x, int y) {
+		Iterator<Entry> iterator = entries.values().iterator();
+		while (iterator.hasNext()) {
+			if (iterator.next().isAffectedBy(x, y)) {
+				iterator.remove();
+			}
+		}
+	}
+
+	/**
+	 * Evicts all entries.
+	 */
+	public synchronized void clear() {
+		entries.clear();
+	}
+
+	public synchronized int getHits() {
+		return hits;
+	}
+
+	public synchronized int getMisses() {
+		return misses;
+	}
+
+	/**
+	 * Returns the ratio of cache hits to all lookups,
+	 * or 0 if there were no lookups yet.
+	 *
+	 * @return
+	 */
+	public synchronized float getHitRate() {
+		int lookups = hits + misses;
+		return lookups == 0 ? 0 : (float) hits / lookups;
+	}
+
+	public synchronized void resetCounters() {
+		hits = 0;
+		misses = 0;
+	}
+
+	private static long key(int tileX, int tileY, int rayNum) {
+		return ((long) rayNum << 32) | (PositionArray.pack(tileX, tileY) & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * Result of a single LOS calculation.
+	 *
+	 * None of the arrays may be modified once the entry is created, since they
+	 * are shared by all LOS that use the entry.
+	 */
+	static class Entry {
+		final float startX, startY;
+		final int rayNum, distance;
+		final float[] mx, my;
+		final PositionArray vertices;
+		final PositionArray visibleTiles;
+		final Array<Polygon> visibleShapePolygons;
+
+		Entry(float startX, float startY, int rayNum, int distance, float[] mx, float[] my,
+				PositionArray vertices, PositionArray visibleTiles, Array<Polygon> visibleShapePolygons) {
+			this.startX = startX;
+			this.startY = startY;
+			this.rayNum = rayNum;
+			this.distance = distance;
+			this.mx = mx;
+			this.my = my;
+			this.vertices = vertices;
+			this.visibleTiles = visibleTiles;
+			this.visibleShapePolygons = visibleShapePolygons;
+		}
+
+		boolean isAffectedBy(int x, int y) {
+			return LineOfSight.isAffectedBy(visibleTiles, x, y);
+		}
+	}
+}
@@ -0,0 +1,39 @@
+package mg.fishchicken.gamelogic.characters.los;
+
+import com.badlogic.gdx.math.Polygon;
+import com.badlogic.gdx.utils.ObjectSet;
+
+/**
+ * Casts the rays of a line of sight against the LOS blockers of a map.
+ *
+ * All implementations must give the same results: a ray passes through the first
+ * edge of a blocking tile or ground polygon it crosses and stops at the second one,
+ * it stops at the first blocking line it crosses, and it passes through
+ * regular blocking polygons, which only become visible.
+ *
+ * @see mg.fishchicken.gamelogic.locations.GameMap#getLineOfSightCaster()
+ */
+public interface LineOfSightCaster {
+
+	/**
+	 * Casts rays from the start to the supplied end points.
+	 *
+	 * @param startX
+	 * @param startY
+	 * @param endX - x coordinates of the ray end points, relative to the start
+	 * @param endY - y coordinates of the ray end points, relative to the start
+	 * @param rayNum - the number of rays to cast
+	 * @param mx - the x coordinates of the points where the rays stopped will be stored here
+	 * @param my - the y coordinates of the points where the rays stopped will be stored here
+	 * @param visibleShapePolygons - all blocking polygons the rays passed through will be added here
+	 */
+	public void cast(float startX, float startY, float[] endX, float[] endY, int rayNum, float[] mx,
+			float[] my, ObjectSet<Polygon> visibleShapePolygons);
+
+	/**
+	 * Returns true if this caster can be used from multiple threads at once.
+	 *
+	 * @return
+	 */
+	public boolean isThreadSafe();
+}
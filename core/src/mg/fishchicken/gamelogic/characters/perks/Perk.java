@@ -10,16 +10,15 @@ import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.ObjectMap;
 import com.badlogic.gdx.utils.ObjectMap.Entry;
 import com.badlogic.gdx.utils.OrderedMap;
-import com.badlogic.gdx.utils.XmlReader;
 import com.badlogic.gdx.utils.XmlReader.Element;
 
 import groovy.lang.Binding;
-import groovy.lang.Script;
 import mg.fishchicken.core.GameObject;
 import mg.fishchicken.core.GameState;
 import mg.fishchicken.core.assets.AssetContainer;
 import mg.fishchicken.core.assets.AssetMap;
 import mg.fishchicken.core.assets.Assets;
+import mg.fishchicken.core.assets.ModuleDataCache;
 import mg.fishchicken.core.conditions.Condition;
 import mg.fishchicken.core.conditions.Condition.ConditionResult;
 import mg.fishchicken.core.configuration.Configuration;
@@ -30,6 +29,7 @@ import mg.fishchicken.core.projectiles.Projectile;
 import mg.fishchicken.core.projectiles.ProjectileTarget;
 import mg.fishchicken.core.projectiles.ProjectileType;
 import mg.fishchicken.core.saveload.XMLLoadable;
+import mg.fishchicken.core.util.CompiledScript;
 import mg.fishchicken.core.util.XMLUtil;
 import mg.fishchicken.gamelogic.characters.AbstractGameCharacter;
 import mg.fishchicken.gamelogic.characters.GameCharacter;
@@ -123,7 +123,7 @@ public class Perk implements XMLLoadable, ModifierContainer, EffectContainer, Ta
 	private Array<Modifier> s_modifiers;
 	private OrderedMap<Effect, Array<EffectParameter>> s_effects;
 	private String targetType;
-	private Script targetScript;
+	private CompiledScript targetScript;
 	private TargetType target;
 	private String projectile;
 	private String s_animationState;
@@ -423,7 +423,7 @@ public class Perk implements XMLLoadable, ModifierContainer, EffectContainer, Ta
 	}
 
 	@Override
-	public void setTargetType(String targetType, Script targetScript) {
+	public void setTargetType(String targetType, CompiledScript targetScript) {
 		this.targetType = targetType;
 		this.targetScript = targetScript;
 	}
@@ -468,8 +468,7 @@ public class Perk implements XMLLoadable, ModifierContainer, EffectContainer, Ta
 	
 	@Override
 	public void loadFromXMLNoInit(FileHandle file) throws IOException {
-		XmlReader xmlReader = new XmlReader();
-		Element root = xmlReader.parse(file);
+		Element root = ModuleDataCache.parse(file);
 		XMLUtil.handleImports(this, file, root);
 		loadFromXML(root);
 	}
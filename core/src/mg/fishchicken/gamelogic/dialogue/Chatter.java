@@ -4,6 +4,7 @@ import java.io.IOException;
 import java.util.Locale;
 
 import mg.fishchicken.core.assets.Assets;
+import mg.fishchicken.core.assets.ModuleDataCache;
 import mg.fishchicken.core.configuration.Configuration;
 import mg.fishchicken.core.saveload.XMLLoadable;
 import mg.fishchicken.core.util.StringUtil;
@@ -14,7 +15,6 @@ import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.ObjectMap;
 import com.badlogic.gdx.utils.ObjectSet;
-import com.badlogic.gdx.utils.XmlReader;
 import com.badlogic.gdx.utils.XmlReader.Element;
 
 /**
@@ -178,8 +178,7 @@ public class Chatter implements XMLLoadable {
 
 	@Override
 	public void loadFromXMLNoInit(FileHandle file) throws IOException {
-		XmlReader xmlReader = new XmlReader();
-		Element root = xmlReader.parse(file);
+		Element root = ModuleDataCache.parse(file);
 		XMLUtil.handleImports(this, file, root);
 		for (ChatterType type : ChatterType.values()) {
 			Array<Element> typeElements = root.getChildrenByName(type.getXmlName());
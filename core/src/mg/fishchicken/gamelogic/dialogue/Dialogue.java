@@ -2,6 +2,7 @@ package mg.fishchicken.gamelogic.dialogue;
 
 import java.io.IOException;
 
+import mg.fishchicken.core.assets.ModuleDataCache;
 import mg.fishchicken.core.saveload.XMLField;
 import mg.fishchicken.core.saveload.XMLLoadable;
 import mg.fishchicken.core.util.XMLUtil;
@@ -11,7 +12,6 @@ import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.ObjectMap;
 import com.badlogic.gdx.utils.ObjectSet;
-import com.badlogic.gdx.utils.XmlReader;
 import com.badlogic.gdx.utils.XmlReader.Element;
 
 public class Dialogue implements XMLLoadable {
@@ -139,8 +139,7 @@ public class Dialogue implements XMLLoadable {
 	
 	@Override
 	public void loadFromXMLNoInit(FileHandle file) throws IOException {
-		XmlReader xmlReader = new XmlReader();
-		Element root = xmlReader.parse(file);
+		Element root = ModuleDataCache.parse(file);
 		XMLUtil.handleImports(this, file, root);
 		loadFromXML(root);
 	}
@@ -9,22 +9,22 @@ import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.GdxRuntimeException;
 import com.badlogic.gdx.utils.ObjectMap;
 import com.badlogic.gdx.utils.StringBuilder;
-import com.badlogic.gdx.utils.XmlReader;
 import com.badlogic.gdx.utils.XmlReader.Element;
 import com.badlogic.gdx.utils.XmlWriter;
 
 import groovy.lang.Binding;
-import groovy.lang.Script;
 import mg.fishchicken.core.GameObject;
 import mg.fishchicken.core.GameState;
 import mg.fishchicken.core.ThingWithId;
 import mg.fishchicken.core.assets.Assets;
+import mg.fishchicken.core.assets.ModuleDataCache;
 import mg.fishchicken.core.configuration.Configuration;
 import mg.fishchicken.core.i18n.Strings;
 import mg.fishchicken.core.projectiles.ProjectileTarget;
 import mg.fishchicken.core.saveload.XMLField;
 import mg.fishchicken.core.saveload.XMLLoadable;
 import mg.fishchicken.core.saveload.XMLSaveable;
+import mg.fishchicken.core.util.CompiledScript;
 import mg.fishchicken.core.util.GroovyUtil;
 import mg.fishchicken.core.util.StringUtil;
 import mg.fishchicken.core.util.XMLUtil;
@@ -72,12 +72,12 @@ public class Effect implements XMLLoadable, ThingWithId {
 	private Array<String> types;
 	private ParticleEffectDescriptor indicator, indicatorNoDelay;
 	//private String s_onEndMessage;
-	private Script descriptionParamsScript = null;
-	private Script onHitScript = null;
-	private Script persistentScript = null;
-	private Script onEndScript = null;
-	private Script durationScript = null;
-	private Script conditionScript = null;
+	private CompiledScript descriptionParamsScript = null;
+	private CompiledScript onHitScript = null;
+	private CompiledScript persistentScript = null;
+	private CompiledScript onEndScript = null;
+	private CompiledScript durationScript = null;
+	private CompiledScript conditionScript = null;
 	private Array<EffectParameterDefinition> parameters;
 	
 	public static Effect getEffect(String id) {
@@ -137,8 +137,7 @@ public class Effect implements XMLLoadable, ThingWithId {
 			return 0f;
 		}
 		
-		durationScript.setBinding(context);
-		Object returnValue = durationScript.run();
+		Object returnValue = durationScript.run(context);
 		if (returnValue == null) {
 			return 0f;
 		}
@@ -166,8 +165,7 @@ public class Effect implements XMLLoadable, ThingWithId {
 	
 	@Override
 	public void loadFromXMLNoInit(FileHandle file) throws IOException {
-		XmlReader xmlReader = new XmlReader();
-		Element root = xmlReader.parse(file);
+		Element root = ModuleDataCache.parse(file);
 		XMLUtil.handleImports(this, file, root);
 		XMLUtil.readPrimitiveMembers(this, root);
 		Element indicatorElement = root.getChildByName(XML_INDICATOR);
@@ -179,7 +177,7 @@ public class Effect implements XMLLoadable, ThingWithId {
 		durationScript = XMLUtil.readScript(id, root.getChildByName(XML_DURATION), durationScript);
 		onEndScript = XMLUtil.readScript(id, root.getChildByName(XML_ON_END), onEndScript);
 		persistentScript = XMLUtil.readScript(id, root.getChildByName(XML_PERSISTENT), persistentScript);
-		conditionScript = XMLUtil.readScript(id, root.getChildByName(XML_CONDITION), conditionScript);
+		conditionScript = XMLUtil.readConditionScript(id, root.getChildByName(XML_CONDITION), conditionScript);
 
 		Element descriptionElement = root.getChildByName(XML_DESCRIPTION);
 		if (descriptionElement != null) {
@@ -244,8 +242,7 @@ public class Effect implements XMLLoadable, ThingWithId {
 		}
 		List<?> additionalScriptParams = null;
 		if (descriptionParamsScript != null) {
-			descriptionParamsScript.setBinding(context);
-			Object returnValue = descriptionParamsScript.run();
+			Object returnValue = descriptionParamsScript.run(context);
 			if (returnValue instanceof List) {
 				additionalScriptParams = (List<?>) returnValue;
 			}
@@ -316,8 +313,7 @@ public class Effect implements XMLLoadable, ThingWithId {
 		if (onHitScript != null) {
 			for (GameObject go : target.getGameObjects()) {
 				context.setVariable(TARGET, go);
-				onHitScript.setBinding(context);
-				onHitScript.run();
+				onHitScript.run(context);
 			}
 		}
 
@@ -451,9 +447,7 @@ public class Effect implements XMLLoadable, ThingWithId {
 			if (GameState.isLoadingGame() || s_parentEffect.conditionScript == null) {
 				return true;
 			}
-			s_parentEffect.conditionScript.setBinding(getContext());
-			
-			return GroovyUtil.evaluateCondition(s_parentEffect.conditionScript);
+			return GroovyUtil.evaluateCondition(s_parentEffect.conditionScript, getContext());
 		}
 		
 		/**
@@ -479,8 +473,7 @@ public class Effect implements XMLLoadable, ThingWithId {
 				++s_turn;
 				if (s_parentEffect.persistentScript != null) {
 					getContext().setVariable(TURN, s_turn);
-					s_parentEffect.persistentScript.setBinding(getContext());
-					s_parentEffect.persistentScript.run();
+					s_parentEffect.persistentScript.run(getContext());
 				}
 			}
 			
@@ -511,8 +504,7 @@ public class Effect implements XMLLoadable, ThingWithId {
 			s_isFinished = true;
 			dateToEnd = null;
 			if (s_parentEffect.onEndScript != null) {
-				s_parentEffect.onEndScript.setBinding(getContext());
-				s_parentEffect.onEndScript.run();
+				s_parentEffect.onEndScript.run(getContext());
 			}
 			if (s_parentEffect.indicator != null && target.getMap() != null) {
 				target.getMap().getParticleEffectManager().kill(target, s_parentEffect.indicator.getEffectId());
@@ -1,7 +1,6 @@
 package mg.fishchicken.gamelogic.effects.targets;
 
 import groovy.lang.Binding;
-import groovy.lang.Script;
 
 import java.util.Iterator;
 
@@ -9,6 +8,7 @@ import mg.fishchicken.core.GameObject;
 import mg.fishchicken.core.i18n.Strings;
 import mg.fishchicken.core.projectiles.Projectile;
 import mg.fishchicken.core.projectiles.ProjectileTarget;
+import mg.fishchicken.core.util.CompiledScript;
 import mg.fishchicken.core.util.PositionArray;
 import mg.fishchicken.gamelogic.characters.GameCharacter;
 import mg.fishchicken.gamelogic.combat.CombatPath;
@@ -52,7 +52,7 @@ public abstract class TargetType extends CombatPath implements ProjectileTarget
 	public static final String STRING_TABLE = "targetType."+Strings.RESOURCE_FILE_EXTENSION;
 	
 	@SuppressWarnings("unchecked")
-	public static TargetType getTargetTypeInstance(String targetType, Script targetScript) {
+	public static TargetType getTargetTypeInstance(String targetType, CompiledScript targetScript) {
 		try {
 			Class<? extends TargetType> effectClass = ClassReflection.forName(TargetType.class.getPackage().getName()+"."+targetType);
 			TargetType target = ClassReflection.newInstance(effectClass);
@@ -67,7 +67,7 @@ public abstract class TargetType extends CombatPath implements ProjectileTarget
 	protected Array<GameObject> targets;
 	private int apCost;
 	private boolean renderMoveToPath;
-	private Script targetScript = null;
+	private CompiledScript targetScript = null;
 	
 	public abstract void setScriptResult(Object result);
 	public abstract boolean requiresTargeting();
@@ -257,7 +257,6 @@ public abstract class TargetType extends CombatPath implements ProjectileTarget
 				context.setVariable(paramName, parameters.get(paramName));
 			}
 		}
-		targetScript.setBinding(context);
-        setScriptResult(targetScript.run());
+        setScriptResult(targetScript.run(context));
 	}
 }
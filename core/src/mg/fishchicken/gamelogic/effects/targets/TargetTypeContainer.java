@@ -1,9 +1,9 @@
 package mg.fishchicken.gamelogic.effects.targets;
 
 import mg.fishchicken.core.ThingWithId;
-import groovy.lang.Script;
+import mg.fishchicken.core.util.CompiledScript;
 
 public interface TargetTypeContainer extends ThingWithId {
 
-	public void setTargetType(String targetType, Script targetScript);
+	public void setTargetType(String targetType, CompiledScript targetScript);
 }
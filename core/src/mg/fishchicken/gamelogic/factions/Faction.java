@@ -1,17 +1,21 @@
 package mg.fishchicken.gamelogic.factions;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Locale;
 
 import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Bits;
+import com.badlogic.gdx.utils.ObjectIntMap;
 import com.badlogic.gdx.utils.ObjectMap;
-import com.badlogic.gdx.utils.XmlReader;
 import com.badlogic.gdx.utils.XmlReader.Element;
 import com.badlogic.gdx.utils.XmlWriter;
 
 import mg.fishchicken.core.ThingWithId;
 import mg.fishchicken.core.assets.Assets;
+import mg.fishchicken.core.assets.ModuleDataCache;
 import mg.fishchicken.core.configuration.Configuration;
 import mg.fishchicken.core.i18n.Strings;
 import mg.fishchicken.core.logging.Log;
@@ -35,19 +39,34 @@ import mg.fishchicken.gamelogic.characters.AbstractGameCharacter;
  * When the file is loaded, the factions in it are reloaded as well so that the data
  * from the savegame file overwrite the loaded masterdata.
  * 
+ * Every faction id is assigned a dense index the first time it is encountered. Each faction
+ * stores its dispositions in an array indexed by these and keeps a bit set of the
+ * factions it is hostile towards, so that hostility checks are a single bit test.
+ * 
  * @author ANNUN
  *
  */
 public class Faction implements XMLSaveable, ThingWithId {
 	
+	// must be initialized before the static factions below are created
+	private static final ObjectIntMap<String> indices = new ObjectIntMap<String>();
+	private static final Array<String> ids = new Array<String>();
+	
 	public static final Faction NO_FACTION = new NoFaction();
 	public static final Faction PLAYER_FACTION = new PlayerFaction();
 	
 	public static final String STRING_TABLE = "factions."+Strings.RESOURCE_FILE_EXTENSION;
 	public static final String XML_DISPOSITION = "disposition";
+	public static final int HOSTILE_DISPOSITION = -100;
 	private static ObjectMap<String, String> factions = new ObjectMap<String, String>();
 	
-	private ObjectMap<String, Integer> disposition = new ObjectMap<String, Integer>();
+	private int index = -1;
+	// indexed by the index of the other faction
+	private int[] dispositions = new int[16];
+	// dispositions that were explicitly set, only these are saved
+	private Bits dispositionsSet = new Bits();
+	// factions towards which this faction's disposition is hostile
+	private Bits hostile = new Bits();
 	private Element xmlData;
 	private boolean s_shouldBeSaved;
 	private String s_id;
@@ -84,6 +103,32 @@ public class Faction implements XMLSaveable, ThingWithId {
 		Assets.gatherAssets(Configuration.getFolderFactions(), "xml", Faction.class, factions);
 	}
 	
+	/**
+	 * Returns the index of the faction with the supplied id,
+	 * assigning it a new one if the id was never encountered before.
+	 * 
+	 * @param factionId
+	 * @return
+	 */
+	private static int getIndex(String factionId) {
+		String id = factionId.toLowerCase(Locale.ENGLISH);
+		synchronized (indices) {
+			int index = indices.get(id, -1);
+			if (index < 0) {
+				index = ids.size;
+				ids.add(id);
+				indices.put(id, index);
+			}
+			return index;
+		}
+	}
+	
+	private static String getIdForIndex(int index) {
+		synchronized (indices) {
+			return ids.get(index);
+		}
+	}
+	
 	public static void writeAllModifiedFactions(XmlWriter writer) throws IOException {
 		for (String factionFile : factions.values()) {
 			Faction faction = Assets.get(factionFile);
@@ -97,11 +142,15 @@ public class Faction implements XMLSaveable, ThingWithId {
 
 	protected Faction(String id) {
 		s_id = id;
+		index = getIndex(id);
 	}
 	
 	public Faction(FileHandle file) throws IOException {
 		loadFromXML(file);
 		s_id = file.nameWithoutExtension().toLowerCase(Locale.ENGLISH);
+		index = getIndex(s_id);
+		// a faction is never hostile towards itself
+		hostile.clear(index);
 	}
 	
 	public String getId() {
@@ -167,7 +216,20 @@ public class Faction implements XMLSaveable, ThingWithId {
 				Log.logLocalized("dispositionIncreased", LogType.FACTION, getName(), disposition - currentDisposition);
 			}		
 		}
-		this.disposition.put(factionId, disposition);
+		storeDisposition(getIndex(factionId), disposition);
+	}
+	
+	private void storeDisposition(int factionIndex, int disposition) {
+		if (factionIndex >= dispositions.length) {
+			dispositions = Arrays.copyOf(dispositions, Math.max(factionIndex + 1, dispositions.length * 2));
+		}
+		dispositions[factionIndex] = disposition;
+		dispositionsSet.set(factionIndex);
+		if (disposition <= HOSTILE_DISPOSITION && factionIndex != index) {
+			hostile.set(factionIndex);
+		} else {
+			hostile.clear(factionIndex);
+		}
 	}
 	
 	/**
@@ -199,7 +261,7 @@ public class Faction implements XMLSaveable, ThingWithId {
 	 * @param faction
 	 */
 	public int getDispositionTowards(Faction faction) {
-		return getDisposition(faction.s_id);
+		return getDisposition(faction.index);
 	}
 	
 	/**
@@ -209,14 +271,17 @@ public class Faction implements XMLSaveable, ThingWithId {
 	 * @param factionId
 	 */
 	public int getDisposition(String factionId) {
-		if (getId().equals(factionId)) {
+		return getDisposition(getIndex(factionId));
+	}
+	
+	private int getDisposition(int factionIndex) {
+		if (factionIndex == index) {
 			return 100;
 		}
-		Integer currentDisposition = disposition.get(factionId.toLowerCase(Locale.ENGLISH));
-		if (currentDisposition == null) {
-			currentDisposition = 0;
+		if (factionIndex < dispositions.length) {
+			return dispositions[factionIndex];
 		}
-		return currentDisposition;
+		return 0;
 	}
 	
 	/**
@@ -305,7 +370,7 @@ public class Faction implements XMLSaveable, ThingWithId {
 	 * @param faction
 	 */
 	public boolean isHostileTowards(Faction faction) {
-		return getDispositionTowards(faction) <= -100; 
+		return hostile.get(faction.index); 
 	}
 	
 	/**
@@ -314,7 +379,7 @@ public class Faction implements XMLSaveable, ThingWithId {
 	 * @param character
 	 */
 	public boolean isHostileTowardsPlayer() {
-		return getDispositionTowardsPlayer() <= -100;
+		return hostile.get(PLAYER_FACTION.index);
 	}
 	
 	private void reset() {
@@ -324,8 +389,7 @@ public class Faction implements XMLSaveable, ThingWithId {
 	}
 	
 	public void loadFromXML(FileHandle factionFile) throws IOException {
-		XmlReader xmlReader = new XmlReader();
-		Element root = xmlReader.parse(factionFile);
+		Element root = ModuleDataCache.parse(factionFile);
 		loadFromXML(root);
 	}
 	
@@ -336,8 +400,8 @@ public class Faction implements XMLSaveable, ThingWithId {
 		writer.pop();
 		
 		writer.element(XML_DISPOSITION);
-		for (String factionId : disposition.keys()) {
-			writer.element(factionId, disposition.get(factionId));
+		for (int i = dispositionsSet.nextSetBit(0); i >= 0; i = dispositionsSet.nextSetBit(i + 1)) {
+			writer.element(getIdForIndex(i), dispositions[i]);
 		}
 		writer.pop();
 	}
@@ -348,11 +412,13 @@ public class Faction implements XMLSaveable, ThingWithId {
 		XMLUtil.readPrimitiveMembers(this,
 				root.getChildByName(XMLUtil.XML_PROPERTIES));
 		
-		disposition.clear();
+		Arrays.fill(dispositions, 0);
+		dispositionsSet.clear();
+		hostile.clear();
 		Element dispositionElement = root.getChildByName(XML_DISPOSITION);
 		for (int i = 0; i < dispositionElement.getChildCount(); ++i) {
 			Element factionElement = dispositionElement.getChild(i);
-			disposition.put(factionElement.getName().toLowerCase(Locale.ENGLISH), Integer.parseInt(factionElement.getText()));
+			storeDisposition(getIndex(factionElement.getName()), Integer.parseInt(factionElement.getText()));
 		}
 	}
 	
@@ -12,6 +12,7 @@ import mg.fishchicken.core.actions.Action;
 import mg.fishchicken.core.assets.AssetContainer;
 import mg.fishchicken.core.assets.AssetMap;
 import mg.fishchicken.core.assets.Assets;
+import mg.fishchicken.core.assets.ModuleDataCache;
 import mg.fishchicken.core.conditions.Condition;
 import mg.fishchicken.core.conditions.Condition.ConditionResult;
 import mg.fishchicken.core.configuration.Configuration;
@@ -38,7 +39,6 @@ import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.GdxRuntimeException;
 import com.badlogic.gdx.utils.ObjectMap;
-import com.badlogic.gdx.utils.XmlReader;
 import com.badlogic.gdx.utils.XmlReader.Element;
 
 public abstract class InventoryItem implements AssetContainer, ModifierContainer, XMLLoadable, ThingWithId {
@@ -645,8 +645,7 @@ public abstract class InventoryItem implements AssetContainer, ModifierContainer
 	
 	@Override
 	public void loadFromXMLNoInit(FileHandle file) throws IOException {
-		XmlReader xmlReader = new XmlReader();
-		Element root = xmlReader.parse(file);
+		Element root = ModuleDataCache.parse(file);
 		XMLUtil.handleImports(this, file, root);
 		loadFromXML(root);
 	}
@@ -5,6 +5,7 @@ import java.util.Locale;
 import java.util.Random;
 
 import mg.fishchicken.core.GameState;
+import mg.fishchicken.core.assets.ModuleDataCache;
 import mg.fishchicken.core.configuration.Configuration;
 import mg.fishchicken.core.util.CoreUtil;
 import mg.fishchicken.core.util.XMLUtil;
@@ -13,7 +14,6 @@ import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.ObjectMap;
-import com.badlogic.gdx.utils.XmlReader;
 import com.badlogic.gdx.utils.XmlReader.Element;
 
 public class ItemGroup extends Array<String> {
@@ -114,8 +114,7 @@ public class ItemGroup extends Array<String> {
 	}
 	
 	public void loadFromXML(FileHandle groupFile) throws IOException {
-		XmlReader xmlReader = new XmlReader();
-		Element root = xmlReader.parse(groupFile);
+		Element root = ModuleDataCache.parse(groupFile);
 		XMLUtil.readPrimitiveMembers(this, root.getChildByName(XMLUtil.XML_PROPERTIES));
 		Element itemsElement = root.getChildByName(XML_ITEMS);
 		if (itemsElement != null) {
@@ -1,7 +1,6 @@
 package mg.fishchicken.gamelogic.inventory.items;
 
 import groovy.lang.Binding;
-import groovy.lang.Script;
 
 import java.io.IOException;
 
@@ -16,6 +15,7 @@ import mg.fishchicken.core.projectiles.OnProjectileHitCallback;
 import mg.fishchicken.core.projectiles.Projectile;
 import mg.fishchicken.core.projectiles.ProjectileTarget;
 import mg.fishchicken.core.projectiles.ProjectileType;
+import mg.fishchicken.core.util.CompiledScript;
 import mg.fishchicken.core.util.XMLUtil;
 import mg.fishchicken.gamelogic.characters.GameCharacter;
 import mg.fishchicken.gamelogic.effects.Effect;
@@ -38,7 +38,7 @@ public class UsableItem extends InventoryItem implements EffectContainer, Target
 	private int usesLeft;
 	private OrderedMap<Effect, Array<EffectParameter>> effects;
 	private String targetType;
-	private Script targetScript;
+	private CompiledScript targetScript;
 	private String s_projectile;
 	private Condition useCondition;
 	private boolean s_combatOnly;
@@ -192,7 +192,7 @@ public class UsableItem extends InventoryItem implements EffectContainer, Target
 	}
 
 	@Override
-	public void setTargetType(String targetType, Script targetScript) {
+	public void setTargetType(String targetType, CompiledScript targetScript) {
 		this.targetType = targetType;
 		this.targetScript = targetScript;
 	}
@@ -1,5 +1,7 @@
 package mg.fishchicken.gamelogic.locations;
 
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.io.IOException;
 import java.util.Iterator;
 import java.util.Locale;
@@ -7,7 +9,10 @@ import java.util.Locale;
 import mg.fishchicken.audio.AudioTrack;
 import mg.fishchicken.audio.Music;
 import mg.fishchicken.core.GameObject;
+import mg.fishchicken.core.GameObjectIndex;
 import mg.fishchicken.core.GameState;
+import mg.fishchicken.core.SimulationLevelOfDetail;
+import mg.fishchicken.core.SimulationLevelOfDetail.Tier;
 import mg.fishchicken.core.UsableGameObject;
 import mg.fishchicken.core.assets.AssetContainer;
 import mg.fishchicken.core.assets.AssetMap;
@@ -29,6 +34,12 @@ import mg.fishchicken.gamelogic.characters.GameCharacter.Skill;
 import mg.fishchicken.gamelogic.characters.SkillCheckModifier;
 import mg.fishchicken.gamelogic.characters.groups.CharacterGroup;
 import mg.fishchicken.gamelogic.characters.groups.PlayerCharacterGroup;
+import mg.fishchicken.gamelogic.characters.los.Box2DLineOfSightCaster;
+import mg.fishchicken.gamelogic.characters.los.GridLineOfSightCaster;
+import mg.fishchicken.gamelogic.characters.los.LineOfSight;
+import mg.fishchicken.gamelogic.characters.los.LineOfSightCache;
+import mg.fishchicken.gamelogic.characters.los.LineOfSightCaster;
+import mg.fishchicken.gamelogic.factions.Faction;
 import mg.fishchicken.gamelogic.inventory.ItemPile;
 import mg.fishchicken.gamelogic.inventory.Pickable;
 import mg.fishchicken.gamelogic.inventory.PickableGameObject;
@@ -41,6 +52,7 @@ import mg.fishchicken.gamelogic.traps.TrapLocation;
 import mg.fishchicken.gamelogic.weather.WeatherProfile;
 import mg.fishchicken.gamestate.SaveablePolygon;
 import mg.fishchicken.gamestate.Tile;
+import mg.fishchicken.graphics.DrawOrder;
 import mg.fishchicken.graphics.Drawable;
 import mg.fishchicken.graphics.ShapeDrawer;
 import mg.fishchicken.graphics.TextDrawer;
@@ -91,6 +103,8 @@ public class GameMap extends GameLocation implements PathableTiledMap, Disposabl
 	public static final String XML_TRANSITION_TRAP = "transitionTrap";
 	public static final String XML_WEATHER_MODIFIERS = "weatherModifiers";
 	public static final String LAYER_SPECIAL = "Special";
+	// how many tiles around a point are searched for GOs that could be drawn over it
+	private static final int GO_SEARCH_RADIUS = 3;
 	
 	private static Matrix4 isoTransform;
 	private static Matrix4 invIsoTransform;
@@ -112,7 +126,7 @@ public class GameMap extends GameLocation implements PathableTiledMap, Disposabl
 	boolean[] unavailableTiles;
 	float[] moveCosts;
 	Array<TiledMapObject> mapTileObjects;
-	Array<Drawable> drawables;
+	DrawOrder drawOrder;
 	Array<TileBlocker> blockers;
 	Array<GameObject> gameObjects;
 	ObjectMap<String, Array<GameObject>> gameObjectsByType;
@@ -153,7 +167,20 @@ public class GameMap extends GameLocation implements PathableTiledMap, Disposabl
 	private RayHandler fogOfWarRayHandler, lightsRayHandler, viewConesRayHandler;
 	private Sun sun;
 	private int[] fogOfWar;
-	private ObjectSet<GameObject>[] gameObjectTileMap;
+	private SpatialIndex spatialIndex;
+	private OccupancyGrid occupancyGrid;  // lazy init, is initialized at the same time as spatialIndex
+	private SpatialIndex.Cursor tempCursor = new SpatialIndex.Cursor();
+	private Array<AbstractGameCharacter> characters;
+	private int characterTilesVersion;
+	private VisibilityBuffer partyVisibility; // lazy init
+	private LineOfSightCache lineOfSightCache; // lazy init
+	private LineOfSightCaster lineOfSightCaster; // lazy init
+	private Array<GameCharacter> tempCharacters;
+	private Array<LineOfSight> tempSights;
+	private SimulationLevelOfDetail simulationLevelOfDetail;
+	// the part of the map the camera saw when the tiers of local game objects were last decided
+	private Rectangle simulatedView;
+	private boolean fullSimulation;
 	private World fogOfWarWorld;
 	private World lightsWorld;
 	private Box2DDebugRenderer box2DDebugRenderer;
@@ -162,7 +189,6 @@ public class GameMap extends GameLocation implements PathableTiledMap, Disposabl
 	private TweenManager tweenManager, unpausableTweenManager;
 	private ParticleEffectManager particleEffectManager;
 	private Vector3 tempVector;
-	private ObjectSet<GameObject> tempSet;
 	private ObjectSet<GameLocation> tempLocations;
 
 	/**
@@ -180,13 +206,18 @@ public class GameMap extends GameLocation implements PathableTiledMap, Disposabl
 	
 	private void init() {
 		tempVector = new Vector3();
-		tempSet = new ObjectSet<GameObject>();
+		tempCharacters = new Array<GameCharacter>(false, 16, GameCharacter.class);
+		tempSights = new Array<LineOfSight>(false, 16, LineOfSight.class);
+		simulationLevelOfDetail = new SimulationLevelOfDetail(new LocalTierSelector());
+		simulatedView = new Rectangle();
+		fullSimulation = true;
 		s_sunlightMultiplier = 1f;
-		drawables = new Array<Drawable>();
+		drawOrder = new DrawOrder();
 		blockers = new Array<TileBlocker>();
 		textDrawers = new Array<TextDrawer>();
 		myAssets = new AssetMap();
 		gameObjects = new Array<GameObject>(true, 16, GameObject.class);
+		characters = new Array<AbstractGameCharacter>(false, 16);
 		gameObjectsByType = new ObjectMap<String, Array<GameObject>>();
 		gameObjectsByClass = new ObjectMap<Class<?>, Array<GameObject>>();
 		locations =  new Array<GameLocation>();
@@ -277,20 +308,16 @@ public class GameMap extends GameLocation implements PathableTiledMap, Disposabl
 	}
 	
 	public void notifyGOTileChanged(GameObject go, int newX, int newY, int oldX, int oldY) {
-		if (gameObjectTileMap == null) {
+		if (spatialIndex == null) {
 			recalculateGameObjectTileMap();
 		}
-		double goWidth = Math.ceil(go.getWidth());
-		double goHeight = Math.ceil(go.getHeight());
-		for(int i = 0; i < goWidth; ++i) {
-			for(int j = 0; j < goHeight; ++j) {
-				if (oldX != -1) {
-					gameObjectTileMap[getTileId(oldX+i, oldY+j)].remove(go);
-				}
-				gameObjectTileMap[getTileId(newX+i, newY+j)].add(go);
-			}
+		spatialIndex.put(go, newX, newY);
+		if (go instanceof AbstractGameCharacter) {
+			++characterTilesVersion;
+		}
+		if (go instanceof TileBlocker && blockers.contains((TileBlocker)go, true)) {
+			occupancyGrid.blockerChanged(this, (TileBlocker)go);
 		}
-		
 	}
 	
 	/**
@@ -349,6 +376,13 @@ public class GameMap extends GameLocation implements PathableTiledMap, Disposabl
 	 * Called when the map is loaded, before it is displayed.
 	 */
 	public void onLoad() {
+		if (lineOfSightCache != null) {
+			lineOfSightCache.clear();
+		}
+		lineOfSightCaster = null;
+		fogOfWarRayHandler.geometryChanged();
+		lightsRayHandler.geometryChanged();
+		viewConesRayHandler.geometryChanged();
 		recalculateGameObjectTileMap();
 		updateCharacterVisibleArea();
 	}
@@ -493,11 +527,17 @@ public class GameMap extends GameLocation implements PathableTiledMap, Disposabl
 			}
 			
 			gameObjects.add(go);
+			GameState.getGameObjectIndex().add(go, this);
+			simulationLevelOfDetail.add(go, Tier.NEAR);
+			if (go instanceof AbstractGameCharacter) {
+				characters.add((AbstractGameCharacter)go);
+			}
 			if (go instanceof Drawable) {
 				addDrawable((Drawable)go);
 			}
 			if (go instanceof TileBlocker) {
 				blockers.add((TileBlocker)go);
+				tileBlockerChanged((TileBlocker)go);
 			}
 			if (go instanceof TextDrawer) {
 				textDrawers.add((TextDrawer)go);
@@ -536,7 +576,7 @@ public class GameMap extends GameLocation implements PathableTiledMap, Disposabl
 	 * @param drawable
 	 */
 	public void addDrawable(Drawable drawable) {
-		drawables.add(drawable);
+		drawOrder.add(drawable);
 	}
 	
 	/**
@@ -544,7 +584,7 @@ public class GameMap extends GameLocation implements PathableTiledMap, Disposabl
 	 * @param drawable
 	 */
 	public void removeDrawable(Drawable drawable) {
-		drawables.removeValue(drawable, false);
+		drawOrder.remove(drawable);
 	}
 	
 	/**
@@ -604,6 +644,12 @@ public class GameMap extends GameLocation implements PathableTiledMap, Disposabl
 	 */
 	public void removeGameObject(GameObject go) {
 		gameObjects.removeValue(go, false);
+		GameState.getGameObjectIndex().remove(go);
+		simulationLevelOfDetail.remove(go);
+		if (go instanceof AbstractGameCharacter) {
+			characters.removeValue((AbstractGameCharacter)go, true);
+			++characterTilesVersion;
+		}
 		if (go instanceof Drawable) {
 			removeDrawable((Drawable)go);
 		}
@@ -612,6 +658,7 @@ public class GameMap extends GameLocation implements PathableTiledMap, Disposabl
 		}
 		if (go instanceof TileBlocker) {
 			blockers.removeValue((TileBlocker)go, false);
+			tileBlockerChanged((TileBlocker)go);
 		}
 		if (gameObjectsByType.containsKey(go.getType())) {
 			gameObjectsByType.get(go.getType()).removeValue(go, false);
@@ -619,10 +666,8 @@ public class GameMap extends GameLocation implements PathableTiledMap, Disposabl
 		if (gameObjectsByClass.containsKey(go.getClass())) {
 			gameObjectsByClass.get(go.getClass()).removeValue(go, false);
 		}
-		if (gameObjectTileMap != null) {
-			for (ObjectSet<GameObject> objects : gameObjectTileMap) {
-				objects.remove(go);
-			}
+		if (spatialIndex != null) {
+			spatialIndex.remove(go);
 		}
 		
 	}
@@ -968,23 +1013,67 @@ public class GameMap extends GameLocation implements PathableTiledMap, Disposabl
 	 * 
 	 * If both x any y are negative, all characters are updated.
 	 * 
+	 * If recalculateLOS is true, the LOS geometry on the supplied
+	 * coordinates is considered changed. Cached LOS results affected by it
+	 * are discarded and only characters whose LOS could be affected
+	 * by the change are updated.
+	 * 
 	 * @param x
 	 * @param y
 	 */
 	public void updateCharacterVisibleArea(float x, float y, boolean recalculateLOS) {
+		boolean dirtyTile = recalculateLOS && (x >= 0 || y >= 0);
+		if (dirtyTile) {
+			if (lineOfSightCache != null) {
+				lineOfSightCache.invalidate((int) x, (int) y);
+			}
+			lineOfSightCaster = null;
+			if (fogOfWarRayHandler != null) {
+				fogOfWarRayHandler.geometryChanged();
+				viewConesRayHandler.geometryChanged();
+			}
+		}
 		if (!mapLoaded) {
 			return;
 		}
+		// updating a visible area can in rare cases lead back here, in which case the temp array is still in use
+		Array<GameCharacter> toUpdate = tempCharacters.size == 0 ? tempCharacters : new Array<GameCharacter>(
+				false, 16, GameCharacter.class);
 		for (GameObject go : gameObjects) {
 			if (go instanceof GameCharacter) {
+				GameCharacter character = (GameCharacter) go;
+				if (dirtyTile && character.getLineOfSight() != null
+						&& !character.getLineOfSight().isAffectedBy((int) x, (int) y)) {
+					continue;
+				}
 				if ((x < 0 && y < 0)
 						|| (MathUtil.distance(x, y, go.position().getX(), go.position().getY()) <= (isWorldMap() ? Configuration
 								.getSightRadiusWorld() : Configuration
 								.getSightRadiusLocal()))) {
-					((GameCharacter) go).updateVisibleArea(recalculateLOS);
+					toUpdate.add(character);
+				}
+			}
+		}
+		
+		// only the grid caster can recalculate in parallel, for Box2D moving all LOS first gains nothing
+		if (recalculateLOS && toUpdate.size > 1 && Configuration.isGridLineOfSightEnabled()) {
+			// recalculate all LOS at once, which can happen in parallel
+			Array<LineOfSight> sights = tempSights;
+			sights.clear();
+			for (int i = 0; i < toUpdate.size; ++i) {
+				LineOfSight sight = toUpdate.get(i).moveLineOfSight();
+				if (sight != null) {
+					sights.add(sight);
 				}
 			}
+			LineOfSight.updateAll(this, sights);
+			sights.clear();
+			recalculateLOS = false;
 		}
+		for (int i = 0; i < toUpdate.size; ++i) {
+			toUpdate.get(i).updateVisibleArea(recalculateLOS);
+		}
+		toUpdate.clear();
 	}
 	
 	/**
@@ -1093,13 +1182,62 @@ public class GameMap extends GameLocation implements PathableTiledMap, Disposabl
 		if (isWorldMap) {
 			return GameState.getPlayerCharacterGroup().getGroupGameObject().canSeeTile(tileNumber);
 		}
-		PlayerCharacterGroup pcg = GameState.getPlayerCharacterGroup();
-		for (GameCharacter member : pcg.getPlayerCharacters()) {
-			if (this == member.getMap() && member.canSeeTile(tileNumber)) {
-				return true;
-			}
+		return partyVisibility != null && partyVisibility.isVisible(tileNumber);
+	}
+	
+	/**
+	 * Returns the buffer holding the union of the LOS
+	 * of all PCs on this map.
+	 * 
+	 * PCs register themselves in it when they update their visible area.
+	 * 
+	 * @return
+	 */
+	public VisibilityBuffer getPartyVisibility() {
+		if (partyVisibility == null) {
+			partyVisibility = new VisibilityBuffer(getMapWidth(), getMapHeight());
 		}
-		return false;
+		return partyVisibility;
+	}
+	
+	/**
+	 * Returns the cache of raycasted LOS results
+	 * of this map.
+	 * 
+	 * @return
+	 */
+	public LineOfSightCache getLineOfSightCache() {
+		if (lineOfSightCache == null) {
+			lineOfSightCache = new LineOfSightCache();
+		}
+		return lineOfSightCache;
+	}
+	
+	/**
+	 * Returns the caster that casts the LOS of this map against its LOS blockers,
+	 * or null if the map is disposed and its LOS can no longer be cast.
+	 * 
+	 * Depending on the configuration, this either casts through the Box2D world of the map,
+	 * or against a grid built from it. The grid is rebuilt whenever the LOS geometry of the map changes.
+	 * 
+	 * @see Configuration#isGridLineOfSightEnabled()
+	 * @return
+	 */
+	public LineOfSightCaster getLineOfSightCaster() {
+		LineOfSightCaster caster = lineOfSightCaster;
+		if (caster != null) {
+			return caster;
+		}
+		if (isDisposed || fogOfWarWorld == null) {
+			return null;
+		}
+		caster = Configuration.isGridLineOfSightEnabled() ? new GridLineOfSightCaster(fogOfWarWorld)
+				: new Box2DLineOfSightCaster(fogOfWarWorld);
+		// the geometry of maps that are still loading is incomplete, so it is not kept
+		if (mapLoaded) {
+			lineOfSightCaster = caster;
+		}
+		return caster;
 	}
 	
 	/**
@@ -1326,54 +1464,17 @@ public class GameMap extends GameLocation implements PathableTiledMap, Disposabl
 		getAllGameObjectsAt(returnValue, x, y, onTile, includeInactive, false, types);
 	}
 	
-	@SuppressWarnings("unchecked")
 	private <T extends GameObject> GameObject getAllGameObjectsAt(ObjectSet<T> returnValue, float x, float y, boolean onTile, boolean includeInactive, boolean returnFirst,  Class<?>... types) {
-		if (gameObjectTileMap == null) {
+		if (spatialIndex == null) {
 			return null;
 		}
 		
-		GameObject firstFound = null;
-		int min = onTile ? 0: -3;
-		int max = onTile ? 0: 3;
-		int maxLength = gameObjectTileMap.length;
 		int intX = (int) x;
 		int intY = (int) y;
-		boolean noTypes = types.length == 0;
-		
-		for (int i = min; i <= max; ++i) {
-			for (int j = min; j <= max; ++j) {
-				int id = getTileId(intX+i, intY+j);
-				if (id < 0 || id >= maxLength) {
-					continue;
-				}
-				for (GameObject go : gameObjectTileMap[id]) {
-					if ((includeInactive || go.isActive())
-							&& (onTile || go.contains(x, y))) {
-						Class<?> goClass = go.getClass();
-						boolean canAdd = noTypes;
-						for (Class<?> type : types) {
-							if (type.isAssignableFrom(goClass)) {
-								canAdd = true;
-								break;
-							}
-						}
-						if (canAdd) {
-							if (firstFound == null) {
-								firstFound = go;
-							}
-							if (returnValue != null) {
-								returnValue.add((T)go);
-							}
-							if (returnFirst) {
-								return go;
-							}
-						}
-					}
-				}
-			}
-		}
-		
-		return firstFound;
+		// GOs can be drawn outside of their tiles, so we need to check the surrounding tiles as well
+		int radius = onTile ? 0 : GO_SEARCH_RADIUS;
+		return spatialIndex.query(returnFirst ? null : returnValue, intX - radius, intY - radius, intX + radius,
+				intY + radius, onTile ? Float.NaN : x, onTile ? Float.NaN : y, null, 0, includeInactive, types);
 	}
 
 	/**
@@ -1403,22 +1504,88 @@ public class GameMap extends GameLocation implements PathableTiledMap, Disposabl
 	 * @return
 	 */
 	public <T extends GameObject> boolean getAllObjectsInArea(ObjectSet<T> returnValue, PositionArray area, boolean includeInactive, Class<?>... types) {
-		boolean foundAny = false;
+		if (spatialIndex == null || area.isEmpty()) {
+			return false;
+		}
+		int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE;
+		int maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE;
 		for (int i = 0; i < area.size(); ++i) {
-			int xc = area.getX(i);
-			int yc = area.getY(i);
-			foundAny = (getAllGameObjectsAt(returnValue, xc+0.5f, yc+0.5f, false, includeInactive, false, types) != null) || foundAny;
+			minX = Math.min(minX, area.getX(i));
+			minY = Math.min(minY, area.getY(i));
+			maxX = Math.max(maxX, area.getX(i));
+			maxY = Math.max(maxY, area.getY(i));
+		}
+		return spatialIndex.query(returnValue, minX - GO_SEARCH_RADIUS, minY - GO_SEARCH_RADIUS, maxX
+				+ GO_SEARCH_RADIUS, maxY + GO_SEARCH_RADIUS, Float.NaN, Float.NaN, area, GO_SEARCH_RADIUS,
+				includeInactive, types) != null;
+	}
+	
+	/**
+	 * Returns all characters on this map, including inactive ones.
+	 * 
+	 * The returned array must not be modified.
+	 * 
+	 * @return
+	 */
+	public Array<AbstractGameCharacter> getCharacters() {
+		return characters;
+	}
+	
+	/**
+	 * Returns a number that changes whenever any character
+	 * is added to or removed from this map, or moves to a different tile.
+	 * 
+	 * @return
+	 */
+	public int getCharacterTilesVersion() {
+		return characterTilesVersion;
+	}
+	
+	/**
+	 * Returns true if any active and awake GameCharacter hostile
+	 * to the supplied character stands on any of the eight tiles
+	 * surrounding the supplied coordinates.
+	 * 
+	 * This does not allocate anything, but is not thread safe.
+	 * 
+	 * @param character
+	 * @param x
+	 * @param y
+	 * @return
+	 */
+	public boolean isNextToEnemy(AbstractGameCharacter character, int x, int y) {
+		if (spatialIndex == null) {
+			return false;
 		}
-		return foundAny;
+		for (int i = x - 1; i <= x + 1; ++i) {
+			for (int j = y - 1; j <= y + 1; ++j) {
+				if ((i == x && j == y) || !spatialIndex.hasAny(SpatialIndex.CHARACTERS, i, j)) {
+					continue;
+				}
+				spatialIndex.iterate(tempCursor, SpatialIndex.CHARACTERS, i, j);
+				while (tempCursor.hasNext()) {
+					GameObject go = tempCursor.next();
+					if (go instanceof GameCharacter && go.isActive() && !((GameCharacter) go).isAsleep()
+							&& Faction.areHostile((GameCharacter) go, character)) {
+						return true;
+					}
+				}
+			}
+		}
+		return false;
 	}
 	
 	/**
-	 * Returns all Drawables that this map contains.
+	 * Returns all Drawables of this map that should be drawn
+	 * in the supplied culling rectangle.
+	 * 
+	 * The returned array is reused, see {@link DrawOrder#getVisible(Rectangle)}.
 	 * 
+	 * @param cullingRectangle
 	 * @return
 	 */
-	public Array<Drawable> getDrawables() {
-		return drawables;
+	public Array<Drawable> getDrawablesToDraw(Rectangle cullingRectangle) {
+		return drawOrder.getVisible(cullingRectangle);
 	}
 	
 	/**
@@ -1685,34 +1852,94 @@ public class GameMap extends GameLocation implements PathableTiledMap, Disposabl
 			}*/
 		}
 		
-		// if we are blocked because our tiles are set as blocking, we are done
-		if (blockedTiles[tileId]) {
+		// if we are blocked because our tiles are set as blocking
+		// or because of a tile blocker, we are done
+		if (blockedByMap(tileId)) {
 			return true;
 		}
 		
-		// check for any tile blockers that could be blocking us
-		for (int i = 0; i < blockers.size; ++i) {
-			TileBlocker blocker = blockers.get(i);
-			if (!blocker.isBlockingPath()) {
-				continue;
-			}
-			if (tx == (int)blocker.position().getX() && ty == (int)blocker.position().getY()) {
-				return true;
-			}
+		// during combat, only one character can occupy a given tile
+		if (oneCharPerTile && occupiedByOtherCharacter(mover, tileId)) {
+			return true;
 		}
 		
-		// during combat, only one character can occupy a given tile
-		if (oneCharPerTile) {
-			tempSet.clear();
-			getAllGameObjectsAt(tempSet, tx, ty, true, false, GameCharacter.class);
-			if ((!tempSet.contains(mover) && tempSet.size > 0) || tempSet.size > 1) {
+		return false;
+	}
+	
+	/**
+	 * Check if the given location is blocked by the map itself, meaning
+	 * either the tile is set as blocking, or there is a tile blocker on it
+	 * that is currently blocking the path.
+	 * 
+	 * Characters and fog of war are not taken into account.
+	 * 
+	 * @param tx
+	 * @param ty
+	 * @return
+	 */
+	public boolean blockedByMap(int tx, int ty) {
+		if (tileUnavailable(tx, ty)) {
+			return true;
+		}
+		return blockedByMap(getTileId(tx, ty));
+	}
+	
+	private boolean blockedByMap(int tileId) {
+		if (spatialIndex == null) {
+			recalculateGameObjectTileMap();
+		}
+		return occupancyGrid.isBlocked(this, tileId);
+	}
+	
+	/**
+	 * Returns true if there is an active character other than the supplied
+	 * mover standing on the supplied tile.
+	 */
+	private boolean occupiedByOtherCharacter(GameObject mover, int tileId) {
+		int x = tileId % getMapWidth();
+		int y = tileId / getMapWidth();
+		if (spatialIndex == null || !spatialIndex.hasAny(SpatialIndex.CHARACTERS, x, y)) {
+			return false;
+		}
+		spatialIndex.iterate(tempCursor, SpatialIndex.CHARACTERS, x, y);
+		while (tempCursor.hasNext()) {
+			GameObject go = tempCursor.next();
+			if (go != mover && go instanceof GameCharacter && go.isActive()) {
 				return true;
 			}
 		}
-		
 		return false;
 	}
 	
+	/**
+	 * Called by the GameMapLoader after the blocked and unavailable tiles
+	 * have been (re)loaded.
+	 */
+	void blockedTilesChanged() {
+		if (occupancyGrid != null) {
+			occupancyGrid.invalidate();
+		}
+	}
+	
+	/**
+	 * Notifies the map that the supplied tile blocker changed whether
+	 * it is blocking the path or not.
+	 * 
+	 * @param blocker
+	 */
+	public void tileBlockerChanged(TileBlocker blocker) {
+		if (occupancyGrid != null) {
+			if (blockers.contains(blocker, true)) {
+				occupancyGrid.blockerChanged(this, blocker);
+			} else {
+				occupancyGrid.blockerRemoved(this, blocker);
+			}
+		}
+		if (pathFinder != null) {
+			pathFinder.tileChanged((int)blocker.position().getX(), (int)blocker.position().getY());
+		}
+	}
+	
 	/**
 	 * Finds a tile that is not blocked for the supplied mover
 	 * around the supplied x, y position and in the supplied radius.
@@ -1922,12 +2149,9 @@ public class GameMap extends GameLocation implements PathableTiledMap, Disposabl
 		}
 	}
 	
-	@SuppressWarnings("unchecked")
 	private void resetGameObjectTileMap() {
-		gameObjectTileMap = new ObjectSet[getMapWidth()*getMapHeight()];
-		for (int i =0; i < gameObjectTileMap.length; ++i) {
-			gameObjectTileMap[i] = new ObjectSet<GameObject>();
-		}
+		spatialIndex = new SpatialIndex(getMapWidth(), getMapHeight());
+		occupancyGrid = new OccupancyGrid(getMapWidth(), getMapHeight());
 	}
 	
 	private void recalculateGameObjectTileMap() {
@@ -1971,10 +2195,17 @@ public class GameMap extends GameLocation implements PathableTiledMap, Disposabl
 	 * GOs and locations so that they can be garbage collected. 
 	 */
 	protected void removeEverything() {
+		GameObjectIndex index = GameState.getGameObjectIndex();
+		for (int i = 0; i < gameObjects.size; ++i) {
+			index.remove(gameObjects.get(i));
+		}
 		gameObjects.clear();
+		simulationLevelOfDetail.clear();
+		characters.clear();
+		++characterTilesVersion;
 		gameObjectsByClass.clear();
 		gameObjectsByType.clear();
-		drawables.clear();
+		drawOrder.clear();
 		blockers.clear();
 		locations.clear();
 		mapTileObjects.clear();
@@ -2023,6 +2254,7 @@ public class GameMap extends GameLocation implements PathableTiledMap, Disposabl
 		viewConesRayHandler.dispose();
 		viewConesRayHandler = null;
 		box2DDebugRenderer.dispose();
+		lineOfSightCaster = null;
 		fogOfWarWorld.dispose();
 		fogOfWarWorld = null;
 		lightsWorld.dispose();
@@ -2046,7 +2278,7 @@ public class GameMap extends GameLocation implements PathableTiledMap, Disposabl
 		}
 
 		for (TiledMapObject mto : mapTileObjects) {
-			drawables.removeValue(mto, false);
+			drawOrder.remove(mto);
 		}
 		mapTileObjects.clear();
 
@@ -2083,6 +2315,11 @@ public class GameMap extends GameLocation implements PathableTiledMap, Disposabl
 		box2DDebugRenderer = new Box2DDebugRenderer(true, true, true, true, true, true);
 		fogOfWarWorld = new World(new Vector2(0, 0), true);
 		lightsWorld = new World(new Vector2(0, 0), true);
+		lineOfSightCaster = null;
+		if (lineOfSightCache != null) {
+			// the LOS geometry will be recreated
+			lineOfSightCache.clear();
+		}
 		createFogOfWarRayHandler();
 		createLightsRayHandler();
 		createViewConesRayHandler();
@@ -2121,18 +2358,63 @@ public class GameMap extends GameLocation implements PathableTiledMap, Disposabl
 	/**
 	 * Updates all game objects that belong directly to this map.
 	 * 
+	 * Game objects on or close to the screen are updated every frame, the rest
+	 * less often, but always by all the time that passed since their last update.
+	 * Outside of combat, that is. During combat, everything is updated every frame.
+	 * 
 	 * This should be called every frame.
 	 * 
+	 * @see Configuration#getFarGameObjectsUpdateInterval()
 	 * @param deltaTime
 	 */
 	public void updateLocalGameObjects(float deltaTime) {
 		if (GameState.isPaused()) {
 			return;
 		}
-		for (GameObject go : gameObjects.items) {
-			if (go != null) {
-				go.update(deltaTime);
+		boolean simulateAll = camera == null || GameState.isCombatInProgress()
+				|| Configuration.getFarGameObjectsUpdateInterval() <= 0;
+		boolean viewChanged = simulateAll != fullSimulation;
+		fullSimulation = simulateAll;
+		if (!simulateAll) {
+			float margin = Configuration.getNearGameObjectsMargin();
+			camera.unproject(tempVector.set(0, 0, 0));
+			float x1 = tempVector.x, y1 = tempVector.y;
+			camera.unproject(tempVector.set(Gdx.graphics.getWidth(), Gdx.graphics.getHeight(), 0));
+			float x2 = tempVector.x, y2 = tempVector.y;
+			float minX = Math.min(x1, x2) - margin;
+			float minY = Math.min(y1, y2) - margin;
+			float width = Math.abs(x2 - x1) + 2 * margin;
+			float height = Math.abs(y2 - y1) + 2 * margin;
+			if (minX != simulatedView.x || minY != simulatedView.y || width != simulatedView.width
+					|| height != simulatedView.height) {
+				simulatedView.set(minX, minY, width, height);
+				viewChanged = true;
+			}
+		}
+		if (viewChanged) {
+			// objects that just came into view must be brought up to date right away
+			simulationLevelOfDetail.retier(Tier.FAR);
+		}
+		simulationLevelOfDetail.update(deltaTime);
+	}
+	
+	/**
+	 * Decides how often the game objects of this map get updated.
+	 */
+	private class LocalTierSelector implements SimulationLevelOfDetail.TierSelector {
+		@Override
+		public Tier getTier(GameObject go) {
+			if (fullSimulation || go.requiresFullSimulation()) {
+				return Tier.NEAR;
 			}
+			tempVector.set(go.position().getX(), go.position().getY(), 0);
+			projectFromTiles(tempVector);
+			return simulatedView.contains(tempVector.x, tempVector.y) ? Tier.NEAR : Tier.FAR;
+		}
+
+		@Override
+		public float getUpdateInterval(Tier tier) {
+			return tier == Tier.NEAR ? 0 : Configuration.getFarGameObjectsUpdateInterval();
 		}
 	}
 	
@@ -2183,6 +2465,23 @@ public class GameMap extends GameLocation implements PathableTiledMap, Disposabl
 	 * @return the supplied vector, transformed
 	 */
 	public Vector2 projectToTiles(Vector2 vector) {
+		return projectToTiles(vector, tempVector);
+	}
+	
+	/**
+	 * Transforms the supplied vector from the camera coordinate system
+	 * into the tile coordinate system, using the supplied vector
+	 * for the intermediate result.
+	 * 
+	 * Unlike {@link #projectToTiles(Vector2)}, this is safe to call
+	 * from any thread.
+	 * 
+	 * This does nothing for orthogonal maps.
+	 * @param vector
+	 * @param tempVector
+	 * @return the supplied vector, transformed
+	 */
+	public Vector2 projectToTiles(Vector2 vector, Vector3 tempVector) {
 		if (isIsometric) {
 			tempVector.set(vector.x,vector.y,0).mul(invIsoTransform);
 			vector.set(tempVector.x, tempVector.y);
@@ -2208,6 +2507,7 @@ public class GameMap extends GameLocation implements PathableTiledMap, Disposabl
 	private void createLightsRayHandler() {
 		lightsRayHandler = new RayHandler(lightsWorld);
 		lightsRayHandler.setCulling(true);
+		lightsRayHandler.setStaticGeometry(true);
 		lightsRayHandler.setBlur(true);
 		lightsRayHandler.setShadows(true);
 		if (sun == null) {
@@ -2220,6 +2520,7 @@ public class GameMap extends GameLocation implements PathableTiledMap, Disposabl
 	private void createFogOfWarRayHandler() {
 		fogOfWarRayHandler = new RayHandler(fogOfWarWorld);
 		fogOfWarRayHandler.setCulling(true);
+		fogOfWarRayHandler.setStaticGeometry(true);
 		fogOfWarRayHandler.setBlur(false);
 		fogOfWarRayHandler.setShadows(true);
 		fogOfWarRayHandler.setAmbientLight(new Color(0.1f, 0.1f, 0.1f, 1.0f));
@@ -2228,6 +2529,7 @@ public class GameMap extends GameLocation implements PathableTiledMap, Disposabl
 	private void createViewConesRayHandler() {
 		viewConesRayHandler = new RayHandler(fogOfWarWorld);
 		viewConesRayHandler.setCulling(true);
+		viewConesRayHandler.setStaticGeometry(true);
 		viewConesRayHandler.setBlur(true);
 		viewConesRayHandler.setShadows(true);
 		viewConesRayHandler.setAmbientLight(new Color(0.5f, 0.5f, 0.5f, 1.0f));
@@ -2255,14 +2557,7 @@ public class GameMap extends GameLocation implements PathableTiledMap, Disposabl
 	@Override
 	public void writeToXML(XmlWriter writer) throws IOException {
 		super.writeToXML(writer);
-		writer.element(XML_FOG_OF_WAR);
-		writer.text(fogOfWar.length+" ");
-		for (int i = 0; i <fogOfWar.length; ++i) {
-			if (fogOfWar[i] == 1) {
-				writer.text(i+" ");
-			}
-		}
-		writer.pop();
+		// fog of war is not written here, see writeFogOfWar
 		
 		writer.element(XML_TRANSITION_LOCKS);
 		for (TransitionLock lock : transitionLocks) {
@@ -2281,9 +2576,68 @@ public class GameMap extends GameLocation implements PathableTiledMap, Disposabl
 		writer.pop();
 	}
 	
+	/**
+	 * Writes the fog of war of this map in a compact binary form,
+	 * as the number of tiles followed by a bitset of the tiles
+	 * that were already seen.
+	 * 
+	 * @param output
+	 * @throws IOException
+	 */
+	public void writeFogOfWar(DataOutput output) throws IOException {
+		output.writeInt(fogOfWar.length);
+		byte[] seenTiles = new byte[(fogOfWar.length + 7) >>> 3];
+		for (int i = 0; i < fogOfWar.length; ++i) {
+			if (fogOfWar[i] != 0) {
+				seenTiles[i >>> 3] |= 1 << (i & 7);
+			}
+		}
+		output.write(seenTiles);
+	}
+	
+	/**
+	 * Reads the fog of war of this map written
+	 * by writeFogOfWar.
+	 * 
+	 * @param input
+	 * @throws IOException
+	 */
+	public void readFogOfWar(DataInput input) throws IOException {
+		int length = input.readInt();
+		byte[] seenTiles = new byte[(length + 7) >>> 3];
+		input.readFully(seenTiles);
+		fogOfWar = new int[length];
+		for (int i = 0; i < length; ++i) {
+			if ((seenTiles[i >>> 3] & (1 << (i & 7))) != 0) {
+				fogOfWar[i] = 1;
+			}
+		}
+	}
+	
+	/**
+	 * Skips over the fog of war written by writeFogOfWar
+	 * without reading it into any map.
+	 * 
+	 * @param input
+	 * @throws IOException
+	 */
+	public static void skipFogOfWar(DataInput input) throws IOException {
+		int remaining = (input.readInt() + 7) >>> 3;
+		while (remaining > 0) {
+			int skipped = input.skipBytes(remaining);
+			if (skipped <= 0) {
+				// skipBytes may give up early, readByte throws if the input ended
+				input.readByte();
+				skipped = 1;
+			}
+			remaining -= skipped;
+		}
+	}
+	
 	@Override
 	public void loadFromXML(Element root) throws IOException {
 		super.loadFromXML(root);
+		// only used by savegames written before fog of war was stored in binary form
 		Element fogOfWarElement = root.getChildByName(XML_FOG_OF_WAR);
 		if (fogOfWarElement != null) {
 			String text = fogOfWarElement.getText();
@@ -1,13 +1,14 @@
 package mg.fishchicken.gamelogic.locations;
 
 import java.io.IOException;
-import java.util.HashSet;
 import java.util.Locale;
 
 import mg.fishchicken.core.GameObject;
 import mg.fishchicken.core.GameState;
 import mg.fishchicken.core.UsableGameObject;
 import mg.fishchicken.core.configuration.Configuration;
+import mg.fishchicken.core.logging.Log;
+import mg.fishchicken.core.logging.Log.LogType;
 import mg.fishchicken.core.util.Line;
 import mg.fishchicken.core.util.MathUtil;
 import mg.fishchicken.core.util.Orientation;
@@ -59,6 +60,7 @@ import com.badlogic.gdx.physics.box2d.FixtureDef;
 import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.GdxRuntimeException;
 import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.LongMap;
 import com.badlogic.gdx.utils.ObjectMap;
 
 // TODO the code here is even more disgusting than the rest, it really needs proper refactoring
@@ -453,8 +455,8 @@ public class GameMapLoader extends TiledMapLoader {
 					"Map " + fileName + " does not contain any ground layers! Make sure to define at least one layer with property ground = true.");
 		}
 		
-		loadBlockedTiles();
-		calculateMoveCosts();
+		MapGeometry geometry = loadGeometry(tmxFile);
+		gameMap.blockedTilesChanged();
 
 		gameMap.setDimensions(groundLayers.get(0).getWidth(), groundLayers.get(0).getHeight());
 
@@ -476,7 +478,7 @@ public class GameMapLoader extends TiledMapLoader {
 				loadTransitions();
 			}
 			loadLights();
-			buildLightBlockFixtures();
+			buildLightBlockFixtures(geometry.getLightBlockingEdges());
 			loadTiledMapObjects();
 
 			if (loadTransactional) {
@@ -494,6 +496,49 @@ public class GameMapLoader extends TiledMapLoader {
 		}
 	}
 
+	/**
+	 * Loads the blocked and unavailable tiles and the move costs
+	 * of the map and calculates the edges of all its light blocking tiles.
+	 * 
+	 * All these are taken from the baked geometry of the map if it is up to date,
+	 * otherwise they are computed from the tiles and baked for the next time.
+	 * 
+	 * @param tmxFile
+	 * @return
+	 */
+	private MapGeometry loadGeometry(FileHandle tmxFile) {
+		long start = System.nanoTime();
+		FileHandle cacheFile = MapGeometry.getCacheFile(gameMap.getId());
+		long key = MapGeometry.calculateKey(tmxFile, map);
+		MapGeometry geometry = MapGeometry.read(cacheFile, key);
+		boolean cached = geometry != null;
+		if (cached) {
+			gameMap.blockedTiles = geometry.getBlockedTiles();
+			gameMap.unavailableTiles = geometry.getUnavailableTiles();
+			gameMap.moveCosts = geometry.getMoveCosts();
+		} else {
+			geometry = bakeGeometry();
+			geometry.write(cacheFile, key);
+		}
+		Log.log("Geometry of map {0} {1} in {2} ms.", LogType.DEBUG, gameMap.getId(), cached ? "loaded from cache"
+				: "baked", (System.nanoTime() - start) / 1000000f);
+		return geometry;
+	}
+
+	/**
+	 * Computes the blocked and unavailable tiles and the move costs
+	 * of the map from its tiles and the edges of all its light blocking tiles.
+	 * 
+	 * @return
+	 */
+	MapGeometry bakeGeometry() {
+		loadBlockedTiles();
+		calculateMoveCosts();
+		return new MapGeometry(map.getProperties().get("width", Integer.class), map.getProperties().get("height",
+				Integer.class), gameMap.blockedTiles, gameMap.unavailableTiles, gameMap.moveCosts,
+				calculateLightBlockingEdges());
+	}
+
 	private void loadBlockedTiles() {
 		Cell cell;
 		int width = map.getProperties().get("width", Integer.class);
@@ -849,21 +894,29 @@ public class GameMapLoader extends TiledMapLoader {
 		}
 	}
 
-	private void buildLightBlockFixtures() {
+	/**
+	 * Collects the edges of all tiles that are blocking sight because of
+	 * their properties, merged into longer edges where possible.
+	 * 
+	 * @return four floats per edge: start x, start y, end x, end y
+	 */
+	private float[] calculateLightBlockingEdges() {
 		Vector2 tempVector = MathUtil.getVector2();
 		float[] vertices = ORTHOGONAL_VERTICES;
 		if (gameMap.isIsometric()) {
 			vertices = ISOMETRIC_VERTICES;
 		}
+		int width = map.getProperties().get("width", Integer.class);
+		int height = map.getProperties().get("height", Integer.class);
 
 		// for tiles that are blocking sight because of their properties
 		// we collect all of their edges, completely
 		// eliminating those that occur twice to join
 		// neighboring polygons and also
 		// merge edges into longer edges where possible
-		HashSet<Line> edges = new HashSet<Line>();
-		for (int x = 0; x < gameMap.getMapWidth(); ++x) {
-			for (int y = 0; y < gameMap.getMapHeight(); ++y) {
+		EdgeMerger edges = new EdgeMerger();
+		for (int x = 0; x < width; ++x) {
+			for (int y = 0; y < height; ++y) {
 				for (MapLayer layer : map.getLayers()) {
 					if (!(layer instanceof TiledMapTileLayer)) {
 						continue;
@@ -880,24 +933,35 @@ public class GameMapLoader extends TiledMapLoader {
 					tempVector.set(x, y);
 					gameMap.projectFromTiles(tempVector);
 
-					addEdgeOrMerge(edges, new Line(vertices[0] + tempVector.x, vertices[1] + tempVector.y, vertices[2]
+					edges.add(new Line(vertices[0] + tempVector.x, vertices[1] + tempVector.y, vertices[2]
 							+ tempVector.x, vertices[3] + tempVector.y));
-					addEdgeOrMerge(edges, new Line(vertices[2] + tempVector.x, vertices[3] + tempVector.y, vertices[4]
+					edges.add(new Line(vertices[2] + tempVector.x, vertices[3] + tempVector.y, vertices[4]
 							+ tempVector.x, vertices[5] + tempVector.y));
-					addEdgeOrMerge(edges, new Line(vertices[4] + tempVector.x, vertices[5] + tempVector.y, vertices[6]
+					edges.add(new Line(vertices[4] + tempVector.x, vertices[5] + tempVector.y, vertices[6]
 							+ tempVector.x, vertices[7] + tempVector.y));
-					addEdgeOrMerge(edges, new Line(vertices[6] + tempVector.x, vertices[7] + tempVector.y, vertices[0]
+					edges.add(new Line(vertices[6] + tempVector.x, vertices[7] + tempVector.y, vertices[0]
 							+ tempVector.x, vertices[1] + tempVector.y));
 				}
 			}
 		}
+		MathUtil.freeVector2(tempVector);
+		return edges.toArray();
+	}
 
-		for (Line edge : edges) {
+	/**
+	 * Creates the fixtures of all light blocking tiles and
+	 * light blocking map objects.
+	 * 
+	 * @param tileEdges - four floats per edge: start x, start y, end x, end y
+	 */
+	private void buildLightBlockFixtures(float[] tileEdges) {
+		Vector2 tempVector = MathUtil.getVector2();
+		for (int i = 0; i < tileEdges.length; i += 4) {
 			BodyDef bodyDef = new BodyDef();
 			bodyDef.type = BodyDef.BodyType.StaticBody;
 			Body groundBody = gameMap.getFogOfWarWorld().createBody(bodyDef);
 			EdgeShape shape = new EdgeShape();
-			shape.set(edge.startX, edge.startY, edge.endX, edge.endY);
+			shape.set(tileEdges[i], tileEdges[i + 1], tileEdges[i + 2], tileEdges[i + 3]);
 			FixtureDef fixture = new FixtureDef();
 			fixture.shape = shape;
 			fixture.density = 1f;
@@ -989,16 +1053,6 @@ public class GameMapLoader extends TiledMapLoader {
 		MathUtil.freeVector2(tempVector);
 	}
 
-	private void addEdgeOrMerge(HashSet<Line> edges, Line edge) {
-		for (Line oldEdge : edges) {
-			if (oldEdge.canCombine(edge) && !edge.equals(oldEdge)) {
-				oldEdge.combine(edge);
-				return;
-			}
-		}
-		edges.add(edge);
-	}
-
 	private void loadTiledMapObjects() {
 		MapLayer objectsLayer = map.getLayers().get(LAYER_OBJECTS);
 		if (objectsLayer != null) {
@@ -1040,7 +1094,7 @@ public class GameMapLoader extends TiledMapLoader {
 							TiledMapObject mto = new TiledMapObject(ground, tiles.toArray(), gameMap, layers,
 									Boolean.valueOf(mapObject.getProperties().get(PROPERTY_SHOULD_DRAW_AS_A_WHOLE,
 											"false", String.class)));
-							gameMap.drawables.add(mto);
+							gameMap.addDrawable(mto);
 							gameMap.mapTileObjects.add(mto);
 						}
 					}
@@ -1112,7 +1166,7 @@ public class GameMapLoader extends TiledMapLoader {
 			for (MapTileObjectGround key : overheadTileMap.keys()) {
 				TiledMapObject mto = new TiledMapObject(key, overheadTileMap.get(key).toArray(), gameMap, layer,
 						shouldDrawWholeMap.get(key));
-				gameMap.drawables.add(mto);
+				gameMap.addDrawable(mto);
 				gameMap.mapTileObjects.add(mto);
 			}
 		}
@@ -1170,6 +1224,105 @@ public class GameMapLoader extends TiledMapLoader {
 		return returnValue;
 	}
 
+	/**
+	 * Collects edges, merging each new edge into an existing edge
+	 * it can be combined with. Existing edges are looked up by their end points,
+	 * so only the edges that share an end point with the new one are ever compared to it.
+	 */
+	private static class EdgeMerger {
+		// end points are matched with the same precision Line uses for equality
+		private static final float PRECISION = 10000f;
+
+		private final Array<Line> edges = new Array<Line>(false, 64, Line.class);
+		private final LongMap<Array<Line>> edgesByEndPoint = new LongMap<Array<Line>>();
+
+		private void add(Line edge) {
+			Line combinable = findCombinable(edge, edge.startX, edge.startY);
+			if (combinable == edge) {
+				return;
+			}
+			if (combinable == null) {
+				combinable = findCombinable(edge, edge.endX, edge.endY);
+				if (combinable == edge) {
+					return;
+				}
+			}
+			if (combinable == null) {
+				edges.add(edge);
+				index(edge);
+			} else {
+				unindex(combinable);
+				combinable.combine(edge);
+				index(combinable);
+			}
+		}
+
+		/**
+		 * Returns the supplied edge itself if it already was added,
+		 * or an edge it can be combined with that has the supplied end point,
+		 * or null.
+		 */
+		private Line findCombinable(Line edge, float x, float y) {
+			Array<Line> candidates = edgesByEndPoint.get(getKey(x, y));
+			if (candidates == null) {
+				return null;
+			}
+			Line combinable = null;
+			for (int i = 0; i < candidates.size; ++i) {
+				Line candidate = candidates.get(i);
+				if (candidate.equals(edge)) {
+					return edge;
+				}
+				if (combinable == null && candidate.canCombine(edge)) {
+					combinable = candidate;
+				}
+			}
+			return combinable;
+		}
+
+		private void index(Line edge) {
+			index(edge, getKey(edge.startX, edge.startY));
+			index(edge, getKey(edge.endX, edge.endY));
+		}
+
+		private void index(Line edge, long key) {
+			Array<Line> withEndPoint = edgesByEndPoint.get(key);
+			if (withEndPoint == null) {
+				withEndPoint = new Array<Line>(false, 2, Line.class);
+				edgesByEndPoint.put(key, withEndPoint);
+			}
+			withEndPoint.add(edge);
+		}
+
+		private void unindex(Line edge) {
+			unindex(edge, getKey(edge.startX, edge.startY));
+			unindex(edge, getKey(edge.endX, edge.endY));
+		}
+
+		private void unindex(Line edge, long key) {
+			Array<Line> withEndPoint = edgesByEndPoint.get(key);
+			if (withEndPoint != null) {
+				withEndPoint.removeValue(edge, true);
+			}
+		}
+
+		private static long getKey(float x, float y) {
+			return ((long) Math.round(x * PRECISION) << 32) | (Math.round(y * PRECISION) & 0xffffffffL);
+		}
+
+		private float[] toArray() {
+			float[] returnValue = new float[edges.size * 4];
+			for (int i = 0; i < edges.size; ++i) {
+				Line edge = edges.get(i);
+				returnValue[i * 4] = edge.startX;
+				returnValue[i * 4 + 1] = edge.startY;
+				returnValue[i * 4 + 2] = edge.endX;
+				returnValue[i * 4 + 3] = edge.endY;
+			}
+			return returnValue;
+		}
+	}
+
 	public static class Parameters extends TiledMapLoader.Parameters {
 		private final boolean loadTransactional;
 		private final GameMap map;
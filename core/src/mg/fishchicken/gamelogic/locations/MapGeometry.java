@@ -0,0 +1,263 @@
+package mg.fishchicken.gamelogic.locations;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32;
+
+import mg.fishchicken.core.configuration.Configuration;
+import mg.fishchicken.core.logging.Log;
+import mg.fishchicken.core.logging.Log.LogType;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.maps.MapProperties;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.maps.tiled.TiledMapTile;
+import com.badlogic.gdx.maps.tiled.TiledMapTileSet;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.StreamUtils;
+
+/**
+ * Geometry of a map that depends only on its tmx file and the tile sets it uses:
+ * the blocked and unavailable tiles, the move cost of each tile and the merged
+ * edges of all tiles that block light.
+ *
+ * Computing these requires walking every layer of every tile, so once computed
+ * they are baked into a binary file in the user data folder of the module.
+ * The file is keyed by a checksum of the tmx file and of the relevant tile
+ * properties of its tile sets, so that any change to the map bakes it again.
+ * On subsequent loads the file is read in one go and decoded directly into the arrays
+ * the map uses.
+ *
+ */
+public class MapGeometry {
+
+	private static final int MAGIC = 0x46434D47;
+	// bump whenever the format or the way the geometry is computed changes
+	private static final int VERSION = 1;
+	private static final int HEADER_SIZE = 4 + 4 + 8 + 4 + 4 + 4;
+	private static final String EXTENSION = ".geo";
+
+	private final int width, height;
+	private final boolean[] blockedTiles, unavailableTiles;
+	private final float[] moveCosts;
+	// four floats (start x, start y, end x, end y) per edge
+	private final float[] lightBlockingEdges;
+
+	public MapGeometry(int width, int height, boolean[] blockedTiles, boolean[] unavailableTiles,
+			float[] moveCosts, float[] lightBlockingEdges) {
+		this.width = width;
+		this.height = height;
+		this.blockedTiles = blockedTiles;
+		this.unavailableTiles = unavailableTiles;
+		this.moveCosts = moveCosts;
+		this.lightBlockingEdges = lightBlockingEdges;
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	public boolean[] getBlockedTiles() {
+		return blockedTiles;
+	}
+
+	public boolean[] getUnavailableTiles() {
+		return unavailableTiles;
+	}
+
+	public float[] getMoveCosts() {
+		return moveCosts;
+	}
+
+	/**
+	 * Returns the edges of all light blocking tiles, already merged and projected
+	 * into the camera coordinate system. Each edge is stored as four consecutive floats:
+	 * start x, start y, end x, end y.
+	 *
+	 * @return
+	 */
+	public float[] getLightBlockingEdges() {
+		return lightBlockingEdges;
+	}
+
+	/**
+	 * Returns the file the geometry of the map with the supplied id
+	 * is cached in.
+	 *
+	 * @param mapId
+	 * @return
+	 */
+	public static FileHandle getCacheFile(String mapId) {
+		return Gdx.files.local(Configuration.getFolderMapCache() + mapId + EXTENSION);
+	}
+
+	/**
+	 * Calculates the key the geometry of the supplied map is cached under.
+	 *
+	 * @param tmxFile - the file the map was loaded from
+	 * @param map
+	 * @return
+	 */
+	public static long calculateKey(FileHandle tmxFile, TiledMap map) {
+		CRC32 tmxChecksum = new CRC32();
+		tmxChecksum.update(tmxFile.readBytes());
+
+		// tile sets can be stored in separate files, so their
+		// properties need to be part of the key too
+		StringBuilder tileProperties = new StringBuilder();
+		for (TiledMapTileSet tileSet : map.getTileSets()) {
+			tileProperties.append(tileSet.getName()).append('\n');
+			for (TiledMapTile tile : tileSet) {
+				MapProperties properties = tile.getProperties();
+				tileProperties.append(tile.getId()).append(':')
+						.append(properties.get(GameMapLoader.PROPERTY_BLOCKED)).append(':')
+						.append(properties.get(GameMapLoader.PROPERTY_UNAVAILABLE)).append(':')
+						.append(properties.get(GameMapLoader.PROPERTY_MOVE_COST)).append(':')
+						.append(properties.get(GameMapLoader.PROPERTY_BLOCK_LIGHT)).append('\n');
+			}
+		}
+		CRC32 tilesChecksum = new CRC32();
+		try {
+			tilesChecksum.update(tileProperties.toString().getBytes("UTF-8"));
+		} catch (IOException e) {
+			throw new GdxRuntimeException(e);
+		}
+		return (tmxChecksum.getValue() << 32) | tilesChecksum.getValue();
+	}
+
+	/**
+	 * Reads the geometry from the supplied file, if it was
+	 * baked with the supplied key.
+	 *
+	 * @param file
+	 * @param key
+	 * @return null if the file does not exist, was baked for a different key
+	 *         or cannot be read
+	 */
+	public static MapGeometry read(FileHandle file, long key) {
+		if (!file.exists()) {
+			return null;
+		}
+		// check the header first, so that stale files are never read whole
+		// and can be overwritten right away
+		DataInputStream header = null;
+		int width, height, edgeCount;
+		try {
+			header = new DataInputStream(file.read());
+			if (header.readInt() != MAGIC || header.readInt() != VERSION || header.readLong() != key) {
+				return null;
+			}
+			width = header.readInt();
+			height = header.readInt();
+			edgeCount = header.readInt();
+		} catch (IOException e) {
+			return null;
+		} finally {
+			StreamUtils.closeQuietly(header);
+		}
+		int tileCount = width * height;
+		int wordCount = getWordCount(tileCount);
+		if (file.length() != HEADER_SIZE + 2 * 8 * wordCount + 4 * tileCount + 4 * 4 * edgeCount) {
+			return null;
+		}
+
+		try {
+			ByteBuffer buffer = ByteBuffer.wrap(file.readBytes());
+			buffer.position(HEADER_SIZE);
+			boolean[] blockedTiles = readBits(buffer, tileCount, wordCount);
+			boolean[] unavailableTiles = readBits(buffer, tileCount, wordCount);
+			float[] moveCosts = readFloats(buffer, tileCount);
+			float[] edges = readFloats(buffer, 4 * edgeCount);
+			return new MapGeometry(width, height, blockedTiles, unavailableTiles, moveCosts, edges);
+		} catch (BufferUnderflowException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Writes this geometry into the supplied file under the supplied key.
+	 *
+	 * The geometry is only a cache, so failures are logged, but otherwise ignored.
+	 *
+	 * @param file
+	 * @param key
+	 */
+	public void write(FileHandle file, long key) {
+		int tileCount = width * height;
+		int wordCount = getWordCount(tileCount);
+		DataOutputStream output = null;
+		try {
+			output = new DataOutputStream(new BufferedOutputStream(file.write(false)));
+			output.writeInt(MAGIC);
+			output.writeInt(VERSION);
+			output.writeLong(key);
+			output.writeInt(width);
+			output.writeInt(height);
+			output.writeInt(lightBlockingEdges.length / 4);
+			writeBits(output, blockedTiles, wordCount);
+			writeBits(output, unavailableTiles, wordCount);
+			for (int i = 0; i < tileCount; ++i) {
+				output.writeFloat(moveCosts[i]);
+			}
+			for (int i = 0; i < lightBlockingEdges.length; ++i) {
+				output.writeFloat(lightBlockingEdges[i]);
+			}
+		} catch (IOException e) {
+			Log.log("Could not cache geometry in {0}: {1}", LogType.ERROR, file.path(), e.getMessage());
+		} catch (GdxRuntimeException e) {
+			Log.log("Could not cache geometry in {0}: {1}", LogType.ERROR, file.path(), e.getMessage());
+		} finally {
+			StreamUtils.closeQuietly(output);
+		}
+	}
+
+	private static int getWordCount(int bitCount) {
+		return (bitCount + 63) / 64;
+	}
+
+	private static void writeBits(DataOutputStream output, boolean[] bits, int wordCount) throws IOException {
+		for (int word = 0; word < wordCount; ++word) {
+			long value = 0;
+			int start = word * 64;
+			int end = Math.min(start + 64, bits.length);
+			for (int i = start; i < end; ++i) {
+				if (bits[i]) {
+					value |= 1L << (i - start);
+				}
+			}
+			output.writeLong(value);
+		}
+	}
+
+	private static boolean[] readBits(ByteBuffer buffer, int bitCount, int wordCount) {
+		boolean[] bits = new boolean[bitCount];
+		for (int word = 0; word < wordCount; ++word) {
+			long value = buffer.getLong();
+			if (value == 0) {
+				continue;
+			}
+			int start = word * 64;
+			int end = Math.min(start + 64, bitCount);
+			for (int i = start; i < end; ++i) {
+				bits[i] = (value & (1L << (i - start))) != 0;
+			}
+		}
+		return bits;
+	}
+
+	private static float[] readFloats(ByteBuffer buffer, int count) {
+		float[] values = new float[count];
+		buffer.asFloatBuffer().get(values);
+		buffer.position(buffer.position() + 4 * count);
+		return values;
+	}
+}
@@ -0,0 +1,154 @@
+package mg.fishchicken.gamelogic.locations;
+
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntMap;
+import com.badlogic.gdx.utils.ObjectIntMap;
+
+import mg.fishchicken.pathfinding.TileBlocker;
+
+/**
+ * Per map occupancy layer used to answer "is this tile blocked" questions
+ * with a couple of array reads and without any allocation.
+ *
+ * It maintains a packed bitset of tiles that are blocked statically (unavailable
+ * or blocked tiles and tiles with a tile blocker currently blocking the path)
+ * and an index of the tile blockers on each tile. Characters standing
+ * on each tile are looked up in the SpatialIndex of the map.
+ *
+ * The static part is rebuilt lazily the first time it is needed and then
+ * kept up to date by the GameMap whenever a tile blocker is added, removed, moved
+ * or changes whether it is blocking.
+ *
+ */
+public class OccupancyGrid {
+
+	private int width, height;
+	private long[] staticBlocked;
+	private boolean staticDirty;
+	private IntMap<Array<TileBlocker>> blockersByTile;
+	private ObjectIntMap<TileBlocker> blockerTiles;
+
+	public OccupancyGrid(int width, int height) {
+		this.width = width;
+		this.height = height;
+		staticBlocked = new long[(width * height + 63) >>> 6];
+		blockersByTile = new IntMap<Array<TileBlocker>>();
+		blockerTiles = new ObjectIntMap<TileBlocker>();
+		staticDirty = true;
+	}
+
+	/**
+	 * Returns true if the supplied tile is statically blocked.
+	 *
+	 * This will rebuild the static part of the grid if needed.
+	 *
+	 * @param map
+	 * @param tileId
+	 * @return
+	 */
+	public boolean isBlocked(GameMap map, int tileId) {
+		if (staticDirty) {
+			rebuildStatic(map);
+		}
+		return (staticBlocked[tileId >>> 6] & (1L << tileId)) != 0;
+	}
+
+	/**
+	 * Marks the static part of the grid as invalid, which means
+	 * it will be completely rebuilt the next time it is queried.
+	 */
+	public void invalidate() {
+		staticDirty = true;
+	}
+
+	/**
+	 * Updates the grid after the supplied tile blocker was added to the map,
+	 * moved, or changed whether it blocks the path.
+	 *
+	 * @param map
+	 * @param blocker
+	 */
+	public void blockerChanged(GameMap map, TileBlocker blocker) {
+		removeFromIndex(map, blocker);
+		int x = (int) blocker.position().getX();
+		int y = (int) blocker.position().getY();
+		if (x < 0 || y < 0 || x >= width || y >= height) {
+			return;
+		}
+		int tileId = map.getTileId(x, y);
+		Array<TileBlocker> tileBlockers = blockersByTile.get(tileId);
+		if (tileBlockers == null) {
+			tileBlockers = new Array<TileBlocker>(false, 1);
+			blockersByTile.put(tileId, tileBlockers);
+		}
+		tileBlockers.add(blocker);
+		blockerTiles.put(blocker, tileId);
+		refreshTile(map, tileId);
+	}
+
+	/**
+	 * Updates the grid after the supplied tile blocker was removed from the map.
+	 *
+	 * @param map
+	 * @param blocker
+	 */
+	public void blockerRemoved(GameMap map, TileBlocker blocker) {
+		removeFromIndex(map, blocker);
+	}
+
+	private void removeFromIndex(GameMap map, TileBlocker blocker) {
+		int tileId = blockerTiles.remove(blocker, -1);
+		if (tileId < 0) {
+			return;
+		}
+		Array<TileBlocker> tileBlockers = blockersByTile.get(tileId);
+		if (tileBlockers != null) {
+			tileBlockers.removeValue(blocker, true);
+			if (tileBlockers.size == 0) {
+				blockersByTile.remove(tileId);
+			}
+		}
+		refreshTile(map, tileId);
+	}
+
+	private void refreshTile(GameMap map, int tileId) {
+		if (staticDirty) {
+			return;
+		}
+		boolean blocked = map.blockedTiles[tileId] || map.unavailableTiles[tileId];
+		if (!blocked) {
+			Array<TileBlocker> tileBlockers = blockersByTile.get(tileId);
+			if (tileBlockers != null) {
+				for (int i = 0; i < tileBlockers.size; ++i) {
+					if (tileBlockers.get(i).isBlockingPath()) {
+						blocked = true;
+						break;
+					}
+				}
+			}
+		}
+		if (blocked) {
+			staticBlocked[tileId >>> 6] |= 1L << tileId;
+		} else {
+			staticBlocked[tileId >>> 6] &= ~(1L << tileId);
+		}
+	}
+
+	private void rebuildStatic(GameMap map) {
+		staticDirty = false;
+		for (int i = 0; i < staticBlocked.length; ++i) {
+			staticBlocked[i] = 0;
+		}
+		blockersByTile.clear();
+		blockerTiles.clear();
+		int tileCount = width * height;
+		for (int tileId = 0; tileId < tileCount; ++tileId) {
+			if (map.blockedTiles[tileId] || map.unavailableTiles[tileId]) {
+				staticBlocked[tileId >>> 6] |= 1L << tileId;
+			}
+		}
+		for (int i = 0; i < map.blockers.size; ++i) {
+			blockerChanged(map, map.blockers.get(i));
+		}
+	}
+}
@@ -0,0 +1,411 @@
+package mg.fishchicken.gamelogic.locations;
+
+import mg.fishchicken.core.GameObject;
+import mg.fishchicken.core.UsableGameObject;
+import mg.fishchicken.core.util.PositionArray;
+import mg.fishchicken.gamelogic.characters.AbstractGameCharacter;
+import mg.fishchicken.gamelogic.inventory.ItemPile;
+import mg.fishchicken.gamelogic.inventory.Pickable;
+import mg.fishchicken.pathfinding.TileBlocker;
+
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.ObjectIntMap;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.badlogic.gdx.utils.ObjectSet;
+
+/**
+ * Spatial index of the game objects of a map.
+ *
+ * Every tile has a separate bucket for each category of game objects
+ * (characters, items, usables, tile blockers and everything else), so that
+ * queries only look at the buckets that can contain the types they are
+ * interested in. Buckets are intrusive linked lists of index entries,
+ * so empty tiles cost a single null reference per category.
+ *
+ * Type checks are done using bitmasks instead of reflection. Every class
+ * that is used as a query type gets a bit and every indexed object caches
+ * the mask of the query types it is an instance of.
+ *
+ * Objects that span multiple tiles are reported only once per query,
+ * on the first tile of the query range they occupy.
+ *
+ */
+public class SpatialIndex {
+
+	public static final int CHARACTERS = 0;
+	public static final int ITEMS = 1;
+	public static final int USABLES = 2;
+	public static final int BLOCKERS = 3;
+	public static final int OTHERS = 4;
+	private static final int CATEGORY_COUNT = 5;
+
+	// query types are shared by all maps
+	private static final int MAX_TYPES = 64;
+	private static final Array<Class<?>> types = new Array<Class<?>>();
+	private static final ObjectIntMap<Class<?>> typeBits = new ObjectIntMap<Class<?>>();
+
+	private final int width, height;
+	private final Entry[][] buckets;
+	private final ObjectMap<GameObject, Entry> entries;
+	private final CategoryTypes[] categoryTypes;
+
+	public SpatialIndex(int width, int height) {
+		this.width = width;
+		this.height = height;
+		buckets = new Entry[CATEGORY_COUNT][];
+		for (int i = 0; i < CATEGORY_COUNT; ++i) {
+			buckets[i] = new Entry[width * height];
+		}
+		entries = new ObjectMap<GameObject, Entry>();
+		categoryTypes = new CategoryTypes[CATEGORY_COUNT];
+		for (int i = 0; i < CATEGORY_COUNT; ++i) {
+			categoryTypes[i] = new CategoryTypes();
+		}
+	}
+
+	/**
+	 * Returns the category the supplied GO belongs to.
+	 *
+	 * @param go
+	 * @return
+	 */
+	public static int getCategory(GameObject go) {
+		if (go instanceof AbstractGameCharacter) {
+			return CHARACTERS;
+		}
+		if (go instanceof ItemPile || go instanceof Pickable) {
+			return ITEMS;
+		}
+		if (go instanceof UsableGameObject) {
+			return USABLES;
+		}
+		if (go instanceof TileBlocker) {
+			return BLOCKERS;
+		}
+		return OTHERS;
+	}
+
+	/**
+	 * Adds the supplied GO to the index with its top left tile at the supplied
+	 * coordinates, or moves it there if it is already indexed.
+	 *
+	 * @param go
+	 * @param x
+	 * @param y
+	 */
+	public void put(GameObject go, int x, int y) {
+		remove(go);
+		int category = getCategory(go);
+		Entry entry = new Entry(go, category, x, y, (int) Math.ceil(go.getWidth()), (int) Math.ceil(go.getHeight()));
+		entries.put(go, entry);
+		categoryTypes[category].add(go.getClass());
+		Entry[] categoryBuckets = buckets[category];
+		for (int i = 0; i < entry.width; ++i) {
+			for (int j = 0; j < entry.height; ++j) {
+				int tileX = x + i;
+				int tileY = y + j;
+				if (isOnMap(tileX, tileY)) {
+					int tileId = tileX + tileY * width;
+					entry.setNext(tileX, tileY, categoryBuckets[tileId]);
+					categoryBuckets[tileId] = entry;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Removes the supplied GO from the index.
+	 *
+	 * @param go
+	 * @return true if the GO was indexed
+	 */
+	public boolean remove(GameObject go) {
+		Entry entry = entries.remove(go);
+		if (entry == null) {
+			return false;
+		}
+		Entry[] categoryBuckets = buckets[entry.category];
+		for (int i = 0; i < entry.width; ++i) {
+			for (int j = 0; j < entry.height; ++j) {
+				int tileX = entry.x + i;
+				int tileY = entry.y + j;
+				if (!isOnMap(tileX, tileY)) {
+					continue;
+				}
+				int tileId = tileX + tileY * width;
+				Entry previous = null;
+				Entry current = categoryBuckets[tileId];
+				while (current != null && current != entry) {
+					previous = current;
+					current = current.getNext(tileX, tileY);
+				}
+				if (current == null) {
+					continue;
+				}
+				if (previous == null) {
+					categoryBuckets[tileId] = entry.getNext(tileX, tileY);
+				} else {
+					previous.setNext(tileX, tileY, entry.getNext(tileX, tileY));
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns true if there is at least one GO of the supplied category
+	 * on the supplied tile, including inactive ones.
+	 *
+	 * @param category
+	 * @param x
+	 * @param y
+	 * @return
+	 */
+	public boolean hasAny(int category, int x, int y) {
+		return isOnMap(x, y) && buckets[category][x + y * width] != null;
+	}
+
+	/**
+	 * Points the supplied cursor to the GOs of the supplied category
+	 * on the supplied tile, including inactive ones.
+	 *
+	 * @param cursor
+	 * @param category
+	 * @param x
+	 * @param y
+	 */
+	public void iterate(Cursor cursor, int category, int x, int y) {
+		cursor.x = x;
+		cursor.y = y;
+		cursor.next = isOnMap(x, y) ? buckets[category][x + y * width] : null;
+	}
+
+	/**
+	 * Finds all GOs of the supplied types indexed on the tiles of the
+	 * supplied rectangle. The rectangle is inclusive on both ends.
+	 *
+	 * If x and y are not NaN, only GOs that contain those coordinates are returned.
+	 * If area is not null, only GOs that contain the center of
+	 * one of the tiles of the area that is at most areaRadius tiles away from
+	 * one of the tiles of the GO are returned.
+	 *
+	 * If no types are specified, GOs of all types are returned.
+	 *
+	 * Each GO is only checked once.
+	 *
+	 * @param returnValue - can be null, in which case only the first GO found is returned
+	 * @return the first GO found, or null if none were found
+	 */
+	@SuppressWarnings("unchecked")
+	<T extends GameObject> GameObject query(ObjectSet<T> returnValue, int minX, int minY, int maxX, int maxY,
+			float x, float y, PositionArray area, int areaRadius, boolean includeInactive, Class<?>... queryTypes) {
+		minX = Math.max(minX, 0);
+		minY = Math.max(minY, 0);
+		maxX = Math.min(maxX, width - 1);
+		maxY = Math.min(maxY, height - 1);
+
+		boolean anyType = queryTypes.length == 0;
+		long queryMask = anyType ? 0 : getQueryMask(queryTypes);
+		// types that did not get a bit are matched one by one
+		boolean scanTypes = !anyType && queryMask == 0;
+		boolean checkPoint = !Float.isNaN(x) && !Float.isNaN(y);
+		GameObject firstFound = null;
+
+		for (int category = 0; category < CATEGORY_COUNT; ++category) {
+			if (!anyType && !scanTypes && !categoryTypes[category].mayContain(queryMask)) {
+				continue;
+			}
+			Entry[] categoryBuckets = buckets[category];
+			for (int tileY = minY; tileY <= maxY; ++tileY) {
+				for (int tileX = minX; tileX <= maxX; ++tileX) {
+					Entry entry = categoryBuckets[tileX + tileY * width];
+					while (entry != null) {
+						GameObject go = entry.go;
+						// multi tile GOs are only checked on the first tile of the range they occupy
+						if (tileX == Math.max(entry.x, minX) && tileY == Math.max(entry.y, minY)
+								&& (includeInactive || go.isActive())
+								&& (anyType || (scanTypes ? isInstanceOfAny(go, queryTypes) : (entry.getTypeMask() & queryMask) != 0))
+								&& (!checkPoint || go.contains(x, y))
+								&& (area == null || containsAnyOf(entry, area, areaRadius))) {
+							if (firstFound == null) {
+								firstFound = go;
+							}
+							if (returnValue == null) {
+								return go;
+							}
+							returnValue.add((T) go);
+						}
+						entry = entry.getNext(tileX, tileY);
+					}
+				}
+			}
+		}
+		return firstFound;
+	}
+
+	private static boolean containsAnyOf(Entry entry, PositionArray area, int radius) {
+		GameObject go = entry.go;
+		int minX = entry.x - radius;
+		int minY = entry.y - radius;
+		int maxX = entry.x + entry.width - 1 + radius;
+		int maxY = entry.y + entry.height - 1 + radius;
+		if ((maxX - minX + 1) * (maxY - minY + 1) < area.size()) {
+			for (int i = minX; i <= maxX; ++i) {
+				for (int j = minY; j <= maxY; ++j) {
+					if (area.contains(i, j) && go.contains(i + 0.5f, j + 0.5f)) {
+						return true;
+					}
+				}
+			}
+		} else {
+			for (int i = 0; i < area.size(); ++i) {
+				int tileX = area.getX(i);
+				int tileY = area.getY(i);
+				if (tileX >= minX && tileX <= maxX && tileY >= minY && tileY <= maxY
+						&& go.contains(tileX + 0.5f, tileY + 0.5f)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	private boolean isOnMap(int x, int y) {
+		return x >= 0 && y >= 0 && x < width && y < height;
+	}
+
+	private static boolean isInstanceOfAny(GameObject go, Class<?>... queryTypes) {
+		for (Class<?> type : queryTypes) {
+			if (type.isInstance(go)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the mask for the supplied query types, registering
+	 * any new ones.
+	 *
+	 * Only the first MAX_TYPES distinct types get a bit. If any of the
+	 * supplied types is beyond that, 0 is returned and the query has to
+	 * check the types of the GOs one by one.
+	 *
+	 * @param queryTypes
+	 * @return
+	 */
+	private static long getQueryMask(Class<?>... queryTypes) {
+		long mask = 0;
+		for (Class<?> type : queryTypes) {
+			int bit = typeBits.get(type, -1);
+			if (bit < 0) {
+				if (types.size >= MAX_TYPES) {
+					return 0;
+				}
+				bit = types.size;
+				types.add(type);
+				typeBits.put(type, bit);
+			}
+			mask |= 1L << bit;
+		}
+		return mask;
+	}
+
+	/**
+	 * Adds the bits of all query types registered since fromType
+	 * that the supplied class is assignable to into the supplied mask.
+	 */
+	private static long updateTypeMask(long mask, Class<?> clazz, int fromType) {
+		for (int i = fromType; i < types.size; ++i) {
+			if (types.get(i).isAssignableFrom(clazz)) {
+				mask |= 1L << i;
+			}
+		}
+		return mask;
+	}
+
+	/**
+	 * Keeps track of what query types the GOs of a category
+	 * can possibly match.
+	 */
+	private static class CategoryTypes {
+		private final ObjectSet<Class<?>> classes = new ObjectSet<Class<?>>();
+		private long mask;
+		private int knownTypes;
+
+		void add(Class<?> clazz) {
+			if (classes.add(clazz)) {
+				mask |= updateTypeMask(0, clazz, 0);
+			}
+		}
+
+		boolean mayContain(long queryMask) {
+			if (knownTypes < types.size) {
+				for (Class<?> clazz : classes) {
+					mask = updateTypeMask(mask, clazz, knownTypes);
+				}
+				knownTypes = types.size;
+			}
+			return (mask & queryMask) != 0;
+		}
+	}
+
+	/**
+	 * A single indexed GO.
+	 *
+	 * Entries form an intrusive linked list for each tile they occupy.
+	 */
+	private static class Entry {
+		private final GameObject go;
+		private final int category, x, y, width, height;
+		private final Entry[] next;
+		private long typeMask;
+		private int knownTypes;
+
+		private Entry(GameObject go, int category, int x, int y, int width, int height) {
+			this.go = go;
+			this.category = category;
+			this.x = x;
+			this.y = y;
+			this.width = width;
+			this.height = height;
+			next = new Entry[Math.max(width * height, 1)];
+		}
+
+		private Entry getNext(int tileX, int tileY) {
+			return next[(tileX - x) + (tileY - y) * width];
+		}
+
+		private void setNext(int tileX, int tileY, Entry entry) {
+			next[(tileX - x) + (tileY - y) * width] = entry;
+		}
+
+		private long getTypeMask() {
+			if (knownTypes < types.size) {
+				typeMask = updateTypeMask(typeMask, go.getClass(), knownTypes);
+				knownTypes = types.size;
+			}
+			return typeMask;
+		}
+	}
+
+	/**
+	 * Iterates over the GOs of a single category on a single tile.
+	 *
+	 * Cursors can be reused and iterating does not allocate.
+	 */
+	public static class Cursor {
+		private Entry next;
+		private int x, y;
+
+		public boolean hasNext() {
+			return next != null;
+		}
+
+		public GameObject next() {
+			Entry current = next;
+			next = current.getNext(x, y);
+			return current.go;
+		}
+	}
+}
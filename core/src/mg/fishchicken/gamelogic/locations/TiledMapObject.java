@@ -24,6 +24,8 @@ public class TiledMapObject implements Drawable {
 	private final GameMap map;
 	private final boolean shouldDrawAsAWhole;
 	private final MapTileObjectGround ground;
+	// the bounding box of all object tiles, tall objects reach well past their ground
+	private final Rectangle drawBounds;
 	private final float fogColor, visibleColor, notVisibleColor;
 	private Position position;
 	private float width, height;
@@ -49,6 +51,7 @@ public class TiledMapObject implements Drawable {
 		this.map = map;
 		this.layers = new Array<TiledMapTileLayer>(layers);
 		this.position = new Position();
+		drawBounds = new Rectangle();
 		wasDiscovered = false;
 		isVisibleByPC = false;
 		fogColor = Color.toFloatBits(Configuration.getFogColor().r,
@@ -84,6 +87,15 @@ public class TiledMapObject implements Drawable {
 	}
 	
 	private void calculateDimensions() {
+		for (int i = 0; i < objectTilesVectors.size; ++i) {
+			Tile tile = objectTilesVectors.get(i);
+			if (i == 0) {
+				drawBounds.set(tile.getX(), tile.getY(), 0, 0);
+			} else {
+				drawBounds.merge(tile.getX(), tile.getY());
+			}
+		}
+		
 		if (ground.size() == 1) {
 			Tile tile = ground.getTile(0);
 			position.set(tile);
@@ -200,6 +212,11 @@ public class TiledMapObject implements Drawable {
 		return false;
 	}
 
+	@Override
+	public Rectangle getDrawBounds(Rectangle bounds) {
+		return bounds.set(drawBounds);
+	}
+
 	@Override
 	public boolean isAlwaysBehind() {
 		return false;
@@ -0,0 +1,98 @@
+package mg.fishchicken.gamelogic.locations;
+
+import mg.fishchicken.core.util.PositionArray;
+
+/**
+ * Per map union of the line of sight of all player characters on the map.
+ *
+ * Every observer (a PC contributing its LOS) gets a slot and every tile
+ * stores a bitmask of the slots that currently see it. Observers keep the
+ * buffer up to date incrementally, by clearing the bits of the tiles they
+ * saw before and setting them for the tiles they see now, so asking whether
+ * any PC can see a tile is a single array read.
+ *
+ * At most {@link #MAX_OBSERVERS} observers can be registered at the same time.
+ *
+ */
+public class VisibilityBuffer {
+
+	public static final int MAX_OBSERVERS = 32;
+
+	private int width, height;
+	private int[] masks;
+	private int usedSlots;
+
+	public VisibilityBuffer(int width, int height) {
+		this.width = width;
+		this.height = height;
+		masks = new int[width * height];
+	}
+
+	/**
+	 * Registers a new observer and returns its slot,
+	 * or -1 if all slots are taken.
+	 *
+	 * @return
+	 */
+	public int addObserver() {
+		for (int slot = 0; slot < MAX_OBSERVERS; ++slot) {
+			int bit = 1 << slot;
+			if ((usedSlots & bit) == 0) {
+				usedSlots |= bit;
+				return slot;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Unregisters the observer with the supplied slot and removes
+	 * it from all the supplied tiles, which should be
+	 * all the tiles it marked as visible.
+	 *
+	 * @param slot
+	 * @param visibleTiles
+	 */
+	public void removeObserver(int slot, PositionArray visibleTiles) {
+		int mask = ~(1 << slot);
+		for (int i = 0; i < visibleTiles.size(); ++i) {
+			int x = visibleTiles.getX(i);
+			int y = visibleTiles.getY(i);
+			if (isOnMap(x, y)) {
+				masks[x + y * width] &= mask;
+			}
+		}
+		usedSlots &= mask;
+	}
+
+	/**
+	 * Marks the tile as visible to the observer with the supplied slot.
+	 *
+	 * @param slot
+	 * @param x
+	 * @param y
+	 */
+	public void setVisible(int slot, int x, int y) {
+		if (isOnMap(x, y)) {
+			masks[x + y * width] |= 1 << slot;
+		}
+	}
+
+	/**
+	 * Returns true if the tile with the supplied id
+	 * is visible to at least one observer.
+	 *
+	 * @param tileId - usually x + y * mapWidth
+	 * @return
+	 */
+	public boolean isVisible(int tileId) {
+		if (tileId < 0 || tileId >= masks.length) {
+			return false;
+		}
+		return masks[tileId] != 0;
+	}
+
+	private boolean isOnMap(int x, int y) {
+		return x >= 0 && y >= 0 && x < width && y < height;
+	}
+}
@@ -76,7 +76,17 @@ public enum ModifiableStat {
 	}
 
 	public boolean isMultiplier() {
-		return this.toString().endsWith(MULTIPLIER_SUFFIX);
+		return MULTIPLIERS[ordinal()];
+	}
+	
+	/**
+	 * Returns the multiplier counterpart of this stat (for example 
+	 * DAMAGEMULTIPLIER for DAMAGE), or null if there is none.
+	 * 
+	 * @return
+	 */
+	public ModifiableStat getMultiplierStat() {
+		return MULTIPLIER_STATS[ordinal()];
 	}
 
 	public boolean isSkill() {
@@ -105,4 +115,40 @@ public enum ModifiableStat {
 	}
 	
 	public static String MULTIPLIER_SUFFIX = "MULTIPLIER";
+	
+	private static final ModifiableStat[] VALUES = values();
+	private static final boolean[] MULTIPLIERS = new boolean[VALUES.length];
+	private static final ModifiableStat[] MULTIPLIER_STATS = new ModifiableStat[VALUES.length];
+	
+	static {
+		for (ModifiableStat stat : VALUES) {
+			MULTIPLIERS[stat.ordinal()] = stat.toString().endsWith(MULTIPLIER_SUFFIX);
+			for (ModifiableStat other : VALUES) {
+				if (other.toString().equals(stat.toString()+MULTIPLIER_SUFFIX)) {
+					MULTIPLIER_STATS[stat.ordinal()] = other;
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Returns the number of stats.
+	 * 
+	 * @return
+	 */
+	public static int count() {
+		return VALUES.length;
+	}
+	
+	/**
+	 * Returns the stat with the supplied ordinal. 
+	 * 
+	 * Unlike values()[ordinal], this does not create a new array.
+	 * 
+	 * @param ordinal
+	 * @return
+	 */
+	public static ModifiableStat get(int ordinal) {
+		return VALUES[ordinal];
+	}
 }
@@ -1,6 +1,7 @@
 package mg.fishchicken.gamelogic.modifiers;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.Locale;
 
@@ -10,7 +11,6 @@ import mg.fishchicken.core.util.StringUtil;
 import mg.fishchicken.core.util.XMLUtil;
 
 import com.badlogic.gdx.utils.ObjectMap;
-import com.badlogic.gdx.utils.ObjectMap.Entry;
 import com.badlogic.gdx.utils.XmlReader.Element;
 import com.badlogic.gdx.utils.XmlWriter;
 import com.badlogic.gdx.utils.StringBuilder;
@@ -45,7 +45,8 @@ public class Modifier implements XMLSaveable, ThingWithId {
 	
 	private String s_id, s_name;
 	private boolean s_visible; // if false, the modifier will not be shown in the effects overview of the character
-	private ObjectMap<ModifiableStat, Float> mods;
+	// indexed by the ordinal of the stat, NaN means the stat is not set
+	private final float[] mods;
 	
 	/**
 	 * Creates a new modifier with all mods
@@ -53,7 +54,8 @@ public class Modifier implements XMLSaveable, ThingWithId {
 	 */
 	public Modifier() {
 		s_name = "";
-		mods = new ObjectMap<ModifiableStat, Float>();
+		mods = new float[ModifiableStat.count()];
+		Arrays.fill(mods, Float.NaN);
 		s_visible = true;
 	}
 	
@@ -78,11 +80,8 @@ public class Modifier implements XMLSaveable, ThingWithId {
 	 * @param mod
 	 */
 	public void add(Modifier modifier) {
-		for (ModifiableStat stat : modifier.mods.keys()) {
-			Float value = add(mods.get(stat), modifier.mods.get(stat));
-			if (value != null) {
-				mods.put(stat, value);
-			}
+		for (int i = 0; i < mods.length; ++i) {
+			mods[i] = add(mods[i], modifier.mods[i]);
 		}
 	}
 	
@@ -97,19 +96,16 @@ public class Modifier implements XMLSaveable, ThingWithId {
 	 * @param mod
 	 */
 	public void substr(Modifier modifier) {
-		for (ModifiableStat stat : modifier.mods.keys()) {
-			Float value = add(mods.get(stat), -modifier.mods.get(stat));
-			if (value != null) {
-				mods.put(stat, value);
-			}
+		for (int i = 0; i < mods.length; ++i) {
+			mods[i] = add(mods[i], -modifier.mods[i]);
 		}
 	}
 	
-	private Float add(Float value1, Float value2) {
-		if (value1 == null) {
+	private float add(float value1, float value2) {
+		if (Float.isNaN(value1)) {
 			return value2;
 		}
-		if (value2 == null) {
+		if (Float.isNaN(value2)) {
 			return value1;
 		}
 		
@@ -164,7 +160,7 @@ public class Modifier implements XMLSaveable, ThingWithId {
 	 * @param value
 	 */
 	public Modifier setMod(ModifiableStat stat, float value) {
-		mods.put(stat, value);
+		mods[stat.ordinal()] = value;
 		return this;
 	}
 	
@@ -175,13 +171,9 @@ public class Modifier implements XMLSaveable, ThingWithId {
 	 * @return
 	 */
 	public float getMod(ModifiableStat stat) {
-		Float value = mods.get(stat);
-		if (value == null) {
-			if (stat.isMultiplier()) {
-				value = 1f;
-			} else {
-				value = 0f;
-			}
+		float value = mods[stat.ordinal()];
+		if (Float.isNaN(value)) {
+			return stat.isMultiplier() ? 1f : 0f;
 		}
 		return value;
 	}
@@ -210,8 +202,8 @@ public class Modifier implements XMLSaveable, ThingWithId {
 	 * @return
 	 */
 	public boolean isNonZero() {
-		for (ModifiableStat mod : mods.keys()) {
-			if (!isEmpty(mod)) {
+		for (int i = 0; i < mods.length; ++i) {
+			if (!isEmpty(ModifiableStat.get(i))) {
 				return true;
 			}
 		}
@@ -227,8 +219,8 @@ public class Modifier implements XMLSaveable, ThingWithId {
 	 * @return
 	 */
 	public boolean isEmpty(ModifiableStat stat) {
-		Float value = mods.get(stat);
-		if (value == null) {
+		float value = mods[stat.ordinal()];
+		if (Float.isNaN(value)) {
 			return true;
 			
 		}
@@ -312,7 +304,8 @@ public class Modifier implements XMLSaveable, ThingWithId {
 	
 	public void writeToXML(XmlWriter writer) throws IOException {
 		writer.element(XML_MODIFIER);
-		for (ModifiableStat stat : mods.keys()) {
+		for (int i = 0; i < mods.length; ++i) {
+			ModifiableStat stat = ModifiableStat.get(i);
 			if (!isEmpty(stat)) {
 				float value = getMod(stat);
 				writer.attribute(stat.toString(), value);
@@ -334,9 +327,7 @@ public class Modifier implements XMLSaveable, ThingWithId {
 		Modifier copy = new Modifier();
 		copy.setName(getName());
 		copy.setVisible(isVisible());
-		for (ModifiableStat stat : mods.keys()) {
-			copy.mods.put(stat, mods.get(stat));
-		}
+		System.arraycopy(mods, 0, copy.mods, 0, mods.length);
 		return copy;
 	}
 	
@@ -345,18 +336,35 @@ public class Modifier implements XMLSaveable, ThingWithId {
 	}
 	
 	private boolean equalModsWith(Modifier other) {
-		if (mods.size != other.mods.size) {
-			return false;
-		}
-		for (Entry<ModifiableStat,Float> entry : mods.entries()) {
-			Float otherMod = other.mods.get(entry.key);
-			if (!otherMod.equals(entry.value)) {
+		for (int i = 0; i < mods.length; ++i) {
+			if (Float.floatToIntBits(mods[i]) != Float.floatToIntBits(other.mods[i])) {
 				return false;
 			}
 		}
 		return true;
 	}
 	
+	/**
+	 * Adds the mods of this modifier to the supplied totals, which are
+	 * indexed by the ordinals of the stats. Additive mods are added
+	 * to the totals, multiplier mods multiply them.
+	 * 
+	 * @param totals
+	 */
+	public void applyTo(float[] totals) {
+		for (int i = 0; i < mods.length; ++i) {
+			float value = mods[i];
+			if (Float.isNaN(value)) {
+				continue;
+			}
+			if (ModifiableStat.get(i).isMultiplier()) {
+				totals[i] *= value;
+			} else {
+				totals[i] += value;
+			}
+		}
+	}
+	
 	/**
 	 * Prints all the Modifiers in the suppled ModifierContainer
 	 * in a user-friendly String. The supplied separator
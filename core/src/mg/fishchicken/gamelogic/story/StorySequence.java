@@ -7,6 +7,7 @@ import mg.fishchicken.audio.AudioTrack;
 import mg.fishchicken.audio.Music;
 import mg.fishchicken.core.actions.Action;
 import mg.fishchicken.core.assets.Assets;
+import mg.fishchicken.core.assets.ModuleDataCache;
 import mg.fishchicken.core.configuration.Configuration;
 import mg.fishchicken.core.saveload.XMLLoadable;
 import mg.fishchicken.core.util.XMLUtil;
@@ -14,7 +15,6 @@ import mg.fishchicken.core.util.XMLUtil;
 import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.ObjectMap;
-import com.badlogic.gdx.utils.XmlReader;
 import com.badlogic.gdx.utils.XmlReader.Element;
 
 public class StorySequence implements XMLLoadable {
@@ -84,8 +84,7 @@ public class StorySequence implements XMLLoadable {
 	}
 	@Override
 	public void loadFromXMLNoInit(FileHandle file) throws IOException {
-		XmlReader xmlReader = new XmlReader();
-		Element root = xmlReader.parse(file);
+		Element root = ModuleDataCache.parse(file);
 		loadFromXML(root);
 	}
 	
@@ -1,13 +1,12 @@
 package mg.fishchicken.gamelogic.traps;
 
-import groovy.lang.Script;
-
 import java.io.IOException;
 import java.util.Locale;
 
 import mg.fishchicken.audio.Sound;
 import mg.fishchicken.core.GameObject;
 import mg.fishchicken.core.assets.Assets;
+import mg.fishchicken.core.assets.ModuleDataCache;
 import mg.fishchicken.core.configuration.Configuration;
 import mg.fishchicken.core.i18n.Strings;
 import mg.fishchicken.core.logging.Log;
@@ -17,6 +16,7 @@ import mg.fishchicken.core.projectiles.Projectile;
 import mg.fishchicken.core.projectiles.ProjectileTarget;
 import mg.fishchicken.core.projectiles.ProjectileType;
 import mg.fishchicken.core.saveload.XMLLoadable;
+import mg.fishchicken.core.util.CompiledScript;
 import mg.fishchicken.core.util.XMLUtil;
 import mg.fishchicken.gamelogic.characters.GameCharacter;
 import mg.fishchicken.gamelogic.effects.Effect;
@@ -31,7 +31,6 @@ import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.ObjectMap;
 import com.badlogic.gdx.utils.OrderedMap;
-import com.badlogic.gdx.utils.XmlReader;
 import com.badlogic.gdx.utils.XmlReader.Element;
 
 /**
@@ -84,7 +83,7 @@ public class TrapType  implements OnProjectileHitCallback, EffectContainer, Targ
 	private String s_projectile;
 	private ObjectMap<Effect, Array<EffectParameter>> s_effects;
 	private String targetType;
-	private Script targetScript;
+	private CompiledScript targetScript;
 	private Array<Sound> disarmedSounds, sprungSounds;
 	
 	public TrapType(FileHandle file) throws IOException {
@@ -156,7 +155,7 @@ public class TrapType  implements OnProjectileHitCallback, EffectContainer, Targ
 	}
 	
 	@Override
-	public void setTargetType(String targetType, Script targetScript) {
+	public void setTargetType(String targetType, CompiledScript targetScript) {
 		this.targetType = targetType;
 		this.targetScript = targetScript;
 	}
@@ -187,8 +186,7 @@ public class TrapType  implements OnProjectileHitCallback, EffectContainer, Targ
 
 	@Override
 	public void loadFromXMLNoInit(FileHandle file) throws IOException {
-		XmlReader xmlReader = new XmlReader();
-		Element root = xmlReader.parse(file);
+		Element root = ModuleDataCache.parse(file);
 		XMLUtil.handleImports(this, file, root);
 		loadFromXML(root);
 	}
@@ -8,6 +8,7 @@ import mg.fishchicken.audio.Sound;
 import mg.fishchicken.audio.StreamingSound;
 import mg.fishchicken.core.ThingWithId;
 import mg.fishchicken.core.assets.Assets;
+import mg.fishchicken.core.assets.ModuleDataCache;
 import mg.fishchicken.core.configuration.Configuration;
 import mg.fishchicken.core.saveload.XMLField;
 import mg.fishchicken.core.saveload.XMLLoadable;
@@ -19,7 +20,6 @@ import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.graphics.g2d.ParticleEffect;
 import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.ObjectMap;
-import com.badlogic.gdx.utils.XmlReader;
 import com.badlogic.gdx.utils.XmlReader.Element;
 
 public class WeatherProfile implements XMLLoadable, ThingWithId {
@@ -324,8 +324,7 @@ public class WeatherProfile implements XMLLoadable, ThingWithId {
 	
 	@Override
 	public void loadFromXMLNoInit(FileHandle file) throws IOException {
-		XmlReader xmlReader = new XmlReader();
-		Element root = xmlReader.parse(file);
+		Element root = ModuleDataCache.parse(file);
 		XMLUtil.handleImports(this, file, root);
 		
 		isModifier = root.getName().endsWith(MODIFIER_SUFFIX);
@@ -61,6 +61,9 @@ public class Stats extends ObservableState<Stats, Stats.StatChange> implements M
 	private float s_skillPoints;
 	private ObjectMap<Skill, Integer> skillIncreasesThisLevel;
 	private Array<Modifier> modifiers;
+	// totals of all active modifiers, indexed by the ordinals of the stats
+	private final float[] modifierTotals;
+	private boolean modifierTotalsDirty;
 	private Skills skills;
 	private GameCharacter character;
 	private Inventory inventory;
@@ -72,6 +75,8 @@ public class Stats extends ObservableState<Stats, Stats.StatChange> implements M
 		s_gender = Gender.MALE; // default value
 		skillIncreasesThisLevel = new ObjectMap<Skill, Integer>();
 		modifiers = new Array<Modifier>();
+		modifierTotals = new float[ModifiableStat.count()];
+		modifierTotalsDirty = true;
 		skills = new Skills(this);
 		skills.addObserver(new Observer<Skills, Skills.SkillChange>() {
 			@Override
@@ -488,10 +493,8 @@ public class Stats extends ObservableState<Stats, Stats.StatChange> implements M
 	 */
 	public ObjectMap<ModifiableStat, Array<Modifier>> getAllModifiersForStat(ModifiableStat stat, boolean includeMultipliers) {
 		ObjectMap<ModifiableStat, Array<Modifier>> returnValue = new ObjectMap<ModifiableStat, Array<Modifier>>();
-		ModifiableStat multiplierStat = null;
-		try {
-			multiplierStat = ModifiableStat.valueOf(stat.toString()+ModifiableStat.MULTIPLIER_SUFFIX);
-		} catch (IllegalArgumentException e) {
+		ModifiableStat multiplierStat = stat.getMultiplierStat();
+		if (multiplierStat == null) {
 			includeMultipliers = false;
 		}
 		for (Modifier modifier : modifiers) {
@@ -517,18 +520,34 @@ public class Stats extends ObservableState<Stats, Stats.StatChange> implements M
 
 	@Override
 	public void onModifierChange() {
+		modifierTotalsDirty = true;
 		boxStats();
 	}
 	
+	/**
+	 * Recalculates the totals of all active modifiers. Anything
+	 * that changes the active modifiers, or the mods of any of them,
+	 * must call {@link #onModifierChange()} so that this happens.
+	 */
+	private void updateModifierTotals() {
+		for (int i = 0; i < modifierTotals.length; ++i) {
+			modifierTotals[i] = ModifiableStat.get(i).isMultiplier() ? 1 : 0;
+		}
+		for (int i = 0; i < modifiers.size; ++i) {
+			modifiers.get(i).applyTo(modifierTotals);
+		}
+		modifierTotalsDirty = false;
+	}
+	
 	public float getModifiedStat(float unmodifiedValue, ModifiableStat stat) {
-		float returnValue = unmodifiedValue;
-		
-		for (Modifier mod : modifiers) {
-			if (stat.isMultiplier()) {
-				returnValue *= mod.getMod(stat);
-			} else {
-				returnValue += mod.getMod(stat);
-			}
+		if (modifierTotalsDirty) {
+			updateModifierTotals();
+		}
+		float returnValue;
+		if (stat.isMultiplier()) {
+			returnValue = unmodifiedValue * modifierTotals[stat.ordinal()];
+		} else {
+			returnValue = unmodifiedValue + modifierTotals[stat.ordinal()];
 		}
 		
 		if (returnValue < 0) {
@@ -0,0 +1,238 @@
+package mg.fishchicken.graphics;
+
+import mg.fishchicken.gamestate.Observer;
+import mg.fishchicken.gamestate.Position;
+import mg.fishchicken.gamestate.Position.PositionChange;
+
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IdentityMap;
+import com.badlogic.gdx.utils.IntMap;
+
+/**
+ * All Drawables of a map, sorted into a grid of cells by their draw bounds,
+ * so that only those close to the culling rectangle need to be looked at
+ * when rendering.
+ *
+ * Drawables are moved between the cells only when their position changes,
+ * which is observed, not polled. The drawables returned for rendering are
+ * kept in the order they had in the previous frame, with the newly visible
+ * ones at the end. Renderers sort them in place, so each frame only needs to fix
+ * the few that moved, which is close to linear with the adaptive sort libGDX uses,
+ * and the cost of rendering grows with the number of visible drawables,
+ * not with the number of drawables on the map.
+ *
+ */
+public class DrawOrder {
+
+	// in tiles
+	private static final int CELL_SIZE = 8;
+
+	private final IdentityMap<Drawable, Entry> entries;
+	private final IntMap<Array<Entry>> cells;
+	private final Array<Entry> dirtyEntries;
+	private final Array<Entry> candidates;
+	private final Array<Drawable> visible;
+	private final Rectangle tempBounds;
+	private int stamp;
+
+	public DrawOrder() {
+		entries = new IdentityMap<Drawable, Entry>();
+		cells = new IntMap<Array<Entry>>();
+		dirtyEntries = new Array<Entry>(false, 16, Entry.class);
+		candidates = new Array<Entry>(false, 16, Entry.class);
+		visible = new Array<Drawable>(true, 16, Drawable.class);
+		tempBounds = new Rectangle();
+	}
+
+	/**
+	 * Adds the supplied drawable. Does nothing if it was already added.
+	 *
+	 * @param drawable
+	 */
+	public void add(Drawable drawable) {
+		if (entries.containsKey(drawable)) {
+			return;
+		}
+		Entry entry = new Entry(drawable);
+		entries.put(drawable, entry);
+		entry.position.addObserver(entry);
+		addToCells(entry);
+	}
+
+	/**
+	 * Removes the supplied drawable. Does nothing if it was not added.
+	 *
+	 * @param drawable
+	 */
+	public void remove(Drawable drawable) {
+		Entry entry = entries.remove(drawable);
+		if (entry == null) {
+			return;
+		}
+		entry.position.removeObserver(entry);
+		removeFromCells(entry);
+		if (entry.dirty) {
+			dirtyEntries.removeValue(entry, true);
+		}
+	}
+
+	public void clear() {
+		for (Entry entry : entries.values()) {
+			entry.position.removeObserver(entry);
+		}
+		entries.clear();
+		cells.clear();
+		dirtyEntries.clear();
+		visible.clear();
+	}
+
+	public boolean contains(Drawable drawable) {
+		return entries.containsKey(drawable);
+	}
+
+	public int size() {
+		return entries.size;
+	}
+
+	/**
+	 * Returns all drawables that should be drawn in the supplied culling
+	 * rectangle, in the order they were in after the previous call, with
+	 * those that were not returned by it at the end.
+	 *
+	 * The returned array is owned by this DrawOrder. It can be sorted
+	 * in place and the order it ends up in is kept for the next call.
+	 * It is only valid until the next call.
+	 *
+	 * @param cullingRectangle - in tiles
+	 * @return
+	 */
+	public Array<Drawable> getVisible(Rectangle cullingRectangle) {
+		for (int i = 0; i < dirtyEntries.size; ++i) {
+			Entry entry = dirtyEntries.get(i);
+			entry.dirty = false;
+			updateCells(entry);
+		}
+		dirtyEntries.clear();
+
+		++stamp;
+		candidates.clear();
+		int minCellX = toCell(cullingRectangle.x);
+		int minCellY = toCell(cullingRectangle.y);
+		int maxCellX = toCell(cullingRectangle.x + cullingRectangle.width);
+		int maxCellY = toCell(cullingRectangle.y + cullingRectangle.height);
+		for (int x = minCellX; x <= maxCellX; ++x) {
+			for (int y = minCellY; y <= maxCellY; ++y) {
+				Array<Entry> cell = cells.get(getKey(x, y));
+				if (cell == null) {
+					continue;
+				}
+				for (int i = 0; i < cell.size; ++i) {
+					Entry entry = cell.get(i);
+					// drawables spanning more cells are only checked once
+					if (entry.checkedStamp == stamp) {
+						continue;
+					}
+					entry.checkedStamp = stamp;
+					if (entry.drawable.shouldDraw(cullingRectangle)) {
+						entry.visibleStamp = stamp;
+						candidates.add(entry);
+					}
+				}
+			}
+		}
+
+		// keep the previous order of those that are still visible
+		int kept = 0;
+		for (int i = 0; i < visible.size; ++i) {
+			Entry entry = entries.get(visible.get(i));
+			if (entry != null && entry.visibleStamp == stamp && entry.listedStamp != stamp) {
+				entry.listedStamp = stamp;
+				visible.set(kept++, entry.drawable);
+			}
+		}
+		visible.truncate(kept);
+		for (int i = 0; i < candidates.size; ++i) {
+			Entry entry = candidates.get(i);
+			if (entry.listedStamp != stamp) {
+				entry.listedStamp = stamp;
+				visible.add(entry.drawable);
+			}
+		}
+		candidates.clear();
+		return visible;
+	}
+
+	private void updateCells(Entry entry) {
+		Rectangle bounds = entry.drawable.getDrawBounds(tempBounds);
+		int minCellX = toCell(bounds.x);
+		int minCellY = toCell(bounds.y);
+		int maxCellX = toCell(bounds.x + bounds.width);
+		int maxCellY = toCell(bounds.y + bounds.height);
+		if (minCellX != entry.minCellX || minCellY != entry.minCellY || maxCellX != entry.maxCellX
+				|| maxCellY != entry.maxCellY) {
+			removeFromCells(entry);
+			addToCells(entry);
+		}
+	}
+
+	private void addToCells(Entry entry) {
+		Rectangle bounds = entry.drawable.getDrawBounds(tempBounds);
+		entry.minCellX = toCell(bounds.x);
+		entry.minCellY = toCell(bounds.y);
+		entry.maxCellX = toCell(bounds.x + bounds.width);
+		entry.maxCellY = toCell(bounds.y + bounds.height);
+		for (int x = entry.minCellX; x <= entry.maxCellX; ++x) {
+			for (int y = entry.minCellY; y <= entry.maxCellY; ++y) {
+				int key = getKey(x, y);
+				Array<Entry> cell = cells.get(key);
+				if (cell == null) {
+					cell = new Array<Entry>(false, 4, Entry.class);
+					cells.put(key, cell);
+				}
+				cell.add(entry);
+			}
+		}
+	}
+
+	private void removeFromCells(Entry entry) {
+		for (int x = entry.minCellX; x <= entry.maxCellX; ++x) {
+			for (int y = entry.minCellY; y <= entry.maxCellY; ++y) {
+				Array<Entry> cell = cells.get(getKey(x, y));
+				if (cell != null) {
+					cell.removeValue(entry, true);
+				}
+			}
+		}
+	}
+
+	private static int toCell(float coordinate) {
+		return (int) Math.floor(coordinate / CELL_SIZE);
+	}
+
+	private static int getKey(int cellX, int cellY) {
+		return (cellX << 16) | (cellY & 0xFFFF);
+	}
+
+	private class Entry implements Observer<Position, PositionChange> {
+		private final Drawable drawable;
+		// kept, so that the observer can be removed even if the drawable changes its position object
+		private final Position position;
+		private int minCellX, minCellY, maxCellX, maxCellY;
+		private boolean dirty;
+		private int checkedStamp, visibleStamp, listedStamp;
+
+		private Entry(Drawable drawable) {
+			this.drawable = drawable;
+			this.position = drawable.position();
+		}
+
+		@Override
+		public void hasChanged(Position stateObject, PositionChange changes) {
+			if (!dirty) {
+				dirty = true;
+				dirtyEntries.add(this);
+			}
+		}
+	}
+}
@@ -44,6 +44,17 @@ public interface Drawable extends PositionedThing {
 	 */
 	public boolean shouldDraw(Rectangle cullingRectangle);
 	
+	/**
+	 * Sets the supplied rectangle to the smallest one, in tiles, that contains
+	 * every point of the culling rectangle for which {@link #shouldDraw(Rectangle)}
+	 * can return true. This is used to find out which drawables need to be
+	 * checked for a given culling rectangle.
+	 * 
+	 * @param bounds
+	 * @return the supplied rectangle
+	 */
+	public Rectangle getDrawBounds(Rectangle bounds);
+	
 	/**
 	 * If true, this drawable is always drawn behind all other drawables (i.e. first).
 	 * 
@@ -91,6 +91,11 @@ public abstract class DrawableGameObject extends GameObject implements Drawable
 		return false;
 	}
 
+	@Override
+	public Rectangle getDrawBounds(Rectangle bounds) {
+		return bounds.set(position.getX(), position.getY(), getWidth(), getHeight());
+	}
+
 	@Override
 	public boolean isAlwaysBehind() {
 		return false;
@@ -165,6 +165,11 @@ public abstract class AnimatedGameObject extends GameObject implements Drawable
 		return true;
 	}
 
+	@Override
+	public Rectangle getDrawBounds(Rectangle bounds) {
+		return bounds.set(position.getX(), position.getY(), getWidth(), getHeight());
+	}
+
 	@Override
 	public boolean isAlwaysBehind() {
 		return false;
@@ -16,6 +16,7 @@ import box2dLight.FixtureUserData;
 import box2dLight.FixtureUserData.UserDataType;
 import box2dLight.PointLight;
 import box2dLight.RayHandler;
+import box2dLight.StaticEdgeIndex;
 
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.graphics.Color;
@@ -217,6 +218,12 @@ public class GamePointLight extends PointLight implements ManagedLight, ActionsC
 		return raycastCallback;
 	}
 	
+	@Override
+	protected boolean isBlockedBy(StaticEdgeIndex index, int edge) {
+		FixtureUserData userData = (FixtureUserData) index.getUserData(edge);
+		return userData != null && userData.type == UserDataType.LIGHT_BLOCKER && CoreUtil.equals(id, userData.id);
+	}
+	
 	private <T extends Action> T getActionInstance(Class<T> actionClass, Object... parameters) {
 		try {
 			return actionClass.newInstance();
@@ -4,12 +4,12 @@ import java.io.IOException;
 import java.util.Locale;
 
 import mg.fishchicken.core.ThingWithId;
+import mg.fishchicken.core.assets.ModuleDataCache;
 import mg.fishchicken.core.configuration.Configuration;
 import mg.fishchicken.core.saveload.XMLLoadable;
 import mg.fishchicken.core.util.XMLUtil;
 
 import com.badlogic.gdx.files.FileHandle;
-import com.badlogic.gdx.utils.XmlReader;
 import com.badlogic.gdx.utils.XmlReader.Element;
 
 public class Model implements XMLLoadable, ThingWithId {
@@ -47,8 +47,7 @@ public class Model implements XMLLoadable, ThingWithId {
 
 	@Override
 	public void loadFromXMLNoInit(FileHandle file) throws IOException {
-		XmlReader xmlReader = new XmlReader();
-		Element root = xmlReader.parse(file);
+		Element root = ModuleDataCache.parse(file);
 		XMLUtil.handleImports(this, file, root);
 		XMLUtil.readPrimitiveMembers(this, root);
 		s_animationTextureFile = Configuration.addModulePath(s_animationTextureFile);
@@ -16,17 +16,50 @@ import mg.fishchicken.graphics.renderers.GameMapRenderer;
 
 import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.g2d.ParticleEffect;
+import com.badlogic.gdx.graphics.g2d.ParticleEffectPool;
+import com.badlogic.gdx.graphics.g2d.ParticleEffectPool.PooledEffect;
+import com.badlogic.gdx.graphics.g2d.ParticleEmitter;
 import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.ObjectMap;
+import com.badlogic.gdx.utils.Pool;
+import com.badlogic.gdx.utils.Pool.Poolable;
 
+/**
+ * Manages the particle effects attached to the game objects of a map.
+ * 
+ * Instances of each effect are pooled, so that effects that are attached
+ * and killed over and over again do not need to copy the effect every time.
+ * Live effects are indexed by the GO they are attached to, so looking up
+ * and killing the effects of a GO does not need to look at the effects of other GOs.
+ * 
+ * Effects only start if the number of particles alive right now, plus the number
+ * the effect can emit, stays under {@link Configuration#getMaxLiveParticles()}. Those that
+ * would go over wait until enough particles die. Continuous effects never finish,
+ * so only the particles they actually have alive are counted, not how many they could have.
+ *
+ */
 public class ParticleEffectManager {
 	
 	private static ObjectMap<String, String> particleEffects = new ObjectMap<String, String>();
+	// the number of free instances of each effect kept for reuse
+	private static final int MAX_FREE_EFFECTS = 16;
 	
 	private Array<ParticleEffectDrawable> keysToRemove = new Array<ParticleEffectDrawable>();
-	private Array<ParticleEffectDrawable> activeEffects = new Array<ParticleEffectDrawable>();
+	private Array<ParticleEffectDrawable> activeEffects = new Array<ParticleEffectDrawable>(false, 16, ParticleEffectDrawable.class);
+	private ObjectMap<GameObject, Array<ParticleEffectDrawable>> effectsByGameObject = new ObjectMap<GameObject, Array<ParticleEffectDrawable>>();
+	private ObjectMap<String, EffectPool> pools = new ObjectMap<String, EffectPool>();
+	private Pool<ParticleEffectDrawable> drawablePool = new Pool<ParticleEffectDrawable>() {
+		@Override
+		protected ParticleEffectDrawable newObject() {
+			return new ParticleEffectDrawable();
+		}
+	};
+	// the particles alive at the start of the current update, plus the most
+	// the effects started during it can emit
+	private int liveParticles;
+	private int allocatedEffects;
 	
 	/**
 	 * Returns a new, fresh copy of a particle effect with the specified id.
@@ -50,12 +83,15 @@ public class ParticleEffectManager {
 	}
 	
 	/**
-	 * Creates a new particle effect instance for the specified particle effect descriptor, attaches it
+	 * Obtains a particle effect instance for the specified particle effect descriptor, attaches it
 	 * to the supplied game object and starts it (after delay, if any is specified in the descriptor). The
 	 * effect will update its position according to the GOs position. 
 	 * 
 	 * If the supplied GO is a Drawable, the effect will only be drawn if the GO
 	 * can be drawn.
+	 * 
+	 * The returned instance is reused once the effect finishes or is killed,
+	 * so it should not be kept around.
 	 *  
 	 * @param go
 	 * @param pe
@@ -69,11 +105,51 @@ public class ParticleEffectManager {
 		if (pe == null) {
 			return null;
 		}
-		ParticleEffect effect = getParticleEffect(pe.getEffectId());
-		new ParticleEffectDrawable(pe.getEffectId(), effect, go, GraphicsUtil.transformOffsets(go.getMap(), new Vector2(pe.getXOffset(), pe.getYOffset())), pe.getDelay());
+		EffectPool pool = getPool(pe.getEffectId());
+		PooledEffect effect = pool.obtain();
+		drawablePool.obtain().init(pe.getEffectId(), effect, pool.maxParticles, go, pe.getXOffset(), pe.getYOffset(),
+				pe.getDelay());
 		return effect;
 	}
 	
+	private EffectPool getPool(String effectId) {
+		ParticleEffect template = Assets.get(particleEffects.get(effectId.toLowerCase(Locale.ENGLISH)), ParticleEffect.class);
+		EffectPool pool = pools.get(effectId);
+		// the template can change if its asset got reloaded
+		if (pool == null || pool.template != template) {
+			pool = new EffectPool(template);
+			pools.put(effectId, pool);
+		}
+		return pool;
+	}
+	
+	/**
+	 * Returns the number of particle effect instances this manager
+	 * had to create so far, instead of reusing a free one.
+	 * 
+	 * @return
+	 */
+	public int getAllocatedEffectCount() {
+		return allocatedEffects;
+	}
+	
+	/**
+	 * Returns the number of particles of all managed effects
+	 * that are alive right now.
+	 * 
+	 * @return
+	 */
+	public int getLiveParticleCount() {
+		int returnValue = 0;
+		for (int i = 0; i < activeEffects.size; ++i) {
+			Array<ParticleEmitter> emitters = activeEffects.get(i).effect.getEmitters();
+			for (int j = 0; j < emitters.size; ++j) {
+				returnValue += emitters.get(j).getActiveCount();
+			}
+		}
+		return returnValue;
+	}
+	
 	
 	/**
 	 * Updates the positions of all managed effects according
@@ -83,8 +159,10 @@ public class ParticleEffectManager {
 	 */
 	public void update(float deltaTime) {
 		keysToRemove.clear();
+		liveParticles = getLiveParticleCount();
 		
-		for (ParticleEffectDrawable info : activeEffects) {
+		for (int i = 0; i < activeEffects.size; ++i) {
+			ParticleEffectDrawable info = activeEffects.get(i);
 			if (info.update(deltaTime)) {
 				keysToRemove.add(info);
 			}
@@ -93,6 +171,7 @@ public class ParticleEffectManager {
 		for (ParticleEffectDrawable info : keysToRemove) {
 			info.remove();
 		}
+		keysToRemove.clear();
 	}
 
 	/**
@@ -102,9 +181,13 @@ public class ParticleEffectManager {
 	 * @param effectId
 	 */
 	public int getCount(GameObject go, String effectId) {
+		Array<ParticleEffectDrawable> effects = effectsByGameObject.get(go);
+		if (effects == null) {
+			return 0;
+		}
 		int returnValue = 0;
-		for (ParticleEffectDrawable info : activeEffects) {
-			if (info.effectId.equals(effectId) && info.gameObject.equals(go)) {
+		for (int i = 0; i < effects.size; ++i) {
+			if (effects.get(i).effectId.equals(effectId)) {
 				++returnValue;
 			}
 		}
@@ -117,16 +200,21 @@ public class ParticleEffectManager {
 	 * @param pe
 	 */
 	public void kill(GameObject go, String effectId) {
+		Array<ParticleEffectDrawable> effects = effectsByGameObject.get(go);
+		if (effects == null) {
+			return;
+		}
 		keysToRemove.clear();
-		for (ParticleEffectDrawable info : activeEffects) {
-			if (info.effectId.equals(effectId) && info.gameObject.equals(go)) {
-				keysToRemove.add(info);
+		for (int i = 0; i < effects.size; ++i) {
+			if (effects.get(i).effectId.equals(effectId)) {
+				keysToRemove.add(effects.get(i));
 			}
 		}
 		
 		for (ParticleEffectDrawable info : keysToRemove) {
 			info.remove();
 		}
+		keysToRemove.clear();
 	}
 	
 	/**
@@ -139,33 +227,86 @@ public class ParticleEffectManager {
 		for (ParticleEffectDrawable info : keysToRemove) {
 			info.remove();
 		}
+		keysToRemove.clear();
 	}
 	
-	private class ParticleEffectDrawable implements Drawable  {
+	private class EffectPool extends ParticleEffectPool {
+		private final ParticleEffect template;
+		// the maximum number of particles an instance can have alive at once
+		private final int maxParticles;
+		
+		private EffectPool(ParticleEffect template) {
+			super(template, 1, MAX_FREE_EFFECTS);
+			this.template = template;
+			int particles = 0;
+			for (ParticleEmitter emitter : template.getEmitters()) {
+				particles += emitter.getMaxParticleCount();
+			}
+			maxParticles = particles;
+		}
+		
+		@Override
+		protected PooledEffect newObject() {
+			++allocatedEffects;
+			return super.newObject();
+		}
+	}
+	
+	private class ParticleEffectDrawable implements Drawable, Poolable  {
 		private String effectId;
 		private GameObject gameObject;
-		private ParticleEffect effect;
-		private Vector2 offset;
+		private PooledEffect effect;
+		private int maxParticles;
+		private final Vector2 offset = new Vector2();
 		private float delay;
 		private boolean isStarted;
 		private GameMap map;
+		private int index;
 		
-		private ParticleEffectDrawable(String id, ParticleEffect effect, GameObject target, Vector2 offset, float delay) {
+		private void init(String id, PooledEffect effect, int maxParticles, GameObject target, float xOffset,
+				float yOffset, float delay) {
 			effectId = id;
 			this.effect = effect;
+			this.maxParticles = maxParticles;
 			this.gameObject = target;
-			this.offset = offset;
+			this.map = gameObject.getMap();
+			GraphicsUtil.transformOffsets(map, offset.set(xOffset, yOffset));
 			isStarted = false;
 			this.delay = delay;
-			this.map = gameObject.getMap();
 			map.addDrawable(this);
+			index = activeEffects.size;
 			activeEffects.add(this);
+			Array<ParticleEffectDrawable> effects = effectsByGameObject.get(gameObject);
+			if (effects == null) {
+				effects = new Array<ParticleEffectDrawable>(false, 2, ParticleEffectDrawable.class);
+				effectsByGameObject.put(gameObject, effects);
+			}
+			effects.add(this);
 			updatePosition();
 		}
 		
 		private void remove() {
-			activeEffects.removeValue(this, false);
+			ParticleEffectDrawable last = activeEffects.pop();
+			if (last != this) {
+				activeEffects.set(index, last);
+				last.index = index;
+			}
+			Array<ParticleEffectDrawable> effects = effectsByGameObject.get(gameObject);
+			effects.removeValue(this, true);
+			if (effects.size == 0) {
+				effectsByGameObject.remove(gameObject);
+			}
 			map.removeDrawable(this);
+			effect.free();
+			drawablePool.free(this);
+		}
+		
+		@Override
+		public void reset() {
+			effectId = null;
+			gameObject = null;
+			effect = null;
+			map = null;
 		}
 		
 		/**
@@ -178,8 +319,18 @@ public class ParticleEffectManager {
 			if (!isStarted) {
 				delay -= deltaTime;
 				if (delay <= 0) {
-					effect.start();
+					if (!gameObject.isActive()) {
+						return true;
+					}
+					if (!canStart()) {
+						return false;
+					}
+					// not start, since freeing a pooled effect already started it and starting its emitters
+					// again would subtract their duration once more, so they would emit twice as long
+					effect.reset(false);
 					isStarted = true;
+					// it has no particles yet, so count all it can emit until the next update
+					liveParticles += maxParticles;
 				}
 			}
 			if (isStarted) {
@@ -191,6 +342,13 @@ public class ParticleEffectManager {
 			return false;
 		}
 		
+		private boolean canStart() {
+			int maxLiveParticles = Configuration.getMaxLiveParticles();
+			// a single effect is always allowed, no matter how big it is
+			return maxLiveParticles <= 0 || liveParticles == 0
+					|| liveParticles + maxParticles <= maxLiveParticles;
+		}
+		
 		private void updatePosition() {
 			Vector2 projectedCoordinates = gameObject.position().setVector2(MathUtil.getVector2());
 			map.projectFromTiles(projectedCoordinates.add(offset.x, offset.y));
@@ -223,6 +381,16 @@ public class ParticleEffectManager {
 			return true;
 		}
 
+		@Override
+		public Rectangle getDrawBounds(Rectangle bounds) {
+			// it is only drawn if its GO is
+			if (gameObject instanceof Drawable) {
+				return ((Drawable) gameObject).getDrawBounds(bounds);
+			}
+			Position position = gameObject.position();
+			return bounds.set(position.getX(), position.getY(), gameObject.getWidth(), gameObject.getHeight());
+		}
+
 		@Override
 		public boolean isAlwaysBehind() {
 			return false;
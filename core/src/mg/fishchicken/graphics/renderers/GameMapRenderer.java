@@ -416,7 +416,8 @@ public abstract class GameMapRenderer implements Disposable {
 			deltaTime = 0;
 		}
 
-		Array<Drawable> drawables = sortDrawables(map.getDrawables());
+		// only contains the drawables that should be drawn
+		Array<Drawable> drawables = sortDrawables(map.getDrawablesToDraw(cullingRectangle));
 		highlightedDrawables.clear();
 
 		PlayerCharacterController pcg = gameState.getPlayerCharacterController();
@@ -424,13 +425,11 @@ public abstract class GameMapRenderer implements Disposable {
 		float mouseY = pcg.getMouseTileY();
 		for (int i = 0; i < drawables.size; ++i) {
 			Drawable drawable = drawables.get(i);
-			if (drawable.shouldDraw(cullingRectangle)) {
-				spriteBatch.setColor(drawable.getColor());
-				drawable.draw(this, deltaTime);
-				Color hightlightColor = drawable.getHighlightColor(mouseX, mouseY);
-				if (hightlightColor != null) {
-					highlightedDrawables.put(drawable, hightlightColor);
-				}
+			spriteBatch.setColor(drawable.getColor());
+			drawable.draw(this, deltaTime);
+			Color hightlightColor = drawable.getHighlightColor(mouseX, mouseY);
+			if (hightlightColor != null) {
+				highlightedDrawables.put(drawable, hightlightColor);
 			}
 		}
 	}
@@ -563,6 +562,16 @@ public abstract class GameMapRenderer implements Disposable {
 		return spriteBatch;
 	}
 	
+	/**
+	 * Sorts the supplied drawables into the order they should be drawn in.
+	 * 
+	 * The drawables are in the order they were sorted into in the previous frame, with the
+	 * newly visible ones at the end, so sorting them in place is cheap and keeps
+	 * the order for the next frame.
+	 * 
+	 * @param drawables
+	 * @return
+	 */
 	protected abstract Array<Drawable> sortDrawables(Array<Drawable> drawables);
 
 	public void dispose() {
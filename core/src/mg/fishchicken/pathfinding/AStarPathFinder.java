@@ -1,12 +1,10 @@
 package mg.fishchicken.pathfinding;
 
-import java.util.ArrayList;
-import java.util.LinkedList;
-import java.util.List;
+import java.util.Arrays;
 
 import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.IntArray;
 import com.badlogic.gdx.utils.ObjectSet;
-import com.badlogic.gdx.utils.StringBuilder;
 
 import mg.fishchicken.core.GameObject;
 import mg.fishchicken.core.GameState;
@@ -15,13 +13,10 @@ import mg.fishchicken.core.configuration.Configuration;
 import mg.fishchicken.core.input.PlayerCharacterController;
 import mg.fishchicken.core.input.tools.Tool;
 import mg.fishchicken.core.util.Pair;
-import mg.fishchicken.core.util.PositionArray;
-import mg.fishchicken.core.util.StringUtil;
 import mg.fishchicken.gamelogic.actions.Action;
 import mg.fishchicken.gamelogic.actions.MoveToAction;
 import mg.fishchicken.gamelogic.characters.AbstractGameCharacter;
 import mg.fishchicken.gamelogic.characters.GameCharacter;
-import mg.fishchicken.gamelogic.factions.Faction;
 import mg.fishchicken.gamelogic.locations.GameMap;
 import mg.fishchicken.gamelogic.traps.TrapLocation;
 import mg.fishchicken.gamestate.Tile;
@@ -35,24 +30,47 @@ import mg.fishchicken.pathfinding.heuristics.ClosestHeuristic;
  * @author Kevin Glass
  */
 public class AStarPathFinder implements PathFinder {
-	/** The set of nodes that have been searched through */
-	private ArrayList<Node> closed = new ArrayList<Node>();
+	/** Node flag - in the open list */
+	private static final byte OPEN = 1;
+	/** Node flag - in the closed list */
+	private static final byte CLOSED = 2;
+	
 	/** The set of nodes that we do not yet consider fully searched */
-	private PriorityList open = new PriorityList();
+	private NodeHeap open;
 	
 	/** The map being searched */
 	private GameMap map;
 	/** The maximum depth of search we're willing to accept before giving up */
 	private int maxSearchDistance;
 	
-	/** The complete set of nodes across the map */
-	private Node[][] nodes;
+	/** Width of the searched map */
+	private int width;
+	/** The path cost of each node, indexed by tile id */
+	private float[] costs;
+	/** The action points cost of each node, indexed by tile id */
+	private int[] apCosts;
+	/** The heuristic cost of each node, indexed by tile id */
+	private float[] heuristics;
+	/** The parent of each node (how we reached it in the search), indexed by tile id, -1 if none */
+	private int[] parents;
+	/** The search depth of each node, indexed by tile id */
+	private int[] depths;
+	/** The open / closed flags of each node, indexed by tile id */
+	private byte[] flags;
+	/** The search generation in which each node was last touched. Nodes
+	 * with a generation different from the current one are considered reset. */
+	private int[] generations;
+	/** The generation of the current search */
+	private int generation;
 	/** True if we allow diagonal movement */
 	private boolean allowDiagMovement;
 	/** The heuristic we're applying to determine which nodes to search first */
 	private AStarHeuristic heuristic;
-	/** The node we're currently searching from */
-	private Node current;
+	/** The node we're currently searching from, -1 if none */
+	private int current;
+	/** The abstract graph used for hierarchical search of long paths, lazy init */
+	private ClusterGraph clusterGraph;
+	private IntArray waypoints = new IntArray();
 
 	/** The x coordinate of the tile we're moving to */
 	private int targetX;
@@ -61,7 +79,6 @@ public class AStarPathFinder implements PathFinder {
 	private boolean destinationBlocked;
 	private Object target;
 
-	private PositionArray temPositionArray = new PositionArray();
 	private ObjectSet<GameObject> tempSet = new ObjectSet<GameObject>();
 	private PlayerCharacterController pcc;
 	
@@ -92,12 +109,16 @@ public class AStarPathFinder implements PathFinder {
 		this.maxSearchDistance = maxSearchDistance;
 		this.allowDiagMovement = allowDiagMovement;
 		
-		nodes = new Node[map.getMapWidth()][map.getMapHeight()];
-		for (int x=0;x<map.getMapWidth();x++) {
-			for (int y=0;y<map.getMapHeight();y++) {
-				nodes[x][y] = new Node(x,y);
-			}
-		}
+		width = map.getMapWidth();
+		int nodeCount = width * map.getMapHeight();
+		costs = new float[nodeCount];
+		apCosts = new int[nodeCount];
+		heuristics = new float[nodeCount];
+		parents = new int[nodeCount];
+		depths = new int[nodeCount];
+		flags = new byte[nodeCount];
+		generations = new int[nodeCount];
+		open = new NodeHeap(nodeCount);
 	}
 	
 	public Path findPath(GameObject mover, int sx, int sy, int tx, int ty) {
@@ -164,7 +185,6 @@ public class AStarPathFinder implements PathFinder {
 			return;
 		}
 		
-		current = null;
 		this.destinationBlocked = false;
 		
 		// easy first check, if the destination is blocked, we can't get there
@@ -187,37 +207,63 @@ public class AStarPathFinder implements PathFinder {
 			return;
 		}
 
-		for (int x=0;x<map.getMapWidth();x++) {
-			for (int y=0;y<map.getMapHeight();y++) {
-				nodes[x][y].reset();
+		if (isHierarchicalSearchUseful(sx, sy, tx, ty)) {
+			if (findHierarchicalPath(mover, sx, sy, tx, ty, path, addLastStepEvenIfBlocked, finalAction)) {
+				return;
 			}
+			// no luck on the abstract level, fall back to the plain search
+			path.clear();
+		}
+		
+		// since we've got an empty open list or we've run out of search 
+		// there was no path. Just return null
+		if (!search(mover, sx, sy, tx, ty)) {
+			return;
 		}
 		
+		prependSteps(mover, sx, sy, tx, ty, path, true, addLastStepEvenIfBlocked, finalAction);
+		path.prependStep(sx,sy, 0, 0);
+		
+		// thats it, we have our path 
+		return;
+	}
+	
+	/**
+	 * Runs the A* search from [sx, sy] to [tx, ty]. The target
+	 * coordinates and destinationBlocked must already be set.
+	 * 
+	 * @return true if the target was reached
+	 */
+	private boolean search(GameObject mover, int sx, int sy, int tx, int ty) {
+		current = -1;
+		startSearch();
+		
+		int start = getNodeId(sx, sy);
+		int goal = getNodeId(tx, ty);
+		
 		// initial state for A*. The closed group is empty. Only the starting
 		// tile is in the open list and it's cost is zero, i.e. we're already there
-		nodes[sx][sy].cost = 0;
-		nodes[sx][sy].depth = 0;
-		closed.clear();
-		open.clear();
-		addToOpen(nodes[sx][sy]);
-		
-		nodes[tx][ty].parent = null;
+		touch(start);
+		touch(goal);
+		addToOpen(start);
 		
 		// while we haven't found the goal and haven't exceeded our max search depth
 		int maxDepth = 0;
-		while ((maxDepth < maxSearchDistance) && (open.size() != 0)) {
+		while ((maxDepth < maxSearchDistance) && (!open.isEmpty())) {
 			// pull out the first node in our open list, this is determined to 
 			// be the most likely to be the next step based on our heuristic
 			int lx = sx;
 			int ly = sy;
-			if (current != null) {
-				lx = current.x;
-				ly = current.y;
+			if (current != -1) {
+				lx = getX(current);
+				ly = getY(current);
 			}
 			
 			current = getFirstInOpen();
+			int currentX = getX(current);
+			int currentY = getY(current);
 			
-			if (current == nodes[tx][ty]) {
+			if (current == goal) {
 				if (isValidLocation(mover,lx,ly,tx,ty)) {
 					break;
 				}
@@ -244,25 +290,26 @@ public class AStarPathFinder implements PathFinder {
 					}
 					
 					// determine the location of the neighbour and evaluate it
-					int xp = x + current.x;
-					int yp = y + current.y;
+					int xp = x + currentX;
+					int yp = y + currentY;
 					
-					if (isValidLocation(mover,current.x,current.y,xp,yp)) {
-						float movementCost = getMovementCost(mover, current.x, current.y, xp, yp);
-						int apCost = getApMoveCost(mover, current.x, current.y, xp, yp);
+					if (isValidLocation(mover,currentX,currentY,xp,yp)) {
+						float movementCost = getMovementCost(mover, currentX, currentY, xp, yp);
+						int apCost = getApMoveCost(mover, currentX, currentY, xp, yp);
 						float finalCost = GameState.isCombatInProgress() ? apCost : movementCost;
 						
 						// the cost to get to this node is cost the current plus the movement
 						// cost to reach this node. Note that the heuristic value is only used
 						// in the sorted open list
-						float nextStepCost = current.cost + finalCost;
-						Node neighbour = nodes[xp][yp];
+						float nextStepCost = costs[current] + finalCost;
+						int neighbour = getNodeId(xp, yp);
+						touch(neighbour);
 						
 						// if the new cost we've determined for this node is lower than 
 						// it has been previously makes sure the node hasn't been discarded. We've
 						// determined that there might have been a better path to get to
 						// this node so it needs to be re-evaluated
-						if (nextStepCost < neighbour.cost) {
+						if (nextStepCost < costs[neighbour]) {
 							if (inOpenList(neighbour)) {
 								removeFromOpen(neighbour);
 							}
@@ -275,10 +322,12 @@ public class AStarPathFinder implements PathFinder {
 						// reset it's cost to our current cost and add it as a next possible
 						// step (i.e. to the open list)
 						if (!inOpenList(neighbour) && !(inClosedList(neighbour))) {
-							neighbour.cost = nextStepCost;
-							neighbour.apCost = apCost;
-							neighbour.heuristic = getHeuristicCost(mover, xp, yp, tx, ty);
-							maxDepth = Math.max(maxDepth, neighbour.setParent(current));
+							costs[neighbour] = nextStepCost;
+							apCosts[neighbour] = apCost;
+							heuristics[neighbour] = getHeuristicCost(mover, xp, yp, tx, ty);
+							parents[neighbour] = current;
+							depths[neighbour] = depths[current] + 1;
+							maxDepth = Math.max(maxDepth, depths[neighbour]);
 							addToOpen(neighbour);
 						} 
 					}
@@ -286,20 +335,25 @@ public class AStarPathFinder implements PathFinder {
 			}
 		}
 
-		// since we've got an empty open list or we've run out of search 
-		// there was no path. Just return null
-		if (nodes[tx][ty].parent == null) {
-			return;
-		}
-		
-		// At this point we've definitely found a path so we can uses the parent
-		// references of the nodes to find out way from the target location back
-		// to the start recording the nodes on the way.
-		Node target = nodes[tx][ty];
-		boolean first = true;
-		while (target != nodes[sx][sy]) {
+		return parents[goal] != -1;
+	}
+	
+	/**
+	 * Uses the parent references of the nodes of the last search to find our way from 
+	 * the target location back to the start, prepending the nodes on the way to the supplied 
+	 * path. The start itself is not added.
+	 * 
+	 * @param finalSegment true if [tx, ty] is the final destination of the path, 
+	 * in which case the action cost and blocked destination handling is applied to the last step
+	 */
+	private void prependSteps(GameObject mover, int sx, int sy, int tx, int ty, Path path, boolean finalSegment, 
+			boolean addLastStepEvenIfBlocked, Class<? extends Action> finalAction) {
+		int start = getNodeId(sx, sy);
+		int node = getNodeId(tx, ty);
+		boolean first = finalSegment;
+		while (node != start) {
 			if (!first || !destinationBlocked || (addLastStepEvenIfBlocked && !MoveToAction.class.equals(finalAction))) {
-				Step step = path.prependStep(target.x, target.y, (int)target.apCost, 0);
+				Step step = path.prependStep(getX(node), getY(node), apCosts[node], 0);
 				if (first && mover instanceof GameCharacter) {
 					step.setActionCost(mover.getCostForAction(finalAction, this.target));
 					if (destinationBlocked) {
@@ -308,12 +362,121 @@ public class AStarPathFinder implements PathFinder {
 				}
 			}
 			first = false;
-			target = target.parent;
+			node = parents[node];
+		}
+	}
+	
+	/**
+	 * Returns true if a path between the two supplied tiles should
+	 * be first searched for on the abstract level.
+	 * 
+	 * Combat paths are always searched for directly, since
+	 * they are short and need exact action point costs.
+	 */
+	private boolean isHierarchicalSearchUseful(int sx, int sy, int tx, int ty) {
+		if (!Configuration.isHierarchicalPathfindingEnabled() || GameState.isCombatInProgress()) {
+			return false;
+		}
+		return Math.max(Math.abs(tx - sx), Math.abs(ty - sy)) > Configuration.getPathfindingClusterSize();
+	}
+	
+	/**
+	 * Finds the path using the abstract cluster graph of the map and then
+	 * refines each of its segments using a local search. Since each segment is short,
+	 * the length of the whole path is not limited by the max search distance.
+	 * 
+	 * @return false if no path could be found this way, in which case
+	 * the supplied path will be left in an undefined state
+	 */
+	private boolean findHierarchicalPath(GameObject mover, int sx, int sy, int tx, int ty, Path path, boolean addLastStepEvenIfBlocked, Class<? extends Action> finalAction) {
+		if (clusterGraph == null) {
+			clusterGraph = new ClusterGraph(map, Configuration.getPathfindingClusterSize());
+		}
+		if (!clusterGraph.findWaypoints(sx, sy, tx, ty, waypoints)) {
+			return false;
+		}
+		
+		boolean finalDestinationBlocked = destinationBlocked;
+		boolean found = true;
+		// the waypoints are ordered from the target back to the start,
+		// so we can prepend the steps of each refined segment to the path
+		for (int i = 0; i + 3 < waypoints.size; i += 2) {
+			int toX = waypoints.get(i);
+			int toY = waypoints.get(i+1);
+			int fromX = waypoints.get(i+2);
+			int fromY = waypoints.get(i+3);
+			boolean finalSegment = i == 0;
+			targetX = toX;
+			targetY = toY;
+			destinationBlocked = finalSegment && finalDestinationBlocked;
+			if (!search(mover, fromX, fromY, toX, toY)) {
+				found = false;
+				break;
+			}
+			prependSteps(mover, fromX, fromY, toX, toY, path, finalSegment, addLastStepEvenIfBlocked, finalAction);
 		}
-		path.prependStep(sx,sy, 0, 0);
 		
-		// thats it, we have our path 
-		return;
+		targetX = tx;
+		targetY = ty;
+		destinationBlocked = finalDestinationBlocked;
+		if (found) {
+			path.prependStep(sx,sy, 0, 0);
+		}
+		return found;
+	}
+	
+	/**
+	 * Notifies the path finder that the supplied tile changed
+	 * its static blocking state, for example because a door was opened.
+	 */
+	public void tileChanged(int x, int y) {
+		if (clusterGraph != null) {
+			clusterGraph.tileChanged(x, y);
+		}
+	}
+	
+	/**
+	 * Starts a new search generation. All nodes touched in previous
+	 * searches become implicitly reset, so there is no need to
+	 * walk the whole map.
+	 */
+	private void startSearch() {
+		open.clear();
+		++generation;
+		if (generation == 0) {
+			// the counter wrapped around, make sure no stale node
+			// can be mistaken for one from the current search
+			Arrays.fill(generations, 0);
+			generation = 1;
+		}
+	}
+	
+	/**
+	 * Makes sure the supplied node belongs to the current search,
+	 * resetting its state if it was last touched by a previous one.
+	 * 
+	 * @param node
+	 */
+	private void touch(int node) {
+		if (generations[node] != generation) {
+			generations[node] = generation;
+			costs[node] = 0;
+			depths[node] = 0;
+			parents[node] = -1;
+			flags[node] = 0;
+		}
+	}
+	
+	private int getNodeId(int x, int y) {
+		return x + y * width;
+	}
+	
+	private int getX(int node) {
+		return node % width;
+	}
+	
+	private int getY(int node) {
+		return node / width;
 	}
 	
 	private boolean pathToTargetExists(GameObject mover) {
@@ -336,8 +499,8 @@ public class AStarPathFinder implements PathFinder {
 	 * 
 	 * @return The first element in the open list
 	 */
-	protected Node getFirstInOpen() {
-		return (Node) open.first();
+	protected int getFirstInOpen() {
+		return open.peek();
 	}
 	
 	/**
@@ -345,9 +508,9 @@ public class AStarPathFinder implements PathFinder {
 	 * 
 	 * @param node The node to be added to the open list
 	 */
-	protected void addToOpen(Node node) {
-		node.setOpen(true);
-		open.add(node);
+	protected void addToOpen(int node) {
+		flags[node] |= OPEN;
+		open.add(node, heuristics[node] + costs[node]);
 	}
 	
 	/**
@@ -356,8 +519,8 @@ public class AStarPathFinder implements PathFinder {
 	 * @param node The node to check for
 	 * @return True if the node given is in the open list
 	 */
-	protected boolean inOpenList(Node node) {
-		return node.isOpen();
+	protected boolean inOpenList(int node) {
+		return (flags[node] & OPEN) != 0;
 	}
 	
 	/**
@@ -365,8 +528,8 @@ public class AStarPathFinder implements PathFinder {
 	 * 
 	 * @param node The node to remove from the open list
 	 */
-	protected void removeFromOpen(Node node) {
-		node.setOpen(false);
+	protected void removeFromOpen(int node) {
+		flags[node] &= ~OPEN;
 		open.remove(node);
 	}
 	
@@ -375,9 +538,8 @@ public class AStarPathFinder implements PathFinder {
 	 * 
 	 * @param node The node to add to the closed list
 	 */
-	protected void addToClosed(Node node) {
-		node.setClosed(true);
-		closed.add(node);
+	protected void addToClosed(int node) {
+		flags[node] |= CLOSED;
 	}
 	
 	/**
@@ -386,8 +548,8 @@ public class AStarPathFinder implements PathFinder {
 	 * @param node The node to search for
 	 * @return True if the node specified is in the closed list
 	 */
-	protected boolean inClosedList(Node node) {
-		return node.isClosed();
+	protected boolean inClosedList(int node) {
+		return (flags[node] & CLOSED) != 0;
 	}
 	
 	/**
@@ -395,9 +557,8 @@ public class AStarPathFinder implements PathFinder {
 	 * 
 	 * @param node The node to remove from the closed list
 	 */
-	protected void removeFromClosed(Node node) {
-		node.setClosed(false);
-		closed.remove(node);
+	protected void removeFromClosed(int node) {
+		flags[node] &= ~CLOSED;
 	}
 	
 	/**
@@ -499,26 +660,7 @@ public class AStarPathFinder implements PathFinder {
 	 * @return
 	 */
 	public boolean nextToEnemy(AbstractGameCharacter mover, int x, int y) {
-		temPositionArray.clear();
-		temPositionArray.add(x-1, y);
-		temPositionArray.add(x, y-1);
-		temPositionArray.add(x+1, y);
-		temPositionArray.add(x, y+1);
-		temPositionArray.add(x+1, y+1);
-		temPositionArray.add(x-1, y-1);
-		temPositionArray.add(x+1, y-1);
-		temPositionArray.add(x-1, y+1);
-		tempSet.clear();
-		map.getAllObjectsInArea(tempSet, temPositionArray, GameCharacter.class);
-		
-		for (GameObject neighbor : tempSet) {
-			GameCharacter character = (GameCharacter) neighbor;
-			if (!character.isAsleep() && Faction.areHostile(character, mover)) {
-				return true;
-			}
-		}
-		
-		return false;
+		return map.isNextToEnemy(mover, x, y);
 	}
 
 
@@ -536,199 +678,5 @@ public class AStarPathFinder implements PathFinder {
 	public float getHeuristicCost(GameObject mover, int x, int y, int tx, int ty) {
 		return heuristic.getCost(map, mover, x, y, tx, ty);
 	}
-	
-	/**
-	 * A list that sorts any element provided into the list
-	 *
-	 * @author kevin
-	 */
-	private static class PriorityList {
-		/** The list of elements */
-		private List<Node> list = new LinkedList<Node>();
-		
-		/**
-		 * Retrieve the first element from the list
-		 *  
-		 * @return The first element from the list
-		 */
-		public Object first() {
-			return list.get(0);
-		}
-		
-		/**
-		 * Empty the list
-		 */
-		public void clear() {
-			list.clear();
-		}
-		
-		/**
-		 * Add an element to the list - causes sorting
-		 * 
-		 * @param o The element to add
-		 */
-		public void add(Node o) {
-			// float the new entry 
-			for (int i=0;i<list.size();i++) {
-				if ((list.get(i)).compareTo(o) > 0) {
-					list.add(i, o);
-					break;
-				}
-			}
-			if (!list.contains(o)) {
-				list.add(o);
-			}
-			//Collections.sort(list);
-		}
-		
-		/**
-		 * Remove an element from the list
-		 * 
-		 * @param o The element to remove
-		 */
-		public void remove(Node o) {
-			list.remove(o);
-		}
-	
-		/**
-		 * Get the number of elements in the list
-		 * 
-		 * @return The number of element in the list
- 		 */
-		public int size() {
-			return list.size();
-		}
-		
-		public String toString() {
-			StringBuilder fsb = StringUtil.getFSB();
-			fsb.append("{");
-			for (int i=0;i<size();i++) {
-				fsb.append(list.get(i).toString());
-				fsb.append(",");
-			}
-			fsb.append("}");
-			String returnValue = fsb.toString();
-			StringUtil.freeFSB(fsb);
-			return returnValue;
-		}
-	}
-	
-	/**
-	 * A single node in the search graph
-	 */
-	private static class Node implements Comparable<Node> {
-		/** The x coordinate of the node */
-		private int x;
-		/** The y coordinate of the node */
-		private int y;
-		/** The path cost for this node */
-		private float cost;
-		/** The action points cost for this node */
-		private int apCost;
-		/** The parent of this node, how we reached it in the search */
-		private Node parent;
-		/** The heuristic cost of this node */
-		private float heuristic;
-		/** The search depth of this node */
-		private int depth;
-		/** In the open list */
-		private boolean open;
-		/** In the closed list */
-		private boolean closed;
-		
-		/**
-		 * Create a new node
-		 * 
-		 * @param x The x coordinate of the node
-		 * @param y The y coordinate of the node
-		 */
-		public Node(int x, int y) {
-			this.x = x;
-			this.y = y;
-		}
-		
-		/**
-		 * Set the parent of this node
-		 * 
-		 * @param parent The parent node which lead us to this node
-		 * @return The depth we have no reached in searching
-		 */
-		public int setParent(Node parent) {
-			depth = parent.depth + 1;
-			this.parent = parent;
-			
-			return depth;
-		}
-		
-		/**
-		 * @see Comparable#compareTo(Object)
-		 */
-		public int compareTo(Node other) {
-			
-			float f = heuristic + cost;
-			float of = other.heuristic + other.cost;
-			
-			if (f < of) {
-				return -1;
-			} else if (f > of) {
-				return 1;
-			} else {
-				return 0;
-			}
-		}
-		
-		/**
-		 * Indicate whether the node is in the open list
-		 * 
-		 * @param open True if the node is in the open list
-		 */
-		public void setOpen(boolean open) {
-			this.open = open;
-		}
-		
-		/**
-		 * Check if the node is in the open list
-		 * 
-		 * @return True if the node is in the open list
-		 */
-		public boolean isOpen() {
-			return open;
-		}
-		
-		/**
-		 * Indicate whether the node is in the closed list
-		 * 
-		 * @param closed True if the node is in the closed list
-		 */
-		public void setClosed(boolean closed) {
-			this.closed = closed;
-		}
-		
-		/**
-		 * Check if the node is in the closed list
-		 * 
-		 * @return True if the node is in the closed list
-		 */
-		public boolean isClosed() {
-			return closed;
-		}
-
-		/**
-		 * Reset the state of this node
-		 */
-		public void reset() {
-			closed = false;
-			open = false;
-			cost = 0;
-			depth = 0;
-		}
-		
-		/**
-		 * @see java.lang.Object#toString()
-		 */
-		public String toString() {
-			return "[Node "+x+","+y+"]";
-		}
-	}
 
 }
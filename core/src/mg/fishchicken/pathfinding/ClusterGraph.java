@@ -0,0 +1,477 @@
+package mg.fishchicken.pathfinding;
+
+import java.util.Arrays;
+
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.BinaryHeap;
+import com.badlogic.gdx.utils.FloatArray;
+import com.badlogic.gdx.utils.IntArray;
+
+import mg.fishchicken.gamelogic.locations.GameMap;
+
+/**
+ * Abstract graph used for hierarchical (HPA*) path finding.
+ *
+ * The map is split into square clusters. Wherever two neighbouring clusters
+ * share a run of tiles passable on both sides of their border, an entrance is
+ * created, which is represented by a pair of abstract nodes, one in each cluster.
+ * Nodes of the same cluster are connected by edges whose cost is the cost of
+ * the shortest path between them that stays inside the cluster.
+ *
+ * Only the static blocking of the map is taken into account (blocked tiles and
+ * tile blockers like doors), characters are ignored. The graph is built lazily
+ * and when a tile changes its blocking state, only the borders and clusters
+ * around it are rebuilt, the next time the graph is used.
+ *
+ */
+public class ClusterGraph {
+
+	/** Entrances wider than this will get two abstract nodes, one at each end */
+	private static final int MAX_SINGLE_NODE_ENTRANCE_WIDTH = 6;
+
+	private GameMap map;
+	private int clusterSize;
+	private int width, height;
+	private int clustersX, clustersY;
+
+	/** All abstract nodes of each cluster */
+	private Array<AbstractNode>[] clusterNodes;
+	/** Nodes (from both sides) of the entrances on the east and north border of each cluster */
+	private Array<AbstractNode>[] eastBorderNodes, northBorderNodes;
+	private boolean[] dirtyEastBorders, dirtyNorthBorders, dirtyClusters;
+	private boolean dirty;
+
+	/** Dijkstra search state, indexed by the local tile id inside a cluster */
+	private NodeHeap localOpen;
+	private float[] localCosts;
+	private int[] localGenerations;
+	private int localGeneration;
+
+	/** Abstract A* search state */
+	private BinaryHeap<AbstractNode> open;
+	private int searchId;
+	private AbstractNode startNode, goalNode;
+
+	public ClusterGraph(GameMap map, int clusterSize) {
+		this.map = map;
+		this.clusterSize = clusterSize;
+		width = map.getMapWidth();
+		height = map.getMapHeight();
+		clustersX = (width + clusterSize - 1) / clusterSize;
+		clustersY = (height + clusterSize - 1) / clusterSize;
+
+		int clusterCount = clustersX * clustersY;
+		clusterNodes = createNodeArrays(clusterCount);
+		eastBorderNodes = createNodeArrays(clusterCount);
+		northBorderNodes = createNodeArrays(clusterCount);
+		for (int i = 0; i < clusterCount; ++i) {
+			clusterNodes[i] = new Array<AbstractNode>(false, 8);
+			eastBorderNodes[i] = new Array<AbstractNode>(false, 4);
+			northBorderNodes[i] = new Array<AbstractNode>(false, 4);
+		}
+		dirtyEastBorders = new boolean[clusterCount];
+		dirtyNorthBorders = new boolean[clusterCount];
+		dirtyClusters = new boolean[clusterCount];
+		Arrays.fill(dirtyEastBorders, true);
+		Arrays.fill(dirtyNorthBorders, true);
+		Arrays.fill(dirtyClusters, true);
+		dirty = true;
+
+		localOpen = new NodeHeap(clusterSize * clusterSize);
+		localCosts = new float[clusterSize * clusterSize];
+		localGenerations = new int[clusterSize * clusterSize];
+
+		open = new BinaryHeap<AbstractNode>();
+		startNode = new AbstractNode(0, 0, 0);
+		goalNode = new AbstractNode(0, 0, 0);
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static Array<AbstractNode>[] createNodeArrays(int count) {
+		return new Array[count];
+	}
+
+	public int getClusterSize() {
+		return clusterSize;
+	}
+
+	/**
+	 * Notifies the graph that the blocking state of the supplied tile
+	 * has changed. The affected part of the graph will be rebuilt
+	 * the next time it is used.
+	 *
+	 * @param x
+	 * @param y
+	 */
+	public void tileChanged(int x, int y) {
+		if (x < 0 || y < 0 || x >= width || y >= height) {
+			return;
+		}
+		int cx = x / clusterSize;
+		int cy = y / clusterSize;
+		int cluster = getClusterId(cx, cy);
+		dirtyEastBorders[cluster] = true;
+		dirtyNorthBorders[cluster] = true;
+		dirtyClusters[cluster] = true;
+		if (cx > 0) {
+			dirtyEastBorders[cluster - 1] = true;
+		}
+		if (cy > 0) {
+			dirtyNorthBorders[cluster - clustersX] = true;
+		}
+		dirty = true;
+	}
+
+	/**
+	 * Finds the sequence of tiles the path from [sx, sy] to [tx, ty]
+	 * must pass through on the abstract level. The result will contain
+	 * both the start and the target tile, as x, y pairs, ordered from
+	 * the target back to the start.
+	 *
+	 * @return false if no abstract path exists
+	 */
+	public boolean findWaypoints(int sx, int sy, int tx, int ty, IntArray waypoints) {
+		waypoints.clear();
+		update();
+		++searchId;
+
+		int startCluster = getClusterId(sx / clusterSize, sy / clusterSize);
+		int goalCluster = getClusterId(tx / clusterSize, ty / clusterSize);
+		startNode.set(sx, sy, startCluster);
+		goalNode.set(tx, ty, goalCluster);
+
+		// connect the goal to the nodes of its cluster
+		// the costs are computed from the goal outwards, which is a good enough
+		// approximation for the abstract search, the refinement uses the real costs
+		float directCost = Float.POSITIVE_INFINITY;
+		computeLocalCosts(tx, ty, goalCluster);
+		Array<AbstractNode> nodes = clusterNodes[goalCluster];
+		for (int i = 0; i < nodes.size; ++i) {
+			AbstractNode node = nodes.get(i);
+			node.goalCost = getLocalCost(node.x, node.y, goalCluster);
+			node.goalSearchId = searchId;
+		}
+		if (startCluster == goalCluster) {
+			directCost = getLocalCost(sx, sy, goalCluster);
+		}
+
+		// connect the start to the nodes of its cluster
+		open.clear();
+		startNode.reset(searchId);
+		startNode.closed = true;
+		if (directCost != Float.POSITIVE_INFINITY) {
+			goalNode.reset(searchId);
+			goalNode.cost = directCost;
+			goalNode.parent = startNode;
+			goalNode.open = true;
+			open.add(goalNode, directCost);
+		}
+		computeLocalCosts(sx, sy, startCluster);
+		nodes = clusterNodes[startCluster];
+		for (int i = 0; i < nodes.size; ++i) {
+			AbstractNode node = nodes.get(i);
+			float cost = getLocalCost(node.x, node.y, startCluster);
+			if (cost != Float.POSITIVE_INFINITY) {
+				relax(startNode, node, cost, tx, ty);
+			}
+		}
+
+		while (open.size > 0) {
+			AbstractNode current = open.pop();
+			current.open = false;
+			if (current == goalNode) {
+				break;
+			}
+			current.closed = true;
+
+			for (int i = 0; i < current.neighbours.size; ++i) {
+				relax(current, current.neighbours.get(i), current.costs.get(i), tx, ty);
+			}
+			if (current.partner != null) {
+				relax(current, current.partner, current.partnerCost, tx, ty);
+			}
+			if (current.goalSearchId == searchId && current.goalCost != Float.POSITIVE_INFINITY) {
+				relax(current, goalNode, current.goalCost, tx, ty);
+			}
+		}
+		open.clear();
+
+		if (goalNode.searchId != searchId || goalNode.parent == null) {
+			return false;
+		}
+
+		AbstractNode node = goalNode;
+		while (node != null) {
+			// the start or target can share the tile with an entrance
+			int size = waypoints.size;
+			if (size == 0 || waypoints.get(size - 2) != node.x || waypoints.get(size - 1) != node.y) {
+				waypoints.add(node.x);
+				waypoints.add(node.y);
+			}
+			node = node.parent;
+		}
+		return true;
+	}
+
+	private void relax(AbstractNode from, AbstractNode to, float edgeCost, int tx, int ty) {
+		if (to.searchId != searchId) {
+			to.reset(searchId);
+		}
+		if (to.closed) {
+			return;
+		}
+		float cost = from.cost + edgeCost;
+		if (to.open) {
+			if (cost < to.cost) {
+				to.cost = cost;
+				to.parent = from;
+				open.setValue(to, cost + getHeuristic(to, tx, ty));
+			}
+		} else {
+			to.cost = cost;
+			to.parent = from;
+			to.open = true;
+			open.add(to, cost + getHeuristic(to, tx, ty));
+		}
+	}
+
+	private float getHeuristic(AbstractNode node, int tx, int ty) {
+		float dx = tx - node.x;
+		float dy = ty - node.y;
+		return (float) Math.sqrt(dx * dx + dy * dy);
+	}
+
+	/**
+	 * Rebuilds all dirty borders and clusters.
+	 */
+	private void update() {
+		if (!dirty) {
+			return;
+		}
+		for (int cy = 0; cy < clustersY; ++cy) {
+			for (int cx = 0; cx < clustersX; ++cx) {
+				int cluster = getClusterId(cx, cy);
+				if (dirtyEastBorders[cluster]) {
+					rebuildBorder(cx, cy, true);
+					dirtyEastBorders[cluster] = false;
+				}
+				if (dirtyNorthBorders[cluster]) {
+					rebuildBorder(cx, cy, false);
+					dirtyNorthBorders[cluster] = false;
+				}
+			}
+		}
+		for (int cluster = 0; cluster < dirtyClusters.length; ++cluster) {
+			if (dirtyClusters[cluster]) {
+				rebuildIntraEdges(cluster);
+				dirtyClusters[cluster] = false;
+			}
+		}
+		dirty = false;
+	}
+
+	/**
+	 * Recreates the entrances on the east or north border of the supplied cluster.
+	 */
+	private void rebuildBorder(int cx, int cy, boolean east) {
+		int cluster = getClusterId(cx, cy);
+		int otherCluster;
+		if (east) {
+			if (cx + 1 >= clustersX) {
+				return;
+			}
+			otherCluster = cluster + 1;
+		} else {
+			if (cy + 1 >= clustersY) {
+				return;
+			}
+			otherCluster = cluster + clustersX;
+		}
+
+		Array<AbstractNode> borderNodes = east ? eastBorderNodes[cluster] : northBorderNodes[cluster];
+		for (int i = 0; i < borderNodes.size; ++i) {
+			AbstractNode node = borderNodes.get(i);
+			clusterNodes[node.cluster].removeValue(node, true);
+		}
+		borderNodes.clear();
+		dirtyClusters[cluster] = true;
+		dirtyClusters[otherCluster] = true;
+
+		// the border is the last column (or row) of this cluster and
+		// the first column (or row) of the other one
+		int length = east ? Math.min(clusterSize, height - cy * clusterSize) : Math.min(clusterSize, width - cx * clusterSize);
+		int fixed = east ? (cx + 1) * clusterSize - 1 : (cy + 1) * clusterSize - 1;
+		int offset = east ? cy * clusterSize : cx * clusterSize;
+
+		int runStart = -1;
+		for (int i = 0; i <= length; ++i) {
+			boolean passable = false;
+			if (i < length) {
+				int along = offset + i;
+				passable = east ? !map.blockedByMap(fixed, along) && !map.blockedByMap(fixed + 1, along)
+						: !map.blockedByMap(along, fixed) && !map.blockedByMap(along, fixed + 1);
+			}
+			if (passable && runStart < 0) {
+				runStart = i;
+			} else if (!passable && runStart >= 0) {
+				int runEnd = i - 1;
+				if (runEnd - runStart + 1 > MAX_SINGLE_NODE_ENTRANCE_WIDTH) {
+					addEntrance(borderNodes, east, fixed, offset + runStart, cluster, otherCluster);
+					addEntrance(borderNodes, east, fixed, offset + runEnd, cluster, otherCluster);
+				} else {
+					addEntrance(borderNodes, east, fixed, offset + (runStart + runEnd) / 2, cluster, otherCluster);
+				}
+				runStart = -1;
+			}
+		}
+	}
+
+	private void addEntrance(Array<AbstractNode> borderNodes, boolean east, int fixed, int along, int cluster, int otherCluster) {
+		AbstractNode node = east ? new AbstractNode(fixed, along, cluster) : new AbstractNode(along, fixed, cluster);
+		AbstractNode other = east ? new AbstractNode(fixed + 1, along, otherCluster) : new AbstractNode(along, fixed + 1, otherCluster);
+		node.partner = other;
+		node.partnerCost = map.getMoveCost(null, other.x, other.y);
+		other.partner = node;
+		other.partnerCost = map.getMoveCost(null, node.x, node.y);
+		borderNodes.add(node);
+		borderNodes.add(other);
+		clusterNodes[cluster].add(node);
+		clusterNodes[otherCluster].add(other);
+	}
+
+	/**
+	 * Recomputes the costs of moving between all nodes of the supplied cluster.
+	 */
+	private void rebuildIntraEdges(int cluster) {
+		Array<AbstractNode> nodes = clusterNodes[cluster];
+		for (int i = 0; i < nodes.size; ++i) {
+			AbstractNode node = nodes.get(i);
+			node.neighbours.clear();
+			node.costs.clear();
+			computeLocalCosts(node.x, node.y, cluster);
+			for (int j = 0; j < nodes.size; ++j) {
+				if (i == j) {
+					continue;
+				}
+				AbstractNode other = nodes.get(j);
+				float cost = getLocalCost(other.x, other.y, cluster);
+				if (cost != Float.POSITIVE_INFINITY) {
+					node.neighbours.add(other);
+					node.costs.add(cost);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Runs a Dijkstra search from the supplied tile that does not leave
+	 * the supplied cluster. The results can be read using getLocalCost.
+	 */
+	private void computeLocalCosts(int sx, int sy, int cluster) {
+		++localGeneration;
+		if (localGeneration == 0) {
+			Arrays.fill(localGenerations, 0);
+			localGeneration = 1;
+		}
+		int x0 = (cluster % clustersX) * clusterSize;
+		int y0 = (cluster / clustersX) * clusterSize;
+		int x1 = Math.min(width, x0 + clusterSize);
+		int y1 = Math.min(height, y0 + clusterSize);
+
+		localOpen.clear();
+		int start = (sx - x0) + (sy - y0) * clusterSize;
+		localGenerations[start] = localGeneration;
+		localCosts[start] = 0;
+		localOpen.add(start, 0);
+
+		while (!localOpen.isEmpty()) {
+			int current = localOpen.pop();
+			int cx = x0 + current % clusterSize;
+			int cy = y0 + current / clusterSize;
+			float currentCost = localCosts[current];
+			for (int x = -1; x < 2; ++x) {
+				for (int y = -1; y < 2; ++y) {
+					if (x == 0 && y == 0) {
+						continue;
+					}
+					int xp = cx + x;
+					int yp = cy + y;
+					if (xp < x0 || yp < y0 || xp >= x1 || yp >= y1 || map.blockedByMap(xp, yp)) {
+						continue;
+					}
+					float cost = map.getMoveCost(null, xp, yp);
+					if (x != 0 && y != 0) {
+						boolean firstBlocked = map.blockedByMap(cx, yp);
+						boolean secondBlocked = map.blockedByMap(xp, cy);
+						if (firstBlocked && secondBlocked) {
+							continue;
+						}
+						cost *= (firstBlocked || secondBlocked) ? 2.5f : 1.5f;
+					}
+					int neighbour = (xp - x0) + (yp - y0) * clusterSize;
+					float nextCost = currentCost + cost;
+					if (localGenerations[neighbour] != localGeneration) {
+						localGenerations[neighbour] = localGeneration;
+						localCosts[neighbour] = nextCost;
+						localOpen.add(neighbour, nextCost);
+					} else if (nextCost < localCosts[neighbour] && localOpen.contains(neighbour)) {
+						localCosts[neighbour] = nextCost;
+						localOpen.update(neighbour, nextCost);
+					}
+				}
+			}
+		}
+	}
+
+	private float getLocalCost(int x, int y, int cluster) {
+		int x0 = (cluster % clustersX) * clusterSize;
+		int y0 = (cluster / clustersX) * clusterSize;
+		int local = (x - x0) + (y - y0) * clusterSize;
+		return localGenerations[local] == localGeneration ? localCosts[local] : Float.POSITIVE_INFINITY;
+	}
+
+	private int getClusterId(int cx, int cy) {
+		return cx + cy * clustersX;
+	}
+
+	/**
+	 * A single node of the abstract graph.
+	 */
+	private static class AbstractNode extends BinaryHeap.Node {
+		private int x, y;
+		private int cluster;
+		/** The node on the other side of the entrance this node belongs to */
+		private AbstractNode partner;
+		private float partnerCost;
+		/** Nodes in the same cluster reachable from this one */
+		private Array<AbstractNode> neighbours = new Array<AbstractNode>(false, 8);
+		private FloatArray costs = new FloatArray(false, 8);
+
+		// search state
+		private int searchId;
+		private float cost;
+		private AbstractNode parent;
+		private boolean open, closed;
+		private float goalCost;
+		private int goalSearchId;
+
+		private AbstractNode(int x, int y, int cluster) {
+			super(0);
+			set(x, y, cluster);
+		}
+
+		private void set(int x, int y, int cluster) {
+			this.x = x;
+			this.y = y;
+			this.cluster = cluster;
+		}
+
+		private void reset(int searchId) {
+			this.searchId = searchId;
+			cost = 0;
+			parent = null;
+			open = false;
+			closed = false;
+		}
+	}
+}
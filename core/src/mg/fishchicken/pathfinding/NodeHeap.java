@@ -0,0 +1,196 @@
+package mg.fishchicken.pathfinding;
+
+import java.util.Arrays;
+
+/**
+ * An indexed binary min-heap of search nodes identified by their int ids.
+ *
+ * Nodes are ordered by their priority and, for equal priorities, by the order
+ * in which they were added (or last updated), so the heap behaves exactly like
+ * a stable sorted list would. Each node's position in the heap is tracked, which
+ * makes contains, remove and decrease-key operations O(1) / O(log n).
+ *
+ * The heap never needs a full reset - clearing it only touches the nodes that
+ * are currently in it.
+ *
+ */
+public class NodeHeap {
+
+	/** The node ids, in heap order */
+	private int[] heap;
+	/** Number of nodes currently in the heap */
+	private int size;
+	/** The priority of each node, indexed by node id */
+	private float[] priorities;
+	/** The insertion sequence of each node, indexed by node id, used to break ties */
+	private long[] sequences;
+	/** The position of each node in the heap, or -1 if it is not in the heap */
+	private int[] positions;
+	private long nextSequence;
+
+	/**
+	 * Creates a new heap that can contain node ids from 0 to capacity - 1.
+	 * @param capacity
+	 */
+	public NodeHeap(int capacity) {
+		heap = new int[Math.max(16, capacity / 8)];
+		priorities = new float[capacity];
+		sequences = new long[capacity];
+		positions = new int[capacity];
+		Arrays.fill(positions, -1);
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public boolean contains(int node) {
+		return positions[node] >= 0;
+	}
+
+	/**
+	 * Returns the node with the lowest priority without removing it.
+	 * If more nodes share the lowest priority, the one added first is returned.
+	 * @return
+	 */
+	public int peek() {
+		return heap[0];
+	}
+
+	/**
+	 * Removes and returns the node with the lowest priority.
+	 * @return
+	 */
+	public int pop() {
+		int node = heap[0];
+		removeAt(0);
+		return node;
+	}
+
+	/**
+	 * Adds the supplied node to the heap. If the node is already
+	 * in the heap, its priority is updated instead and it is treated as if
+	 * it was just added.
+	 *
+	 * @param node
+	 * @param priority
+	 */
+	public void add(int node, float priority) {
+		if (contains(node)) {
+			update(node, priority);
+			return;
+		}
+		if (size == heap.length) {
+			heap = Arrays.copyOf(heap, Math.min(priorities.length, heap.length * 2));
+		}
+		priorities[node] = priority;
+		sequences[node] = nextSequence++;
+		heap[size] = node;
+		positions[node] = size;
+		++size;
+		siftUp(size - 1);
+	}
+
+	/**
+	 * Changes the priority of a node already in the heap. The node
+	 * will be ordered after all other nodes with the same priority.
+	 *
+	 * @param node
+	 * @param priority
+	 */
+	public void update(int node, float priority) {
+		int position = positions[node];
+		priorities[node] = priority;
+		sequences[node] = nextSequence++;
+		siftDown(siftUp(position));
+	}
+
+	/**
+	 * Removes the supplied node from the heap, if it is in it.
+	 * @param node
+	 */
+	public void remove(int node) {
+		int position = positions[node];
+		if (position >= 0) {
+			removeAt(position);
+		}
+	}
+
+	/**
+	 * Removes all nodes from the heap.
+	 */
+	public void clear() {
+		for (int i = 0; i < size; ++i) {
+			positions[heap[i]] = -1;
+		}
+		size = 0;
+		nextSequence = 0;
+	}
+
+	private void removeAt(int position) {
+		positions[heap[position]] = -1;
+		--size;
+		if (position == size) {
+			return;
+		}
+		int last = heap[size];
+		heap[position] = last;
+		positions[last] = position;
+		siftDown(siftUp(position));
+	}
+
+	private boolean less(int a, int b) {
+		float pa = priorities[a];
+		float pb = priorities[b];
+		if (pa < pb) {
+			return true;
+		}
+		if (pa > pb) {
+			return false;
+		}
+		return sequences[a] < sequences[b];
+	}
+
+	private int siftUp(int position) {
+		int node = heap[position];
+		while (position > 0) {
+			int parentPosition = (position - 1) >>> 1;
+			int parent = heap[parentPosition];
+			if (!less(node, parent)) {
+				break;
+			}
+			heap[position] = parent;
+			positions[parent] = position;
+			position = parentPosition;
+		}
+		heap[position] = node;
+		positions[node] = position;
+		return position;
+	}
+
+	private void siftDown(int position) {
+		int node = heap[position];
+		int half = size >>> 1;
+		while (position < half) {
+			int childPosition = (position << 1) + 1;
+			int child = heap[childPosition];
+			int rightPosition = childPosition + 1;
+			if (rightPosition < size && less(heap[rightPosition], child)) {
+				childPosition = rightPosition;
+				child = heap[childPosition];
+			}
+			if (!less(child, node)) {
+				break;
+			}
+			heap[position] = child;
+			positions[child] = position;
+			position = childPosition;
+		}
+		heap[position] = node;
+		positions[node] = position;
+	}
+}
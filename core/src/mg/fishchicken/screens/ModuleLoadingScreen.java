@@ -1,8 +1,8 @@
 package mg.fishchicken.screens;
 
-import groovy.util.Eval;
-
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.EnumMap;
 import java.util.HashSet;
 
 import mg.fishchicken.FishchickenGame;
@@ -10,9 +10,14 @@ import mg.fishchicken.audio.AudioProfile;
 import mg.fishchicken.core.GameState;
 import mg.fishchicken.core.assets.AssetMap;
 import mg.fishchicken.core.assets.Assets;
+import mg.fishchicken.core.assets.AtlassedAssetManager;
+import mg.fishchicken.core.assets.ModuleDataCache;
 import mg.fishchicken.core.configuration.Configuration;
 import mg.fishchicken.core.i18n.Strings;
+import mg.fishchicken.core.logging.Log;
+import mg.fishchicken.core.logging.Log.LogType;
 import mg.fishchicken.core.projectiles.ProjectileType;
+import mg.fishchicken.core.util.GroovyUtil;
 import mg.fishchicken.gamelogic.characters.AIScript;
 import mg.fishchicken.gamelogic.characters.Race;
 import mg.fishchicken.gamelogic.characters.Role;
@@ -40,7 +45,6 @@ import mg.fishchicken.ui.loading.LoadingIndicator.LoadingIndicatorStyle;
 import mg.fishchicken.ui.loading.LoadingScreenBackground;
 
 import com.badlogic.gdx.Gdx;
-import com.badlogic.gdx.assets.AssetManager;
 import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.scenes.scene2d.Event;
 import com.badlogic.gdx.scenes.scene2d.EventListener;
@@ -53,16 +57,61 @@ import com.badlogic.gdx.utils.SerializationException;
 
 public class ModuleLoadingScreen extends BasicStageScreen {
 
+	/**
+	 * The stages of loading a module. Each stage can only start once all the stages it depends on
+	 * are loaded, since loading its assets needs theirs. Stages that do not depend on each other
+	 * are loaded at the same time.
+	 */
 	private enum AssetsToLoad {
-		Configuration, Strings, UI, StorySequences, ParticleEffects, Lights, Races, Roles, AudioProfiles, Models, Projectiles,
-		Effects, Chatters, AIScripts, Items, ItemGroups,
-		Factions, Quests, Perks, PerkImages, Spells, SpellImages, Traps, Weather, GlobalAssets, GROOVY
+		Configuration, 
+		Strings(Configuration), 
+		GlobalAssets(Strings), 
+		UI(GlobalAssets), 
+		StorySequences(UI), 
+		ParticleEffects(UI), 
+		Lights(UI), 
+		Chatters(UI), 
+		AudioProfiles(UI), 
+		Models(UI), 
+		AIScripts(UI), 
+		ItemGroups(UI), 
+		Factions(UI), 
+		Projectiles(ParticleEffects, Lights),
+		Effects(ParticleEffects, Lights, Projectiles, AudioProfiles), 
+		Quests(Factions, Effects), 
+		Items(Models, Effects, Factions, ItemGroups, AudioProfiles), 
+		Races(Models, Effects, Items, AudioProfiles, Factions), 
+		Roles(Races), 
+		Perks(Effects, Projectiles, Roles), 
+		PerkImages(Perks), 
+		Spells(Effects, Projectiles, Items, Perks), 
+		SpellImages(Spells), 
+		Traps(Effects, Projectiles), 
+		Weather(ParticleEffects, AudioProfiles), 
+		// warms up Groovy once everything else is loaded
+		GROOVY;
+		
+		private final AssetsToLoad[] dependencies;
+		
+		private AssetsToLoad(AssetsToLoad... dependencies) {
+			this.dependencies = dependencies;
+		}
+		
+		private AssetsToLoad[] getDependencies() {
+			if (this == GROOVY) {
+				AssetsToLoad[] everythingElse = values();
+				return Arrays.copyOf(everythingElse, everythingElse.length - 1);
+			}
+			return dependencies;
+		}
 	};
 
 	private final FishchickenGame game;
 	private HashSet<AssetsToLoad> assetsGathered;
-	private final AssetManager am;
+	private final AtlassedAssetManager am;
 	private HashSet<AssetsToLoad> loaded;
+	private EnumMap<AssetsToLoad, Array<String>> queuedFiles;
+	private EnumMap<AssetsToLoad, Long> startTimes, finishTimes;
 	private GameState createdGameState;
 	private Skin loadedUISkin;
 	private LoadingIndicator loadingIndicator;
@@ -75,6 +124,9 @@ public class ModuleLoadingScreen extends BasicStageScreen {
 		loadedUISkin = null;
 		assetsGathered =  new HashSet<AssetsToLoad>();
 		loaded = new HashSet<AssetsToLoad>();
+		queuedFiles = new EnumMap<AssetsToLoad, Array<String>>(AssetsToLoad.class);
+		startTimes = new EnumMap<AssetsToLoad, Long>(AssetsToLoad.class);
+		finishTimes = new EnumMap<AssetsToLoad, Long>(AssetsToLoad.class);
 	}
 	
 	@Override
@@ -139,96 +191,182 @@ public class ModuleLoadingScreen extends BasicStageScreen {
 		try {
 			if (!loaded.contains(AssetsToLoad.Configuration)) {
 				loadConfiguration();
+				if (loaded.contains(AssetsToLoad.Configuration)) {
+					finishStage(AssetsToLoad.Configuration);
+				}
 				return AssetsToLoad.Configuration;
-			} else if (!loaded.contains(AssetsToLoad.Strings)) {
-				loadStrings();
-				return AssetsToLoad.Strings;
-			} else if (!loaded.contains(AssetsToLoad.GlobalAssets)) {
-				loadGlobalAssets();
-				return AssetsToLoad.GlobalAssets;
-			} else if (!loaded.contains(AssetsToLoad.UI)) {
-				loadUI();
-				return AssetsToLoad.UI;
-			} else if (!loaded.contains(AssetsToLoad.StorySequences)) {
-				loadEndings();
-				return AssetsToLoad.StorySequences;
-			} else if (!loaded.contains(AssetsToLoad.ParticleEffects)) {
-				loadParticleEffects();
-				return AssetsToLoad.ParticleEffects;
-			} else if (!loaded.contains(AssetsToLoad.Lights)) {
-				loadLights();
-				return AssetsToLoad.Lights;
-			} else if (!loaded.contains(AssetsToLoad.Projectiles)) {
-				loadProjectiles();
-				return AssetsToLoad.Projectiles;
-			} else if (!loaded.contains(AssetsToLoad.Chatters)) {
-				loadChatters();
-				return AssetsToLoad.Chatters;
-			} else if (!loaded.contains(AssetsToLoad.AudioProfiles)) {
-				loadAudioProfiles();
-				return AssetsToLoad.AudioProfiles;
-			} else if (!loaded.contains(AssetsToLoad.Models)) {
-				loadModels();
-				return AssetsToLoad.Models;
-			} else if (!loaded.contains(AssetsToLoad.AIScripts)) {
-				loadAIScripts();
-				return AssetsToLoad.AIScripts;
-			} else if (!loaded.contains(AssetsToLoad.Effects)) {
-				loadEffects();
-				return AssetsToLoad.Effects;
-			} else if (!loaded.contains(AssetsToLoad.ItemGroups)) {
-				loadItemGroups();
-				return AssetsToLoad.ItemGroups;
-			} else if (!loaded.contains(AssetsToLoad.Factions)) {
-				loadFactions();
-				return AssetsToLoad.Factions;
-			} else if (!loaded.contains(AssetsToLoad.Quests)) {
-				loadQuests();
-				return AssetsToLoad.Quests;
-			} else if (!loaded.contains(AssetsToLoad.Items)) {
-				loadItems();
-				return AssetsToLoad.Items;
-			} else if (!loaded.contains(AssetsToLoad.Races)) {
-				loadRaces();
-				return AssetsToLoad.Races;
-			} else if (!loaded.contains(AssetsToLoad.Roles)) {
-				loadRoles();
-				return AssetsToLoad.Roles;
-			} else if (!loaded.contains(AssetsToLoad.Perks)) {
-				loadPerks();
-				return AssetsToLoad.Perks;
-			} else if (!loaded.contains(AssetsToLoad.PerkImages)) {
-				loadPerkImages();
-				return AssetsToLoad.PerkImages;
-			} else if (!loaded.contains(AssetsToLoad.Spells)) {
-				loadSpells();
-				return AssetsToLoad.Spells;
-			} else if (!loaded.contains(AssetsToLoad.SpellImages)) {
-				loadSpellImages();
-				return AssetsToLoad.SpellImages;
-			} else if (!loaded.contains(AssetsToLoad.Traps)) {
-				loadTraps();
-				return AssetsToLoad.Traps;
-			}  else if (!loaded.contains(AssetsToLoad.Weather)) {
-				loadWeather();
-				return AssetsToLoad.Weather;
-			} else if (!loaded.contains(AssetsToLoad.GROOVY)) {
-				loaded.add(AssetsToLoad.GROOVY);
-				return AssetsToLoad.GROOVY;
 			}
+			if (loaded.size() == AssetsToLoad.values().length) {
+				return null;
+			}
+			
+			AssetsToLoad warmedUp = startReadyStages();
+			boolean allLoaded = am.update();
+			AssetsToLoad loadingWhat = warmedUp;
+			for (AssetsToLoad stage : AssetsToLoad.values()) {
+				if (!assetsGathered.contains(stage) || loaded.contains(stage)) {
+					continue;
+				}
+				if (allLoaded || areLoaded(queuedFiles.get(stage))) {
+					finishStage(stage);
+				} else if (loadingWhat == null) {
+					loadingWhat = stage;
+				}
+			}
+			if (loadingWhat == null) {
+				// what finished this frame unblocked other stages, they will start next frame
+				for (AssetsToLoad stage : AssetsToLoad.values()) {
+					if (!loaded.contains(stage)) {
+						return stage;
+					}
+				}
+			}
+			return loadingWhat;
 		} catch (final NoModuleDefinedException e) {
 			throw e;
 		} catch (final IOException e) {
 			throw new GdxRuntimeException(e);
 		}
-		// TODO: this does not work. :( This will initialize all the required Groovy classes, removing stutter the first time script is executed ingame
-		Eval.me("1 == 1");
+	}
+	
+	/**
+	 * Gathers the assets of all stages that were not started yet,
+	 * but whose dependencies are all loaded.
+	 * 
+	 * Groovy is warmed up right away once everything else is loaded, since it
+	 * needs to be done on this thread.
+	 * 
+	 * @return the GROOVY stage if Groovy was warmed up, null otherwise
+	 * @throws IOException
+	 */
+	private AssetsToLoad startReadyStages() throws IOException {
+		for (AssetsToLoad stage : AssetsToLoad.values()) {
+			if (assetsGathered.contains(stage) || !areLoaded(stage.getDependencies())) {
+				continue;
+			}
+			startTimes.put(stage, System.nanoTime());
+			assetsGathered.add(stage);
+			if (stage == AssetsToLoad.GROOVY) {
+				GroovyUtil.warmUp();
+				finishStage(stage);
+				reportTimings();
+				ModuleDataCache.save();
+				return stage;
+			}
+			Array<String> fileNames = new Array<String>();
+			queuedFiles.put(stage, fileNames);
+			am.startRecording(fileNames);
+			// everything the assets of this stage need is loaded by now,
+			// so they can be parsed on the worker threads
+			am.setPreloading(true);
+			try {
+				gatherAssets(stage);
+			} finally {
+				am.setPreloading(false);
+				am.stopRecording();
+			}
+		}
 		return null;
 	}
 	
+	private void gatherAssets(AssetsToLoad stage) throws IOException {
+		switch (stage) {
+			case Strings: Strings.gatherStringResources(); break;
+			case GlobalAssets: gatherGlobalAssets(); break;
+			case UI: UIManager.loadUIAssets(); break;
+			case StorySequences: StorySequence.gatherStorySequences(); break;
+			case ParticleEffects: ParticleEffectManager.gatherParticleEffects(); break;
+			case Lights: LightDescriptor.gatherLights(); break;
+			case Chatters: Chatter.gatherChatters(); break;
+			case AudioProfiles: AudioProfile.gatherAudioProfiles(); break;
+			case Models: 
+				CharacterModel.gatherModels();
+				ItemModel.gatherModels();
+				break;
+			case AIScripts: AIScript.gatherAIScripts(); break;
+			case ItemGroups: ItemGroup.loadItemGroups(); break;
+			case Factions: Faction.gatherFactions(); break;
+			case Projectiles: ProjectileType.gatherProjectileTypes(); break;
+			case Effects: Effect.gatherEffects(); break;
+			case Quests: Quest.gatherQuests(); break;
+			case Items: InventoryItem.gatherInventoryItems(); break;
+			case Races: Race.gatherRaces(); break;
+			case Roles: Role.gatherRoles(); break;
+			case Perks: Perk.gatherPerks(); break;
+			case PerkImages: Perk.gatherPerkImages(); break;
+			case Spells: Spell.gatherSpells(); break;
+			case SpellImages: Spell.gatherSpellImages(); break;
+			case Traps: TrapType.gatherTraps(); break;
+			case Weather: WeatherProfile.gatherWeatherProfiles(); break;
+			default: 
+				throw new GdxRuntimeException("Stage "+stage+" has no assets to gather.");
+		}
+	}
+	
+	private void finishStage(AssetsToLoad stage) {
+		loaded.add(stage);
+		finishTimes.put(stage, System.nanoTime());
+	}
+	
+	private boolean areLoaded(AssetsToLoad[] stages) {
+		for (AssetsToLoad stage : stages) {
+			if (!loaded.contains(stage)) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	private boolean areLoaded(Array<String> fileNames) {
+		for (int i = 0; i < fileNames.size; ++i) {
+			if (!am.isLoaded(fileNames.get(i))) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * Logs how long each stage took and which stages the loading
+	 * had to wait for, from the first to the last one.
+	 */
+	private void reportTimings() {
+		long start = startTimes.get(AssetsToLoad.Configuration);
+		AssetsToLoad last = null;
+		for (AssetsToLoad stage : AssetsToLoad.values()) {
+			Log.log("Loading {0} took {1} ms, from {2} ms to {3} ms.", LogType.DEBUG, stage,
+					(finishTimes.get(stage) - startTimes.get(stage)) / 1000000,
+					(startTimes.get(stage) - start) / 1000000, (finishTimes.get(stage) - start) / 1000000);
+			if (last == null || finishTimes.get(stage) > finishTimes.get(last)) {
+				last = stage;
+			}
+		}
+		StringBuilder criticalPath = new StringBuilder();
+		while (last != null) {
+			criticalPath.insert(0, last);
+			AssetsToLoad waitedFor = null;
+			for (AssetsToLoad dependency : last.getDependencies()) {
+				if (waitedFor == null || finishTimes.get(dependency) > finishTimes.get(waitedFor)) {
+					waitedFor = dependency;
+				}
+			}
+			if (waitedFor != null) {
+				criticalPath.insert(0, " > ");
+			}
+			last = waitedFor;
+		}
+		Log.log("Module loaded in {0} ms, critical path: {1}", LogType.DEBUG,
+				(finishTimes.get(AssetsToLoad.GROOVY) - start) / 1000000, criticalPath);
+		Log.log("Scripts compiled: {0} ({1} statically) in {2} ms, scripts loaded: {3} in {4} ms.", LogType.DEBUG,
+				GroovyUtil.getCompiledCount(), GroovyUtil.getStaticallyCompiledCount(),
+				GroovyUtil.getTotalCompileTime() / 1000000, GroovyUtil.getLoadedCount(),
+				GroovyUtil.getTotalLoadTime() / 1000000);
+	}
+	
 	private void loadConfiguration() throws NoModuleDefinedException, IOException {
 		if (!assetsGathered.contains(AssetsToLoad.Configuration)) {
 			assetsGathered.add(AssetsToLoad.Configuration);
+			startTimes.put(AssetsToLoad.Configuration, System.nanoTime());
 		}
 		if (am.update()) {
 			FileHandle currentModuleFile = Gdx.files.local(Configuration.FILE_LAST_MODULE);
@@ -245,6 +383,8 @@ public class ModuleLoadingScreen extends BasicStageScreen {
 				throw new NoModuleDefinedException();
 			}
 			Configuration.loadModule(Gdx.files, moduleName);
+			ModuleDataCache.load(Gdx.files.internal(Configuration.getFolderModule()),
+					Gdx.files.local(Configuration.getFileModuleCache()));
 			Gdx.graphics.setTitle(Configuration.getCurrentModuleName());
 			createdGameState = new GameState(game);
 			loadingScreenConfiguration = Configuration
@@ -254,248 +394,11 @@ public class ModuleLoadingScreen extends BasicStageScreen {
 		}
 	}
 
-	private void loadStrings() throws IOException {
-		if (!assetsGathered.contains(AssetsToLoad.Strings)) {
-			Strings.gatherStringResources();
-			assetsGathered.add(AssetsToLoad.Strings);
-		}
-		if (am.update()) {
-			loaded.add(AssetsToLoad.Strings);
-		}
-	}
-
-	private void loadParticleEffects() throws IOException {
-		if (!assetsGathered.contains(AssetsToLoad.ParticleEffects)) {
-			ParticleEffectManager.gatherParticleEffects();
-			assetsGathered.add(AssetsToLoad.ParticleEffects);
-		}
-		if (am.update()) {
-			loaded.add(AssetsToLoad.ParticleEffects);
-		}
-	}
-
-	private void loadLights() throws IOException {
-		if (!assetsGathered.contains(AssetsToLoad.Lights)) {
-			LightDescriptor.gatherLights();
-			assetsGathered.add(AssetsToLoad.Lights);
-		}
-		if (am.update()) {
-			loaded.add(AssetsToLoad.Lights);
-		}
-	}
-
-	private void loadProjectiles() throws IOException {
-		if (!assetsGathered.contains(AssetsToLoad.Projectiles)) {
-			ProjectileType.gatherProjectileTypes();
-			assetsGathered.add(AssetsToLoad.Projectiles);
-		}
-		if (am.update()) {
-			loaded.add(AssetsToLoad.Projectiles);
-		}
-	}
-
-	private void loadAIScripts() throws IOException {
-		if (!assetsGathered.contains(AssetsToLoad.AIScripts)) {
-			AIScript.gatherAIScripts();
-			assetsGathered.add(AssetsToLoad.AIScripts);
-		}
-		if (am.update()) {
-			loaded.add(AssetsToLoad.AIScripts);
-		}
-	}
-
-	private void loadRaces() throws IOException {
-		if (!assetsGathered.contains(AssetsToLoad.Races)) {
-			Race.gatherRaces();
-			assetsGathered.add(AssetsToLoad.Races);
-		}
-		if (am.update()) {
-			loaded.add(AssetsToLoad.Races);
-		}
-	}
-	
-	private void loadRoles() throws IOException {
-		if (!assetsGathered.contains(AssetsToLoad.Roles)) {
-			Role.gatherRoles();
-			assetsGathered.add(AssetsToLoad.Roles);
-		}
-		if (am.update()) {
-			loaded.add(AssetsToLoad.Roles);
-		}
-	}
-	
-	private void loadAudioProfiles() throws IOException {
-		if (!assetsGathered.contains(AssetsToLoad.AudioProfiles)) {
-			AudioProfile.gatherAudioProfiles();
-			assetsGathered.add(AssetsToLoad.AudioProfiles);
-		}
-		if (am.update()) {
-			loaded.add(AssetsToLoad.AudioProfiles);
-		}
-	}
-	
-	private void loadModels() throws IOException {
-		if (!assetsGathered.contains(AssetsToLoad.Models)) {
-			CharacterModel.gatherModels();
-			ItemModel.gatherModels();
-			assetsGathered.add(AssetsToLoad.Models);
-		}
-		if (am.update()) {
-			loaded.add(AssetsToLoad.Models);
-		}
-	}
-
-	private void loadWeather() throws IOException {
-		if (!assetsGathered.contains(AssetsToLoad.Weather)) {
-			WeatherProfile.gatherWeatherProfiles();
-			assetsGathered.add(AssetsToLoad.Weather);
-		}
-		if (am.update()) {
-			loaded.add(AssetsToLoad.Weather);
-		}
-	}
-
-	private void loadQuests() throws IOException {
-		if (!assetsGathered.contains(AssetsToLoad.Quests)) {
-			Quest.gatherQuests();
-			assetsGathered.add(AssetsToLoad.Quests);
-		}
-		if (am.update()) {
-			loaded.add(AssetsToLoad.Quests);
-		}
-	}
-
-	private void loadPerks() throws IOException {
-		if (!assetsGathered.contains(AssetsToLoad.Perks)) {
-			Perk.gatherPerks();
-			assetsGathered.add(AssetsToLoad.Perks);
-		}
-		if (am.update()) {
-			loaded.add(AssetsToLoad.Perks);
-		}
-	}
-
-	private void loadPerkImages() throws IOException {
-		if (!assetsGathered.contains(AssetsToLoad.PerkImages)) {
-			Perk.gatherPerkImages();
-			assetsGathered.add(AssetsToLoad.PerkImages);
-		}
-		if (am.update()) {
-			loaded.add(AssetsToLoad.PerkImages);
-		}
-	}
-
-	private void loadSpells() throws IOException {
-		if (!assetsGathered.contains(AssetsToLoad.Spells)) {
-			Spell.gatherSpells();
-			assetsGathered.add(AssetsToLoad.Spells);
-		}
-		if (am.update()) {
-			loaded.add(AssetsToLoad.Spells);
-		}
-	}
-
-	private void loadSpellImages() throws IOException {
-		if (!assetsGathered.contains(AssetsToLoad.SpellImages)) {
-			Spell.gatherSpellImages();
-			assetsGathered.add(AssetsToLoad.SpellImages);
-		}
-		if (am.update()) {
-			loaded.add(AssetsToLoad.SpellImages);
-		}
-	}
-	
-	private void loadTraps() throws IOException {
-		if (!assetsGathered.contains(AssetsToLoad.Traps)) {
-			TrapType.gatherTraps();
-			assetsGathered.add(AssetsToLoad.Traps);
-		}
-		if (am.update()) {
-			loaded.add(AssetsToLoad.Traps);
-		}
-	}
-
-	private void loadEffects() throws IOException {
-		if (!assetsGathered.contains(AssetsToLoad.Effects)) {
-			Effect.gatherEffects();
-			assetsGathered.add(AssetsToLoad.Effects);
-		}
-		if (am.update()) {
-			loaded.add(AssetsToLoad.Effects);
-		}
-	}
-
-	private void loadEndings() throws IOException {
-		if (!assetsGathered.contains(AssetsToLoad.StorySequences)) {
-			StorySequence.gatherStorySequences();
-			assetsGathered.add(AssetsToLoad.StorySequences);
-		}
-		if (am.update()) {
-			loaded.add(AssetsToLoad.StorySequences);
-		}
-	}
-	
-	private void loadChatters() throws IOException {
-		if (!assetsGathered.contains(AssetsToLoad.Chatters)) {
-			Chatter.gatherChatters();
-			assetsGathered.add(AssetsToLoad.Chatters);
-		}
-		if (am.update()) {
-			loaded.add(AssetsToLoad.Chatters);
-		}
-	}
-
-	private void loadItems() throws IOException {
-		if (!assetsGathered.contains(AssetsToLoad.Items)) {
-			InventoryItem.gatherInventoryItems();
-			assetsGathered.add(AssetsToLoad.Items);
-		}
-		if (am.update()) {
-			loaded.add(AssetsToLoad.Items);
-		}
-	}
-
-	private void loadFactions() throws IOException {
-		if (!assetsGathered.contains(AssetsToLoad.Factions)) {
-			Faction.gatherFactions();
-			assetsGathered.add(AssetsToLoad.Factions);
-		}
-		if (am.update()) {
-			loaded.add(AssetsToLoad.Factions);
-		}
-	}
-
-	private void loadItemGroups() throws IOException {
-		if (!assetsGathered.contains(AssetsToLoad.ItemGroups)) {
-			ItemGroup.loadItemGroups();
-			assetsGathered.add(AssetsToLoad.ItemGroups);
-		}
-		if (am.update()) {
-			loaded.add(AssetsToLoad.ItemGroups);
-		}
-	}
-
-	private void loadGlobalAssets() {
-		if (!assetsGathered.contains(AssetsToLoad.GlobalAssets)) {
-			final AssetMap assetsToLoad = new AssetMap();
-			Configuration.gatherGlobalAssets(assetsToLoad);
-			for (final Entry<String, Class<?>> entry : assetsToLoad) {
-				am.load(entry.key, entry.value);
-			}
-			assetsGathered.add(AssetsToLoad.GlobalAssets);
-		}
-		if (am.update()) {
-			loaded.add(AssetsToLoad.GlobalAssets);
-		}
-	}
-
-	private void loadUI() {
-		if (!assetsGathered.contains(AssetsToLoad.UI)) {
-			UIManager.loadUIAssets();
-			assetsGathered.add(AssetsToLoad.UI);
-		}
-		if (am.update()) {
-			loaded.add(AssetsToLoad.UI);
+	private void gatherGlobalAssets() {
+		final AssetMap assetsToLoad = new AssetMap();
+		Configuration.gatherGlobalAssets(assetsToLoad);
+		for (final Entry<String, Class<?>> entry : assetsToLoad) {
+			am.load(entry.key, entry.value);
 		}
 	}
 
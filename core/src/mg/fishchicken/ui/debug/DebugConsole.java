@@ -73,7 +73,7 @@ public class DebugConsole extends BorderedWindow {
 		String text = input.getText();
 		Object result = null;
 		try {
-			result = GroovyUtil.createScript(generateScriptName(), text).run();
+			result = GroovyUtil.createScript(generateScriptName(), text).run(null);
 		} catch (Throwable t) {
 			result = t;
 		}
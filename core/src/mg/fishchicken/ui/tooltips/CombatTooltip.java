@@ -74,7 +74,12 @@ public class CombatTooltip extends CompositeTooltip  {
 						chance.append(AttackAction.getChanceToHit(attacker, targetCharacter, null, fromX, fromY));
 						chance.append("%");
 					}
-					addLine(Strings.getString(CombatManager.STRING_TABLE, "chanceToHit")+": " + chance.toString());
+					StringBuilder line = StringUtil.getFSB();
+					Strings.appendString(line, CombatManager.STRING_TABLE, "chanceToHit");
+					line.append(": ").append(chance);
+					// the label copies the text, so the builder can be freed right away
+					addLine(line);
+					StringUtil.freeFSB(line);
 					StringUtil.freeFSB(chance);
 				}
 			}
@@ -45,7 +45,8 @@ public class StatTooltip extends CompositeTooltip {
 				stringBuilder.append(modifier.getName());
 				stringBuilder.append(": ");
 				stringBuilder.append(modifier.getModAsString(stat));
-				addLine(stringBuilder.toString());
+				// the label copies the text, so the builder can be reused right away
+				addLine(stringBuilder);
 			}
 		}
 		shouldDisplay = getRows() > 0;
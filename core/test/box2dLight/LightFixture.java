@@ -0,0 +1,96 @@
+package box2dLight;
+
+import java.util.Random;
+
+import box2dLight.FixtureUserData.UserDataType;
+
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.Body;
+import com.badlogic.gdx.physics.box2d.BodyDef;
+import com.badlogic.gdx.physics.box2d.EdgeShape;
+import com.badlogic.gdx.physics.box2d.FixtureDef;
+import com.badlogic.gdx.physics.box2d.World;
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * A lights world with randomly placed light blocking tiles and walls,
+ * and a ray handler with point lights spread over it.
+ *
+ * Box2D and GL must be initialized before this is created.
+ *
+ */
+class LightFixture {
+
+	// the same number of rays lights carried by characters use
+	static final int RAY_COUNT = 100;
+
+	private final int size;
+	private final World world;
+	private final RayHandler rayHandler;
+	private final Array<PointLight> lights = new Array<PointLight>();
+
+	/**
+	 * @param size - the width and height of the map, in tiles
+	 * @param lightCount
+	 * @param staticGeometry
+	 * @param seed
+	 */
+	LightFixture(int size, int lightCount, boolean staticGeometry, long seed) {
+		this.size = size;
+		world = new World(new Vector2(), true);
+		Random random = new Random(seed);
+		int blockerCount = size * size / 16;
+		for (int i = 0; i < blockerCount; ++i) {
+			float x = random.nextInt(size);
+			float y = random.nextInt(size);
+			if (random.nextInt(4) == 0) {
+				float length = 1 + random.nextInt(6);
+				addEdge(x, y, random.nextBoolean() ? x + length : x, random.nextBoolean() ? y : y + length);
+			} else {
+				addEdge(x, y, x + 1, y);
+				addEdge(x + 1, y, x + 1, y + 1);
+				addEdge(x + 1, y + 1, x, y + 1);
+				addEdge(x, y + 1, x, y);
+			}
+		}
+		rayHandler = new RayHandler(world, 1, 1, null);
+		// there is no camera to cull against
+		rayHandler.setCulling(false);
+		rayHandler.setStaticGeometry(staticGeometry);
+		for (int i = 0; i < lightCount; ++i) {
+			lights.add(new PointLight(rayHandler, RAY_COUNT, Color.WHITE, 4 + random.nextFloat() * 8,
+					random.nextFloat() * size, random.nextFloat() * size));
+		}
+	}
+
+	int getSize() {
+		return size;
+	}
+
+	RayHandler getRayHandler() {
+		return rayHandler;
+	}
+
+	Array<PointLight> getLights() {
+		return lights;
+	}
+
+	void dispose() {
+		rayHandler.dispose();
+		world.dispose();
+	}
+
+	private void addEdge(float x1, float y1, float x2, float y2) {
+		BodyDef bodyDef = new BodyDef();
+		bodyDef.type = BodyDef.BodyType.StaticBody;
+		Body body = world.createBody(bodyDef);
+		EdgeShape shape = new EdgeShape();
+		shape.set(x1, y1, x2, y2);
+		FixtureDef fixture = new FixtureDef();
+		fixture.shape = shape;
+		fixture.density = 1f;
+		body.createFixture(fixture).setUserData(new FixtureUserData(UserDataType.LIGHT_BLOCKER));
+		shape.dispose();
+	}
+}
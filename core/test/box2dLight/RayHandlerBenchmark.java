@@ -0,0 +1,75 @@
+package box2dLight;
+
+import java.util.concurrent.TimeUnit;
+
+import mg.fishchicken.test.TestEnvironment;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * Measures one update of a ray handler with 200 lights, headless,
+ * with the rays cast either through the Box2D world or against the static
+ * edge index. Either all lights move every frame, or none of them do.
+ *
+ * Run with "gradle core:benchmark -Pargs=RayHandler".
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RayHandlerBenchmark {
+
+	private static final int LIGHT_COUNT = 200;
+
+	@Param({ "false", "true" })
+	public boolean staticGeometry;
+
+	@Param({ "false", "true" })
+	public boolean moving;
+
+	private LightFixture fixture;
+	private float offset = 0.01f;
+
+	@Setup
+	public void setUp() {
+		TestEnvironment.initGl();
+		fixture = new LightFixture(128, LIGHT_COUNT, staticGeometry, 200);
+	}
+
+	@TearDown
+	public void tearDown() {
+		fixture.dispose();
+	}
+
+	@Benchmark
+	public RayHandler update() {
+		if (moving) {
+			// back and forth, so that the lights stay where they were placed
+			offset = -offset;
+			Array<PointLight> lights = fixture.getLights();
+			for (int i = 0; i < lights.size; ++i) {
+				PointLight light = lights.get(i);
+				light.setPosition(light.getX() + offset, light.getY());
+			}
+		}
+		RayHandler rayHandler = fixture.getRayHandler();
+		rayHandler.update();
+		return rayHandler;
+	}
+}
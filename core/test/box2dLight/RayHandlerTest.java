@@ -0,0 +1,113 @@
+package box2dLight;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import mg.fishchicken.test.TestEnvironment;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * Checks that lights cast against the static edge index, in parallel,
+ * end their rays at the same points as lights cast through the Box2D world,
+ * and that only lights whose inputs changed are cast again.
+ *
+ * For the timings, see {@link RayHandlerBenchmark}.
+ *
+ */
+public class RayHandlerTest {
+
+	private static final int LIGHT_COUNT = 200;
+
+	@BeforeClass
+	public static void setUp() {
+		TestEnvironment.initGl();
+	}
+
+	@Test
+	public void staticGeometryGivesSameRays() {
+		LightFixture box2D = new LightFixture(64, LIGHT_COUNT, false, 19);
+		LightFixture indexed = new LightFixture(64, LIGHT_COUNT, true, 19);
+		try {
+			box2D.getRayHandler().update();
+			indexed.getRayHandler().update();
+			int stoppedRays = compareRays(box2D, indexed);
+			// make sure the blockers actually block something
+			assertTrue(stoppedRays > LIGHT_COUNT * LightFixture.RAY_COUNT / 4);
+
+			// move every other light and update again
+			for (int i = 0; i < LIGHT_COUNT; i += 2) {
+				PointLight light = box2D.getLights().get(i);
+				float x = (light.getX() + 7.3f) % box2D.getSize();
+				float y = (light.getY() + 3.1f) % box2D.getSize();
+				light.setPosition(x, y);
+				indexed.getLights().get(i).setPosition(x, y);
+			}
+			box2D.getRayHandler().update();
+			indexed.getRayHandler().update();
+			compareRays(box2D, indexed);
+		} finally {
+			box2D.dispose();
+			indexed.dispose();
+		}
+	}
+
+	@Test
+	public void onlyChangedLightsAreCastAgain() {
+		LightFixture fixture = new LightFixture(64, LIGHT_COUNT, true, 91);
+		try {
+			RayHandler rayHandler = fixture.getRayHandler();
+			Array<PointLight> lights = fixture.getLights();
+			rayHandler.update();
+			clearRays(lights);
+			lights.get(5).setPosition(lights.get(5).getX() + 1, lights.get(5).getY());
+			rayHandler.update();
+			for (int i = 0; i < LIGHT_COUNT; ++i) {
+				assertEquals("light " + i, i == 5, wasCast(lights.get(i)));
+			}
+
+			// after the geometry changed, all of them have to be cast again
+			clearRays(lights);
+			rayHandler.geometryChanged();
+			rayHandler.update();
+			for (int i = 0; i < LIGHT_COUNT; ++i) {
+				assertTrue("light " + i, wasCast(lights.get(i)));
+			}
+		} finally {
+			fixture.dispose();
+		}
+	}
+
+	// replaces the results, so that it shows which lights were cast
+	private static void clearRays(Array<PointLight> lights) {
+		for (int i = 0; i < lights.size; ++i) {
+			lights.get(i).mx = new float[LightFixture.RAY_COUNT];
+		}
+	}
+
+	// the first ray points along the x axis, so it always ends right of the light
+	private static boolean wasCast(PointLight light) {
+		return light.mx[0] > light.getX();
+	}
+
+	private static int compareRays(LightFixture box2D, LightFixture indexed) {
+		int stoppedRays = 0;
+		for (int i = 0; i < LIGHT_COUNT; ++i) {
+			PointLight expected = box2D.getLights().get(i);
+			PointLight actual = indexed.getLights().get(i);
+			for (int j = 0; j < LightFixture.RAY_COUNT; ++j) {
+				String description = "ray " + j + " of light " + i;
+				assertEquals(description, expected.mx[j], actual.mx[j], 0.0001f);
+				assertEquals(description, expected.my[j], actual.my[j], 0.0001f);
+				assertEquals(description, expected.f[j], actual.f[j], 0.0001f);
+				if (expected.f[j] < 1) {
+					++stoppedRays;
+				}
+			}
+		}
+		return stoppedRays;
+	}
+}
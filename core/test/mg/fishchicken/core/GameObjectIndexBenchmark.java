@@ -0,0 +1,78 @@
+package mg.fishchicken.core;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import mg.fishchicken.gamelogic.characters.GameCharacter;
+import mg.fishchicken.test.TestEnvironment;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the game object lookups made while loading a save with thousands
+ * of game objects spread over several maps. Each loaded object resolves
+ * a few references to objects loaded before it, by id or internal id,
+ * like XMLUtil does for GameObject fields. The references are resolved
+ * by the game object index and by walking the game objects of the
+ * current map and then of all maps, like GameState did before.
+ *
+ * Run with "gradle core:benchmark -Pargs=GameObjectIndex".
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameObjectIndexBenchmark {
+
+	private static final Class<?>[] NO_CLASSES = new Class<?>[0];
+	private static final Class<?>[] CHARACTERS = { GameCharacter.class };
+
+	@Param({ "1000", "5000" })
+	public int objects;
+
+	@Param({ "mapScan", "index" })
+	public String lookup;
+
+	private GameObjectIndexTest.World world;
+
+	@Setup
+	public void setUp() {
+		TestEnvironment.initGdx();
+		world = new GameObjectIndexTest.World(objects, new Random(objects));
+	}
+
+	@Benchmark
+	public int load() {
+		boolean scan = "mapScan".equals(lookup);
+		GameObjectIndex index = scan ? null : new GameObjectIndex();
+		world.clear();
+		int found = 0;
+		for (int i = 0; i < objects; ++i) {
+			world.load(i, index);
+			for (int j = 0; j < GameObjectIndexTest.World.REFERENCES; ++j) {
+				String id = world.getReference(i, j);
+				boolean useInternal = j % 2 == 0;
+				Class<?>[] classes = j % 3 == 0 ? CHARACTERS : NO_CLASSES;
+				GameObject go = scan ? world.scanMaps(id, useInternal, classes) : index.find(id, useInternal,
+						world.currentMap, classes);
+				if (go != null) {
+					++found;
+				}
+			}
+		}
+		return found;
+	}
+}
@@ -0,0 +1,160 @@
+package mg.fishchicken.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.Locale;
+import java.util.Random;
+
+import mg.fishchicken.gamelogic.characters.GameCharacter;
+import mg.fishchicken.gamelogic.locations.GameMap;
+import mg.fishchicken.gamelogic.traps.TrapOriginator;
+import mg.fishchicken.test.TestEnvironment;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.objenesis.ObjenesisStd;
+
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * Checks that while a world with thousands of game objects spread over
+ * several maps is loaded, the game objects referenced by the ones being
+ * loaded are found in the index the same as by walking the game objects
+ * of the current map and then of all maps, like GameState did before.
+ *
+ * For the timings, see {@link GameObjectIndexBenchmark}.
+ *
+ */
+public class GameObjectIndexTest {
+
+	static final int MAP_COUNT = 8;
+	private static final Class<?>[] NO_CLASSES = new Class<?>[0];
+	private static final Class<?>[] CHARACTERS = { GameCharacter.class };
+
+	@BeforeClass
+	public static void setUp() {
+		TestEnvironment.initGdx();
+	}
+
+	@Test
+	public void indexFindsTheSameObjectsAsMapScan() {
+		World world = new World(3000, new Random(16));
+		GameObjectIndex index = new GameObjectIndex();
+		for (int i = 0; i < world.objects.size; ++i) {
+			world.load(i, index);
+			for (int j = 0; j < World.REFERENCES; ++j) {
+				String id = world.getReference(i, j);
+				boolean useInternal = j % 2 == 0;
+				Class<?>[] classes = j % 3 == 0 ? CHARACTERS : NO_CLASSES;
+				GameObject expected = world.scanMaps(id, useInternal, classes);
+				GameObject found = index.find(id, useInternal, world.currentMap, classes);
+				if (classes == NO_CLASSES) {
+					assertNotNull(id, expected);
+				}
+				if (expected == null || world.isOnCurrentMap(expected)) {
+					assertSame(id, expected, found);
+				} else {
+					// which of the objects sharing an id on the other maps is found depends on the map order
+					assertNotNull(id, found);
+					assertFalse(id, world.isOnCurrentMap(found));
+					assertEquals(expected.getId(), found.getId());
+					assertEquals(expected.getClass(), found.getClass());
+				}
+			}
+		}
+	}
+
+	/**
+	 * A world of characters and traps spread over several maps, in the order
+	 * in which a save would load them. Every object references a few random
+	 * objects loaded before it, by id or by internal id, some of them
+	 * differing in case. Some ids are shared by objects on different maps.
+	 */
+	static class World {
+
+		static final int REFERENCES = 3;
+
+		final Array<GameObject> objects;
+		final Array<GameMap> maps;
+		final GameMap currentMap;
+		private final int[] mapIndices;
+		private final String[] references;
+
+		World(int objectCount, Random random) {
+			maps = new Array<GameMap>();
+			for (int i = 0; i < MAP_COUNT; ++i) {
+				GameMap map = new ObjenesisStd().newInstance(GameMap.class);
+				TestEnvironment.setField(GameMap.class, map, "gameObjects", new Array<GameObject>(true, 16,
+						GameObject.class));
+				maps.add(map);
+			}
+			currentMap = maps.get(0);
+			objects = new Array<GameObject>();
+			mapIndices = new int[objectCount];
+			references = new String[objectCount * REFERENCES];
+			for (int i = 0; i < objectCount; ++i) {
+				boolean character = random.nextInt(4) != 0;
+				Class<? extends GameObject> type = character ? GameCharacter.class : TrapOriginator.class;
+				GameObject go = new ObjenesisStd().newInstance(type);
+				// every tenth id is shared with an object on another map
+				String id = (character ? "npc" : "trap") + (i % 10 == 0 ? i / 10 : i);
+				TestEnvironment.setField(GameObject.class, go, "s_id", id);
+				TestEnvironment.setField(GameObject.class, go, "s_internalId",
+						(id + "#" + go.getClass().getSimpleName() + i).toLowerCase(Locale.ENGLISH));
+				objects.add(go);
+				mapIndices[i] = random.nextInt(MAP_COUNT);
+				for (int j = 0; j < REFERENCES; ++j) {
+					GameObject referenced = i > 0 ? objects.get(random.nextInt(i)) : go;
+					String reference = j % 2 == 0 ? referenced.getInternalId() : referenced.getId();
+					references[i * REFERENCES + j] = random.nextBoolean() ? reference.toUpperCase(Locale.ENGLISH)
+							: reference;
+				}
+			}
+		}
+
+		/**
+		 * Adds the object with the supplied index to its map and to the
+		 * supplied index, if any.
+		 */
+		void load(int i, GameObjectIndex index) {
+			GameMap map = maps.get(mapIndices[i]);
+			getGameObjects(map).add(objects.get(i));
+			if (index != null) {
+				index.add(objects.get(i), map);
+			}
+		}
+
+		boolean isOnCurrentMap(GameObject go) {
+			return getGameObjects(currentMap).contains(go, true);
+		}
+
+		String getReference(int i, int j) {
+			return references[i * REFERENCES + j];
+		}
+
+		void clear() {
+			for (GameMap map : maps) {
+				getGameObjects(map).clear();
+			}
+		}
+
+		/**
+		 * The lookup GameState did before the index: the objects of the
+		 * current map first, then the objects of every other map.
+		 */
+		GameObject scanMaps(String id, boolean useInternal, Class<?>... classes) {
+			GameObject found = currentMap.getGameObject(id, useInternal, classes);
+			for (int i = 0; found == null && i < maps.size; ++i) {
+				found = maps.get(i).getGameObject(id, useInternal, classes);
+			}
+			return found;
+		}
+
+		private static Array<GameObject> getGameObjects(GameMap map) {
+			return TestEnvironment.getField(GameMap.class, map, "gameObjects");
+		}
+	}
+}
@@ -0,0 +1,128 @@
+package mg.fishchicken.core;
+
+import static org.junit.Assert.assertEquals;
+
+import mg.fishchicken.core.SimulationLevelOfDetail.Tier;
+import mg.fishchicken.core.SimulationLevelOfDetail.TierSelector;
+import mg.fishchicken.gamelogic.traps.TrapOriginator;
+
+import org.junit.Test;
+import org.objenesis.ObjenesisStd;
+
+import com.badlogic.gdx.utils.FloatArray;
+
+/**
+ * Checks that game objects in slower tiers get all the time that
+ * passed, in one update per the interval of their tier.
+ *
+ */
+public class SimulationLevelOfDetailTest {
+
+	private static final float FRAME = 1 / 60f;
+	private static final float FAR_INTERVAL = 0.25f;
+
+	@Test
+	public void farObjectsCatchUpOncePerInterval() {
+		SimulationLevelOfDetail simulation = new SimulationLevelOfDetail(new FixedTierSelector(Tier.FAR));
+		CountingGameObject[] gos = new CountingGameObject[10];
+		for (int i = 0; i < gos.length; ++i) {
+			gos[i] = CountingGameObject.create();
+			simulation.add(gos[i], Tier.FAR);
+		}
+		int frames = 600;
+		for (int i = 0; i < frames; ++i) {
+			simulation.update(FRAME);
+		}
+		int intervals = Math.round(frames * FRAME / FAR_INTERVAL);
+		for (CountingGameObject go : gos) {
+			// every object is due once per interval, and gets all the time since its previous update at once
+			assertEquals(intervals, go.deltas.size, 1);
+			float total = 0;
+			for (int i = 0; i < go.deltas.size; ++i) {
+				total += go.deltas.get(i);
+			}
+			assertEquals(frames * FRAME, total, FAR_INTERVAL + 0.01f);
+		}
+	}
+
+	@Test
+	public void nearObjectsGetTheFrameDelta() {
+		SimulationLevelOfDetail simulation = new SimulationLevelOfDetail(new FixedTierSelector(Tier.NEAR));
+		CountingGameObject go = CountingGameObject.create();
+		simulation.add(go, Tier.NEAR);
+		for (int i = 0; i < 10; ++i) {
+			simulation.update(0.1f);
+		}
+		assertEquals(10, go.deltas.size);
+		for (int i = 0; i < go.deltas.size; ++i) {
+			assertEquals(0.1f, go.deltas.get(i), 0.0001f);
+		}
+	}
+
+	@Test
+	public void removedObjectsStopCatchingUp() {
+		final SimulationLevelOfDetail simulation = new SimulationLevelOfDetail(new FixedTierSelector(Tier.FAR));
+		CountingGameObject go = new ObjenesisStd().newInstance(RemovedGameObject.class);
+		go.deltas = new FloatArray();
+		((RemovedGameObject) go).simulation = simulation;
+		simulation.add(go, Tier.FAR);
+		for (int i = 0; i < 60; ++i) {
+			simulation.update(FRAME);
+		}
+		assertEquals(1, go.deltas.size);
+	}
+
+	private static class FixedTierSelector implements TierSelector {
+		private final Tier tier;
+
+		private FixedTierSelector(Tier tier) {
+			this.tier = tier;
+		}
+
+		@Override
+		public Tier getTier(GameObject go) {
+			return tier;
+		}
+
+		@Override
+		public float getUpdateInterval(Tier tier) {
+			return tier == Tier.NEAR ? 0 : FAR_INTERVAL;
+		}
+	}
+
+	// any concrete game object will do, the real constructors need a loaded module,
+	// so the instances are created without calling them
+	private static class CountingGameObject extends TrapOriginator {
+		private FloatArray deltas;
+
+		// never called
+		private CountingGameObject() {
+			super(null, null);
+		}
+
+		private static CountingGameObject create() {
+			CountingGameObject go = new ObjenesisStd().newInstance(CountingGameObject.class);
+			go.deltas = new FloatArray();
+			return go;
+		}
+
+		@Override
+		public void update(float deltaTime) {
+			deltas.add(deltaTime);
+		}
+	}
+
+	private static class RemovedGameObject extends CountingGameObject {
+		private SimulationLevelOfDetail simulation;
+
+		// never called
+		private RemovedGameObject() {
+		}
+
+		@Override
+		public void update(float deltaTime) {
+			super.update(deltaTime);
+			simulation.remove(this);
+		}
+	}
+}
@@ -0,0 +1,93 @@
+package mg.fishchicken.core.assets;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import mg.fishchicken.test.TestEnvironment;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.XmlReader;
+import com.badlogic.gdx.utils.XmlReader.Element;
+
+/**
+ * Measures how long it takes to read generated item files of a few kB
+ * each with the XML parser, from the module data cache when their length and
+ * modification time match, and from the cache when they have to be hashed.
+ *
+ * Run with "gradle core:benchmark -Pargs=ModuleDataCache".
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ModuleDataCacheBenchmark {
+
+	private static final int FILE_COUNT = 200;
+
+	@Param({ "parse", "cached", "hashed" })
+	public String mode;
+
+	private FileHandle moduleFolder;
+	private FileHandle cacheFile;
+	private FileHandle[] files;
+	private int next;
+
+	@Setup
+	public void setUp() throws IOException {
+		TestEnvironment.initGdx();
+		moduleFolder = FileHandle.tempDirectory("module");
+		cacheFile = FileHandle.tempFile("modulecache");
+		cacheFile.delete();
+		files = new FileHandle[FILE_COUNT];
+		for (int i = 0; i < FILE_COUNT; ++i) {
+			StringBuilder xml = new StringBuilder("<item id=\"item").append(i).append("\">\n<properties name=\"item")
+					.append(i).append("\" weight=\"3\" cost=\"120\" slot=\"rightHand\"/>\n<effects>\n");
+			for (int j = 0; j < 25; ++j) {
+				xml.append("\t<effect id=\"effect").append(j).append("\" duration=\"").append(j * 3)
+						.append("\"><description>Does something quite ordinary, number ").append(j)
+						.append(".</description></effect>\n");
+			}
+			files[i] = moduleFolder.child("items/item" + i + ".xml");
+			files[i].writeString(xml.append("</effects>\n</item>\n").toString(), false, "UTF-8");
+			if ("hashed".equals(mode)) {
+				// an unknown modification time, so the contents have to be hashed
+				files[i].file().setLastModified(0);
+			}
+		}
+		ModuleDataCache.load(moduleFolder, cacheFile);
+		for (FileHandle file : files) {
+			ModuleDataCache.parse(file);
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		moduleFolder.deleteDirectory();
+		cacheFile.delete();
+	}
+
+	@Benchmark
+	public Element read() throws IOException {
+		next = (next + 1) % FILE_COUNT;
+		if ("parse".equals(mode)) {
+			return new XmlReader().parse(files[next]);
+		}
+		return ModuleDataCache.parse(files[next]);
+	}
+}
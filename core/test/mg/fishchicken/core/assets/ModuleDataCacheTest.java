@@ -0,0 +1,109 @@
+package mg.fishchicken.core.assets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import mg.fishchicken.test.TestEnvironment;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.XmlReader.Element;
+
+/**
+ * Checks when the module data cache reads files from the cache
+ * and when it parses them again.
+ *
+ */
+public class ModuleDataCacheTest {
+
+	private FileHandle moduleFolder;
+	private FileHandle cacheFile;
+
+	@Before
+	public void setUp() {
+		TestEnvironment.initGdx();
+		moduleFolder = FileHandle.tempDirectory("module");
+		cacheFile = FileHandle.tempFile("modulecache");
+		cacheFile.delete();
+		ModuleDataCache.load(moduleFolder, cacheFile);
+	}
+
+	@After
+	public void tearDown() {
+		moduleFolder.deleteDirectory();
+		cacheFile.delete();
+	}
+
+	@Test
+	public void unchangedFilesAreReadFromTheCache() throws IOException {
+		FileHandle file = writeItem("items/sword.xml", "sword", 1000);
+		assertEquals("sword", ModuleDataCache.parse(file).getAttribute("id"));
+		assertEquals(1, getMisses());
+
+		Element root = ModuleDataCache.parse(file);
+		assertEquals("sword", root.getAttribute("id"));
+		assertEquals(1, getHits());
+		assertNull(ModuleDataCache.verify(file));
+
+		// the cache survives saving and loading
+		assertTrue(ModuleDataCache.save());
+		ModuleDataCache.load(moduleFolder, cacheFile);
+		assertEquals("sword", ModuleDataCache.parse(file).getAttribute("id"));
+		assertEquals(1, getHits());
+		assertEquals(0, getMisses());
+	}
+
+	@Test
+	public void touchedFilesAreHashed() throws IOException {
+		FileHandle file = writeItem("items/sword.xml", "sword", 1000);
+		ModuleDataCache.parse(file);
+		file.file().setLastModified(2000);
+
+		// same contents, so it is still a hit, but the new time is remembered
+		assertEquals("sword", ModuleDataCache.parse(file).getAttribute("id"));
+		assertEquals(1, getHits());
+		assertEquals(1, getMisses());
+		ModuleDataCache.parse(file);
+		assertEquals(2, getHits());
+	}
+
+	@Test
+	public void changedFilesAreParsedAgain() throws IOException {
+		FileHandle file = writeItem("items/sword.xml", "sword", 1000);
+		ModuleDataCache.parse(file);
+
+		// a different length
+		writeItem("items/sword.xml", "longsword", 1000);
+		assertEquals("longsword", ModuleDataCache.parse(file).getAttribute("id"));
+		assertEquals(2, getMisses());
+
+		// the same length, but a different time
+		writeItem("items/sword.xml", "shrtsword", 3000);
+		assertEquals("shrtsword", ModuleDataCache.parse(file).getAttribute("id"));
+		assertEquals(3, getMisses());
+		assertEquals(0, getHits());
+	}
+
+	private FileHandle writeItem(String path, String id, long lastModified) {
+		FileHandle file = moduleFolder.child(path);
+		file.writeString("<item id=\"" + id + "\"><properties name=\"" + id + "\" weight=\"3\"/></item>", false,
+				"UTF-8");
+		file.file().setLastModified(lastModified);
+		return file;
+	}
+
+	private static int getHits() {
+		return TestEnvironment.<AtomicInteger> getField(ModuleDataCache.class, null, "hits").get();
+	}
+
+	private static int getMisses() {
+		return TestEnvironment.<AtomicInteger> getField(ModuleDataCache.class, null, "misses").get();
+	}
+}
@@ -0,0 +1,60 @@
+package mg.fishchicken.core.configuration;
+
+import static org.junit.Assert.assertEquals;
+
+import mg.fishchicken.core.logging.Log.LogType;
+import mg.fishchicken.test.TestEnvironment;
+
+import org.junit.After;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Checks that the log types stored in the user options are applied,
+ * even when some of them are no longer known.
+ *
+ */
+public class ConfigurationTest {
+
+	private static Configuration configuration;
+	private static Object options;
+
+	@BeforeClass
+	public static void setUp() {
+		TestEnvironment.initConfiguration();
+		configuration = TestEnvironment.getField(Configuration.class, null, "configuration");
+		options = TestEnvironment.getField(Configuration.class, configuration, "options");
+	}
+
+	@After
+	public void tearDown() {
+		TestEnvironment.setField(options.getClass(), options, "s_logTypes", null);
+		for (LogType type : LogType.values()) {
+			type.setEnabled(type.isEnabledByDefault());
+		}
+	}
+
+	@Test
+	public void unknownLogTypesAreSkipped() {
+		TestEnvironment.setField(options.getClass(), options, "s_logTypes", "combat, noLongerThere,,condition,ERROR");
+		configuration.applyLogOptions();
+		for (LogType type : LogType.values()) {
+			boolean expected = type == LogType.COMBAT || type == LogType.CONDITION || type == LogType.ERROR;
+			assertEquals(type.name(), expected, type.isEnabled());
+		}
+	}
+
+	@Test
+	public void storedLogTypesAreAppliedAgain() {
+		Configuration.setLogTypeEnabled(LogType.STATE_MACHINE, true);
+		Configuration.setLogTypeEnabled(LogType.WEATHER, false);
+		for (LogType type : LogType.values()) {
+			type.setEnabled(type.isEnabledByDefault());
+		}
+		configuration.applyLogOptions();
+		for (LogType type : LogType.values()) {
+			boolean expected = type == LogType.STATE_MACHINE || (type != LogType.WEATHER && type.isEnabledByDefault());
+			assertEquals(type.name(), expected, type.isEnabled());
+		}
+	}
+}
@@ -0,0 +1,69 @@
+package mg.fishchicken.core.logging;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import mg.fishchicken.core.logging.Log.LogType;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the log call every condition evaluation makes, with the
+ * condition log type disabled: guarded by Log.isEnabled like Condition.execute
+ * does it, passed straight to the fixed arity Log.log, and formatted before
+ * the logger is checked, like Log.log did before log types could be disabled.
+ *
+ * Run with "gradle core:benchmark -Pargs='ConditionLog -prof gc'"
+ * to also see the bytes allocated by each call.
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConditionLogBenchmark {
+
+	@Param({ "formatFirst", "unguarded", "gated" })
+	public String log;
+
+	private String conditionName;
+	private Object[] conditionParameters;
+	private Object object;
+	private boolean result;
+
+	@Setup
+	public void setUp() {
+		conditionName = "mg.fishchicken.core.conditions.HasItem";
+		conditionParameters = new Object[] { "item", "healingPotion", "count", 2 };
+		object = "guard_captain";
+	}
+
+	@Benchmark
+	public boolean evaluate() {
+		result = !result;
+		if ("gated".equals(log)) {
+			if (Log.isEnabled(LogType.CONDITION)) {
+				Log.log("Evaluated {0} with parameters {1} on object {2}, condition returned {3}", LogType.CONDITION,
+						conditionName, Arrays.toString(conditionParameters), object, result);
+			}
+		} else if ("unguarded".equals(log)) {
+			Log.log("Evaluated {0} with parameters {1} on object {2}, condition returned {3}", LogType.CONDITION,
+					conditionName, conditionParameters, object, result);
+		} else {
+			LogTest.logFormattingFirst(conditionName, conditionParameters, object, result);
+		}
+		return result;
+	}
+}
@@ -0,0 +1,76 @@
+package mg.fishchicken.core.logging;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+import mg.fishchicken.core.i18n.Strings;
+import mg.fishchicken.core.logging.Log.LogType;
+
+import org.junit.Test;
+
+/**
+ * Checks that logging a condition evaluation, the most frequent log call
+ * of the game, allocates nothing while the condition log type is disabled,
+ * unlike the formatting the log call did before checking the type.
+ *
+ * For the timings and allocation rates, see {@link ConditionLogBenchmark}.
+ *
+ */
+public class LogTest {
+
+	private static final int CALLS = 200000;
+
+	@Test
+	public void disabledConditionLogAllocatesNothing() {
+		assertFalse(LogType.CONDITION.isEnabled());
+		ConditionLogBenchmark benchmark = new ConditionLogBenchmark();
+		benchmark.setUp();
+
+		double gated = getAllocatedBytesPerCall(benchmark, "gated");
+		double unguarded = getAllocatedBytesPerCall(benchmark, "unguarded");
+		double formatFirst = getAllocatedBytesPerCall(benchmark, "formatFirst");
+		assertTrue("gated call allocated " + gated + " bytes", gated < 1);
+		assertTrue("unguarded call allocated " + unguarded + " bytes", unguarded < 1);
+		assertTrue("formatting first allocated only " + formatFirst + " bytes", formatFirst > 100);
+	}
+
+	private static double getAllocatedBytesPerCall(ConditionLogBenchmark benchmark, String log) {
+		benchmark.log = log;
+		// the first round lets the JIT compile the calls
+		for (int round = 0; round < 2; ++round) {
+			long before = getAllocatedBytes();
+			for (int i = 0; i < CALLS; ++i) {
+				benchmark.evaluate();
+			}
+			long allocated = getAllocatedBytes() - before;
+			if (round == 1) {
+				return (double) allocated / CALLS;
+			}
+		}
+		return -1;
+	}
+
+	private static long getAllocatedBytes() {
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory
+				.getThreadMXBean();
+		return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	/**
+	 * The log call of Condition.execute as it was before log types
+	 * could be disabled: the message was formatted first and only
+	 * then thrown away, since the condition type had no logger.
+	 */
+	static String logFormattingFirst(String conditionName, Object[] parameters, Object object, boolean result) {
+		String message = Strings.formatString("Evaluated {0} with parameters {1} on object {2}, condition returned {3}",
+				conditionName, Arrays.toString(parameters), object, result);
+		Logger logger = null;
+		if (logger != null) {
+			logger.logMessage(message);
+		}
+		return message;
+	}
+}
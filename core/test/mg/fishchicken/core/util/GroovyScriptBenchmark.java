@@ -0,0 +1,100 @@
+package mg.fishchicken.core.util;
+
+import groovy.lang.Binding;
+
+import java.util.concurrent.TimeUnit;
+
+import mg.fishchicken.test.TestEnvironment;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.badlogic.gdx.math.Vector2;
+
+/**
+ * Measures the cost of evaluating a condition script.
+ *
+ * The cold start is the first evaluation of a freshly compiled script class,
+ * with and without the Groovy warm up the module loading does. Every
+ * invocation compiles a new class, since the call sites, the meta class
+ * and the script instances all belong to one class.
+ *
+ * The steady state is the evaluation of a script that ran many times before.
+ *
+ * Run with "gradle core:benchmark -Pargs=GroovyScript".
+ *
+ */
+@State(Scope.Thread)
+@Fork(1)
+public class GroovyScriptBenchmark {
+
+	private static final String CONDITION = "object.x > 1 && parameters.count < 5 && Math.max(object.y, 1) >= 1";
+
+	private CompiledScript script;
+	private Binding binding;
+
+	@State(Scope.Thread)
+	public static class ColdScript {
+
+		@Param({ "none", "warmUp" })
+		public String warmUp;
+
+		private int generation;
+		private CompiledScript script;
+
+		@Setup(Level.Invocation)
+		public void compile() {
+			// a different text, so that the script is not taken from the cache
+			script = GroovyUtil.createScript("coldCondition" + generation, CONDITION + " // " + generation);
+			++generation;
+			script.markAsCondition();
+			if ("warmUp".equals(warmUp)) {
+				GroovyUtil.warmUp();
+			}
+		}
+	}
+
+	@Setup
+	public void setUp() {
+		TestEnvironment.initGdx();
+		binding = createBinding();
+		script = GroovyUtil.createScript("steadyCondition", CONDITION);
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	@Warmup(iterations = 10)
+	@Measurement(iterations = 50)
+	public boolean coldStart(ColdScript coldScript) {
+		return GroovyUtil.evaluateCondition(coldScript.script, binding);
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.AverageTime)
+	@OutputTimeUnit(TimeUnit.NANOSECONDS)
+	@Warmup(iterations = 5, time = 1)
+	@Measurement(iterations = 5, time = 1)
+	public boolean steadyState() {
+		return GroovyUtil.evaluateCondition(script, binding);
+	}
+
+	private static Binding createBinding() {
+		Binding parameters = new Binding();
+		parameters.setVariable("count", 3);
+		Binding binding = new Binding();
+		binding.setVariable("object", new Vector2(2, 4));
+		binding.setVariable("parameters", parameters);
+		return binding;
+	}
+}
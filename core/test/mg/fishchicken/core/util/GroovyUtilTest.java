@@ -0,0 +1,49 @@
+package mg.fishchicken.core.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import groovy.lang.Binding;
+import mg.fishchicken.test.TestEnvironment;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.badlogic.gdx.math.Vector2;
+
+/**
+ * Checks that the Groovy warm up runs the condition scripts, but none of
+ * the other scripts, since those can change the game state.
+ *
+ * For the cold start and steady state timings, see {@link GroovyScriptBenchmark}.
+ *
+ */
+public class GroovyUtilTest {
+
+	public static int actionRuns, conditionRuns;
+
+	@BeforeClass
+	public static void setUp() {
+		TestEnvironment.initGdx();
+	}
+
+	@Test
+	public void warmUpRunsOnlyConditions() {
+		CompiledScript action = GroovyUtil.createScript("warmUpAction",
+				"mg.fishchicken.core.util.GroovyUtilTest.actionRuns++");
+		CompiledScript condition = GroovyUtil.createScript("warmUpCondition",
+				"mg.fishchicken.core.util.GroovyUtilTest.conditionRuns++\nreturn object.x > 1");
+		condition.markAsCondition();
+		assertFalse(action.isCondition());
+
+		GroovyUtil.warmUp();
+		assertEquals(0, actionRuns);
+		assertEquals(1, conditionRuns);
+
+		Binding binding = new Binding();
+		binding.setVariable("object", new Vector2(2, 0));
+		assertTrue(GroovyUtil.evaluateCondition(condition, binding));
+		binding.setVariable("object", new Vector2(0, 0));
+		assertFalse(GroovyUtil.evaluateCondition(condition, binding));
+	}
+}
@@ -0,0 +1,114 @@
+package mg.fishchicken.core.util;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the tile lookups visible areas and effect targets do: probing
+ * tiles around a sight sized area and merging two overlapping areas, with
+ * the packed key lookup and with the x * y key lookup PositionArray used
+ * before. Merging is also what TileSet.addAll does, since TileSet has
+ * no lookup of its own.
+ *
+ * Run with "gradle core:benchmark -Pargs=PositionArray".
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PositionArrayBenchmark {
+
+	/** The default sight radius of characters */
+	private static final int RADIUS = 20;
+	private static final int PROBE_COUNT = 1024;
+
+	@Param({ "productKey", "packed" })
+	public String lookup;
+
+	private PositionArray area, otherArea, merged;
+	private ProductKeyPositionArray productKeyArea, productKeyOtherArea, productKeyMerged;
+	private int[] probes;
+
+	@Setup
+	public void setUp() {
+		area = new PositionArray();
+		otherArea = new PositionArray();
+		merged = new PositionArray();
+		productKeyArea = new ProductKeyPositionArray();
+		productKeyOtherArea = new ProductKeyPositionArray();
+		productKeyMerged = new ProductKeyPositionArray();
+		// two overlapping discs, in the middle of a big map
+		addDisc(100, 100);
+		addDisc(110, 105);
+		Random random = new Random(13);
+		probes = new int[PROBE_COUNT * 2];
+		for (int i = 0; i < probes.length; i += 2) {
+			probes[i] = 100 + random.nextInt(RADIUS * 3) - RADIUS * 3 / 2;
+			probes[i + 1] = 100 + random.nextInt(RADIUS * 3) - RADIUS * 3 / 2;
+		}
+	}
+
+	private void addDisc(int cx, int cy) {
+		boolean first = area.isEmpty();
+		for (int x = cx - RADIUS; x <= cx + RADIUS; ++x) {
+			for (int y = cy - RADIUS; y <= cy + RADIUS; ++y) {
+				if ((x - cx) * (x - cx) + (y - cy) * (y - cy) <= RADIUS * RADIUS) {
+					(first ? area : otherArea).add(x, y);
+					if (first) {
+						productKeyArea.add(x, y);
+					} else {
+						productKeyOtherArea.add(x, y);
+					}
+				}
+			}
+		}
+	}
+
+	@Benchmark
+	public int contains() {
+		int found = 0;
+		if ("packed".equals(lookup)) {
+			for (int i = 0; i < probes.length; i += 2) {
+				if (area.contains(probes[i], probes[i + 1])) {
+					++found;
+				}
+			}
+		} else {
+			for (int i = 0; i < probes.length; i += 2) {
+				if (productKeyArea.contains(probes[i], probes[i + 1])) {
+					++found;
+				}
+			}
+		}
+		return found;
+	}
+
+	@Benchmark
+	public int mergeAreas() {
+		if ("packed".equals(lookup)) {
+			merged.clear();
+			merged.addAllNew(area);
+			merged.addAllNew(otherArea);
+			return merged.size();
+		}
+		productKeyMerged.clear();
+		productKeyMerged.addAllNew(productKeyArea);
+		productKeyMerged.addAllNew(productKeyOtherArea);
+		return productKeyMerged.size();
+	}
+}
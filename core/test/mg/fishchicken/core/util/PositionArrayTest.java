@@ -0,0 +1,66 @@
+package mg.fishchicken.core.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Checks the tile lookups of PositionArray and TileSet, including tiles
+ * whose coordinates have the same product, which used to share a key.
+ *
+ * For the timings, see {@link PositionArrayBenchmark}.
+ *
+ */
+public class PositionArrayTest {
+
+	@Test
+	public void tilesWithSameProductAreDistinct() {
+		PositionArray array = new PositionArray();
+		array.add(0, 5);
+		array.add(2, 3);
+		assertTrue(array.contains(0, 5));
+		assertFalse(array.contains(5, 0));
+		assertFalse(array.contains(0, 7));
+		assertFalse(array.contains(3, 2));
+		assertEquals(-1, array.indexOf(6, 1));
+		assertFalse(array.contains(-1, -1));
+		array.add(-1, -1);
+		assertTrue(array.contains(-1, -1));
+		assertFalse(array.contains(1, 1));
+	}
+
+	@Test
+	public void removingKeepsOrderAndCounts() {
+		PositionArray array = new PositionArray();
+		array.add(1, 1);
+		array.add(2, 2);
+		array.add(1, 1);
+		array.add(3, 3);
+
+		array.removeIndex(0);
+		assertArrayEquals(new int[] { 2, 2, 1, 1, 3, 3 }, array.toArray());
+		// the second occurrence is still there
+		assertTrue(array.contains(1, 1));
+		assertEquals(1, array.indexOf(1, 1));
+
+		array.removeValue(1, 1);
+		assertArrayEquals(new int[] { 2, 2, 3, 3 }, array.toArray());
+		assertFalse(array.contains(1, 1));
+
+		array.removeValue(7, 7);
+		assertEquals(2, array.size());
+	}
+
+	@Test
+	public void tileSetKeepsEachTileOnce() {
+		TileSet set = TileSet.withInitialSize(2);
+		assertTrue(set.add(0, 4));
+		assertTrue(set.add(4, 0));
+		assertTrue(set.add(2, 2));
+		assertFalse(set.add(0, 4));
+		assertArrayEquals(new int[] { 0, 4, 4, 0, 2, 2 }, set.getTiles().toArray());
+	}
+}
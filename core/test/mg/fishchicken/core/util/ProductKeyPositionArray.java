@@ -0,0 +1,70 @@
+package mg.fishchicken.core.util;
+
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.IntMap;
+
+/**
+ * The lookup PositionArray used before it was keyed on packed tile
+ * coordinates: occurrence counts boxed in an IntMap keyed by x * y,
+ * with a scan of the whole array whenever the key is there.
+ *
+ * Kept as a reference for the benchmark.
+ *
+ */
+public class ProductKeyPositionArray {
+
+	private IntArray array = new IntArray();
+	private IntMap<Integer> hashSet = new IntMap<Integer>();
+
+	public int size() {
+		return array.size / 2;
+	}
+
+	public int getX(int i) {
+		return array.get(i * 2);
+	}
+
+	public int getY(int i) {
+		return array.get(i * 2 + 1);
+	}
+
+	public boolean contains(int x, int y) {
+		if (!hashSet.containsKey(x * y)) {
+			return false;
+		}
+		for (int i = 0; i < array.size; i += 2) {
+			if (x == array.get(i) && y == array.get(i + 1)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	public void add(int x, int y) {
+		array.add(x);
+		array.add(y);
+		int hash = x * y;
+		Integer existing = hashSet.get(hash);
+		if (existing == null) {
+			existing = 1;
+		} else {
+			++existing;
+		}
+		hashSet.put(hash, existing);
+	}
+
+	public void addAllNew(ProductKeyPositionArray array) {
+		for (int i = 0; i < array.size(); ++i) {
+			int x = array.getX(i);
+			int y = array.getY(i);
+			if (!contains(x, y)) {
+				add(x, y);
+			}
+		}
+	}
+
+	public void clear() {
+		array.clear();
+		hashSet.clear();
+	}
+}
@@ -0,0 +1,217 @@
+package mg.fishchicken.core.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+
+import org.junit.Test;
+
+import com.badlogic.gdx.utils.XmlReader.Element;
+
+/**
+ * Checks that the StreamingXmlReader walks a savegame like document correctly
+ * and that reading a large generated save one element at a time does not
+ * keep the document in memory.
+ *
+ */
+public class StreamingXmlReaderTest {
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	@Test
+	public void walksSectionsAndElements() {
+		String xml = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+				+ "<savegame>\n"
+				+ "  <!-- a comment with <tags> -->\n"
+				+ "  <global version=\"3\"><time>12</time></global>\n"
+				+ "  <skipped><deep><deeper/></deep></skipped>\n"
+				+ "  <empty/>\n"
+				+ "  <gameObjects>\n"
+				+ "    <map id=\"first\"><go id=\"a\"/><go id=\"b\"><name><![CDATA[<b>]]></name></go></map>\n"
+				+ "    <map id=\"second\"/>\n"
+				+ "  </gameObjects>\n"
+				+ "</savegame>";
+		StreamingXmlReader reader = new StreamingXmlReader(new ByteArrayInputStream(xml.getBytes(UTF_8)));
+
+		assertTrue(reader.nextElement());
+		assertEquals("savegame", reader.getName());
+		reader.enterElement();
+
+		assertTrue(reader.nextElement());
+		assertEquals("global", reader.getName());
+		assertEquals("3", reader.getAttribute("version", null));
+		Element global = reader.readElement();
+		assertEquals("12", global.getChildByName("time").getText());
+
+		assertTrue(reader.nextElement());
+		assertEquals("skipped", reader.getName());
+
+		assertTrue(reader.nextElement());
+		assertEquals("empty", reader.getName());
+		reader.enterElement();
+		assertFalse(reader.nextElement());
+
+		assertTrue(reader.nextElement());
+		assertEquals("gameObjects", reader.getName());
+		reader.enterElement();
+		assertTrue(reader.nextElement());
+		assertEquals("first", reader.getAttribute("id", null));
+		reader.enterElement();
+		assertTrue(reader.nextElement());
+		assertEquals("a", reader.readElement().getAttribute("id"));
+		assertTrue(reader.nextElement());
+		Element go = reader.readElement();
+		assertEquals("b", go.getAttribute("id"));
+		assertEquals("<b>", go.getChildByName("name").getText());
+		assertFalse(reader.nextElement());
+		assertTrue(reader.nextElement());
+		assertEquals("second", reader.getAttribute("id", null));
+		assertFalse(reader.nextElement());
+
+		assertFalse(reader.nextElement());
+		assertFalse(reader.nextElement());
+	}
+
+	@Test
+	public void largeSaveIsReadWithBoundedHeap() throws IOException {
+		int gameObjectCount = 200000;
+		GeneratedSaveGame save = new GeneratedSaveGame(gameObjectCount);
+		StreamingXmlReader reader = new StreamingXmlReader(save);
+
+		long baseline = getUsedHeap();
+		long maxRetained = 0;
+		int gameObjectsRead = 0;
+
+		// the same walk GameLoader does for the game objects of all maps
+		assertTrue(reader.nextElement());
+		reader.enterElement();
+		while (reader.nextElement()) {
+			if (!"gameObjects".equals(reader.getName())) {
+				reader.readElement();
+				continue;
+			}
+			reader.enterElement();
+			while (reader.nextElement()) {
+				reader.enterElement();
+				while (reader.nextElement()) {
+					Element element = reader.readElement();
+					assertEquals(GeneratedSaveGame.getId(gameObjectsRead), element.getAttribute("id"));
+					if (++gameObjectsRead % 20000 == 0) {
+						maxRetained = Math.max(maxRetained, getUsedHeap() - baseline);
+					}
+				}
+			}
+		}
+
+		assertEquals(gameObjectCount, gameObjectsRead);
+		long documentSize = save.getBytesRead();
+		System.out.println("Streamed " + documentSize / (1024 * 1024) + " MB of XML, at most "
+				+ maxRetained / 1024 + " kB of heap retained.");
+		assertTrue("the generated save is too small to tell", documentSize > 100 * 1024 * 1024);
+		assertTrue("retained " + maxRetained + " bytes", maxRetained < 16 * 1024 * 1024);
+	}
+
+	private static long getUsedHeap() {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; ++i) {
+			System.gc();
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	/**
+	 * Generates a savegame with the supplied number of game objects,
+	 * spread over several maps, while it is being read, so that the
+	 * whole document never exists in memory.
+	 */
+	private static class GeneratedSaveGame extends InputStream {
+		private static final int MAPS = 10;
+
+		private final int gameObjectCount;
+		private int nextChunk;
+		private byte[] chunk = new byte[0];
+		private int position;
+		private long bytesRead;
+
+		private GeneratedSaveGame(int gameObjectCount) {
+			this.gameObjectCount = gameObjectCount;
+		}
+
+		private static String getId(int index) {
+			return "character" + index;
+		}
+
+		private long getBytesRead() {
+			return bytesRead;
+		}
+
+		private String getChunk(int index) {
+			int perMap = gameObjectCount / MAPS;
+			if (index == 0) {
+				StringBuilder header = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<savegame>\n"
+						+ "<global><currentMap>map0</currentMap></global>\n<factions>");
+				for (int i = 0; i < 50; ++i) {
+					header.append("<faction id=\"faction").append(i).append("\"><dispositions/></faction>");
+				}
+				return header.append("</factions>\n<gameObjects>\n").toString();
+			}
+			int go = index - 1;
+			if (go >= gameObjectCount) {
+				return go == gameObjectCount ? "</map>\n</gameObjects>\n</savegame>\n" : null;
+			}
+			StringBuilder element = new StringBuilder(640);
+			if (go % perMap == 0) {
+				if (go > 0) {
+					element.append("</map>\n");
+				}
+				element.append("<map id=\"map").append(go / perMap).append("\">\n");
+			}
+			element.append("<mg.fishchicken.gamelogic.characters.GameCharacter id=\"").append(getId(go))
+					.append("\" x=\"").append(go % 1000).append("\" y=\"").append(go / 1000).append("\">")
+					.append("<stats level=\"5\" hitPoints=\"40\" maxHitPoints=\"40\" actionPoints=\"12\"/>")
+					.append("<inventory><equipped><item id=\"sword\" slot=\"rightHand\"/>")
+					.append("<item id=\"leatherArmor\" slot=\"armor\"/></equipped>")
+					.append("<bag><item id=\"healingPotion\" stack=\"3\"/><item id=\"torch\"/></bag></inventory>")
+					.append("<brain disabled=\"false\"><aiScript>wanderAround</aiScript></brain>")
+					.append("<description>A perfectly ordinary character with a perfectly ordinary life,")
+					.append(" generated only to fill this savegame.</description>")
+					.append("</mg.fishchicken.gamelogic.characters.GameCharacter>\n");
+			return element.toString();
+		}
+
+		private boolean nextChunk() {
+			String next = getChunk(nextChunk++);
+			if (next == null) {
+				return false;
+			}
+			chunk = next.getBytes(UTF_8);
+			position = 0;
+			return true;
+		}
+
+		@Override
+		public int read() throws IOException {
+			byte[] single = new byte[1];
+			return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			while (position >= chunk.length) {
+				if (!nextChunk()) {
+					return -1;
+				}
+			}
+			int count = Math.min(len, chunk.length - position);
+			System.arraycopy(chunk, position, b, off, count);
+			position += count;
+			bytesRead += count;
+			return count;
+		}
+	}
+}
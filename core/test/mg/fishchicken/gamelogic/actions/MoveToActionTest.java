@@ -0,0 +1,89 @@
+package mg.fishchicken.gamelogic.actions;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import mg.fishchicken.gamelogic.characters.AbstractGameCharacter;
+import mg.fishchicken.gamelogic.locations.GameMap;
+import mg.fishchicken.gamestate.GameObjectPosition;
+import mg.fishchicken.pathfinding.Path;
+import mg.fishchicken.test.TestEnvironment;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Checks that a character that gets a long update walks as far
+ * as one that gets the same time frame by frame, which is what
+ * far away characters rely on.
+ *
+ */
+public class MoveToActionTest {
+
+	private static final float SPEED = 2;
+
+	@BeforeClass
+	public static void setUp() {
+		Action.setGameState(TestEnvironment.initGameState());
+	}
+
+	@Test
+	public void singleUpdateWalksAsFarAsFrameUpdates() {
+		AbstractGameCharacter framed = createCharacter();
+		MoveToAction framedAction = new MoveToAction();
+		framedAction.init(framed, createPath());
+		for (int i = 0; i < 75; ++i) {
+			framedAction.update(1 / 60f);
+		}
+
+		AbstractGameCharacter caughtUp = createCharacter();
+		MoveToAction caughtUpAction = new MoveToAction();
+		caughtUpAction.init(caughtUp, createPath());
+		caughtUpAction.update(1.25f);
+
+		assertEquals(2.5f, framed.position().getX(), 0.05f);
+		assertEquals(framed.position().getX(), caughtUp.position().getX(), 0.05f);
+		assertEquals(0, caughtUp.position().getY(), 0);
+		// the two tiles passed during the update were reported right away
+		verify(caughtUp, times(2)).handlePositionChanges();
+	}
+
+	@Test
+	public void longUpdateFinishesThePath() {
+		AbstractGameCharacter character = createCharacter();
+		MoveToAction action = new MoveToAction();
+		action.init(character, createPath());
+		action.update(100);
+		assertTrue(action.isFinished());
+		assertEquals(10, character.position().getX(), 0);
+		assertEquals(0, character.position().getY(), 0);
+	}
+
+	private static AbstractGameCharacter createCharacter() {
+		GameMap map = mock(GameMap.class);
+		when(map.blocked(any(AbstractGameCharacter.class), anyInt(), anyInt())).thenReturn(false);
+		AbstractGameCharacter character = mock(AbstractGameCharacter.class);
+		GameObjectPosition position = new GameObjectPosition();
+		position.set(0, 0);
+		when(character.position()).thenReturn(position);
+		when(character.getMap()).thenReturn(map);
+		when(character.getSpeed()).thenReturn(SPEED);
+		when(character.canPerformAction(MoveToAction.class)).thenReturn(true);
+		return character;
+	}
+
+	// a straight path ten tiles to the right
+	private static Path createPath() {
+		Path path = new Path();
+		for (int x = 0; x <= 10; ++x) {
+			path.appendStep(x, 0, 0, 0);
+		}
+		return path;
+	}
+}
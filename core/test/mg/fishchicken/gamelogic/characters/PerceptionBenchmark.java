@@ -0,0 +1,92 @@
+package mg.fishchicken.gamelogic.characters;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import mg.fishchicken.gamelogic.locations.GameMap;
+import mg.fishchicken.test.TestEnvironment;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.ObjectSet;
+
+/**
+ * Measures one frame of perception in a town with 100 NPCs: one of them
+ * steps to another tile, then every NPC gathers the characters in its
+ * sight, checks whether it sees anyone at all and gathers the characters
+ * in its view cone, like the AI and sneaking detection do each frame.
+ * The queries are answered by Perception and by scanning the visible
+ * areas in the spatial index, like they were before Perception.
+ *
+ * Run with "gradle core:benchmark -Pargs=Perception".
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PerceptionBenchmark {
+
+	private static final CharacterFilter[] NO_FILTERS = new CharacterFilter[0];
+	private static final CharacterFilter[] VISIBLE_FILTERS = { CharacterFilter.VISIBLE };
+
+	@Param({ "areaScan", "perception" })
+	public String query;
+
+	private GameMap map;
+	private Array<AbstractGameCharacter> npcs;
+	private ObjectSet<AbstractGameCharacter> inSight, inViewCone, tempSet;
+	private Random random;
+
+	@Setup
+	public void setUp() {
+		TestEnvironment.initGdx();
+		random = new Random(PerceptionTest.NPC_COUNT);
+		map = PerceptionTest.createTown(random);
+		npcs = map.getCharacters();
+		inSight = new ObjectSet<AbstractGameCharacter>();
+		inViewCone = new ObjectSet<AbstractGameCharacter>();
+		tempSet = new ObjectSet<AbstractGameCharacter>();
+	}
+
+	@Benchmark
+	public int townFrame() {
+		PerceptionTest.moveRandomNpc(map, random);
+		boolean scan = "areaScan".equals(query);
+		int found = 0;
+		for (int i = 0; i < npcs.size; ++i) {
+			AbstractGameCharacter npc = npcs.get(i);
+			inSight.clear();
+			inViewCone.clear();
+			if (scan) {
+				PerceptionTest.scanArea(npc, inSight, npc.getVisibleArea(), VISIBLE_FILTERS);
+				tempSet.clear();
+				if (PerceptionTest.scanArea(npc, tempSet, npc.getVisibleArea(), VISIBLE_FILTERS)) {
+					++found;
+				}
+				PerceptionTest.scanArea(npc, inViewCone, npc.getViewConeArea(), NO_FILTERS);
+			} else {
+				npc.getAllCharactersInSight(inSight);
+				if (npc.getAllCharactersInSightRadius(null, VISIBLE_FILTERS)) {
+					++found;
+				}
+				npc.getAllCharactersInViewCone(inViewCone, NO_FILTERS);
+			}
+			found += inSight.size + inViewCone.size;
+		}
+		return found;
+	}
+}
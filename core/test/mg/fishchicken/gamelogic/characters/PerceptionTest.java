@@ -0,0 +1,175 @@
+package mg.fishchicken.gamelogic.characters;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Iterator;
+import java.util.Random;
+
+import mg.fishchicken.core.GameObject;
+import mg.fishchicken.core.util.PositionArray;
+import mg.fishchicken.gamelogic.locations.GameLocation;
+import mg.fishchicken.gamelogic.locations.GameMap;
+import mg.fishchicken.gamelogic.locations.SpatialIndex;
+import mg.fishchicken.gamestate.GameObjectPosition;
+import mg.fishchicken.test.TestEnvironment;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.objenesis.ObjenesisStd;
+
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.ObjectSet;
+
+/**
+ * Checks that the characters a town full of NPCs perceive are the same
+ * as the ones found by scanning their visible areas in the spatial index,
+ * like the sight queries did before Perception, also after some of them moved.
+ *
+ * For the timings, see {@link PerceptionBenchmark}.
+ *
+ */
+public class PerceptionTest {
+
+	static final int SIZE = 64;
+	static final int NPC_COUNT = 100;
+	// the radius of the visible areas, smaller than the sight radius, since walls block the view in a town
+	private static final int SIGHT_RADIUS = 8;
+	private static final CharacterFilter[] NO_FILTERS = new CharacterFilter[0];
+	private static final CharacterFilter[] VISIBLE_FILTERS = { CharacterFilter.VISIBLE };
+
+	@BeforeClass
+	public static void setUp() {
+		TestEnvironment.initGdx();
+	}
+
+	@Test
+	public void perceivedCharactersMatchAreaScan() {
+		Random random = new Random(11);
+		GameMap map = createTown(random);
+		Array<AbstractGameCharacter> npcs = map.getCharacters();
+		TestEnvironment.setField(GameCharacter.class, npcs.get(3), "s_isInvisible", true);
+		ObjectSet<AbstractGameCharacter> expected = new ObjectSet<AbstractGameCharacter>();
+		ObjectSet<AbstractGameCharacter> perceived = new ObjectSet<AbstractGameCharacter>();
+
+		int found = 0;
+		for (int step = 0; step < 5; ++step) {
+			for (int i = 0; i < npcs.size; ++i) {
+				AbstractGameCharacter npc = npcs.get(i);
+				expected.clear();
+				perceived.clear();
+				assertEquals(scanArea(npc, expected, npc.getVisibleArea(), VISIBLE_FILTERS),
+						npc.getAllCharactersInSight(perceived));
+				assertEquals(expected, perceived);
+				found += perceived.size;
+
+				expected.clear();
+				perceived.clear();
+				scanArea(npc, expected, npc.getViewConeArea(), NO_FILTERS);
+				npc.getAllCharactersInViewCone(perceived, NO_FILTERS);
+				assertEquals(expected, perceived);
+			}
+			moveRandomNpc(map, random);
+		}
+		assertTrue("only " + found + " characters were found", found > NPC_COUNT);
+	}
+
+	/**
+	 * Creates a town map with NPCs standing on random tiles, each
+	 * seeing a disc around itself and facing a random direction.
+	 * Only what the sight queries need is initialized.
+	 */
+	static GameMap createTown(Random random) {
+		GameMap map = new ObjenesisStd().newInstance(GameMap.class);
+		TestEnvironment.setField(GameLocation.class, map, "boundingRectangle", new Rectangle(0, 0, SIZE, SIZE));
+		TestEnvironment.setField(GameMap.class, map, "gameObjects", new Array<GameObject>(true, 16, GameObject.class));
+		TestEnvironment.setField(GameMap.class, map, "characters", new Array<AbstractGameCharacter>());
+		TestEnvironment.setField(GameMap.class, map, "tempCursor", new SpatialIndex.Cursor());
+		boolean[] occupied = new boolean[SIZE * SIZE];
+		for (int i = 0; i < NPC_COUNT; ++i) {
+			int tile;
+			do {
+				tile = random.nextInt(SIZE * SIZE);
+			} while (occupied[tile]);
+			occupied[tile] = true;
+			GameCharacter npc = createNpc(map, tile % SIZE, tile / SIZE, random.nextInt(4));
+			map.getCharacters().add(npc);
+			map.notifyGOTileChanged(npc, tile % SIZE, tile / SIZE, -1, -1);
+		}
+		return map;
+	}
+
+	/**
+	 * Moves a random NPC to a neighbouring tile, which makes all
+	 * perception on the map discard its cached result.
+	 */
+	static void moveRandomNpc(GameMap map, Random random) {
+		AbstractGameCharacter npc = map.getCharacters().get(random.nextInt(NPC_COUNT));
+		int oldX = (int) npc.position().getX();
+		int oldY = (int) npc.position().getY();
+		int x = Math.max(0, Math.min(SIZE - 1, oldX + random.nextInt(3) - 1));
+		int y = Math.max(0, Math.min(SIZE - 1, oldY + random.nextInt(3) - 1));
+		npc.position().set(x, y);
+		map.notifyGOTileChanged(npc, x, y, oldX, oldY);
+	}
+
+	private static GameCharacter createNpc(GameMap map, int x, int y, int facing) {
+		GameCharacter npc = new ObjenesisStd().newInstance(GameCharacter.class);
+		GameObjectPosition position = new GameObjectPosition();
+		position.set(x, y);
+		TestEnvironment.setField(GameObject.class, npc, "position", position);
+		TestEnvironment.setField(GameObject.class, npc, "map", map);
+		TestEnvironment.setField(GameObject.class, npc, "s_width", 1f);
+		TestEnvironment.setField(GameObject.class, npc, "s_height", 1f);
+		TestEnvironment.setField(GameObject.class, npc, "s_active", true);
+
+		PositionArray visibleArea = new PositionArray();
+		PositionArray viewConeArea = new PositionArray();
+		for (int dx = -SIGHT_RADIUS; dx <= SIGHT_RADIUS; ++dx) {
+			for (int dy = -SIGHT_RADIUS; dy <= SIGHT_RADIUS; ++dy) {
+				int tx = x + dx, ty = y + dy;
+				if (dx * dx + dy * dy > SIGHT_RADIUS * SIGHT_RADIUS || tx < 0 || ty < 0 || tx >= SIZE || ty >= SIZE) {
+					continue;
+				}
+				visibleArea.add(tx, ty);
+				// a quarter of the disc in front of the NPC
+				boolean inCone = facing == 0 ? dx >= Math.abs(dy) : facing == 1 ? -dx >= Math.abs(dy)
+						: facing == 2 ? dy >= Math.abs(dx) : -dy >= Math.abs(dx);
+				if (inCone) {
+					viewConeArea.add(tx, ty);
+				}
+			}
+		}
+		TestEnvironment.setField(AbstractGameCharacter.class, npc, "visibleArea", visibleArea);
+		TestEnvironment.setField(AbstractGameCharacter.class, npc, "viewConeArea", viewConeArea);
+		TestEnvironment.setField(AbstractGameCharacter.class, npc, "perception", new Perception(npc));
+		return npc;
+	}
+
+	/**
+	 * The sight query as it was before Perception: all characters standing
+	 * on the tiles of the area are looked up in the spatial index of the
+	 * map and then filtered.
+	 */
+	static boolean scanArea(AbstractGameCharacter observer, ObjectSet<AbstractGameCharacter> returnValue,
+			PositionArray area, CharacterFilter... filters) {
+		if (!observer.getMap().getAllObjectsInArea(returnValue, area, AbstractGameCharacter.class)) {
+			return false;
+		}
+		returnValue.remove(observer);
+		if (filters.length > 0) {
+			Iterator<AbstractGameCharacter> iterator = returnValue.iterator();
+			while (iterator.hasNext()) {
+				AbstractGameCharacter character = iterator.next();
+				for (CharacterFilter filter : filters) {
+					if (filter.shouldFilter(observer, character)) {
+						iterator.remove();
+						break;
+					}
+				}
+			}
+		}
+		return returnValue.size > 0;
+	}
+}
@@ -0,0 +1,75 @@
+package mg.fishchicken.gamelogic.characters.los;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import mg.fishchicken.gamelogic.locations.GameMap;
+import mg.fishchicken.test.TestEnvironment;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * Measures how long it takes to recalculate the lines of sight of
+ * a group of characters with each of the LOS casters, the way
+ * GameMap does it when they all moved.
+ *
+ * Run with "gradle core:benchmark -Pargs=LineOfSight".
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LineOfSightBenchmark {
+
+	@Param({ "box2d", "grid" })
+	public String caster;
+
+	@Param({ "1", "50" })
+	public int characters;
+
+	private LineOfSightFixture fixture;
+	private GameMap map;
+	private Array<LineOfSight> sights;
+
+	@Setup
+	public void setUp() {
+		TestEnvironment.initGdx();
+		fixture = new LineOfSightFixture(128, 19);
+		map = LineOfSightFixture.createMap("grid".equals(caster) ? new GridLineOfSightCaster(fixture.getWorld())
+				: new Box2DLineOfSightCaster(fixture.getWorld()));
+		sights = new Array<LineOfSight>();
+		Random random = new Random(characters);
+		for (int i = 0; i < characters; ++i) {
+			// the default local sight radius
+			sights.add(new CircularLineOfSight(360, 20, random.nextFloat() * fixture.getSize(), random.nextFloat()
+					* fixture.getSize(), map));
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		fixture.dispose();
+	}
+
+	@Benchmark
+	public Array<LineOfSight> updateAll() {
+		LineOfSight.updateAll(map, sights);
+		return sights;
+	}
+}
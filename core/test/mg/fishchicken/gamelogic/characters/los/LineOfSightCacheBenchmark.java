@@ -0,0 +1,95 @@
+package mg.fishchicken.gamelogic.characters.los;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import mg.fishchicken.gamelogic.locations.GameMap;
+import mg.fishchicken.test.TestEnvironment;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * Measures how long it takes to recalculate the lines of sight of a crowded
+ * town after all its characters made a step along their patrol routes,
+ * with and without the LOS cache. Every few steps a door evicts the cached
+ * results around it. The cache hits and misses are reported next to the times.
+ *
+ * Run with "gradle core:benchmark -Pargs=LineOfSightCache".
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LineOfSightCacheBenchmark {
+
+	private static final int SIZE = 128;
+	private static final int CHARACTER_COUNT = 80;
+	private static final int ROUTE_LENGTH = 6;
+	private static final int STEPS_BETWEEN_DOORS = 10;
+
+	@Param({ "off", "on" })
+	public String cache;
+
+	private LineOfSightFixture fixture;
+	private GameMap map;
+	private int[][] routes;
+	private Array<LineOfSight> sights;
+	private Random random;
+	private int step;
+
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class CacheCounters {
+		public long hits, misses;
+	}
+
+	@Setup
+	public void setUp() {
+		TestEnvironment.initGdx();
+		fixture = new LineOfSightFixture(SIZE, 29);
+		map = LineOfSightFixture.createMap(new GridLineOfSightCaster(fixture.getWorld()), "on".equals(cache));
+		random = new Random(CHARACTER_COUNT);
+		routes = LineOfSightCacheTest.createRoutes(SIZE, CHARACTER_COUNT, ROUTE_LENGTH, random);
+		sights = LineOfSightCacheTest.createSights(map, routes);
+	}
+
+	@Setup(Level.Iteration)
+	public void resetCounters() {
+		map.getLineOfSightCache().resetCounters();
+	}
+
+	@TearDown
+	public void tearDown() {
+		fixture.dispose();
+	}
+
+	@Benchmark
+	public Array<LineOfSight> patrolStep(CacheCounters counters) {
+		if (++step % STEPS_BETWEEN_DOORS == 0) {
+			map.getLineOfSightCache().invalidate(random.nextInt(SIZE), random.nextInt(SIZE));
+		}
+		LineOfSightCacheTest.walk(map, sights, routes, step, 1);
+		LineOfSightCache lineOfSightCache = map.getLineOfSightCache();
+		counters.hits = lineOfSightCache.getHits();
+		counters.misses = lineOfSightCache.getMisses();
+		return sights;
+	}
+}
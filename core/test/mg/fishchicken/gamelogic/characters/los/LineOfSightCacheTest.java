@@ -0,0 +1,125 @@
+package mg.fishchicken.gamelogic.characters.los;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import mg.fishchicken.gamelogic.locations.GameMap;
+import mg.fishchicken.test.TestEnvironment;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * Checks that patrolling characters in a crowded town get the same lines
+ * of sight from the LOS cache as without it, and that most of their
+ * updates are cache hits once they walked their routes once.
+ *
+ * For the timings, see {@link LineOfSightCacheBenchmark}.
+ *
+ */
+public class LineOfSightCacheTest {
+
+	private static final int CHARACTER_COUNT = 60;
+	private static final int ROUTE_LENGTH = 6;
+
+	private static LineOfSightFixture fixture;
+
+	@BeforeClass
+	public static void setUp() {
+		TestEnvironment.initGdx();
+		fixture = new LineOfSightFixture(96, 23);
+	}
+
+	@AfterClass
+	public static void tearDown() {
+		fixture.dispose();
+	}
+
+	@Test
+	public void patrolsReuseCachedResults() {
+		GridLineOfSightCaster caster = new GridLineOfSightCaster(fixture.getWorld());
+		GameMap cachedMap = LineOfSightFixture.createMap(caster, true);
+		GameMap uncachedMap = LineOfSightFixture.createMap(caster, false);
+		int[][] routes = createRoutes(fixture.getSize(), CHARACTER_COUNT, ROUTE_LENGTH, new Random(5));
+		Array<LineOfSight> cachedSights = createSights(cachedMap, routes);
+		Array<LineOfSight> uncachedSights = createSights(uncachedMap, routes);
+		LineOfSightCache cache = cachedMap.getLineOfSightCache();
+
+		// the first walk along the routes fills the cache
+		walk(cachedMap, cachedSights, routes, 0, ROUTE_LENGTH);
+		cache.resetCounters();
+
+		for (int step = 0; step < ROUTE_LENGTH * 3; ++step) {
+			walk(cachedMap, cachedSights, routes, step, 1);
+			walk(uncachedMap, uncachedSights, routes, step, 1);
+			for (int i = 0; i < CHARACTER_COUNT; ++i) {
+				assertArrayEquals("character " + i + " at step " + step, uncachedSights.get(i).getVisibleTiles()
+						.toArray(), cachedSights.get(i).getVisibleTiles().toArray());
+			}
+		}
+		assertEquals(1f, cache.getHitRate(), 0);
+		assertEquals(0, uncachedMap.getLineOfSightCache().getHits() + uncachedMap.getLineOfSightCache().getMisses());
+	}
+
+	@Test
+	public void doorEvictsOnlyNearbyResults() {
+		GameMap map = LineOfSightFixture.createMap(new GridLineOfSightCaster(fixture.getWorld()), true);
+		int[][] routes = createRoutes(fixture.getSize(), CHARACTER_COUNT, ROUTE_LENGTH, new Random(7));
+		Array<LineOfSight> sights = createSights(map, routes);
+		LineOfSightCache cache = map.getLineOfSightCache();
+		walk(map, sights, routes, 0, ROUTE_LENGTH);
+		cache.resetCounters();
+
+		// a door in the corner of the map, which only few characters can see
+		cache.invalidate(2, 2);
+		walk(map, sights, routes, 0, ROUTE_LENGTH);
+		assertTrue("hit rate " + cache.getHitRate(), cache.getHitRate() > 0.9f);
+	}
+
+	/**
+	 * Creates a patrol route for each character, as x, y pairs of tiles
+	 * around its home tile.
+	 */
+	static int[][] createRoutes(int size, int characterCount, int routeLength, Random random) {
+		int[][] routes = new int[characterCount][routeLength * 2];
+		for (int i = 0; i < characterCount; ++i) {
+			int homeX = random.nextInt(size);
+			int homeY = random.nextInt(size);
+			for (int j = 0; j < routeLength; ++j) {
+				routes[i][j * 2] = Math.max(0, Math.min(size - 1, homeX + random.nextInt(17) - 8));
+				routes[i][j * 2 + 1] = Math.max(0, Math.min(size - 1, homeY + random.nextInt(17) - 8));
+			}
+		}
+		return routes;
+	}
+
+	static Array<LineOfSight> createSights(GameMap map, int[][] routes) {
+		Array<LineOfSight> sights = new Array<LineOfSight>();
+		for (int[] route : routes) {
+			// the default local sight radius
+			sights.add(new CircularLineOfSight(360, 20, route[0] + 0.5f, route[1] + 0.5f, map));
+		}
+		return sights;
+	}
+
+	/**
+	 * Moves every character the supplied number of steps along its route,
+	 * recalculating all LOS after each step.
+	 */
+	static void walk(GameMap map, Array<LineOfSight> sights, int[][] routes, int firstStep, int steps) {
+		for (int step = firstStep; step < firstStep + steps; ++step) {
+			for (int i = 0; i < sights.size; ++i) {
+				int[] route = routes[i];
+				int index = (step % (route.length / 2)) * 2;
+				sights.get(i).setPosition(route[index] + 0.5f, route[index + 1] + 0.5f, false);
+			}
+			LineOfSight.updateAll(map, sights);
+		}
+	}
+}
@@ -0,0 +1,116 @@
+package mg.fishchicken.gamelogic.characters.los;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import mg.fishchicken.gamelogic.locations.GameMap;
+import mg.fishchicken.test.TestEnvironment;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Polygon;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.ObjectSet;
+
+/**
+ * Checks that the grid LOS caster gives the same results as
+ * the Box2D one on a fixture map with LOS blockers of all types,
+ * both for single rays and for the visible tiles of whole lines of sight.
+ *
+ */
+public class LineOfSightCasterTest {
+
+	private static final int RAY_COUNT = 180;
+	private static final int RADIUS = 12;
+
+	private static LineOfSightFixture fixture;
+	private static Box2DLineOfSightCaster box2DCaster;
+	private static GridLineOfSightCaster gridCaster;
+
+	@BeforeClass
+	public static void setUp() {
+		TestEnvironment.initGdx();
+		fixture = new LineOfSightFixture(64, 18);
+		box2DCaster = new Box2DLineOfSightCaster(fixture.getWorld());
+		gridCaster = new GridLineOfSightCaster(fixture.getWorld());
+	}
+
+	@AfterClass
+	public static void tearDown() {
+		fixture.dispose();
+	}
+
+	@Test
+	public void castersStopRaysAtTheSamePoints() {
+		float[] endX = new float[RAY_COUNT];
+		float[] endY = new float[RAY_COUNT];
+		for (int i = 0; i < RAY_COUNT; ++i) {
+			endX[i] = RADIUS * MathUtils.cosDeg(i * 360f / RAY_COUNT);
+			endY[i] = RADIUS * MathUtils.sinDeg(i * 360f / RAY_COUNT);
+		}
+		float[] box2DX = new float[RAY_COUNT], box2DY = new float[RAY_COUNT];
+		float[] gridX = new float[RAY_COUNT], gridY = new float[RAY_COUNT];
+		ObjectSet<Polygon> box2DPolygons = new ObjectSet<Polygon>();
+		ObjectSet<Polygon> gridPolygons = new ObjectSet<Polygon>();
+		Random random = new Random(18);
+		int stoppedRays = 0;
+		int seenPolygons = 0;
+		for (int i = 0; i < 200; ++i) {
+			float x = random.nextFloat() * fixture.getSize();
+			float y = random.nextFloat() * fixture.getSize();
+			box2DPolygons.clear();
+			gridPolygons.clear();
+			box2DCaster.cast(x, y, endX, endY, RAY_COUNT, box2DX, box2DY, box2DPolygons);
+			gridCaster.cast(x, y, endX, endY, RAY_COUNT, gridX, gridY, gridPolygons);
+			for (int j = 0; j < RAY_COUNT; ++j) {
+				String description = "ray " + j + " from [" + x + ", " + y + "]";
+				assertEquals(description, box2DX[j], gridX[j], 0.0001f);
+				assertEquals(description, box2DY[j], gridY[j], 0.0001f);
+				if (box2DX[j] != x + endX[j] || box2DY[j] != y + endY[j]) {
+					++stoppedRays;
+				}
+			}
+			assertEquals(box2DPolygons, gridPolygons);
+			seenPolygons += box2DPolygons.size;
+		}
+		// make sure the fixture actually blocks something
+		assertTrue(stoppedRays > 200 * RAY_COUNT / 4);
+		assertTrue(seenPolygons > 0);
+	}
+
+	@Test
+	public void linesOfSightSeeTheSameTiles() {
+		GameMap box2DMap = LineOfSightFixture.createMap(box2DCaster);
+		GameMap gridMap = LineOfSightFixture.createMap(gridCaster);
+		Random random = new Random(81);
+		Array<LineOfSight> gridSights = new Array<LineOfSight>();
+		Array<LineOfSight> box2DSights = new Array<LineOfSight>();
+		for (int i = 0; i < 100; ++i) {
+			float x = random.nextFloat() * fixture.getSize();
+			float y = random.nextFloat() * fixture.getSize();
+			box2DSights.add(new CircularLineOfSight(RAY_COUNT, RADIUS, x, y, box2DMap));
+			gridSights.add(new CircularLineOfSight(RAY_COUNT, RADIUS, x, y, gridMap));
+		}
+		// the grid ones are recalculated all at once, the way GameMap does it
+		LineOfSight.updateAll(gridMap, gridSights);
+		for (int i = 0; i < box2DSights.size; ++i) {
+			LineOfSight box2DSight = box2DSights.get(i);
+			LineOfSight gridSight = gridSights.get(i);
+			String description = "LOS at [" + box2DSight.getX() + ", " + box2DSight.getY() + "]";
+			assertArrayEquals(description, getSortedTiles(box2DSight), getSortedTiles(gridSight));
+		}
+	}
+
+	private static int[] getSortedTiles(LineOfSight sight) {
+		int[] tiles = sight.getVisibleTiles().toArray();
+		Arrays.sort(tiles);
+		return tiles;
+	}
+}
@@ -0,0 +1,176 @@
+package mg.fishchicken.gamelogic.characters.los;
+
+import java.util.Random;
+
+import mg.fishchicken.gamelogic.locations.GameMap;
+
+import org.objenesis.ObjenesisStd;
+
+import box2dLight.FixtureUserData;
+import box2dLight.FixtureUserData.UserDataType;
+
+import com.badlogic.gdx.math.Polygon;
+import com.badlogic.gdx.math.Polyline;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.Body;
+import com.badlogic.gdx.physics.box2d.BodyDef;
+import com.badlogic.gdx.physics.box2d.EdgeShape;
+import com.badlogic.gdx.physics.box2d.FixtureDef;
+import com.badlogic.gdx.physics.box2d.World;
+
+/**
+ * A fog of war world with randomly placed LOS blockers of all types,
+ * built the same way GameMapLoader builds them: every blocker is a static
+ * body made of edge fixtures.
+ *
+ * Box2D must be initialized before this is created.
+ *
+ */
+class LineOfSightFixture {
+
+	private final int size;
+	private final World world;
+
+	/**
+	 * @param size - the width and height of the map, in tiles
+	 * @param seed
+	 */
+	LineOfSightFixture(int size, long seed) {
+		this.size = size;
+		world = new World(new Vector2(), true);
+		Random random = new Random(seed);
+		int blockerCount = size * size / 16;
+		for (int i = 0; i < blockerCount; ++i) {
+			int x = random.nextInt(size);
+			int y = random.nextInt(size);
+			switch (random.nextInt(8)) {
+				case 0:
+					addPolygon(UserDataType.LOS_BLOCKER_POLYGON, "polygon" + i, x, y, random);
+					break;
+				case 1:
+					addPolygon(UserDataType.LOS_BLOCKER_POLYGON_GROUND, "ground" + i, x, y, random);
+					break;
+				case 2:
+					addLine("line" + i, x, y, random);
+					break;
+				default:
+					addTile(x, y);
+			}
+		}
+	}
+
+	int getSize() {
+		return size;
+	}
+
+	World getWorld() {
+		return world;
+	}
+
+	void dispose() {
+		world.dispose();
+	}
+
+	private void addTile(float x, float y) {
+		float[] vertices = new float[] { x, y, x + 1, y, x + 1, y + 1, x, y + 1 };
+		Body body = createBody(0, 0);
+		for (int i = 0; i < vertices.length; i += 2) {
+			addEdge(body, vertices, i, new FixtureUserData(UserDataType.LOS_BLOCKER_TILE));
+		}
+	}
+
+	private void addPolygon(UserDataType type, String id, float x, float y, Random random) {
+		// a convex polygon with 3 to 6 vertices around its centre
+		int vertexCount = 3 + random.nextInt(4);
+		float radius = 0.5f + random.nextFloat() * 2;
+		float[] vertices = new float[vertexCount * 2];
+		for (int i = 0; i < vertexCount; ++i) {
+			double angle = (i + random.nextFloat() * 0.5f) * 2 * Math.PI / vertexCount;
+			vertices[i * 2] = (float) (radius * Math.cos(angle));
+			vertices[i * 2 + 1] = (float) (radius * Math.sin(angle));
+		}
+		Polygon polygon = new Polygon(vertices);
+		polygon.setPosition(x, y);
+		Body body = createBody(x, y);
+		for (int i = 0; i < vertices.length; i += 2) {
+			addEdge(body, vertices, i, new FixtureUserData(type, id, polygon));
+		}
+	}
+
+	private void addLine(String id, float x, float y, Random random) {
+		int vertexCount = 2 + random.nextInt(3);
+		float[] vertices = new float[vertexCount * 2];
+		for (int i = 1; i < vertexCount; ++i) {
+			vertices[i * 2] = vertices[i * 2 - 2] + random.nextFloat() * 6 - 3;
+			vertices[i * 2 + 1] = vertices[i * 2 - 1] + random.nextFloat() * 6 - 3;
+		}
+		Polyline polyline = new Polyline(vertices);
+		polyline.setPosition(x, y);
+		Body body = createBody(x, y);
+		// lines are open, so there is no edge from the last vertex back to the first one
+		for (int i = 0; i < vertices.length - 2; i += 2) {
+			addEdge(body, vertices, i, new FixtureUserData(UserDataType.LOS_BLOCKER_LINE, id, polyline));
+		}
+	}
+
+	private Body createBody(float x, float y) {
+		BodyDef bodyDef = new BodyDef();
+		bodyDef.type = BodyDef.BodyType.StaticBody;
+		bodyDef.position.set(x, y);
+		return world.createBody(bodyDef);
+	}
+
+	private static void addEdge(Body body, float[] vertices, int start, FixtureUserData userData) {
+		int end = (start + 2) % vertices.length;
+		EdgeShape shape = new EdgeShape();
+		shape.set(vertices[start], vertices[start + 1], vertices[end], vertices[end + 1]);
+		FixtureDef fixture = new FixtureDef();
+		fixture.shape = shape;
+		fixture.density = 1f;
+		body.createFixture(fixture).setUserData(userData);
+		shape.dispose();
+	}
+
+	/**
+	 * Creates an orthogonal map that casts its LOS with the supplied caster.
+	 * 
+	 * The map is not loaded, so LOS results are never cached.
+	 *
+	 * @param caster
+	 * @return
+	 */
+	static GameMap createMap(LineOfSightCaster caster) {
+		return createMap(caster, false);
+	}
+
+	/**
+	 * Creates an orthogonal map that casts its LOS with the supplied caster
+	 * and that caches LOS results if it is loaded.
+	 *
+	 * @param caster
+	 * @param loaded
+	 * @return
+	 */
+	static GameMap createMap(LineOfSightCaster caster, boolean loaded) {
+		// the real constructor creates the Box2D worlds and lights, which the LOS does not need
+		CasterGameMap map = new ObjenesisStd().newInstance(CasterGameMap.class);
+		map.caster = caster;
+		map.loaded = loaded;
+		return map;
+	}
+
+	private static class CasterGameMap extends GameMap {
+		private LineOfSightCaster caster;
+		private boolean loaded;
+
+		@Override
+		public LineOfSightCaster getLineOfSightCaster() {
+			return caster;
+		}
+
+		@Override
+		public boolean isMapLoaded() {
+			return loaded;
+		}
+	}
+}
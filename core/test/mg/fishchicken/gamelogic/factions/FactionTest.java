@@ -0,0 +1,106 @@
+package mg.fishchicken.gamelogic.factions;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Checks the cached hostility of dozens of factions against
+ * a plain disposition matrix while their dispositions keep changing.
+ *
+ */
+public class FactionTest {
+
+	private static final int FACTION_COUNT = 60;
+	private static final int CHANGE_COUNT = 20000;
+
+	@Test
+	public void hostilityFollowsDispositionChanges() {
+		Faction[] factions = new Faction[FACTION_COUNT];
+		for (int i = 0; i < FACTION_COUNT; ++i) {
+			factions[i] = new TestFaction("stressTestFaction" + i);
+		}
+		int[][] expected = new int[FACTION_COUNT][FACTION_COUNT];
+		checkAll(factions, expected);
+
+		Random random = new Random(15);
+		for (int i = 1; i <= CHANGE_COUNT; ++i) {
+			int from = random.nextInt(FACTION_COUNT);
+			int to = random.nextInt(FACTION_COUNT);
+			Faction faction = factions[from];
+			// mostly small changes around the hostility threshold, so that it is crossed often
+			switch (random.nextInt(4)) {
+				case 0:
+					int disposition = Faction.HOSTILE_DISPOSITION + random.nextInt(41) - 20;
+					faction.setDisposition(factions[to], disposition);
+					expected[from][to] = disposition;
+					break;
+				case 1:
+					// ids are case insensitive
+					disposition = random.nextInt(401) - 200;
+					faction.setDisposition(factions[to].getId().toUpperCase(), disposition);
+					expected[from][to] = disposition;
+					break;
+				default:
+					int modifier = random.nextInt(81) - 40;
+					faction.modifyDisposition(factions[to], modifier);
+					expected[from][to] += modifier;
+			}
+			check(factions, expected, from, to);
+			if (i % 1000 == 0) {
+				checkAll(factions, expected);
+			}
+		}
+	}
+
+	@Test
+	public void dispositionsTowardsUnknownFactionsAreKept() {
+		Faction faction = new TestFaction("stressTestObserver");
+		// more ids than the initial size of the disposition array
+		for (int i = 0; i < 100; ++i) {
+			faction.setDisposition("stressTestLateFaction" + i, -i * 3);
+		}
+		for (int i = 0; i < 100; ++i) {
+			Faction late = new TestFaction("stressTestLateFaction" + i);
+			assertEquals(-i * 3, faction.getDispositionTowards(late));
+			assertEquals(-i * 3 <= Faction.HOSTILE_DISPOSITION, faction.isHostileTowards(late));
+			assertEquals(0, late.getDispositionTowards(faction));
+			assertFalse(late.isHostileTowards(faction));
+		}
+	}
+
+	private static void checkAll(Faction[] factions, int[][] expected) {
+		for (int from = 0; from < factions.length; ++from) {
+			for (int to = 0; to < factions.length; ++to) {
+				check(factions, expected, from, to);
+			}
+		}
+	}
+
+	private static void check(Faction[] factions, int[][] expected, int from, int to) {
+		Faction faction = factions[from];
+		Faction other = factions[to];
+		String description = faction + " towards " + other;
+		if (from == to) {
+			assertEquals(description, 100, faction.getDispositionTowards(other));
+			assertFalse(description, faction.isHostileTowards(other));
+			return;
+		}
+		assertEquals(description, expected[from][to], faction.getDispositionTowards(other));
+		assertEquals(description, expected[from][to], faction.getDisposition(other.getId()));
+		assertEquals(description, expected[from][to] <= Faction.HOSTILE_DISPOSITION,
+				faction.isHostileTowards(other));
+		assertEquals(description, expected[from][to] <= Faction.HOSTILE_DISPOSITION
+				|| expected[to][from] <= Faction.HOSTILE_DISPOSITION, Faction.areHostile(faction, other));
+	}
+
+	// a faction without a definition file
+	private static class TestFaction extends Faction {
+		private TestFaction(String id) {
+			super(id);
+		}
+	}
+}
@@ -0,0 +1,260 @@
+package mg.fishchicken.gamelogic.locations;
+
+import static org.mockito.Mockito.mock;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import mg.fishchicken.core.GameObject;
+import mg.fishchicken.core.GameState;
+import mg.fishchicken.core.input.PlayerCharacterController;
+import mg.fishchicken.gamelogic.actions.Action;
+import mg.fishchicken.gamelogic.actions.MoveToAction;
+import mg.fishchicken.gamelogic.characters.AbstractGameCharacter;
+import mg.fishchicken.gamelogic.characters.GameCharacter;
+import mg.fishchicken.gamelogic.combat.CombatManager;
+import mg.fishchicken.gamelogic.traps.TrapLocation;
+import mg.fishchicken.gamestate.GameObjectPosition;
+import mg.fishchicken.gamestate.Position;
+import mg.fishchicken.pathfinding.AStarPathFinder;
+import mg.fishchicken.pathfinding.Path;
+import mg.fishchicken.pathfinding.SyntheticMap;
+import mg.fishchicken.pathfinding.TileBlocker;
+import mg.fishchicken.test.TestEnvironment;
+
+import org.objenesis.ObjenesisStd;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.ObjectSet;
+
+/**
+ * Measures how long combat path searches take on a map with doors and
+ * characters, with blocked() answered from the occupancy grid and with
+ * the scan over all tile blockers and the per tile character lookup
+ * blocked() used before.
+ *
+ * Run with "gradle core:benchmark -Pargs=CombatPath".
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CombatPathBenchmark {
+
+	private static final int SIZE = 96;
+	private static final int PATH_COUNT = 64;
+	private static final int DOOR_COUNT = 40;
+	private static final int CHARACTER_COUNT = 30;
+
+	@Param({ "scan", "grid" })
+	public String blocked;
+
+	private CombatManager combatManager;
+	private GameMap map;
+	private AStarPathFinder finder;
+	private GameCharacter mover;
+	private int[] starts, ends;
+	private int next;
+
+	@Setup
+	public void setUp() {
+		GameState gameState = TestEnvironment.initGameState();
+		combatManager = TestEnvironment.getField(GameState.class, gameState, "combatManager");
+		TestEnvironment.setField(CombatManager.class, combatManager, "combatInProgress", true);
+
+		SyntheticMap tiles = new SyntheticMap(SIZE, SIZE);
+		map = createMap("scan".equals(blocked) ? ScanningGameMap.class : CombatGameMap.class, tiles);
+		Random random = new Random(SIZE);
+		for (int i = 0; i < DOOR_COUNT; ++i) {
+			int tile = tiles.getRandomFreeTile(random);
+			Door door = new Door(tile % SIZE, tile / SIZE, random.nextBoolean());
+			map.blockers.add(door);
+			map.tileBlockerChanged(door);
+		}
+		for (int i = 0; i < CHARACTER_COUNT; ++i) {
+			int tile = tiles.getRandomFreeTile(random);
+			map.notifyGOTileChanged(createCharacter(tile % SIZE, tile / SIZE), tile % SIZE, tile / SIZE, -1, -1);
+		}
+		mover = createCharacter(0, 0);
+
+		// combat paths are short, the search limit is the one GameMap uses
+		finder = new AStarPathFinder(map, mock(PlayerCharacterController.class), SIZE, true);
+		starts = new int[PATH_COUNT];
+		ends = new int[PATH_COUNT];
+		for (int i = 0; i < PATH_COUNT; ++i) {
+			starts[i] = tiles.getRandomFreeTile(random);
+			int x = starts[i] % SIZE + random.nextInt(21) - 10;
+			int y = starts[i] / SIZE + random.nextInt(21) - 10;
+			ends[i] = Math.max(0, Math.min(SIZE - 1, x)) + Math.max(0, Math.min(SIZE - 1, y)) * SIZE;
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		TestEnvironment.setField(CombatManager.class, combatManager, "combatInProgress", false);
+	}
+
+	@Benchmark
+	public int combatPath() {
+		next = (next + 1) % PATH_COUNT;
+		Path path = finder.findPath(mover, starts[next] % SIZE, starts[next] / SIZE, ends[next] % SIZE, ends[next]
+				/ SIZE);
+		return path.getLength();
+	}
+
+	// the real constructor creates the Box2D worlds and lights, which the path finding does not need
+	private static GameMap createMap(Class<? extends GameMap> type, SyntheticMap tiles) {
+		GameMap map = new ObjenesisStd().newInstance(type);
+		TestEnvironment.setField(GameLocation.class, map, "boundingRectangle", new Rectangle(0, 0, SIZE, SIZE));
+		TestEnvironment.setField(GameMap.class, map, "s_startsRevealed", true);
+		TestEnvironment.setField(GameMap.class, map, "tempCursor", new SpatialIndex.Cursor());
+		map.gameObjects = new Array<GameObject>(true, 16, GameObject.class);
+		map.blockers = new Array<TileBlocker>();
+		map.unavailableTiles = new boolean[SIZE * SIZE];
+		map.blockedTiles = new boolean[SIZE * SIZE];
+		map.moveCosts = new float[SIZE * SIZE];
+		for (int x = 0; x < SIZE; ++x) {
+			for (int y = 0; y < SIZE; ++y) {
+				map.blockedTiles[x + y * SIZE] = tiles.isBlocked(x, y);
+				map.moveCosts[x + y * SIZE] = tiles.getMoveCost(x, y);
+			}
+		}
+		return map;
+	}
+
+	private static GameCharacter createCharacter(int x, int y) {
+		GameCharacter character = new ObjenesisStd().newInstance(CombatCharacter.class);
+		GameObjectPosition position = new GameObjectPosition();
+		position.set(x, y);
+		TestEnvironment.setField(GameObject.class, character, "position", position);
+		TestEnvironment.setField(GameObject.class, character, "s_width", 1f);
+		TestEnvironment.setField(GameObject.class, character, "s_height", 1f);
+		TestEnvironment.setField(GameObject.class, character, "s_active", true);
+		return character;
+	}
+
+	/**
+	 * A map that answers the questions the combat path search asks
+	 * besides blocked() without needing a running game.
+	 */
+	private static class CombatGameMap extends GameMap {
+
+		@Override
+		public boolean isNextToEnemy(AbstractGameCharacter character, int x, int y) {
+			return false;
+		}
+
+		@Override
+		public TrapLocation getDetectedTrapLocationAt(float x, float y) {
+			return null;
+		}
+
+		@Override
+		public Class<? extends Action> getActionForTarget(GameObject actionPerformer, GameObject target) {
+			return MoveToAction.class;
+		}
+	}
+
+	/**
+	 * A map that answers blocked() the way GameMap did before
+	 * it had the occupancy grid.
+	 */
+	private static class ScanningGameMap extends CombatGameMap {
+		// created lazily, since the map is created without running its initializers
+		private ObjectSet<GameObject> tempSet;
+
+		@Override
+		public boolean blocked(GameObject mover, int tx, int ty, boolean unrevealedLogic, boolean oneCharPerTile) {
+			if (tileUnavailable(tx, ty)) {
+				return true;
+			}
+			if (blockedTiles[getTileId(tx, ty)]) {
+				return true;
+			}
+			for (int i = 0; i < blockers.size; ++i) {
+				TileBlocker blocker = blockers.get(i);
+				if (!blocker.isBlockingPath()) {
+					continue;
+				}
+				if (tx == (int) blocker.position().getX() && ty == (int) blocker.position().getY()) {
+					return true;
+				}
+			}
+			if (oneCharPerTile) {
+				if (tempSet == null) {
+					tempSet = new ObjectSet<GameObject>();
+				}
+				tempSet.clear();
+				getAllGameObjectsAt(tempSet, tx, ty, true, false, GameCharacter.class);
+				if ((!tempSet.contains(mover) && tempSet.size > 0) || tempSet.size > 1) {
+					return true;
+				}
+			}
+			return false;
+		}
+	}
+
+	private static class Door implements TileBlocker {
+		private final GameObjectPosition position;
+		private final boolean closed;
+
+		private Door(int x, int y, boolean closed) {
+			position = new GameObjectPosition();
+			position.set(x, y);
+			this.closed = closed;
+		}
+
+		@Override
+		public Position position() {
+			return position;
+		}
+
+		@Override
+		public boolean isBlockingPath() {
+			return closed;
+		}
+	}
+
+	private static class CombatCharacter extends GameCharacter {
+		@Override
+		public boolean canPerformAction(Class<? extends Action> actionClass) {
+			return true;
+		}
+
+		@Override
+		public int getCostForAction(Class<? extends Action> action, Object target) {
+			return 0;
+		}
+
+		@Override
+		public boolean belongsToPlayerFaction() {
+			return false;
+		}
+
+		@Override
+		public boolean isSneaking() {
+			return false;
+		}
+
+		@Override
+		public boolean isDetectingTraps() {
+			return false;
+		}
+	}
+}
@@ -0,0 +1,113 @@
+package mg.fishchicken.gamelogic.locations;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import mg.fishchicken.core.util.PositionArray;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the fog of war queries GameMapRenderer makes for every
+ * rendered tile of a frame, for a party of six on a 512x512 map. The
+ * queries are answered from the shared party visibility buffer, or the way
+ * they were before it: by asking every party member, each with its own
+ * lookup array the size of the whole map.
+ *
+ * Run with "gradle core:benchmark -Pargs=FogQuery".
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FogQueryBenchmark {
+
+	private static final int SIZE = 512;
+	private static final int PARTY_SIZE = 6;
+	/** The default sight radius of characters */
+	private static final int RADIUS = 20;
+	/** Tiles rendered in one frame, a full HD screen of 32 pixel tiles */
+	private static final int VIEW_WIDTH = 60, VIEW_HEIGHT = 34;
+
+	@Param({ "perCharacter", "buffer" })
+	public String lookup;
+
+	private VisibilityBuffer buffer;
+	private int[][] lookups;
+	private int[] lookupCounters;
+	private int viewX, viewY;
+
+	@Setup
+	public void setUp() {
+		buffer = new VisibilityBuffer(SIZE, SIZE);
+		lookups = new int[PARTY_SIZE][];
+		lookupCounters = new int[PARTY_SIZE];
+		Random random = new Random(PARTY_SIZE);
+		for (int member = 0; member < PARTY_SIZE; ++member) {
+			int slot = buffer.addObserver();
+			lookups[member] = new int[SIZE * SIZE];
+			lookupCounters[member] = 1 + random.nextInt(100);
+			// the party walks together, so their sights overlap
+			PositionArray visibleArea = getDisc(SIZE / 2 + random.nextInt(9) - 4, SIZE / 2 + random.nextInt(9) - 4);
+			for (int i = 0; i < visibleArea.size(); ++i) {
+				int x = visibleArea.getX(i);
+				int y = visibleArea.getY(i);
+				buffer.setVisible(slot, x, y);
+				lookups[member][x + y * SIZE] = lookupCounters[member];
+			}
+		}
+		viewX = SIZE / 2 - VIEW_WIDTH / 2;
+		viewY = SIZE / 2 - VIEW_HEIGHT / 2;
+	}
+
+	private static PositionArray getDisc(int cx, int cy) {
+		PositionArray disc = new PositionArray();
+		for (int x = cx - RADIUS; x <= cx + RADIUS; ++x) {
+			for (int y = cy - RADIUS; y <= cy + RADIUS; ++y) {
+				if ((x - cx) * (x - cx) + (y - cy) * (y - cy) <= RADIUS * RADIUS) {
+					disc.add(x, y);
+				}
+			}
+		}
+		return disc;
+	}
+
+	@Benchmark
+	public int renderFrame() {
+		int fogged = 0;
+		boolean useBuffer = "buffer".equals(lookup);
+		for (int y = viewY; y < viewY + VIEW_HEIGHT; ++y) {
+			for (int x = viewX; x < viewX + VIEW_WIDTH; ++x) {
+				int tileId = x + y * SIZE;
+				boolean visible = useBuffer ? buffer.isVisible(tileId) : isVisibleToAnyMember(tileId);
+				if (!visible) {
+					++fogged;
+				}
+			}
+		}
+		return fogged;
+	}
+
+	private boolean isVisibleToAnyMember(int tileId) {
+		for (int member = 0; member < PARTY_SIZE; ++member) {
+			int[] memberLookup = lookups[member];
+			if (tileId >= 0 && tileId < memberLookup.length && memberLookup[tileId] == lookupCounters[member]) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
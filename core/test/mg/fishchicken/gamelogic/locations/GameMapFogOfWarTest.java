@@ -0,0 +1,105 @@
+package mg.fishchicken.gamelogic.locations;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import mg.fishchicken.test.TestEnvironment;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.objenesis.ObjenesisStd;
+
+/**
+ * Checks that the binary fog of war written into savegames
+ * reads back into the same seen tiles.
+ *
+ */
+public class GameMapFogOfWarTest {
+
+	@BeforeClass
+	public static void setUp() {
+		TestEnvironment.initGdx();
+	}
+
+	@Test
+	public void roundTripKeepsSeenTiles() throws IOException {
+		// lengths that are and are not multiples of 8
+		for (int length : new int[] { 0, 1, 7, 8, 9, 64 * 64, 100 * 77 }) {
+			int[] fogOfWar = createFogOfWar(length, length);
+			GameMap map = createMap(fogOfWar);
+
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			DataOutputStream output = new DataOutputStream(bytes);
+			map.writeFogOfWar(output);
+			output.flush();
+			assertEquals(4 + (length + 7) / 8, bytes.size());
+
+			GameMap loadedMap = createMap(null);
+			loadedMap.readFogOfWar(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+			assertArrayEquals(fogOfWar, getFogOfWar(loadedMap));
+		}
+	}
+
+	@Test
+	public void fullyExploredLargeMapTakesOneBitPerTile() throws IOException {
+		int[] fogOfWar = new int[1024 * 1024];
+		for (int i = 0; i < fogOfWar.length; ++i) {
+			fogOfWar[i] = 1;
+		}
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream output = new DataOutputStream(bytes);
+		createMap(fogOfWar).writeFogOfWar(output);
+		output.flush();
+		assertEquals(4 + 128 * 1024, bytes.size());
+
+		GameMap loadedMap = createMap(null);
+		loadedMap.readFogOfWar(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+		assertArrayEquals(fogOfWar, getFogOfWar(loadedMap));
+	}
+
+	@Test
+	public void skippedFogOfWarLeavesFollowingMapsReadable() throws IOException {
+		int[] skippedFogOfWar = createFogOfWar(50 * 50, 1);
+		int[] fogOfWar = createFogOfWar(33 * 21, 2);
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream output = new DataOutputStream(bytes);
+		createMap(skippedFogOfWar).writeFogOfWar(output);
+		createMap(fogOfWar).writeFogOfWar(output);
+		output.writeInt(42);
+		output.flush();
+
+		DataInputStream input = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+		GameMap.skipFogOfWar(input);
+		GameMap loadedMap = createMap(null);
+		loadedMap.readFogOfWar(input);
+		assertArrayEquals(fogOfWar, getFogOfWar(loadedMap));
+		assertEquals(42, input.readInt());
+	}
+
+	private static int[] createFogOfWar(int length, long seed) {
+		Random random = new Random(seed);
+		int[] fogOfWar = new int[length];
+		for (int i = 0; i < length; ++i) {
+			fogOfWar[i] = random.nextBoolean() ? 1 : 0;
+		}
+		return fogOfWar;
+	}
+
+	// the real constructor creates the Box2D worlds and lights, which the fog of war does not need
+	private static GameMap createMap(int[] fogOfWar) {
+		GameMap map = new ObjenesisStd().newInstance(GameMap.class);
+		TestEnvironment.setField(GameMap.class, map, "fogOfWar", fogOfWar);
+		return map;
+	}
+
+	private static int[] getFogOfWar(GameMap map) {
+		return TestEnvironment.getField(GameMap.class, map, "fogOfWar");
+	}
+}
@@ -0,0 +1,67 @@
+package mg.fishchicken.gamelogic.locations;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import mg.fishchicken.test.TestEnvironment;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.badlogic.gdx.files.FileHandle;
+
+/**
+ * Measures how long a map switch spends getting the geometry of a town map:
+ * cold, when it has to be baked from the tiles and written into the geometry file,
+ * and warm, when it is read from the geometry file baked before. Both
+ * calculate the key of the map first, like GameMapLoader does.
+ *
+ * Run with "gradle core:benchmark -Pargs=MapGeometry".
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapGeometryBenchmark {
+
+	@Param({ "128", "256" })
+	public int size;
+
+	@Param({ "bake", "cached" })
+	public String geometry;
+
+	private MapGeometryTest.Town town;
+	private FileHandle cacheFile;
+
+	@Setup
+	public void setUp() throws IOException {
+		TestEnvironment.initGdx();
+		town = new MapGeometryTest.Town(size, new Random(size));
+		cacheFile = MapGeometryTest.createTempFile("geometry");
+		town.loader.bakeGeometry().write(cacheFile, MapGeometry.calculateKey(town.tmxFile, town.tiledMap));
+	}
+
+	@Benchmark
+	public MapGeometry mapSwitch() {
+		long key = MapGeometry.calculateKey(town.tmxFile, town.tiledMap);
+		if ("cached".equals(geometry)) {
+			return MapGeometry.read(cacheFile, key);
+		}
+		MapGeometry baked = town.loader.bakeGeometry();
+		baked.write(cacheFile, key);
+		return baked;
+	}
+}
@@ -0,0 +1,166 @@
+package mg.fishchicken.gamelogic.locations;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+import mg.fishchicken.test.TestEnvironment;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.objenesis.ObjenesisStd;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.assets.loaders.resolvers.AbsoluteFileHandleResolver;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.maps.tiled.BaseTmxMapLoader;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.maps.tiled.TiledMapTile;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer.Cell;
+import com.badlogic.gdx.maps.tiled.TiledMapTileSet;
+import com.badlogic.gdx.maps.tiled.tiles.StaticTiledMapTile;
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * Checks that the geometry read from a baked geometry file is the same
+ * as the one baked from the tiles of a town map, and that the file
+ * is no longer used once the map changed.
+ *
+ * For the timings, see {@link MapGeometryBenchmark}.
+ *
+ */
+public class MapGeometryTest {
+
+	private static final int FLOOR = 1, WALL = 2, ROUGH = 3, WATER = 4;
+
+	@BeforeClass
+	public static void setUp() {
+		TestEnvironment.initGdx();
+	}
+
+	@Test
+	public void cachedGeometryMatchesBakedGeometry() throws IOException {
+		Town town = new Town(96, new Random(17));
+		FileHandle cacheFile = createTempFile("geometry");
+		long key = MapGeometry.calculateKey(town.tmxFile, town.tiledMap);
+		MapGeometry baked = town.loader.bakeGeometry();
+		baked.write(cacheFile, key);
+		assertTrue(baked.getLightBlockingEdges().length > 0);
+
+		MapGeometry cached = MapGeometry.read(cacheFile, key);
+		assertNotNull(cached);
+		assertEquals(baked.getWidth(), cached.getWidth());
+		assertEquals(baked.getHeight(), cached.getHeight());
+		assertArrayEquals(baked.getBlockedTiles(), cached.getBlockedTiles());
+		assertArrayEquals(baked.getUnavailableTiles(), cached.getUnavailableTiles());
+		assertArrayEquals(baked.getMoveCosts(), cached.getMoveCosts(), 0);
+		assertArrayEquals(baked.getLightBlockingEdges(), cached.getLightBlockingEdges(), 0);
+
+		// a wall added to the map changes the checksum of its tmx file
+		town.tmxFile.writeString("<!-- wall -->", true);
+		assertNull(MapGeometry.read(cacheFile, MapGeometry.calculateKey(town.tmxFile, town.tiledMap)));
+	}
+
+	static FileHandle createTempFile(String prefix) throws IOException {
+		File file = File.createTempFile(prefix, ".tmp");
+		file.deleteOnExit();
+		return Gdx.files.absolute(file.getAbsolutePath());
+	}
+
+	/**
+	 * An orthogonal town map of the supplied size, with walled houses,
+	 * rough terrain and ponds on a single ground layer, and a loader
+	 * ready to bake its geometry.
+	 *
+	 * The tmx file only holds the tile ids of the layer as CSV, like
+	 * the real ones do, since only its checksum is ever calculated.
+	 */
+	static class Town {
+
+		final TiledMap tiledMap;
+		final GameMapLoader loader;
+		final FileHandle tmxFile;
+
+		Town(int size, Random random) throws IOException {
+			tiledMap = new TiledMap();
+			tiledMap.getProperties().put("width", size);
+			tiledMap.getProperties().put("height", size);
+			TiledMapTileSet tileSet = new TiledMapTileSet();
+			tileSet.setName("town");
+			tileSet.putTile(FLOOR, createTile(FLOOR, null, null));
+			tileSet.putTile(WALL, createTile(WALL, GameMapLoader.PROPERTY_BLOCKED, GameMapLoader.PROPERTY_BLOCK_LIGHT));
+			tileSet.putTile(ROUGH, createTile(ROUGH, null, null));
+			tileSet.getTile(ROUGH).getProperties().put(GameMapLoader.PROPERTY_MOVE_COST, "2");
+			tileSet.putTile(WATER, createTile(WATER, GameMapLoader.PROPERTY_UNAVAILABLE, null));
+			tiledMap.getTileSets().addTileSet(tileSet);
+
+			int[] tiles = new int[size * size];
+			for (int i = 0; i < tiles.length; ++i) {
+				tiles[i] = random.nextInt(10) == 0 ? ROUGH : FLOOR;
+			}
+			for (int i = 0; i < size * size / 200; ++i) {
+				int width = 4 + random.nextInt(7);
+				int height = 4 + random.nextInt(7);
+				int x = random.nextInt(size - width);
+				int y = random.nextInt(size - height);
+				boolean pond = random.nextInt(5) == 0;
+				for (int dx = 0; dx < width; ++dx) {
+					for (int dy = 0; dy < height; ++dy) {
+						boolean border = dx == 0 || dy == 0 || dx == width - 1 || dy == height - 1;
+						// every house has a door in its bottom wall
+						boolean door = dy == 0 && dx == width / 2;
+						if (pond) {
+							tiles[x + dx + (y + dy) * size] = WATER;
+						} else if (border && !door) {
+							tiles[x + dx + (y + dy) * size] = WALL;
+						}
+					}
+				}
+			}
+
+			TiledMapTileLayer ground = new TiledMapTileLayer(size, size, 32, 32);
+			StringBuilder csv = new StringBuilder();
+			for (int y = 0; y < size; ++y) {
+				for (int x = 0; x < size; ++x) {
+					Cell cell = new Cell();
+					cell.setTile(tileSet.getTile(tiles[x + y * size]));
+					ground.setCell(x, y, cell);
+					csv.append(tiles[x + y * size]).append(',');
+				}
+				csv.append('\n');
+			}
+			tiledMap.getLayers().add(ground);
+			tmxFile = createTempFile("town");
+			tmxFile.writeString(csv.toString(), false);
+
+			GameMap gameMap = new ObjenesisStd().newInstance(GameMap.class);
+			TestEnvironment.setField(GameMap.class, gameMap, "tiledMap", tiledMap);
+			Array<TiledMapTileLayer> groundLayers = new Array<TiledMapTileLayer>();
+			groundLayers.add(ground);
+			TestEnvironment.setField(GameMap.class, gameMap, "groundLayers", groundLayers);
+			loader = new GameMapLoader(new AbsoluteFileHandleResolver());
+			TestEnvironment.setField(BaseTmxMapLoader.class, loader, "map", tiledMap);
+			TestEnvironment.setField(GameMapLoader.class, loader, "gameMap", gameMap);
+		}
+
+		private static TiledMapTile createTile(int id, String property, String otherProperty) {
+			TiledMapTile tile = new StaticTiledMapTile(new TextureRegion());
+			tile.setId(id);
+			if (property != null) {
+				tile.getProperties().put(property, "true");
+			}
+			if (otherProperty != null) {
+				tile.getProperties().put(otherProperty, "true");
+			}
+			return tile;
+		}
+	}
+}
@@ -0,0 +1,54 @@
+package mg.fishchicken.gamelogic.modifiers;
+
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.ObjectMap;
+
+/**
+ * A modifier that stores its mods the way {@link Modifier} did before
+ * they were kept in an array indexed by the stat ordinals, used as
+ * a reference in tests and benchmarks.
+ *
+ */
+public class MapModifier {
+
+	private final ObjectMap<ModifiableStat, Float> mods = new ObjectMap<ModifiableStat, Float>();
+
+	public MapModifier setMod(ModifiableStat stat, float value) {
+		mods.put(stat, value);
+		return this;
+	}
+
+	public float getMod(ModifiableStat stat) {
+		Float value = mods.get(stat);
+		if (value == null) {
+			if (stat.isMultiplier()) {
+				value = 1f;
+			} else {
+				value = 0f;
+			}
+		}
+		return value;
+	}
+
+	/**
+	 * Applies all the supplied modifiers to the supplied value
+	 * the way Stats.getModifiedStat did before it cached the totals,
+	 * by going over every modifier on every call.
+	 */
+	public static float getModifiedStat(Array<MapModifier> modifiers, float unmodifiedValue, ModifiableStat stat) {
+		float returnValue = unmodifiedValue;
+
+		for (MapModifier mod : modifiers) {
+			if (stat.isMultiplier()) {
+				returnValue *= mod.getMod(stat);
+			} else {
+				returnValue += mod.getMod(stat);
+			}
+		}
+
+		if (returnValue < 0) {
+			returnValue = 0;
+		}
+		return returnValue;
+	}
+}
@@ -0,0 +1,101 @@
+package mg.fishchicken.gamestate.characters;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import mg.fishchicken.gamelogic.modifiers.MapModifier;
+import mg.fishchicken.gamelogic.modifiers.ModifiableStat;
+import mg.fishchicken.gamelogic.modifiers.Modifier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * Measures the stat reads of a combat round between two groups of heavily
+ * buffed characters. Every character attacks a random opponent, which
+ * reads the chance to hit, damage and AP cost of the attacker and the
+ * dodge and armor of the defender, and the character sheet of the
+ * attacker is refreshed. At the end of the round one buff expires and
+ * a new one is cast. The stats are read from the cached modifier totals
+ * and by going over all modifiers, like Stats.getModifiedStat did before.
+ *
+ * Run with "gradle core:benchmark -Pargs=BuffedCombat".
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BuffedCombatBenchmark {
+
+	private static final int CHARACTER_COUNT = 8;
+	private static final int BUFF_COUNT = 30;
+	private static final ModifiableStat[] ATTACKER_STATS = { ModifiableStat.CHANCETOHIT, ModifiableStat.SWORD,
+			ModifiableStat.DAMAGE, ModifiableStat.DAMAGEMULTIPLIER, ModifiableStat.APCOSTTOATTACK,
+			ModifiableStat.APCOSTTOATTACKMULTIPLIER };
+	private static final ModifiableStat[] DEFENDER_STATS = { ModifiableStat.DODGEPARRY,
+			ModifiableStat.DODGEPARRYMULTIPLIER, ModifiableStat.DODGE, ModifiableStat.ARMORRATING };
+
+	@Param({ "modifierLoop", "totals" })
+	public String stats;
+
+	private Stats[] characters;
+	private Array<Array<Modifier>> buffs;
+	private Array<Array<MapModifier>> references;
+	private Random random;
+
+	@Setup
+	public void setUp() {
+		random = new Random(BUFF_COUNT);
+		characters = new Stats[CHARACTER_COUNT];
+		buffs = new Array<Array<Modifier>>();
+		references = new Array<Array<MapModifier>>();
+		for (int i = 0; i < CHARACTER_COUNT; ++i) {
+			characters[i] = new ModifierTotalsTest.BuffedStats();
+			buffs.add(new Array<Modifier>());
+			references.add(new Array<MapModifier>());
+			for (int j = 0; j < BUFF_COUNT; ++j) {
+				ModifierTotalsTest.castBuff(random, characters[i], buffs.get(i), references.get(i));
+			}
+		}
+	}
+
+	@Benchmark
+	public float combatRound() {
+		float sum = 0;
+		for (int attacker = 0; attacker < CHARACTER_COUNT; ++attacker) {
+			// the two groups are the first and the second half of the characters
+			int defender = (attacker + CHARACTER_COUNT / 2 + random.nextInt(CHARACTER_COUNT / 2)) % CHARACTER_COUNT;
+			sum += readStats(attacker, ATTACKER_STATS);
+			sum += readStats(defender, DEFENDER_STATS);
+			sum += readStats(attacker, ModifierTotalsTest.COMBAT_STATS);
+		}
+		int expiring = random.nextInt(CHARACTER_COUNT);
+		ModifierTotalsTest.expireBuff(random, characters[expiring], buffs.get(expiring), references.get(expiring));
+		ModifierTotalsTest.castBuff(random, characters[expiring], buffs.get(expiring), references.get(expiring));
+		return sum;
+	}
+
+	private float readStats(int character, ModifiableStat[] statsToRead) {
+		float sum = 0;
+		boolean loop = "modifierLoop".equals(stats);
+		for (ModifiableStat stat : statsToRead) {
+			sum += loop ? MapModifier.getModifiedStat(references.get(character), 10, stat) : characters[character]
+					.getModifiedStat(10, stat);
+		}
+		return sum;
+	}
+}
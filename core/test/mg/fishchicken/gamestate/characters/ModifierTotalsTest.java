@@ -0,0 +1,101 @@
+package mg.fishchicken.gamestate.characters;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import mg.fishchicken.gamelogic.modifiers.MapModifier;
+import mg.fishchicken.gamelogic.modifiers.ModifiableStat;
+import mg.fishchicken.gamelogic.modifiers.Modifier;
+
+import org.junit.Test;
+
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * Checks that the stats of a heavily buffed character read from the cached
+ * modifier totals are the same as the ones got by going over all its
+ * modifiers, also after some of the buffs expired and new ones were cast.
+ *
+ * For the timings, see {@link BuffedCombatBenchmark}.
+ *
+ */
+public class ModifierTotalsTest {
+
+	/**
+	 * The stats read when resolving an attack and
+	 * when refreshing the character sheet during combat.
+	 */
+	static final ModifiableStat[] COMBAT_STATS = { ModifiableStat.CHANCETOHIT, ModifiableStat.DAMAGE,
+			ModifiableStat.DAMAGEMULTIPLIER, ModifiableStat.APCOSTTOATTACK, ModifiableStat.APCOSTTOATTACKMULTIPLIER,
+			ModifiableStat.DODGEPARRY, ModifiableStat.DODGEPARRYMULTIPLIER, ModifiableStat.ARMORRATING,
+			ModifiableStat.SWORD, ModifiableStat.DODGE, ModifiableStat.ACTIONPOINTS, ModifiableStat.HITPOINTS };
+
+	@Test
+	public void totalsMatchModifierLoop() {
+		Random random = new Random(14);
+		Stats stats = new BuffedStats();
+		Array<Modifier> buffs = new Array<Modifier>();
+		Array<MapModifier> references = new Array<MapModifier>();
+		for (int i = 0; i < 30; ++i) {
+			castBuff(random, stats, buffs, references);
+		}
+		assertSameStats(stats, references);
+
+		for (int round = 0; round < 10; ++round) {
+			expireBuff(random, stats, buffs, references);
+			castBuff(random, stats, buffs, references);
+			assertSameStats(stats, references);
+		}
+		while (buffs.size > 0) {
+			expireBuff(random, stats, buffs, references);
+		}
+		assertSameStats(stats, references);
+	}
+
+	private static void assertSameStats(Stats stats, Array<MapModifier> references) {
+		for (ModifiableStat stat : ModifiableStat.values()) {
+			float expected = MapModifier.getModifiedStat(references, 10, stat);
+			assertEquals(stat.name(), expected, stats.getModifiedStat(10, stat), Math.abs(expected) * 1e-5f);
+		}
+	}
+
+	/**
+	 * Adds a buff that changes a few random combat stats to
+	 * the character and the same buff to the reference modifiers.
+	 */
+	static void castBuff(Random random, Stats stats, Array<Modifier> buffs, Array<MapModifier> references) {
+		Modifier buff = new Modifier();
+		MapModifier reference = new MapModifier();
+		for (int i = 0; i < 3; ++i) {
+			ModifiableStat stat = COMBAT_STATS[random.nextInt(COMBAT_STATS.length)];
+			float value = stat.isMultiplier() ? 0.9f + random.nextFloat() * 0.3f : random.nextInt(6) - 2;
+			buff.setMod(stat, value);
+			reference.setMod(stat, value);
+		}
+		stats.addModifier(buff);
+		buffs.add(buff);
+		references.add(reference);
+	}
+
+	static void expireBuff(Random random, Stats stats, Array<Modifier> buffs, Array<MapModifier> references) {
+		int index = random.nextInt(buffs.size);
+		stats.removeModifier(buffs.removeIndex(index));
+		references.removeIndex(index);
+	}
+
+	/**
+	 * Stats of a character that only exists in the tests. The current values
+	 * are not kept within their maximums, since those need a race.
+	 */
+	static class BuffedStats extends Stats {
+
+		BuffedStats() {
+			super(null, null);
+		}
+
+		@Override
+		public void boxStats() {
+		}
+	}
+}
@@ -0,0 +1,123 @@
+package mg.fishchicken.graphics;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import mg.fishchicken.gamelogic.locations.GameMap;
+import mg.fishchicken.gamestate.Position;
+import mg.fishchicken.graphics.renderers.GameMapRenderer;
+
+import org.junit.Test;
+
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.math.Rectangle;
+
+/**
+ * Checks that drawables are found by their draw bounds,
+ * not only by their position, also after they move.
+ *
+ */
+public class DrawOrderTest {
+
+	@Test
+	public void tallDrawablesAreFoundByTheirDrawBounds() {
+		DrawOrder drawOrder = new DrawOrder();
+		// a tall object whose ground is far below the screen
+		TestDrawable tall = new TestDrawable(new Rectangle(10, 0, 2, 40));
+		drawOrder.add(tall);
+
+		assertTrue(drawOrder.getVisible(new Rectangle(0, 30, 20, 20)).contains(tall, true));
+		assertFalse(drawOrder.getVisible(new Rectangle(0, 50, 20, 20)).contains(tall, true));
+		assertFalse(drawOrder.getVisible(new Rectangle(30, 0, 20, 20)).contains(tall, true));
+	}
+
+	@Test
+	public void movedDrawablesAreFoundByTheirNewDrawBounds() {
+		DrawOrder drawOrder = new DrawOrder();
+		TestDrawable tall = new TestDrawable(new Rectangle(10, 0, 2, 40));
+		drawOrder.add(tall);
+		Rectangle top = new Rectangle(0, 30, 20, 20);
+		assertTrue(drawOrder.getVisible(top).contains(tall, true));
+
+		tall.position().set(100, 0);
+		assertFalse(drawOrder.getVisible(top).contains(tall, true));
+		assertTrue(drawOrder.getVisible(new Rectangle(95, 35, 10, 10)).contains(tall, true));
+	}
+
+	// a drawable that should be drawn wherever its draw bounds are
+	private static class TestDrawable implements Drawable {
+		private final Position position = new Position();
+		private final float width, height;
+
+		private TestDrawable(Rectangle bounds) {
+			position.set(bounds.x, bounds.y);
+			width = bounds.width;
+			height = bounds.height;
+		}
+
+		@Override
+		public Rectangle getDrawBounds(Rectangle bounds) {
+			return bounds.set(position.getX(), position.getY(), width, height);
+		}
+
+		@Override
+		public boolean shouldDraw(Rectangle cullingRectangle) {
+			return cullingRectangle.overlaps(getDrawBounds(new Rectangle()));
+		}
+
+		@Override
+		public Position position() {
+			return position;
+		}
+
+		@Override
+		public GameMap getMap() {
+			return null;
+		}
+
+		@Override
+		public void draw(GameMapRenderer renderer, float deltaTime) {
+		}
+
+		@Override
+		public float getZIndex() {
+			return 0;
+		}
+
+		// the ground footprint
+		@Override
+		public float getWidth() {
+			return width;
+		}
+
+		@Override
+		public float getHeight() {
+			return 1;
+		}
+
+		@Override
+		public boolean isAlwaysBehind() {
+			return false;
+		}
+
+		@Override
+		public boolean isAlwaysInFront() {
+			return false;
+		}
+
+		@Override
+		public Color getColor() {
+			return Color.WHITE;
+		}
+
+		@Override
+		public Color getHighlightColor(float x, float y) {
+			return null;
+		}
+
+		@Override
+		public int getHighlightAmount(float x, float y) {
+			return 0;
+		}
+	}
+}
@@ -0,0 +1,226 @@
+package mg.fishchicken.graphics.particles;
+
+import mg.fishchicken.core.GameObject;
+import mg.fishchicken.core.util.GraphicsUtil;
+import mg.fishchicken.core.util.MathUtil;
+import mg.fishchicken.gamelogic.locations.GameMap;
+import mg.fishchicken.gamestate.Position;
+import mg.fishchicken.graphics.Drawable;
+import mg.fishchicken.graphics.renderers.GameMapRenderer;
+
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.g2d.ParticleEffect;
+import com.badlogic.gdx.graphics.g2d.ParticleEmitter;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * The particle effect manager as it was before the effects were pooled:
+ * every attached effect is a new copy of the loaded effect and the effects
+ * of a GO are found by looking at all live effects.
+ *
+ * Only kept to compare the allocations with the pooled manager.
+ *
+ */
+public class CopyingParticleEffectManager extends ParticleEffectManager {
+
+	private Array<ParticleEffectDrawable> keysToRemove = new Array<ParticleEffectDrawable>();
+	private Array<ParticleEffectDrawable> activeEffects = new Array<ParticleEffectDrawable>();
+	private int allocatedEffects;
+
+	@Override
+	public ParticleEffect attachParticleEffect(GameObject go, ParticleEffectDescriptor pe) {
+		if (pe == null) {
+			return null;
+		}
+		ParticleEffect effect = getParticleEffect(pe.getEffectId());
+		++allocatedEffects;
+		new ParticleEffectDrawable(pe.getEffectId(), effect, go, GraphicsUtil.transformOffsets(go.getMap(),
+				new Vector2(pe.getXOffset(), pe.getYOffset())), pe.getDelay());
+		return effect;
+	}
+
+	@Override
+	public int getAllocatedEffectCount() {
+		return allocatedEffects;
+	}
+
+	@Override
+	public int getLiveParticleCount() {
+		int returnValue = 0;
+		for (ParticleEffectDrawable info : activeEffects) {
+			for (ParticleEmitter emitter : info.effect.getEmitters()) {
+				returnValue += emitter.getActiveCount();
+			}
+		}
+		return returnValue;
+	}
+
+	@Override
+	public void update(float deltaTime) {
+		keysToRemove.clear();
+
+		for (ParticleEffectDrawable info : activeEffects) {
+			if (info.update(deltaTime)) {
+				keysToRemove.add(info);
+			}
+		}
+
+		for (ParticleEffectDrawable info : keysToRemove) {
+			info.remove();
+		}
+	}
+
+	@Override
+	public int getCount(GameObject go, String effectId) {
+		int returnValue = 0;
+		for (ParticleEffectDrawable info : activeEffects) {
+			if (info.effectId.equals(effectId) && info.gameObject.equals(go)) {
+				++returnValue;
+			}
+		}
+		return returnValue;
+	}
+
+	@Override
+	public void kill(GameObject go, String effectId) {
+		keysToRemove.clear();
+		for (ParticleEffectDrawable info : activeEffects) {
+			if (info.effectId.equals(effectId) && info.gameObject.equals(go)) {
+				keysToRemove.add(info);
+			}
+		}
+
+		for (ParticleEffectDrawable info : keysToRemove) {
+			info.remove();
+		}
+	}
+
+	@Override
+	public void killAll() {
+		keysToRemove.clear();
+		keysToRemove.addAll(activeEffects);
+		for (ParticleEffectDrawable info : keysToRemove) {
+			info.remove();
+		}
+	}
+
+	private class ParticleEffectDrawable implements Drawable {
+		private String effectId;
+		private GameObject gameObject;
+		private ParticleEffect effect;
+		private Vector2 offset;
+		private float delay;
+		private boolean isStarted;
+		private GameMap map;
+
+		private ParticleEffectDrawable(String id, ParticleEffect effect, GameObject target, Vector2 offset, float delay) {
+			effectId = id;
+			this.effect = effect;
+			this.gameObject = target;
+			this.offset = offset;
+			isStarted = false;
+			this.delay = delay;
+			this.map = gameObject.getMap();
+			map.addDrawable(this);
+			activeEffects.add(this);
+			updatePosition();
+		}
+
+		private void remove() {
+			activeEffects.removeValue(this, false);
+			map.removeDrawable(this);
+		}
+
+		private boolean update(float deltaTime) {
+			if (!isStarted) {
+				delay -= deltaTime;
+				if (delay <= 0) {
+					effect.start();
+					isStarted = true;
+				}
+			}
+			if (isStarted) {
+				updatePosition();
+				if (effect.isComplete() || !gameObject.isActive()) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		private void updatePosition() {
+			Vector2 projectedCoordinates = gameObject.position().setVector2(MathUtil.getVector2());
+			map.projectFromTiles(projectedCoordinates.add(offset.x, offset.y));
+			effect.setPosition(projectedCoordinates.x, projectedCoordinates.y);
+			MathUtil.freeVector2(projectedCoordinates);
+		}
+
+		@Override
+		public void draw(GameMapRenderer renderer, float deltaTime) {
+			effect.draw(renderer.getSpriteBatch(), deltaTime);
+		}
+
+		@Override
+		public float getZIndex() {
+			return -gameObject.getYCamera() + 0.001f;
+		}
+
+		@Override
+		public boolean shouldDraw(Rectangle cullingRectangle) {
+			return isStarted;
+		}
+
+		@Override
+		public Rectangle getDrawBounds(Rectangle bounds) {
+			Position position = gameObject.position();
+			return bounds.set(position.getX(), position.getY(), gameObject.getWidth(), gameObject.getHeight());
+		}
+
+		@Override
+		public boolean isAlwaysBehind() {
+			return false;
+		}
+
+		@Override
+		public boolean isAlwaysInFront() {
+			return false;
+		}
+
+		@Override
+		public Color getColor() {
+			return Color.WHITE;
+		}
+
+		@Override
+		public Color getHighlightColor(float x, float y) {
+			return null;
+		}
+
+		@Override
+		public int getHighlightAmount(float x, float y) {
+			return 0;
+		}
+
+		@Override
+		public Position position() {
+			return gameObject.position();
+		}
+
+		@Override
+		public GameMap getMap() {
+			return map;
+		}
+
+		@Override
+		public float getWidth() {
+			return gameObject.getWidth();
+		}
+
+		@Override
+		public float getHeight() {
+			return gameObject.getHeight();
+		}
+	}
+}
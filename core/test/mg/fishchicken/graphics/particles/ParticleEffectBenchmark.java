@@ -0,0 +1,58 @@
+package mg.fishchicken.graphics.particles;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import mg.fishchicken.graphics.particles.ParticleEffectManagerTest.SpellFight;
+import mg.fishchicken.test.TestEnvironment;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures one frame of a headless spell fight: sparks are attached to
+ * the characters hit by spells, fires start and are put out, and all live
+ * effects are updated. The effects are managed by the pooled manager
+ * and by the copying one it replaced.
+ *
+ * Run with "gradle core:benchmark -Pargs=ParticleEffect" and add
+ * "-prof gc" to the args to see how much each frame allocates.
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParticleEffectBenchmark {
+
+	@Param({ "copy", "pool" })
+	public String manager;
+
+	private SpellFight fight;
+
+	@Setup
+	public void setUp() throws IOException {
+		TestEnvironment.initConfiguration();
+		ParticleEffectManagerTest.registerEffects();
+		fight = new SpellFight("copy".equals(manager) ? new CopyingParticleEffectManager()
+				: new ParticleEffectManager(), new Random(21));
+	}
+
+	@Benchmark
+	public int fightFrame() {
+		fight.frame();
+		return fight.attached;
+	}
+}
@@ -0,0 +1,259 @@
+package mg.fishchicken.graphics.particles;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+import mg.fishchicken.core.GameObject;
+import mg.fishchicken.core.assets.Assets;
+import mg.fishchicken.gamelogic.characters.GameCharacter;
+import mg.fishchicken.gamelogic.locations.GameMap;
+import mg.fishchicken.gamestate.GameObjectPosition;
+import mg.fishchicken.graphics.Drawable;
+import mg.fishchicken.test.TestEnvironment;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.objenesis.ObjenesisStd;
+
+import com.badlogic.gdx.assets.AssetLoaderParameters;
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.assets.loaders.SynchronousAssetLoader;
+import com.badlogic.gdx.assets.loaders.resolvers.InternalFileHandleResolver;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.g2d.ParticleEffect;
+import com.badlogic.gdx.graphics.g2d.ParticleEmitter;
+import com.badlogic.gdx.graphics.g2d.Sprite;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.ObjectMap;
+
+/**
+ * Runs a headless spell fight, where sparks fly from the characters hit
+ * by spells every frame and fires start and burn out on them, and counts
+ * the particle effects the manager allocates on the way. The pooled
+ * manager only allocates as many effects as are alive at the same time,
+ * while the copying one it replaced allocated a new effect for every spell hit.
+ * Both keep the same particles alive.
+ *
+ * For the timings and allocation rates, see {@link ParticleEffectBenchmark}.
+ *
+ */
+public class ParticleEffectManagerTest {
+
+	static final float FRAME = 1 / 30f;
+	static final String SPARK = "spark";
+	static final String FIRE = "fire";
+	private static final int CHARACTER_COUNT = 40;
+	private static final int SPARKS_PER_FRAME = 4;
+	// how often a fire starts on or is put out on one of the characters
+	private static final int FRAMES_PER_FIRE = 10;
+	private static final int FRAMES = 900;
+
+	@BeforeClass
+	public static void setUp() {
+		TestEnvironment.initConfiguration();
+		registerEffects();
+	}
+
+	@Test
+	public void pooledEffectsAreReused() throws IOException {
+		SpellFight fight = new SpellFight(new ParticleEffectManager(), new Random(21));
+		// the first half lets the pools grow to the number of effects the fight keeps alive
+		for (int i = 0; i < FRAMES / 2; ++i) {
+			fight.frame();
+		}
+		int warmAttached = fight.attached;
+		int warmAllocated = fight.manager.getAllocatedEffectCount();
+		for (int i = 0; i < FRAMES / 2; ++i) {
+			fight.frame();
+		}
+		int attached = fight.attached - warmAttached;
+		int allocated = fight.manager.getAllocatedEffectCount() - warmAllocated;
+		assertTrue("only " + attached + " effects were attached", attached > FRAMES / 2 * SPARKS_PER_FRAME);
+		assertTrue(allocated + " effects were allocated for " + attached + " attached ones", allocated * 50 < attached);
+		assertTrue(warmAllocated + " effects were allocated for at most " + fight.peakLiveEffects + " live ones",
+				warmAllocated < fight.peakLiveEffects * 2);
+		assertTrue("the live particles were never counted", fight.peakLiveParticles > 0);
+
+		fight.manager.killAll();
+		assertEquals(0, fight.map.drawables.size);
+	}
+
+	@Test
+	public void pooledFightMatchesCopyingWithoutAllocating() throws IOException {
+		SpellFight copying = new SpellFight(new CopyingParticleEffectManager(), new Random(21));
+		SpellFight pooled = new SpellFight(new ParticleEffectManager(), new Random(21));
+		double copyingBytes = getAllocatedBytesPerFrame(copying);
+		double pooledBytes = getAllocatedBytesPerFrame(pooled);
+		assertEquals(copying.attached, copying.manager.getAllocatedEffectCount());
+		// reused effects must not live longer than fresh copies
+		assertEquals(copying.liveParticles, pooled.liveParticles, copying.liveParticles / 100);
+		assertTrue("pooled fight allocated " + pooledBytes + " bytes per frame, copying one " + copyingBytes,
+				pooledBytes * 10 < copyingBytes);
+	}
+
+	private static double getAllocatedBytesPerFrame(SpellFight fight) {
+		// the first half lets the fight and the pools reach their steady state
+		for (int i = 0; i < FRAMES / 2; ++i) {
+			fight.frame();
+		}
+		long before = getAllocatedBytes();
+		for (int i = 0; i < FRAMES / 2; ++i) {
+			fight.frame();
+		}
+		return (double) (getAllocatedBytes() - before) / (FRAMES / 2);
+	}
+
+	private static long getAllocatedBytes() {
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory
+				.getThreadMXBean();
+		return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	/**
+	 * Registers a short burst of sparks and a continuous fire with
+	 * the asset manager, built in code, so that no particle files
+	 * and no textures are needed.
+	 */
+	static synchronized void registerEffects() {
+		ObjectMap<String, String> effects = TestEnvironment.getField(ParticleEffectManager.class, null,
+				"particleEffects");
+		if (effects.containsKey(SPARK)) {
+			return;
+		}
+		AssetManager assets = Assets.getAssetManager();
+		assets.setLoader(ParticleEffect.class, ".test", new SynchronousAssetLoader<ParticleEffect, AssetLoaderParameters<ParticleEffect>>(
+				new InternalFileHandleResolver()) {
+			@Override
+			public ParticleEffect load(AssetManager assetManager, String fileName, FileHandle file,
+					AssetLoaderParameters<ParticleEffect> parameter) {
+				return fileName.startsWith(FIRE) ? createEffect(true, 1000, 60, 800, 60) : createEffect(false, 300, 100,
+						400, 30);
+			}
+
+			@SuppressWarnings("rawtypes")
+			@Override
+			public Array getDependencies(String fileName, FileHandle file, AssetLoaderParameters<ParticleEffect> parameter) {
+				return null;
+			}
+		});
+		assets.load(SPARK + ".test", ParticleEffect.class);
+		assets.load(FIRE + ".test", ParticleEffect.class);
+		assets.finishLoading();
+		effects.put(SPARK, SPARK + ".test");
+		effects.put(FIRE, FIRE + ".test");
+	}
+
+	private static ParticleEffect createEffect(boolean continuous, float duration, float emission, float life,
+			int maxParticles) {
+		ParticleEmitter emitter = new ParticleEmitter();
+		emitter.setContinuous(continuous);
+		emitter.getDuration().setLow(duration);
+		emitter.getEmission().setHigh(emission);
+		emitter.getLife().setHigh(life);
+		emitter.getXScale().setHigh(1);
+		emitter.setMaxParticleCount(maxParticles);
+		Array<Sprite> sprites = new Array<Sprite>();
+		sprites.add(new Sprite());
+		emitter.setSprites(sprites);
+		ParticleEffect effect = new ParticleEffect();
+		effect.getEmitters().add(emitter);
+		return effect;
+	}
+
+	/**
+	 * A fight on a map with characters standing on random tiles. Every frame,
+	 * a few of them are hit by spells and a fire starts on or is put out on
+	 * one of them now and then. The effects are advanced after the manager
+	 * updated them, like drawing them does in the game.
+	 */
+	static class SpellFight {
+		final ParticleEffectManager manager;
+		final FightMap map;
+		private final Array<GameCharacter> characters = new Array<GameCharacter>();
+		private final ParticleEffectDescriptor spark, fire;
+		private final Random random;
+		private int frame;
+		int attached, peakLiveEffects, peakLiveParticles;
+		// the particles alive after each frame, summed up
+		long liveParticles;
+
+		SpellFight(ParticleEffectManager manager, Random random) throws IOException {
+			this.manager = manager;
+			this.random = random;
+			map = new ObjenesisStd().newInstance(FightMap.class);
+			map.drawables = new Array<Drawable>(false, 16);
+			map.effects = new Array<ParticleEffect>(false, 16);
+			for (int i = 0; i < CHARACTER_COUNT; ++i) {
+				characters.add(createCharacter(map, random.nextInt(64), random.nextInt(64)));
+			}
+			spark = new ParticleEffectDescriptor(SPARK, 0, 0, 0.5f);
+			fire = new ParticleEffectDescriptor(FIRE, 0, 0, 0);
+		}
+
+		void frame() {
+			for (int i = 0; i < SPARKS_PER_FRAME; ++i) {
+				attach(characters.get(random.nextInt(CHARACTER_COUNT)), spark);
+			}
+			if (frame % FRAMES_PER_FIRE == 0) {
+				GameCharacter character = characters.get(random.nextInt(CHARACTER_COUNT));
+				if (manager.getCount(character, FIRE) > 0) {
+					manager.kill(character, FIRE);
+				} else {
+					attach(character, fire);
+				}
+			}
+			manager.update(FRAME);
+			for (int i = 0; i < map.effects.size; ++i) {
+				map.effects.get(i).update(FRAME);
+			}
+			peakLiveEffects = Math.max(peakLiveEffects, map.drawables.size);
+			int particles = manager.getLiveParticleCount();
+			peakLiveParticles = Math.max(peakLiveParticles, particles);
+			liveParticles += particles;
+			++frame;
+		}
+
+		private void attach(GameObject go, ParticleEffectDescriptor descriptor) {
+			// the manager added the drawable of the effect to the map just now
+			map.effects.add(manager.attachParticleEffect(go, descriptor));
+			++attached;
+		}
+
+		private static GameCharacter createCharacter(GameMap map, int x, int y) {
+			GameCharacter character = new ObjenesisStd().newInstance(GameCharacter.class);
+			GameObjectPosition position = new GameObjectPosition();
+			position.set(x, y);
+			TestEnvironment.setField(GameObject.class, character, "position", position);
+			TestEnvironment.setField(GameObject.class, character, "map", map);
+			TestEnvironment.setField(GameObject.class, character, "s_width", 1f);
+			TestEnvironment.setField(GameObject.class, character, "s_height", 1f);
+			TestEnvironment.setField(GameObject.class, character, "s_active", true);
+			return character;
+		}
+	}
+
+	/**
+	 * A map that only keeps the drawables of the live effects,
+	 * together with the effects they draw.
+	 */
+	static class FightMap extends GameMap {
+		private Array<Drawable> drawables;
+		private Array<ParticleEffect> effects;
+
+		@Override
+		public void addDrawable(Drawable drawable) {
+			drawables.add(drawable);
+		}
+
+		@Override
+		public void removeDrawable(Drawable drawable) {
+			int index = drawables.indexOf(drawable, true);
+			drawables.removeIndex(index);
+			effects.removeIndex(index);
+		}
+	}
+}
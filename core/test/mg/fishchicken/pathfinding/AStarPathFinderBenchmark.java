@@ -0,0 +1,91 @@
+package mg.fishchicken.pathfinding;
+
+import static org.mockito.Mockito.mock;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import mg.fishchicken.core.input.PlayerCharacterController;
+import mg.fishchicken.test.TestEnvironment;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures how long it takes to find paths between random tiles
+ * of synthetic maps, and how long short walks take on a big map.
+ *
+ * Run with "gradle core:benchmark -Pargs=AStarPathFinder".
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AStarPathFinderBenchmark {
+
+	private static final int PATH_COUNT = 64;
+
+	@Param({ "64", "256", "1024" })
+	public int size;
+
+	private SyntheticMap map;
+	private AStarPathFinder finder;
+	private int[] starts, ends, shortEnds;
+	private int next;
+
+	@Setup
+	public void setUp() {
+		TestEnvironment.initGameState();
+		map = new SyntheticMap(size, size);
+		// same search limit GameMap uses
+		finder = new AStarPathFinder(map.getMap(), mock(PlayerCharacterController.class), size, true);
+		starts = new int[PATH_COUNT];
+		ends = new int[PATH_COUNT];
+		shortEnds = new int[PATH_COUNT];
+		Random random = new Random(size);
+		for (int i = 0; i < PATH_COUNT; ++i) {
+			starts[i] = map.getRandomFreeTile(random);
+			ends[i] = map.getRandomFreeTile(random);
+			shortEnds[i] = getNearbyFreeTile(starts[i], random);
+		}
+	}
+
+	// walled in targets would make the finder search the whole map,
+	// so only reachable ones are used
+	private int getNearbyFreeTile(int tile, Random random) {
+		int x = tile % size;
+		int y = tile / size;
+		while (true) {
+			int nx = x + random.nextInt(7) - 3;
+			int ny = y + random.nextInt(7) - 3;
+			if (!map.isBlocked(nx, ny)
+					&& AStarPathFinderTest.findPath(finder, map, tile, nx + ny * size).getLength() > 0) {
+				return nx + ny * size;
+			}
+		}
+	}
+
+	@Benchmark
+	public int randomPath() {
+		next = (next + 1) % PATH_COUNT;
+		return AStarPathFinderTest.findPath(finder, map, starts[next], ends[next]).getLength();
+	}
+
+	@Benchmark
+	public int shortPath() {
+		next = (next + 1) % PATH_COUNT;
+		return AStarPathFinderTest.findPath(finder, map, starts[next], shortEnds[next]).getLength();
+	}
+}
@@ -0,0 +1,127 @@
+package mg.fishchicken.pathfinding;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.util.Random;
+
+import mg.fishchicken.core.input.PlayerCharacterController;
+import mg.fishchicken.test.TestEnvironment;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Checks that the path finder finds the cheapest path on synthetic maps
+ * of different sizes, by comparing it with a plain Dijkstra search, and
+ * that it finds exactly the same paths as the old sorted list search.
+ *
+ * For the timings, see {@link AStarPathFinderBenchmark}.
+ *
+ */
+public class AStarPathFinderTest {
+
+	@BeforeClass
+	public static void setUp() {
+		TestEnvironment.initGameState();
+	}
+
+	@Test
+	public void findsCheapestPathsOn64Map() {
+		checkPaths(64, 200);
+	}
+
+	@Test
+	public void findsCheapestPathsOn256Map() {
+		checkPaths(256, 50);
+	}
+
+	@Test
+	public void findsCheapestPathsOn1024Map() {
+		checkPaths(1024, 5);
+	}
+
+	@Test
+	public void reusedFinderGivesSamePaths() {
+		SyntheticMap map = new SyntheticMap(64, 7);
+		AStarPathFinder reused = createFinder(map);
+		Random random = new Random(11);
+		for (int i = 0; i < 50; ++i) {
+			int start = map.getRandomFreeTile(random);
+			int end = map.getRandomFreeTile(random);
+			Path expected = findPath(createFinder(map), map, start, end);
+			Path actual = findPath(reused, map, start, end);
+			assertEquals(expected.getLength(), actual.getLength());
+			for (int j = 0; j < expected.getLength(); ++j) {
+				assertEquals(expected.getX(j), actual.getX(j));
+				assertEquals(expected.getY(j), actual.getY(j));
+			}
+		}
+	}
+
+	@Test
+	public void findsSamePathsAsSortedListSearch() {
+		for (int size : new int[] { 64, 256 }) {
+			SyntheticMap map = new SyntheticMap(size, size + 1);
+			AStarPathFinder finder = createFinder(map);
+			SortedListPathFinder sortedListFinder = new SortedListPathFinder(map.getMap(), size * size);
+			Random random = new Random(size * 17);
+			for (int i = 0; i < 40; ++i) {
+				int start = map.getRandomFreeTile(random);
+				int end = map.getRandomFreeTile(random);
+				int[] expected = sortedListFinder.findPath(map.getMover(), start % size, start / size, end % size,
+						end / size);
+				Path path = findPath(finder, map, start, end);
+				int[] actual = new int[path.getLength()];
+				for (int j = 0; j < actual.length; ++j) {
+					actual[j] = path.getX(j) + path.getY(j) * size;
+				}
+				assertArrayEquals("path from " + start + " to " + end + " on " + size + " map", expected, actual);
+			}
+		}
+	}
+
+	private void checkPaths(int size, int pathCount) {
+		SyntheticMap map = new SyntheticMap(size, size);
+		AStarPathFinder finder = createFinder(map);
+		Random random = new Random(size * 31);
+		for (int i = 0; i < pathCount; ++i) {
+			int start = map.getRandomFreeTile(random);
+			int end = map.getRandomFreeTile(random);
+			int sx = start % size, sy = start / size;
+			int tx = end % size, ty = end / size;
+			Path path = findPath(finder, map, start, end);
+			double expectedCost = map.getShortestPathCost(sx, sy, tx, ty);
+			String description = "path from [" + sx + ", " + sy + "] to [" + tx + ", " + ty + "]";
+			if (expectedCost < 0) {
+				assertEquals("unexpected " + description, 0, path.getLength());
+				continue;
+			}
+			assertTrue("no " + description, path.getLength() > 0);
+			assertEquals(sx, path.getX(0));
+			assertEquals(sy, path.getY(0));
+			assertEquals(tx, path.getX(path.getLength() - 1));
+			assertEquals(ty, path.getY(path.getLength() - 1));
+			double cost = 0;
+			for (int j = 1; j < path.getLength(); ++j) {
+				float stepCost = map.getStepCost(path.getX(j - 1), path.getY(j - 1), path.getX(j), path.getY(j));
+				assertTrue("invalid step " + j + " of " + description, stepCost >= 0);
+				cost += stepCost;
+			}
+			assertEquals("cost of " + description, expectedCost, cost, 0.001 * expectedCost);
+		}
+	}
+
+	static AStarPathFinder createFinder(SyntheticMap map) {
+		// no depth limit, so that the result can be compared with an exhaustive search
+		return new AStarPathFinder(map.getMap(), mock(PlayerCharacterController.class), map.getSize()
+				* map.getSize(), true);
+	}
+
+	static Path findPath(AStarPathFinder finder, SyntheticMap map, int start, int end) {
+		int size = map.getSize();
+		return finder.findPath(map.getMover(), start % size, start / size, end % size, end / size);
+	}
+}
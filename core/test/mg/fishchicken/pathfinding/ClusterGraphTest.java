@@ -0,0 +1,164 @@
+package mg.fishchicken.pathfinding;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import mg.fishchicken.core.configuration.Configuration;
+import mg.fishchicken.test.TestEnvironment;
+
+import org.junit.After;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.badlogic.gdx.utils.IntArray;
+
+/**
+ * Checks that the hierarchical search finds valid paths that are close
+ * to the ones of the flat search, and that the cluster graph is rebuilt
+ * correctly when a door is opened or closed.
+ *
+ */
+public class ClusterGraphTest {
+
+	/** How much longer than the cheapest path a hierarchical path may be */
+	private static final double MAX_COST_RATIO = 1.3;
+
+	@BeforeClass
+	public static void setUp() {
+		TestEnvironment.initGameState();
+	}
+
+	@After
+	public void tearDown() {
+		setHierarchicalPathfinding(false);
+	}
+
+	@Test
+	public void hierarchicalPathsAreCloseToFlatPaths() {
+		SyntheticMap map = new SyntheticMap(256, 256);
+		AStarPathFinder flat = AStarPathFinderTest.createFinder(map);
+		AStarPathFinder hierarchical = AStarPathFinderTest.createFinder(map);
+		Random random = new Random(5);
+		for (int i = 0; i < 50; ++i) {
+			int start = map.getRandomFreeTile(random);
+			int end = map.getRandomFreeTile(random);
+			setHierarchicalPathfinding(false);
+			Path flatPath = AStarPathFinderTest.findPath(flat, map, start, end);
+			setHierarchicalPathfinding(true);
+			Path hierarchicalPath = AStarPathFinderTest.findPath(hierarchical, map, start, end);
+
+			String description = "path from " + start + " to " + end;
+			assertEquals(description, flatPath.getLength() > 0, hierarchicalPath.getLength() > 0);
+			if (flatPath.getLength() == 0) {
+				continue;
+			}
+			double flatCost = getCost(map, flatPath, description);
+			double hierarchicalCost = getCost(map, hierarchicalPath, description);
+			assertEquals(flatPath.getX(flatPath.getLength() - 1), hierarchicalPath.getX(hierarchicalPath.getLength() - 1));
+			assertEquals(flatPath.getY(flatPath.getLength() - 1), hierarchicalPath.getY(hierarchicalPath.getLength() - 1));
+			assertTrue("cost of " + description + " is " + hierarchicalCost + " instead of " + flatCost,
+					hierarchicalCost <= flatCost * MAX_COST_RATIO);
+		}
+	}
+
+	@Test
+	public void waypointsFollowOpenedAndClosedDoor() {
+		SyntheticMap map = createWalledMap();
+		ClusterGraph graph = new ClusterGraph(map.getMap(), 16);
+		IntArray waypoints = new IntArray();
+
+		assertTrue(graph.findWaypoints(4, 40, 60, 40, waypoints));
+		assertTrue(containsWaypoint(waypoints, 32, 40));
+
+		map.setBlocked(32, 40, true);
+		graph.tileChanged(32, 40);
+		assertFalse(graph.findWaypoints(4, 40, 60, 40, waypoints));
+
+		map.setBlocked(32, 40, false);
+		graph.tileChanged(32, 40);
+		assertTrue(graph.findWaypoints(4, 40, 60, 40, waypoints));
+		assertTrue(containsWaypoint(waypoints, 32, 40));
+	}
+
+	@Test
+	public void incrementalRebuildMatchesFreshGraph() {
+		SyntheticMap map = new SyntheticMap(128, 3);
+		ClusterGraph graph = new ClusterGraph(map.getMap(), 16);
+		IntArray waypoints = new IntArray();
+		Random random = new Random(9);
+		// build the whole graph first, so that the toggles below are incremental
+		graph.findWaypoints(0, 0, 0, 0, waypoints);
+
+		for (int round = 0; round < 20; ++round) {
+			for (int i = 0; i < 10; ++i) {
+				int x = random.nextInt(map.getSize());
+				int y = random.nextInt(map.getSize());
+				map.setBlocked(x, y, !map.isBlocked(x, y));
+				graph.tileChanged(x, y);
+			}
+			ClusterGraph freshGraph = new ClusterGraph(map.getMap(), 16);
+			for (int i = 0; i < 5; ++i) {
+				int start = map.getRandomFreeTile(random);
+				int end = map.getRandomFreeTile(random);
+				int size = map.getSize();
+				boolean expected = freshGraph.findWaypoints(start % size, start / size, end % size, end / size,
+						waypoints);
+				boolean actual = graph.findWaypoints(start % size, start / size, end % size, end / size, waypoints);
+				String description = "waypoints from " + start + " to " + end;
+				assertEquals(description, expected, actual);
+				// rebuilt entrances change the order of the nodes, so paths
+				// of equal cost can be picked differently, only the cost must match
+				if (expected) {
+					assertEquals(description, getLastPathCost(freshGraph), getLastPathCost(graph), 0.001f);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Creates a map split in two by a wall with a single door at [32, 40],
+	 * with a free row leading to it from both sides.
+	 */
+	private static SyntheticMap createWalledMap() {
+		SyntheticMap map = new SyntheticMap(64, 13);
+		for (int x = 0; x < map.getSize(); ++x) {
+			map.setBlocked(x, 40, false);
+		}
+		for (int y = 0; y < map.getSize(); ++y) {
+			map.setBlocked(32, y, y != 40);
+		}
+		return map;
+	}
+
+	private static float getLastPathCost(ClusterGraph graph) {
+		Object goalNode = TestEnvironment.getField(ClusterGraph.class, graph, "goalNode");
+		return TestEnvironment.<Float> getField(goalNode.getClass(), goalNode, "cost");
+	}
+
+	private static boolean containsWaypoint(IntArray waypoints, int x, int y) {
+		for (int i = 0; i + 1 < waypoints.size; i += 2) {
+			if (waypoints.get(i) == x && waypoints.get(i + 1) == y) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static double getCost(SyntheticMap map, Path path, String description) {
+		double cost = 0;
+		for (int j = 1; j < path.getLength(); ++j) {
+			float stepCost = map.getStepCost(path.getX(j - 1), path.getY(j - 1), path.getX(j), path.getY(j));
+			assertTrue("invalid step " + j + " of " + description, stepCost >= 0);
+			cost += stepCost;
+		}
+		return cost;
+	}
+
+	private static void setHierarchicalPathfinding(boolean enabled) {
+		Configuration configuration = TestEnvironment.getField(Configuration.class, null, "configuration");
+		TestEnvironment.setField(Configuration.class, configuration, "hierarchicalPathfinding", enabled);
+	}
+}
@@ -0,0 +1,249 @@
+package mg.fishchicken.pathfinding;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+import mg.fishchicken.core.GameObject;
+import mg.fishchicken.gamelogic.characters.AbstractGameCharacter;
+import mg.fishchicken.gamelogic.locations.GameMap;
+import mg.fishchicken.pathfinding.heuristics.ClosestHeuristic;
+
+/**
+ * The search loop AStarPathFinder used before it got its NodeHeap,
+ * with the sorted LinkedList open list and the ArrayList closed list,
+ * kept as a reference for the paths the new one has to find.
+ *
+ * Only the peace time movement costs are used, which is all
+ * the synthetic maps need.
+ *
+ */
+public class SortedListPathFinder {
+
+	private ArrayList<Node> closed = new ArrayList<Node>();
+	private PriorityList open = new PriorityList();
+	private AStarHeuristic heuristic = new ClosestHeuristic();
+	private GameMap map;
+	private int maxSearchDistance;
+	private Node[][] nodes;
+	private Node current;
+	private int targetX;
+	private int targetY;
+	private boolean destinationBlocked;
+
+	public SortedListPathFinder(GameMap map, int maxSearchDistance) {
+		this.map = map;
+		this.maxSearchDistance = maxSearchDistance;
+		nodes = new Node[map.getMapWidth()][map.getMapHeight()];
+		for (int x = 0; x < map.getMapWidth(); x++) {
+			for (int y = 0; y < map.getMapHeight(); y++) {
+				nodes[x][y] = new Node(x, y);
+			}
+		}
+	}
+
+	/**
+	 * Finds the path between the supplied tiles.
+	 *
+	 * @return the tiles of the path, as x + y * map width, from the start to the target,
+	 * or an empty array if there is no path
+	 */
+	public int[] findPath(GameObject mover, int sx, int sy, int tx, int ty) {
+		current = null;
+		targetX = tx;
+		targetY = ty;
+		destinationBlocked = map.blocked(mover, tx, ty);
+		if (sx == tx && sy == ty) {
+			return new int[] { tx + ty * map.getMapWidth() };
+		}
+
+		for (int x = 0; x < map.getMapWidth(); x++) {
+			for (int y = 0; y < map.getMapHeight(); y++) {
+				nodes[x][y].reset();
+			}
+		}
+		nodes[sx][sy].cost = 0;
+		nodes[sx][sy].depth = 0;
+		closed.clear();
+		open.clear();
+		addToOpen(nodes[sx][sy]);
+		nodes[tx][ty].parent = null;
+
+		int maxDepth = 0;
+		while ((maxDepth < maxSearchDistance) && (open.size() != 0)) {
+			int lx = sx;
+			int ly = sy;
+			if (current != null) {
+				lx = current.x;
+				ly = current.y;
+			}
+			current = open.first();
+			if (current == nodes[tx][ty]) {
+				if (isValidLocation(mover, lx, ly, tx, ty)) {
+					break;
+				}
+			}
+			removeFromOpen(current);
+			addToClosed(current);
+
+			for (int x = -1; x < 2; x++) {
+				for (int y = -1; y < 2; y++) {
+					if ((x == 0) && (y == 0)) {
+						continue;
+					}
+					int xp = x + current.x;
+					int yp = y + current.y;
+					if (isValidLocation(mover, current.x, current.y, xp, yp)) {
+						float nextStepCost = current.cost + getMovementCost(mover, current.x, current.y, xp, yp);
+						Node neighbour = nodes[xp][yp];
+						if (nextStepCost < neighbour.cost) {
+							if (neighbour.open) {
+								removeFromOpen(neighbour);
+							}
+							if (neighbour.closed) {
+								removeFromClosed(neighbour);
+							}
+						}
+						if (!neighbour.open && !neighbour.closed) {
+							neighbour.cost = nextStepCost;
+							neighbour.heuristic = heuristic.getCost(map, mover, xp, yp, tx, ty);
+							maxDepth = Math.max(maxDepth, neighbour.setParent(current));
+							addToOpen(neighbour);
+						}
+					}
+				}
+			}
+		}
+
+		if (nodes[tx][ty].parent == null) {
+			return new int[0];
+		}
+		List<Integer> tiles = new LinkedList<Integer>();
+		Node node = nodes[tx][ty];
+		while (node != nodes[sx][sy]) {
+			tiles.add(0, node.x + node.y * map.getMapWidth());
+			node = node.parent;
+		}
+		tiles.add(0, sx + sy * map.getMapWidth());
+		int[] path = new int[tiles.size()];
+		for (int i = 0; i < path.length; ++i) {
+			path[i] = tiles.get(i);
+		}
+		return path;
+	}
+
+	private void addToOpen(Node node) {
+		node.open = true;
+		open.add(node);
+	}
+
+	private void removeFromOpen(Node node) {
+		node.open = false;
+		open.remove(node);
+	}
+
+	private void addToClosed(Node node) {
+		node.closed = true;
+		closed.add(node);
+	}
+
+	private void removeFromClosed(Node node) {
+		node.closed = false;
+		closed.remove(node);
+	}
+
+	private boolean isValidLocation(GameObject mover, int sx, int sy, int x, int y) {
+		boolean invalid = x < 0 || y < 0 || x >= map.getMapWidth() || y >= map.getMapHeight();
+		if (!invalid && (sx != x || sy != y)) {
+			if (!destinationBlocked || x != targetX || y != targetY) {
+				invalid = map.blocked(mover, x, y) || (map.blocked(mover, sx, y) && map.blocked(mover, x, sy));
+			}
+		}
+		return !invalid;
+	}
+
+	private float getMovementCost(GameObject mover, int fromX, int fromY, int toX, int toY) {
+		float cost = map.getMoveCost((AbstractGameCharacter) mover, toX, toY);
+		if (fromX != toX && fromY != toY && (!destinationBlocked || (targetX != toX && targetY != toY))) {
+			if (!map.blocked(mover, fromX, toY) && !map.blocked(mover, toX, fromY)) {
+				cost = 1.5f * cost;
+			} else {
+				cost = 2.5f * cost;
+			}
+		}
+		return cost;
+	}
+
+	private static class PriorityList {
+		private List<Node> list = new LinkedList<Node>();
+
+		public Node first() {
+			return list.get(0);
+		}
+
+		public void clear() {
+			list.clear();
+		}
+
+		public void add(Node o) {
+			for (int i = 0; i < list.size(); i++) {
+				if ((list.get(i)).compareTo(o) > 0) {
+					list.add(i, o);
+					break;
+				}
+			}
+			if (!list.contains(o)) {
+				list.add(o);
+			}
+		}
+
+		public void remove(Node o) {
+			list.remove(o);
+		}
+
+		public int size() {
+			return list.size();
+		}
+	}
+
+	private static class Node implements Comparable<Node> {
+		private int x;
+		private int y;
+		private float cost;
+		private Node parent;
+		private float heuristic;
+		private int depth;
+		private boolean open;
+		private boolean closed;
+
+		public Node(int x, int y) {
+			this.x = x;
+			this.y = y;
+		}
+
+		public int setParent(Node parent) {
+			depth = parent.depth + 1;
+			this.parent = parent;
+			return depth;
+		}
+
+		public int compareTo(Node other) {
+			float f = heuristic + cost;
+			float of = other.heuristic + other.cost;
+			if (f < of) {
+				return -1;
+			} else if (f > of) {
+				return 1;
+			} else {
+				return 0;
+			}
+		}
+
+		public void reset() {
+			closed = false;
+			open = false;
+			cost = 0;
+			depth = 0;
+		}
+	}
+}
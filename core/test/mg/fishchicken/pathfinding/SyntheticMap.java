@@ -0,0 +1,273 @@
+package mg.fishchicken.pathfinding;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import mg.fishchicken.core.GameObject;
+import mg.fishchicken.gamelogic.actions.Action;
+import mg.fishchicken.gamelogic.actions.MoveToAction;
+import mg.fishchicken.gamelogic.characters.AbstractGameCharacter;
+import mg.fishchicken.gamelogic.characters.GameCharacter;
+import mg.fishchicken.gamelogic.locations.GameMap;
+import mg.fishchicken.gamelogic.traps.TrapLocation;
+
+import org.objenesis.ObjenesisStd;
+
+import com.badlogic.gdx.utils.ObjectSet;
+
+/**
+ * A randomly generated square map for path finding tests and benchmarks.
+ *
+ * The map is a GameMap that only answers the questions the path finder asks,
+ * and the mover is a character without any stats. Both are created without
+ * calling their constructors, since those need a running game.
+ * Mockito is not used here, because its stubs would dominate the measured times.
+ *
+ * The map is filled with random wall segments and tiles with move costs from 1 to 3.
+ *
+ */
+public class SyntheticMap {
+
+	private final int size;
+	private final boolean[] blocked;
+	private final float[] moveCosts;
+	private final TestGameMap map;
+	private final TestCharacter mover;
+
+	public SyntheticMap(int size, long seed) {
+		this.size = size;
+		blocked = new boolean[size * size];
+		moveCosts = new float[size * size];
+
+		Random random = new Random(seed);
+		for (int i = 0; i < moveCosts.length; ++i) {
+			moveCosts[i] = 1 + random.nextInt(3);
+		}
+		int walls = size * size / 24;
+		for (int i = 0; i < walls; ++i) {
+			int x = random.nextInt(size);
+			int y = random.nextInt(size);
+			int length = 2 + random.nextInt(10);
+			boolean horizontal = random.nextBoolean();
+			for (int j = 0; j < length; ++j) {
+				int wx = horizontal ? x + j : x;
+				int wy = horizontal ? y : y + j;
+				if (wx < size && wy < size) {
+					blocked[wx + wy * size] = true;
+				}
+			}
+		}
+
+		map = new ObjenesisStd().newInstance(TestGameMap.class);
+		map.owner = this;
+		mover = new ObjenesisStd().newInstance(TestCharacter.class);
+	}
+
+	public GameMap getMap() {
+		return map;
+	}
+
+	public GameCharacter getMover() {
+		return mover;
+	}
+
+	public int getSize() {
+		return size;
+	}
+
+	public boolean isInside(int x, int y) {
+		return x >= 0 && y >= 0 && x < size && y < size;
+	}
+
+	public boolean isBlocked(int x, int y) {
+		return !isInside(x, y) || blocked[x + y * size];
+	}
+
+	/**
+	 * Changes whether the supplied tile is blocked, like opening
+	 * or closing a door would. The path finder of the map must be
+	 * notified separately.
+	 */
+	public void setBlocked(int x, int y, boolean blocked) {
+		this.blocked[x + y * size] = blocked;
+	}
+
+	public float getMoveCost(int x, int y) {
+		return moveCosts[x + y * size];
+	}
+
+	/**
+	 * Returns a random tile that is not blocked, as x + y * size.
+	 *
+	 * @param random
+	 * @return
+	 */
+	public int getRandomFreeTile(Random random) {
+		while (true) {
+			int x = random.nextInt(size);
+			int y = random.nextInt(size);
+			if (!isBlocked(x, y)) {
+				return x + y * size;
+			}
+		}
+	}
+
+	/**
+	 * Returns the cost of moving from one tile to its neighbour using
+	 * the same rules the path finder uses outside of combat.
+	 *
+	 * @return -1 if the move is not allowed
+	 */
+	public float getStepCost(int fromX, int fromY, int toX, int toY) {
+		if (Math.abs(toX - fromX) > 1 || Math.abs(toY - fromY) > 1 || (fromX == toX && fromY == toY)) {
+			return -1;
+		}
+		if (isBlocked(toX, toY) || (isBlocked(fromX, toY) && isBlocked(toX, fromY))) {
+			return -1;
+		}
+		float cost = getMoveCost(toX, toY);
+		if (fromX != toX && fromY != toY) {
+			cost *= !isBlocked(fromX, toY) && !isBlocked(toX, fromY) ? 1.5f : 2.5f;
+		}
+		return cost;
+	}
+
+	/**
+	 * Finds the cost of the cheapest path between the two supplied tiles
+	 * using plain Dijkstra, as a reference for the path finder.
+	 *
+	 * @return -1 if there is no path
+	 */
+	public double getShortestPathCost(int sx, int sy, int tx, int ty) {
+		double[] costs = new double[size * size];
+		Arrays.fill(costs, Double.MAX_VALUE);
+		PriorityQueue<double[]> open = new PriorityQueue<double[]>(64, new Comparator<double[]>() {
+			@Override
+			public int compare(double[] o1, double[] o2) {
+				return Double.compare(o1[0], o2[0]);
+			}
+		});
+		costs[sx + sy * size] = 0;
+		open.add(new double[] { 0, sx + sy * size });
+		while (!open.isEmpty()) {
+			double[] entry = open.poll();
+			int node = (int) entry[1];
+			if (entry[0] > costs[node]) {
+				continue;
+			}
+			int x = node % size;
+			int y = node / size;
+			if (x == tx && y == ty) {
+				return entry[0];
+			}
+			for (int dx = -1; dx <= 1; ++dx) {
+				for (int dy = -1; dy <= 1; ++dy) {
+					float stepCost = getStepCost(x, y, x + dx, y + dy);
+					if (stepCost < 0) {
+						continue;
+					}
+					int neighbour = x + dx + (y + dy) * size;
+					double cost = entry[0] + stepCost;
+					if (cost < costs[neighbour]) {
+						costs[neighbour] = cost;
+						open.add(new double[] { cost, neighbour });
+					}
+				}
+			}
+		}
+		return -1;
+	}
+
+	private static class TestGameMap extends GameMap {
+		private SyntheticMap owner;
+
+		@Override
+		public int getMapWidth() {
+			return owner.size;
+		}
+
+		@Override
+		public int getMapHeight() {
+			return owner.size;
+		}
+
+		@Override
+		public boolean tileUnavailable(int tx, int ty) {
+			return !owner.isInside(tx, ty);
+		}
+
+		@Override
+		public boolean blocked(GameObject mover, int tx, int ty) {
+			return owner.isBlocked(tx, ty);
+		}
+
+		@Override
+		public boolean blockedByMap(int tx, int ty) {
+			return owner.isBlocked(tx, ty);
+		}
+
+		@Override
+		public float getMoveCost(AbstractGameCharacter mover, int tx, int ty) {
+			return owner.getMoveCost(tx, ty);
+		}
+
+		@Override
+		public float getAPMoveCost(AbstractGameCharacter mover, int tx, int ty) {
+			return 1;
+		}
+
+		@Override
+		public boolean isNextToEnemy(AbstractGameCharacter character, int x, int y) {
+			return false;
+		}
+
+		@Override
+		public TrapLocation getDetectedTrapLocationAt(float x, float y) {
+			return null;
+		}
+
+		@Override
+		public GameObject getGameObjectAt(float x, float y, Class<?>... types) {
+			return null;
+		}
+
+		@Override
+		public <T extends GameObject> void getAllGameObjectsAt(ObjectSet<T> returnValue, float x, float y,
+				boolean onTile, boolean includeInactive, Class<?>... types) {
+		}
+
+		@Override
+		public Class<? extends Action> getActionForTarget(GameObject actionPerformer, GameObject target) {
+			return MoveToAction.class;
+		}
+	}
+
+	private static class TestCharacter extends GameCharacter {
+		@Override
+		public boolean canPerformAction(Class<? extends Action> actionClass) {
+			return true;
+		}
+
+		@Override
+		public int getCostForAction(Class<? extends Action> action, Object target) {
+			return 0;
+		}
+
+		@Override
+		public boolean belongsToPlayerFaction() {
+			return false;
+		}
+
+		@Override
+		public boolean isSneaking() {
+			return false;
+		}
+
+		@Override
+		public boolean isDetectingTraps() {
+			return false;
+		}
+	}
+}
@@ -0,0 +1,165 @@
+package mg.fishchicken.test;
+
+import static org.mockito.Mockito.mock;
+
+import java.lang.reflect.Field;
+import java.nio.IntBuffer;
+
+import mg.fishchicken.core.GameState;
+import mg.fishchicken.core.configuration.Configuration;
+import mg.fishchicken.gamelogic.combat.CombatManager;
+
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.objenesis.ObjenesisStd;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.backends.headless.HeadlessApplicationConfiguration;
+import com.badlogic.gdx.physics.box2d.Box2D;
+
+/**
+ * Sets up the global state the game code expects, without
+ * loading any module or opening a window.
+ *
+ * All methods can be called repeatedly, they only do their
+ * work the first time.
+ *
+ */
+public class TestEnvironment {
+
+	private static boolean gdxInitialized;
+	private static boolean glInitialized;
+	private static boolean configurationInitialized;
+	private static GameState gameState;
+
+	private TestEnvironment() {
+	}
+
+	/**
+	 * Starts a headless application, so that Gdx.files and Gdx.app
+	 * are available, and loads the Box2D natives.
+	 */
+	public static synchronized void initGdx() {
+		if (gdxInitialized) {
+			return;
+		}
+		HeadlessApplicationConfiguration config = new HeadlessApplicationConfiguration();
+		// we never render anything, so there is no need to run the loop
+		config.renderInterval = -1;
+		new HeadlessApplication(new ApplicationAdapter() {}, config);
+		Box2D.init();
+		gdxInitialized = true;
+	}
+
+	/**
+	 * Installs a GL20 that does nothing, but reports every shader,
+	 * program and frame buffer as successfully created, so that classes
+	 * which create those in their constructors, like RayHandler, can be used.
+	 */
+	public static synchronized void initGl() {
+		if (glInitialized) {
+			return;
+		}
+		initGdx();
+		Gdx.gl = Gdx.gl20 = mock(GL20.class, new Answer<Object>() {
+			@Override
+			public Object answer(InvocationOnMock invocation) {
+				String name = invocation.getMethod().getName();
+				if ("glCheckFramebufferStatus".equals(name)) {
+					return GL20.GL_FRAMEBUFFER_COMPLETE;
+				}
+				if ("glGetShaderiv".equals(name) || "glGetProgramiv".equals(name)) {
+					// compile and link status, number of attributes and uniforms
+					invocation.<IntBuffer>getArgument(2).put(0, 1);
+					return null;
+				}
+				Class<?> returnType = invocation.getMethod().getReturnType();
+				if (returnType == String.class) {
+					return "";
+				} else if (returnType == int.class) {
+					// a valid handle
+					return 1;
+				} else if (returnType == boolean.class) {
+					return false;
+				} else if (returnType == float.class) {
+					return 0f;
+				}
+				return null;
+			}
+		});
+		glInitialized = true;
+	}
+
+	/**
+	 * Creates a Configuration with all the default values.
+	 */
+	public static synchronized void initConfiguration() {
+		if (configurationInitialized) {
+			return;
+		}
+		initGdx();
+		Configuration.createConfiguration(Gdx.files);
+		configurationInitialized = true;
+	}
+
+	/**
+	 * Installs a GameState that only has a CombatManager,
+	 * which is enough for code that asks whether combat is in progress.
+	 *
+	 * The real constructor needs a running game, so the
+	 * instance is created without calling it.
+	 *
+	 * @return
+	 */
+	public static synchronized GameState initGameState() {
+		if (gameState != null) {
+			return gameState;
+		}
+		initConfiguration();
+		GameState state = new ObjenesisStd().newInstance(GameState.class);
+		setField(GameState.class, state, "combatManager", new CombatManager(state));
+		setField(GameState.class, null, "gameState", state);
+		gameState = state;
+		return gameState;
+	}
+
+	/**
+	 * Sets the value of the supplied declared field, which can also be private or static.
+	 *
+	 * @param type
+	 * @param instance null for static fields
+	 * @param fieldName
+	 * @param value
+	 */
+	public static void setField(Class<?> type, Object instance, String fieldName, Object value) {
+		try {
+			Field field = type.getDeclaredField(fieldName);
+			field.setAccessible(true);
+			field.set(instance, value);
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException("Cannot set field "+fieldName+" of "+type.getName(), e);
+		}
+	}
+
+	/**
+	 * Returns the value of the supplied declared field, which can also be private or static.
+	 *
+	 * @param type
+	 * @param instance null for static fields
+	 * @param fieldName
+	 * @return
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> T getField(Class<?> type, Object instance, String fieldName) {
+		try {
+			Field field = type.getDeclaredField(fieldName);
+			field.setAccessible(true);
+			return (T) field.get(instance);
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException("Cannot get field "+fieldName+" of "+type.getName(), e);
+		}
+	}
+}
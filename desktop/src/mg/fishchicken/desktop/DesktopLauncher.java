@@ -16,6 +16,8 @@ public class DesktopLauncher {
 		
 		boolean shouldPack = arg.length == 1 && "pack".equals(arg[0]);
 		boolean shouldCompile = arg.length == 2 && "compile".equals(arg[0]);
+		boolean shouldCache = arg.length == 3 && "cache".equals(arg[0]);
+		boolean shouldVerifyCache = arg.length == 3 && "verifycache".equals(arg[0]);
 		
 		if (shouldCompile) {
 			String folderName = arg[1];
@@ -24,6 +26,16 @@ public class DesktopLauncher {
 			return;
 		}
 		
+		if (shouldCache || shouldVerifyCache) {
+			ModuleCacheBuilder builder = new ModuleCacheBuilder(arg[1], arg[2]);
+			if (shouldCache) {
+				builder.build();
+			} else {
+				builder.verify();
+			}
+			return;
+		}
+		
 		if (shouldPack) {
 			Settings settings = new Settings();
 			settings.maxHeight = 2048;
@@ -0,0 +1,86 @@
+package mg.fishchicken.desktop;
+
+import java.io.IOException;
+import java.util.Locale;
+
+import mg.fishchicken.core.assets.ModuleDataCache;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.SerializationException;
+
+/**
+ * Builds the {@link ModuleDataCache} of a module ahead of time, so that
+ * even the first launch does not need to parse its XML files, or verifies
+ * that an existing cache matches what parsing the files gives.
+ *
+ */
+public class ModuleCacheBuilder {
+
+	private FileHandle moduleFolder;
+	private FileHandle cacheFile;
+	private int processedCount, failedCount;
+
+	public ModuleCacheBuilder(String moduleFolderName, String cacheFileName) {
+		this.moduleFolder = new FileHandle(moduleFolderName);
+		this.cacheFile = new FileHandle(cacheFileName);
+	}
+
+	public void build() {
+		if (!moduleFolder.isDirectory()) {
+			System.out.println("Supplied folder \""+moduleFolder.path()+"\" is not a directory, aborting.");
+			return;
+		}
+
+		long start = System.nanoTime();
+		ModuleDataCache.load(moduleFolder, cacheFile);
+		processFolder(moduleFolder, false);
+		boolean written = ModuleDataCache.save();
+		System.out.println("Processed "+processedCount+" files ("+failedCount+" failed) in "
+				+(System.nanoTime() - start) / 1000000+" ms, "+ModuleDataCache.size()+" files cached.");
+		System.out.println(written ? "Cache written into \""+cacheFile.path()+"\"." : "Cache \""+cacheFile.path()+"\" was already up to date.");
+	}
+
+	public void verify() {
+		if (!moduleFolder.isDirectory()) {
+			System.out.println("Supplied folder \""+moduleFolder.path()+"\" is not a directory, aborting.");
+			return;
+		}
+		if (!cacheFile.exists()) {
+			System.out.println("Cache \""+cacheFile.path()+"\" does not exist, aborting.");
+			return;
+		}
+
+		ModuleDataCache.load(moduleFolder, cacheFile);
+		processFolder(moduleFolder, true);
+		System.out.println("Verified "+processedCount+" files, "+failedCount+" do not match the cache.");
+	}
+
+	private void processFolder(FileHandle folder, boolean verify) {
+		for (FileHandle child : folder.list()) {
+			if (child.isDirectory()) {
+				processFolder(child, verify);
+			} else if (child.name().toLowerCase(Locale.ENGLISH).endsWith(".xml")) {
+				processFile(child, verify);
+			}
+		}
+	}
+
+	private void processFile(FileHandle file, boolean verify) {
+		++processedCount;
+		try {
+			if (verify) {
+				String difference = ModuleDataCache.verify(file);
+				if (difference != null) {
+					++failedCount;
+					System.out.println("File \""+file.path()+"\" does not match the cache: "+difference);
+				}
+			} else {
+				ModuleDataCache.parse(file);
+			}
+		} catch (IOException | SerializationException | GdxRuntimeException e) {
+			++failedCount;
+			System.out.println("Exception while reading file \""+file.path()+"\": "+e.getMessage());
+		}
+	}
+}
@@ -1,7 +1,5 @@
 package mg.fishchicken.desktop;
 
-import groovy.lang.Script;
-
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileInputStream;
@@ -10,6 +8,7 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.util.Locale;
 
+import mg.fishchicken.core.util.CompiledScript;
 import mg.fishchicken.core.util.GroovyUtil;
 import mg.fishchicken.core.util.StringUtil;
 import mg.fishchicken.core.util.XMLUtil;
@@ -38,6 +37,7 @@ public class ScriptCompiler {
 	
 	private File sourceFolder;
 	private File targetFolder;
+	private int compiledCount, staticallyCompiledCount;
 	
 	public ScriptCompiler(String folderName) {
 		this.sourceFolder = new File(folderName);
@@ -52,7 +52,10 @@ public class ScriptCompiler {
 			System.out.println("Supplied folder \""+sourceFolder+"\"is not a directory, aborting.");
 		}
 		
+		long start = System.nanoTime();
 		processFolder(sourceFolder);
+		System.out.println("Compiled "+compiledCount+" scripts ("+staticallyCompiledCount+" statically) in "
+				+(System.nanoTime() - start) / 1000000+" ms.");
 	}
 	
 	private void processFolder(File folder) {
@@ -106,8 +109,13 @@ public class ScriptCompiler {
 					}
 					String id = calculateScriptId(nameWihoutExtension, ++scriptCounter, scriptElement);
 					System.out.println("Compiling script \""+id+"\"");
-					Script script = GroovyUtil.createScript(id, scriptElement.getText(), targetFolder.getAbsolutePath());
+					CompiledScript script = GroovyUtil.createScript(id, scriptElement.getText(), targetFolder.getAbsolutePath(), true);
 					if (script != null) {
+						++compiledCount;
+						if (script.isStaticallyCompiled()) {
+							++staticallyCompiledCount;
+							System.out.println("Script \""+id+"\" compiled statically");
+						}
 						scriptElement.setAttribute(XMLUtil.XML_ATTRIBUTE_ID, id);
 						scriptElement.setText(scriptElement.getText() != null ? scriptElement.getText().replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;") : null);
 						changed = true;